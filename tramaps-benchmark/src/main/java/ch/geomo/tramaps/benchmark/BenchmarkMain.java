@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options. Unless specified otherwise, the results are written
+ * as JSON to <code>jmh-result.json</code> in order to be compared with {@link ResultComparison}.
+ */
+public class BenchmarkMain {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String... args) {
+        try {
+            CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+            ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+            if (!commandLineOptions.getResultFormat().hasValue()) {
+                builder.resultFormat(ResultFormatType.JSON);
+            }
+            if (!commandLineOptions.getResult().hasValue()) {
+                builder.result(DEFAULT_RESULT_FILE);
+            }
+            new Runner(builder.build()).run();
+        }
+        catch (CommandLineOptionException e) {
+            System.err.println("Invalid options: " + e.getMessage());
+            System.exit(1);
+        }
+        catch (RunnerException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+}
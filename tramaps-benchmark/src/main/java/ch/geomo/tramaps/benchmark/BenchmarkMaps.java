@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.benchmark;
+
+import ch.geomo.tramaps.example.MetroMapChapterFive;
+import ch.geomo.tramaps.example.MetroMapExampleGraph;
+import ch.geomo.tramaps.example.MetroMapRectangle;
+import ch.geomo.tramaps.example.MetroMapZuerich;
+import ch.geomo.tramaps.example.generator.MetroMapGenerator;
+import ch.geomo.tramaps.example.generator.NetworkTopology;
+import ch.geomo.tramaps.map.MetroMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+
+/**
+ * Creates the input maps of the benchmarks, referred by name in the parameters of a benchmark. Besides the
+ * bundled examples, generated networks are referred by topology and station count, e.g. <code>RADIAL_5000</code>.
+ */
+public enum BenchmarkMaps {
+
+    /* util class */;
+
+    private static final long SEED = 42;
+
+    @NotNull
+    public static MetroMap create(@NotNull String name) {
+        switch (name) {
+            case "CHAPTER_FIVE":
+                return new MetroMapChapterFive();
+            case "EXAMPLE_GRAPH":
+                return new MetroMapExampleGraph();
+            case "ZUERICH":
+                return new MetroMapZuerich();
+            case "RECTANGLE":
+                return new MetroMapRectangle();
+            default:
+                int separator = name.lastIndexOf('_');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Unknown benchmark map: " + name);
+                }
+                return new MetroMapGenerator(SEED)
+                        .setTopology(NetworkTopology.valueOf(name.substring(0, separator).toUpperCase(Locale.ROOT)))
+                        .setStationCount(Integer.parseInt(name.substring(separator + 1)))
+                        .generate();
+        }
+    }
+
+}
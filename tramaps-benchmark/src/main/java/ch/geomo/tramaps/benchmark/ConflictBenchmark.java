@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.benchmark;
+
+import ch.geomo.tramaps.conflict.BufferConflict;
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.conflict.ConflictFinder;
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.util.collection.pair.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conflict detection, which is evaluated at least once per iteration of the layout algorithms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConflictBenchmark {
+
+    @Param({"CHAPTER_FIVE", "EXAMPLE_GRAPH", "ZUERICH", "GRID_100", "RADIAL_100", "CORRIDOR_100", "JUNCTION_100", "GRID_400"})
+    public String input;
+
+    private MetroMap map;
+    private Node node;
+    private Node otherNode;
+    private Edge edge;
+    private BufferConflict conflict;
+
+    /**
+     * Creates the map per iteration since the buffers created by the conflict detection remain registered as
+     * observers of the map's elements.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        map = BenchmarkMaps.create(input);
+        List<Node> nodes = map.getNodes().toList();
+        node = nodes.get(0);
+        otherNode = nodes.get(nodes.size() / 2);
+        edge = map.getEdges().stream()
+                .filter(e -> !e.isAdjacent(node))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        conflict = map.evaluateConflicts(true).stream()
+                .filter(BufferConflict.class::isInstance)
+                .map(BufferConflict.class::cast)
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Benchmark
+    public List<Conflict> findConflicts() {
+        return new ConflictFinder(map, map.getRouteMargin(), map.getEdgeMargin(), map.getNodeMargin())
+                .getConflicts(0.25, true);
+    }
+
+    @Benchmark
+    public boolean hasNodeEdgeConflict() {
+        return ConflictFinder.hasConflict(node, edge, map);
+    }
+
+    @Benchmark
+    public boolean hasNodeNodeConflict() {
+        return ConflictFinder.hasConflict(node, otherNode, map);
+    }
+
+    /**
+     * Measures the evaluation of a single buffer conflict, which calculates the conflict polygon and the
+     * displacement vector.
+     */
+    @Benchmark
+    public BufferConflict evaluateBufferConflict() {
+        if (conflict == null) {
+            return null;
+        }
+        return new BufferConflict(Pair.of(conflict.getBufferA(), conflict.getBufferB()));
+    }
+
+}
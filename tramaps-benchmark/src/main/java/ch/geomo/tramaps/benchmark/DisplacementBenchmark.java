@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.benchmark;
+
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.alg.NodeDisplacer;
+import ch.geomo.tramaps.map.displacement.alg.adjustment.EdgeAdjuster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single step of the displacement algorithm: solving the biggest conflict and correcting a
+ * non-octilinear edge. Both steps modify the map, hence the map is created before each invocation. The
+ * invocations must therefore take much longer than the timer resolution, which is given for all input maps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DisplacementBenchmark {
+
+    @Param({"CHAPTER_FIVE", "EXAMPLE_GRAPH", "ZUERICH", "GRID_100", "RADIAL_100", "CORRIDOR_100", "JUNCTION_100"})
+    public String input;
+
+    private MetroMap map;
+    private Conflict conflict;
+    private Edge edge;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        map = BenchmarkMaps.create(input);
+        conflict = map.evaluateConflicts(true).stream()
+                .findFirst()
+                .orElse(null);
+        edge = map.getShortestNonOctilinearEdge();
+    }
+
+    @Benchmark
+    public MetroMap displaceNodes() {
+        if (conflict != null) {
+            NodeDisplacer.displace(map, conflict);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public MetroMap correctEdge() {
+        if (edge != null) {
+            EdgeAdjuster.correctEdge(map, edge);
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.benchmark;
+
+import ch.geomo.tramaps.io.geojson.GeoJsonMetroMapReader;
+import ch.geomo.tramaps.io.geojson.GeoJsonMetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading a map as GeoJSON. The default input has about 50'000 features (stations and edges).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GeoJsonBenchmark {
+
+    @Param({"RADIAL_25000"})
+    public String input;
+
+    private MetroMap map;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        map = BenchmarkMaps.create(input);
+        file = Files.createTempFile("tramaps-benchmark", ".geojson");
+        new GeoJsonMetroMapWriter().write(map, file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Path write() throws IOException {
+        new GeoJsonMetroMapWriter().write(map, file);
+        return file;
+    }
+
+    @Benchmark
+    public MetroMap read() throws IOException {
+        return new GeoJsonMetroMapReader().read(file);
+    }
+
+    @Benchmark
+    public MetroMap roundTrip() throws IOException {
+        new GeoJsonMetroMapWriter().write(map, file);
+        return new GeoJsonMetroMapReader().read(file);
+    }
+
+}
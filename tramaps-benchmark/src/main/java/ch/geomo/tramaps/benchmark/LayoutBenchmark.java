@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.benchmark;
+
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceLineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.scale.ScaleHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the complete layout algorithms. Only inputs with a layout of less than a second are measured by default.
+ * A single layout of the other bundled examples or of larger generated networks takes from several seconds up to
+ * minutes, so they are left out and may be added with e.g. <code>-p input=CHAPTER_FIVE,EXAMPLE_GRAPH</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LayoutBenchmark {
+
+    @Param({"RECTANGLE", "GRID_16", "CORRIDOR_16"})
+    public String input;
+
+    private MetroMap map;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        map = BenchmarkMaps.create(input);
+    }
+
+    @Benchmark
+    public MetroMap displace() {
+        new DisplaceLineSpaceHandler(map).makeSpace();
+        return map;
+    }
+
+    @Benchmark
+    public MetroMap scale() {
+        new ScaleHandler(map).makeSpace();
+        return map;
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.benchmark;
+
+import ch.geomo.util.json.JsonReader;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH result files written in JSON format, e.g. the results of the baseline and of a change. The
+ * benchmarks are matched by name and parameters, and the difference of the score is printed in percent.
+ */
+public class ResultComparison {
+
+    private final Map<String, Score> baseline;
+    private final Map<String, Score> candidate;
+
+    public ResultComparison(@NotNull Path baseline, @NotNull Path candidate) throws IOException {
+        this.baseline = read(baseline);
+        this.candidate = read(candidate);
+    }
+
+    /**
+     * @return the scores by benchmark name and parameters, e.g. <code>ConflictBenchmark.findConflicts(input=GRID_100)</code>
+     */
+    @NotNull
+    private static Map<String, Score> read(@NotNull Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                String benchmark = null;
+                Map<String, String> params = new TreeMap<>();
+                Score score = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "benchmark":
+                            benchmark = reader.nextString();
+                            break;
+                        case "params":
+                            reader.beginObject();
+                            while (reader.hasNext()) {
+                                params.put(reader.nextName(), reader.nextString());
+                            }
+                            reader.endObject();
+                            break;
+                        case "primaryMetric":
+                            score = readScore(reader);
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (benchmark == null || score == null) {
+                    throw new IOException("Missing benchmark or primary metric in " + file + ".");
+                }
+                scores.put(getKey(benchmark, params), score);
+            }
+            reader.endArray();
+        }
+        return scores;
+    }
+
+    @NotNull
+    private static Score readScore(@NotNull JsonReader reader) throws IOException {
+        double score = Double.NaN;
+        String unit = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "score":
+                    score = reader.nextDouble();
+                    break;
+                case "scoreUnit":
+                    unit = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Score(score, unit);
+    }
+
+    @NotNull
+    private static String getKey(@NotNull String benchmark, @NotNull Map<String, String> params) {
+        // strip package name
+        String key = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+        if (params.isEmpty()) {
+            return key;
+        }
+        StringBuilder builder = new StringBuilder(key).append('(');
+        params.forEach((name, value) -> builder.append(name).append('=').append(value).append(','));
+        builder.setCharAt(builder.length() - 1, ')');
+        return builder.toString();
+    }
+
+    /**
+     * Prints a row for each benchmark of the baseline. Benchmarks missing in one of the files are marked.
+     */
+    public void print(@NotNull PrintStream out) {
+        out.printf("%-60s %14s %14s %9s %s%n", "Benchmark", "Baseline", "Candidate", "Change", "Unit");
+        baseline.forEach((key, base) -> {
+            Score score = candidate.get(key);
+            if (score == null) {
+                out.printf("%-60s %14.3f %14s %9s %s%n", key, base.score, "-", "-", base.unit);
+            }
+            else {
+                double change = (score.score - base.score) / base.score * 100;
+                out.printf("%-60s %14.3f %14.3f %+8.1f%% %s%n", key, base.score, score.score, change, score.unit);
+            }
+        });
+        candidate.forEach((key, score) -> {
+            if (!baseline.containsKey(key)) {
+                out.printf("%-60s %14s %14.3f %9s %s%n", key, "-", score.score, "-", score.unit);
+            }
+        });
+    }
+
+    public static void main(String... args) {
+
+        if (args.length != 2) {
+            System.err.println("Usage: ResultComparison <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+
+        try {
+            new ResultComparison(Paths.get(args[0]), Paths.get(args[1])).print(System.out);
+        }
+        catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+    }
+
+    /**
+     * The primary metric of a benchmark.
+     */
+    private static final class Score {
+
+        private final double score;
+        private final String unit;
+
+        private Score(double score, @NotNull String unit) {
+            this.score = score;
+            this.unit = unit;
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps;
+
+import ch.geomo.tramaps.io.MetroMapFormat;
+import ch.geomo.tramaps.io.cache.LayoutResultCache;
+import ch.geomo.tramaps.io.MetroMapReader;
+import ch.geomo.tramaps.io.MetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.LayoutListener;
+import ch.geomo.tramaps.map.displacement.LayoutTraceRecorder;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandlerType;
+import ch.geomo.util.logging.Loggers;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Entry point to run the algorithm without a user interface, e.g. on batch workers. Reads a map, makes space
+ * for line and station signatures and writes the resulting map.
+ * <pre>
+ * java -jar tramaps-core.jar &lt;input&gt; &lt;output&gt; [displace|displace_components|displace_multilevel|scale|scale_bisection [&lt;trace&gt;]]
+ * </pre>
+ * The formats are detected by the file extensions, see {@link MetroMapFormat}. Optionally, the metrics of each
+ * iteration are written to a trace file, see {@link LayoutTraceRecorder}. Instead of an input file, a bundled
+ * example can be used with <tt>example:&lt;ClassName&gt;</tt>, e.g. <tt>example:MetroMapZuerich</tt>.
+ */
+public class HeadlessApp {
+
+    private static final String EXAMPLE_PREFIX = "example:";
+    private static final String EXAMPLE_PACKAGE = "ch.geomo.tramaps.example.";
+
+    private final MetroMapReader reader;
+    private final MetroMapWriter writer;
+
+    private LayoutResultCache resultCache;
+
+    public HeadlessApp(@NotNull MetroMapReader reader, @NotNull MetroMapWriter writer) {
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    /**
+     * Sets the cache of laid-out maps. Maps found in the cache are not laid out again.
+     */
+    @NotNull
+    public HeadlessApp setResultCache(@Nullable LayoutResultCache resultCache) {
+        this.resultCache = resultCache;
+        return this;
+    }
+
+    @NotNull
+    private MetroMap readMap(@NotNull String input) throws IOException {
+        if (input.startsWith(EXAMPLE_PREFIX)) {
+            String className = EXAMPLE_PACKAGE + input.substring(EXAMPLE_PREFIX.length());
+            try {
+                return (MetroMap) Class.forName(className).newInstance();
+            }
+            catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IOException("Cannot create example " + className, e);
+            }
+        }
+        return reader.read(Paths.get(input));
+    }
+
+    /**
+     * Reads the given input, makes space using the given {@link LineSpaceHandlerType} and writes the result.
+     */
+    public void run(@NotNull String input, @NotNull Path output, @NotNull LineSpaceHandlerType handlerType) throws IOException {
+        run(input, output, handlerType, null);
+    }
+
+    /**
+     * Reads the given input, makes space using the given {@link LineSpaceHandlerType} and writes the result. The
+     * metrics of each iteration are written to the given trace file if not null.
+     */
+    public void run(@NotNull String input, @NotNull Path output, @NotNull LineSpaceHandlerType handlerType, @Nullable Path trace) throws IOException {
+        MetroMap map = readMap(input);
+        long start = System.currentTimeMillis();
+        if (trace != null) {
+            try (LayoutTraceRecorder recorder = LayoutTraceRecorder.create(trace)) {
+                map = makeSpace(map, handlerType, recorder);
+            }
+        }
+        else {
+            map = makeSpace(map, handlerType, null);
+        }
+        Loggers.info(this, "Made space using {0} in {1} ms.", handlerType, System.currentTimeMillis() - start);
+        writer.write(map, output);
+    }
+
+    @NotNull
+    private MetroMap makeSpace(@NotNull MetroMap map, @NotNull LineSpaceHandlerType handlerType, @Nullable LayoutListener listener) {
+        if (resultCache != null) {
+            return resultCache.makeSpace(map, handlerType, listener);
+        }
+        LineSpaceHandler handler = handlerType.create(map);
+        if (listener != null) {
+            handler.addLayoutListener(listener);
+        }
+        handler.makeSpace();
+        return map;
+    }
+
+    public static void main(String... args) {
+
+        if (args.length < 2) {
+            System.err.println("Usage: HeadlessApp <input> <output> [displace|displace_components|displace_multilevel|scale|scale_bisection [<trace.csv|trace.json>]]");
+            System.exit(2);
+        }
+
+        LineSpaceHandlerType handlerType = LineSpaceHandlerType.DISPLACE;
+        if (args.length > 2) {
+            handlerType = LineSpaceHandlerType.valueOf(args[2].toUpperCase(Locale.ROOT));
+        }
+        Path trace = args.length > 3 ? Paths.get(args[3]) : null;
+
+        try {
+            MetroMapFormat inputFormat = args[0].startsWith(EXAMPLE_PREFIX) ? MetroMapFormat.TEXT : MetroMapFormat.of(Paths.get(args[0]));
+            Path output = Paths.get(args[1]);
+            new HeadlessApp(inputFormat.createReader(), MetroMapFormat.of(output).createWriter()).run(args[0], output, handlerType, trace);
+        }
+        catch (IOException | UncheckedIOException | UnsupportedOperationException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+    }
+
+}
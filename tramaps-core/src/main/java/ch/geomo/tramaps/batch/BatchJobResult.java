@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.batch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome and the timing of a single job of a batch run.
+ */
+public class BatchJobResult {
+
+    public enum Status {
+        OK, TIMEOUT, FAILED
+    }
+
+    private final Path input;
+    private final Status status;
+    private final long readMillis;
+    private final long layoutMillis;
+    private final long writeMillis;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final String message;
+
+    public BatchJobResult(@NotNull Path input, @NotNull Status status, long readMillis, long layoutMillis, long writeMillis, int nodeCount, int edgeCount, @Nullable String message) {
+        this.input = input;
+        this.status = status;
+        this.readMillis = readMillis;
+        this.layoutMillis = layoutMillis;
+        this.writeMillis = writeMillis;
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.message = message;
+    }
+
+    @NotNull
+    public Path getInput() {
+        return input;
+    }
+
+    @NotNull
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getReadMillis() {
+        return readMillis;
+    }
+
+    public long getLayoutMillis() {
+        return layoutMillis;
+    }
+
+    public long getWriteMillis() {
+        return writeMillis;
+    }
+
+    public long getTotalMillis() {
+        return readMillis + layoutMillis + writeMillis;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Nullable
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchJobResult: {" + input + ", " + status + ", " + getTotalMillis() + "ms}";
+    }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.batch;
+
+import ch.geomo.tramaps.batch.BatchJobResult.Status;
+import ch.geomo.tramaps.io.cache.LayoutResultCache;
+import ch.geomo.tramaps.io.MetroMapFormat;
+import ch.geomo.tramaps.io.MetroMapReader;
+import ch.geomo.tramaps.io.MetroMapWriter;
+import ch.geomo.tramaps.io.TextMetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandlerType;
+import ch.geomo.util.logging.Loggers;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lays out many maps concurrently on a bounded worker pool. Each job reads its map in the format given by the file
+ * extension, makes space using the given {@link LayoutParameters} and writes the result in the text format to the
+ * output directory. A job exceeding the time limit is interrupted. A report with the timing of each job is written
+ * to the output directory as well.
+ * <p>
+ * The output file has the name of the input file, the extension {@code .tmap} is appended unless the input file is
+ * in the text format. Since all results are written to the same directory, input files resulting in the same output
+ * file name are rejected before any job is started.
+ * <p>
+ * Jobs do not share any state: each job creates its own map, handler, reader and writer. The log messages of a job
+ * are prefixed with the name of its input file.
+ * <p>
+ * Optionally, the laid-out maps are cached, see {@link LayoutResultCache}.
+ * <p>
+ * Note: The time limit is checked once per iteration of the {@link ch.geomo.tramaps.map.displacement.LineSpaceHandler},
+ * so a job may exceed the time limit by the duration of one iteration.
+ */
+public class BatchRunner {
+
+    public static final String REPORT_FILE_NAME = "batch-report.csv";
+
+    private static final String REPORT_SEPARATOR = ";";
+
+    private final LayoutParameters parameters;
+    private final Path outputDirectory;
+    private final int threadCount;
+    private final long timeoutMillis;
+
+    private LayoutResultCache resultCache;
+
+    public BatchRunner(@NotNull LayoutParameters parameters, @NotNull Path outputDirectory, int threadCount, long timeoutMillis) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("At least one thread is required.");
+        }
+        this.parameters = parameters;
+        this.outputDirectory = outputDirectory;
+        this.threadCount = threadCount;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Sets the cache of laid-out maps. Maps found in the cache are not laid out again.
+     */
+    @NotNull
+    public BatchRunner setResultCache(@Nullable LayoutResultCache resultCache) {
+        this.resultCache = resultCache;
+        return this;
+    }
+
+    /**
+     * Runs a job for each given input file and writes the report.
+     * @return the results in the order of the given input files
+     * @throws IllegalArgumentException if several input files result in the same output file
+     * @throws IOException if the output directory or the report cannot be written
+     */
+    @NotNull
+    public List<BatchJobResult> run(@NotNull List<Path> inputs) throws IOException, InterruptedException {
+
+        Map<Path, Path> outputs = new HashMap<>();
+        for (Path input : inputs) {
+            Path output = outputDirectory.resolve(getOutputFileName(input));
+            Path other = outputs.put(output, input);
+            if (other != null) {
+                throw new IllegalArgumentException("Input files " + other + " and " + input + " are both written to " + output + ".");
+            }
+        }
+
+        Files.createDirectories(outputDirectory);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "tramaps-batch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tramaps-batch-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<BatchJobResult> results = new ArrayList<>();
+
+        try {
+            List<Future<BatchJobResult>> futures = new ArrayList<>();
+            for (Path input : inputs) {
+                Path output = outputDirectory.resolve(getOutputFileName(input));
+                futures.add(workers.submit(() -> runJob(input, output, watchdog)));
+            }
+            for (Future<BatchJobResult> future : futures) {
+                try {
+                    results.add(future.get());
+                }
+                catch (ExecutionException e) {
+                    // runJob catches all exceptions, only errors are left
+                    throw new IllegalStateException("Batch job failed unexpectedly.", e.getCause());
+                }
+            }
+        }
+        finally {
+            workers.shutdownNow();
+            watchdog.shutdownNow();
+        }
+
+        writeReport(results);
+
+        return results;
+
+    }
+
+    /**
+     * @return the name of the file the result of given input file is written to
+     */
+    @NotNull
+    private static String getOutputFileName(@NotNull Path input) {
+        String fileName = input.getFileName().toString();
+        if (MetroMapFormat.of(input) == MetroMapFormat.TEXT) {
+            return fileName;
+        }
+        return fileName + ".tmap";
+    }
+
+    /**
+     * Reads, lays out and writes a single map. The time limit applies to the layout only.
+     */
+    @NotNull
+    private BatchJobResult runJob(@NotNull Path input, @NotNull Path output, @NotNull ScheduledExecutorService watchdog) {
+
+        Loggers.setContext(input.getFileName().toString());
+
+        Thread worker = Thread.currentThread();
+        Object lock = new Object();
+        boolean[] finished = {false};
+
+        long readMillis = 0;
+        long layoutMillis = 0;
+        long writeMillis = 0;
+        int nodeCount = 0;
+        int edgeCount = 0;
+
+        long start = System.nanoTime();
+
+        try {
+
+            MetroMapReader reader = MetroMapFormat.of(input).createReader(parameters.getRouteMargin(), parameters.getEdgeMargin(), parameters.getNodeMargin());
+            MetroMap map = reader.read(input);
+            readMillis = elapsedMillis(start);
+
+            start = System.nanoTime();
+            ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+                synchronized (lock) {
+                    // do not interrupt a worker which has already started the next job
+                    if (!finished[0]) {
+                        worker.interrupt();
+                    }
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                if (resultCache != null) {
+                    map = resultCache.makeSpace(map, parameters.getHandlerType(), null);
+                }
+                else {
+                    parameters.getHandlerType().create(map).makeSpace();
+                }
+            }
+            finally {
+                synchronized (lock) {
+                    finished[0] = true;
+                }
+                timeout.cancel(false);
+                // clear interrupted flag
+                Thread.interrupted();
+            }
+            layoutMillis = elapsedMillis(start);
+
+            nodeCount = map.getNodes().size();
+            edgeCount = map.getEdges().size();
+
+            start = System.nanoTime();
+            MetroMapWriter writer = new TextMetroMapWriter();
+            writer.write(map, output);
+            writeMillis = elapsedMillis(start);
+
+            Loggers.info(this, "Job finished in {0} ms.", readMillis + layoutMillis + writeMillis);
+            return new BatchJobResult(input, Status.OK, readMillis, layoutMillis, writeMillis, nodeCount, edgeCount, null);
+
+        }
+        catch (CancellationException e) {
+            layoutMillis = elapsedMillis(start);
+            Loggers.error(this, "Job exceeded time limit of {0} ms.", timeoutMillis);
+            return new BatchJobResult(input, Status.TIMEOUT, readMillis, layoutMillis, writeMillis, nodeCount, edgeCount, e.getMessage());
+        }
+        catch (IOException | RuntimeException e) {
+            Loggers.error(this, "Job failed: {0}", e);
+            return new BatchJobResult(input, Status.FAILED, readMillis, layoutMillis, writeMillis, nodeCount, edgeCount, e.toString());
+        }
+        finally {
+            Loggers.clearContext();
+        }
+
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Writes the timing report as a CSV file.
+     */
+    private void writeReport(@NotNull List<BatchJobResult> results) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(outputDirectory.resolve(REPORT_FILE_NAME), StandardCharsets.UTF_8)) {
+            writer.write(String.join(REPORT_SEPARATOR, "input", "status", "nodes", "edges", "read_ms", "layout_ms", "write_ms", "total_ms", "message"));
+            writer.newLine();
+            for (BatchJobResult result : results) {
+                String message = result.getMessage() == null ? "" : result.getMessage().replaceAll("[;\\r\\n]", " ");
+                writer.write(String.join(REPORT_SEPARATOR,
+                        result.getInput().toString(),
+                        result.getStatus().name(),
+                        String.valueOf(result.getNodeCount()),
+                        String.valueOf(result.getEdgeCount()),
+                        String.valueOf(result.getReadMillis()),
+                        String.valueOf(result.getLayoutMillis()),
+                        String.valueOf(result.getWriteMillis()),
+                        String.valueOf(result.getTotalMillis()),
+                        message));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: BatchRunner --output <dir> [--threads <n>] [--timeout <seconds>]");
+        System.err.println("                   [--handler displace|displace_components|displace_multilevel|scale|scale_bisection] [--margins <route>,<edge>,<node>]");
+        System.err.println("                   [--cache <file> [--cache-size <megabytes>]]");
+        System.err.println("                   <input>...");
+        System.exit(2);
+    }
+
+    public static void main(String... args) throws IOException, InterruptedException {
+
+        Path output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeoutSeconds = 600;
+        LineSpaceHandlerType handlerType = LineSpaceHandlerType.DISPLACE;
+        double[] margins = {2, 25, 25};
+        Path cacheFile = null;
+        long cacheMegabytes = 256;
+        List<Path> inputs = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--output":
+                        output = Paths.get(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--timeout":
+                        timeoutSeconds = Long.parseLong(args[++i]);
+                        break;
+                    case "--handler":
+                        handlerType = LineSpaceHandlerType.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                        break;
+                    case "--margins":
+                        String[] values = args[++i].split(",");
+                        if (values.length != 3) {
+                            printUsage();
+                        }
+                        for (int j = 0; j < 3; j++) {
+                            margins[j] = Double.parseDouble(values[j]);
+                        }
+                        break;
+                    case "--cache":
+                        cacheFile = Paths.get(args[++i]);
+                        break;
+                    case "--cache-size":
+                        cacheMegabytes = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        inputs.add(Paths.get(args[i]));
+                }
+            }
+        }
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            printUsage();
+        }
+
+        if (output == null || inputs.isEmpty()) {
+            printUsage();
+            return;
+        }
+
+        LayoutParameters parameters = new LayoutParameters(margins[0], margins[1], margins[2], handlerType);
+        BatchRunner runner = new BatchRunner(parameters, output, threads, TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        List<BatchJobResult> results;
+        if (cacheFile != null) {
+            try (LayoutResultCache cache = new LayoutResultCache(cacheFile, cacheMegabytes * 1024 * 1024)) {
+                results = runner.setResultCache(cache).run(inputs);
+            }
+        }
+        else {
+            results = runner.run(inputs);
+        }
+
+        long failed = results.stream()
+                .filter(result -> result.getStatus() != Status.OK)
+                .count();
+        System.exit(failed == 0 ? 0 : 1);
+
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.batch;
+
+import ch.geomo.tramaps.map.displacement.LineSpaceHandlerType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The parameter set applied to each map of a batch run.
+ */
+public class LayoutParameters {
+
+    private final double routeMargin;
+    private final double edgeMargin;
+    private final double nodeMargin;
+    private final LineSpaceHandlerType handlerType;
+
+    public LayoutParameters(double routeMargin, double edgeMargin, double nodeMargin, @NotNull LineSpaceHandlerType handlerType) {
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+        this.handlerType = handlerType;
+    }
+
+    public double getRouteMargin() {
+        return routeMargin;
+    }
+
+    public double getEdgeMargin() {
+        return edgeMargin;
+    }
+
+    public double getNodeMargin() {
+        return nodeMargin;
+    }
+
+    @NotNull
+    public LineSpaceHandlerType getHandlerType() {
+        return handlerType;
+    }
+
+    @Override
+    public String toString() {
+        return "LayoutParameters: {routeMargin=" + routeMargin + ", edgeMargin=" + edgeMargin + ", nodeMargin=" + nodeMargin + ", handler=" + handlerType + "}";
+    }
+
+}
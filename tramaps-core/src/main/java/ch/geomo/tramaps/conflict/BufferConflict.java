@@ -13,7 +13,6 @@ import ch.geomo.util.geom.PolygonUtil;
 import ch.geomo.util.math.MoveVector;
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.operation.distance.DistanceOp;
-import org.geotools.geometry.jts.JTS;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
@@ -10,13 +10,16 @@ import ch.geomo.tramaps.conflict.buffer.ElementBufferPair;
 import ch.geomo.tramaps.conflict.buffer.NodeBuffer;
 import ch.geomo.tramaps.graph.Edge;
 import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.jfr.LayoutEvents;
 import ch.geomo.tramaps.map.MetroMap;
 import ch.geomo.util.collection.GCollectors;
 import ch.geomo.util.collection.list.EnhancedList;
 import ch.geomo.util.collection.pair.Pair;
 import ch.geomo.util.collection.set.EnhancedSet;
 import ch.geomo.util.collection.set.GSet;
+import com.vividsolutions.jts.geom.Envelope;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Comparator;
 import java.util.function.Predicate;
@@ -63,20 +66,22 @@ public class ConflictFinder {
     }
 
     /**
-     * @return all edge buffers as a {@link Stream}
+     * @return all edge buffers as a {@link Stream}, limited to edges intersecting given scope if not null
      */
     @NotNull
-    private Stream<ElementBuffer> createEdgeBuffers() {
+    private Stream<ElementBuffer> createEdgeBuffers(@Nullable Envelope scope) {
         return map.getEdges().stream()
+                .filter(edge -> scope == null || scope.intersects(edge.getLineString().getEnvelopeInternal()))
                 .map(edge -> new EdgeBuffer(edge, routeMargin, edgeMargin));
     }
 
     /**
-     * @return all node buffers as a {@link Stream}
+     * @return all node buffers as a {@link Stream}, limited to nodes located within given scope if not null
      */
     @NotNull
-    private Stream<ElementBuffer> createNodeBuffers() {
+    private Stream<ElementBuffer> createNodeBuffers(@Nullable Envelope scope) {
         return map.getNodes().stream()
+                .filter(node -> scope == null || scope.intersects(node.getCoordinate()))
                 .map(node -> new NodeBuffer(node, nodeMargin));
     }
 
@@ -84,8 +89,8 @@ public class ConflictFinder {
      * @return all current {@link BufferConflict}s
      */
     @NotNull
-    private EnhancedList<Conflict> getBufferConflicts() {
-        return getConflictElements().stream()
+    private EnhancedList<Conflict> getBufferConflicts(@NotNull EnhancedSet<Pair<ElementBuffer>> conflictElements) {
+        return conflictElements.stream()
                 // check interior intersection
                 .filter(ConflictFinder::intersects)
                 // create conflict
@@ -103,9 +108,9 @@ public class ConflictFinder {
      * @return all current {@link OctilinearConflict}s
      */
     @NotNull
-    private EnhancedList<Conflict> getOctilinearConflicts(double correctionFactor, boolean majorMisalignmentOnly) {
+    private EnhancedList<Conflict> getOctilinearConflicts(@NotNull EnhancedSet<Pair<ElementBuffer>> conflictElements, double correctionFactor, boolean majorMisalignmentOnly) {
         // fix/improvement required: buffers are not required, should be rewritten without using set of buffers
-        return getConflictElements().stream()
+        return conflictElements.stream()
                 // check conflict
                 .filter(bufferPair -> hasOctilinearConflict(bufferPair, majorMisalignmentOnly))
                 // create conflict
@@ -138,8 +143,7 @@ public class ConflictFinder {
      * @return all pairs of conflict elements
      */
     @NotNull
-    private EnhancedSet<Pair<ElementBuffer>> getConflictElements() {
-        EnhancedSet<ElementBuffer> buffers = GSet.createSet(createEdgeBuffers(), createNodeBuffers());
+    private EnhancedSet<Pair<ElementBuffer>> getConflictElements(@NotNull EnhancedSet<ElementBuffer> buffers) {
         return buffers.toPairSet(ConflictFinder.CONFLICT_PAIR_PREDICATE);
     }
 
@@ -151,9 +155,37 @@ public class ConflictFinder {
      */
     @NotNull
     public EnhancedList<Conflict> getConflicts(double correctionFactor, boolean majorMisalignmentOnly) {
-        return getBufferConflicts()
-                .union(getOctilinearConflicts(correctionFactor, majorMisalignmentOnly))
+        return getConflicts(correctionFactor, majorMisalignmentOnly, null);
+    }
+
+    /**
+     * Returns all {@link BufferConflict}s and {@link OctilinearConflict}s between the elements within the given
+     * scope. Elements outside the scope are ignored, e.g. when laying out an edited region only.
+     * @param scope the region to search or null to search the whole map
+     * @see #getConflicts(double, boolean)
+     */
+    @NotNull
+    public EnhancedList<Conflict> getConflicts(double correctionFactor, boolean majorMisalignmentOnly, @Nullable Envelope scope) {
+
+        LayoutEvents.ConflictEvaluation event = LayoutEvents.conflictEvaluation();
+        event.begin();
+
+        // pairs are shared by both searches in order to create the buffers only once
+        EnhancedSet<ElementBuffer> buffers = GSet.createSet(createEdgeBuffers(scope), createNodeBuffers(scope));
+        EnhancedSet<Pair<ElementBuffer>> conflictElements = getConflictElements(buffers);
+
+        EnhancedList<Conflict> bufferConflicts = getBufferConflicts(conflictElements);
+        EnhancedList<Conflict> octilinearConflicts = getOctilinearConflicts(conflictElements, correctionFactor, majorMisalignmentOnly);
+        EnhancedList<Conflict> conflicts = bufferConflicts
+                .union(octilinearConflicts)
                 .sortElements(CONFLICT_COMPARATOR);
+
+        if (event.shouldCommit()) {
+            event.commit(buffers.size(), conflictElements.size(), bufferConflicts.size(), octilinearConflicts.size());
+        }
+
+        return conflicts;
+
     }
 
     /**
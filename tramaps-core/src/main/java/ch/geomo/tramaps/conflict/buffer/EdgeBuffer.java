@@ -6,6 +6,7 @@ package ch.geomo.tramaps.conflict.buffer;
 
 import ch.geomo.tramaps.graph.Edge;
 import ch.geomo.tramaps.graph.GraphElement;
+import ch.geomo.tramaps.jfr.LayoutEvents;
 import ch.geomo.util.geom.GeomUtil;
 import com.vividsolutions.jts.geom.Polygon;
 import org.jetbrains.annotations.NotNull;
@@ -36,8 +37,13 @@ public class EdgeBuffer implements ElementBuffer {
      * Initialize or updates this buffer representation.
      */
     private void updateBuffer() {
+        LayoutEvents.BufferRebuild event = LayoutEvents.bufferRebuild();
+        event.begin();
         double width = edge.calculateEdgeWidth(routeMargin) + edgeMargin * 2;
         buffer = GeomUtil.createBuffer(edge.getLineString(), width / 2, true);
+        if (event.shouldCommit()) {
+            event.commit("edge", edge.getName());
+        }
     }
 
     @NotNull
@@ -5,6 +5,7 @@
 package ch.geomo.tramaps.conflict.buffer;
 
 import ch.geomo.tramaps.graph.GraphElement;
+import ch.geomo.tramaps.jfr.LayoutEvents;
 import ch.geomo.tramaps.graph.Node;
 import ch.geomo.util.geom.GeomUtil;
 import ch.geomo.util.logging.Loggers;
@@ -36,8 +37,13 @@ public class NodeBuffer implements ElementBuffer {
      * Initialize or updates this buffer representation.
      */
     private void updateBuffer() {
+        LayoutEvents.BufferRebuild event = LayoutEvents.bufferRebuild();
+        event.begin();
         Polygon geometry = node.getNodeSignature().getGeometry();
         buffer = GeomUtil.createBuffer(geometry, margin, true);
+        if (event.shouldCommit()) {
+            event.commit("node", node.getName());
+        }
     }
 
     @NotNull
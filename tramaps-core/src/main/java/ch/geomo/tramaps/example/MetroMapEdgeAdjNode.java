@@ -9,7 +9,7 @@ import ch.geomo.tramaps.graph.Route;
 import ch.geomo.tramaps.map.MetroMap;
 import ch.geomo.tramaps.map.signature.NodeSignature;
 import ch.geomo.tramaps.map.signature.SquareStationSignature;
-import javafx.scene.paint.Color;
+import ch.geomo.util.color.Color;
 
 import java.util.function.Function;
 
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.example.generator;
+
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.RectangleStationSignature;
+import ch.geomo.util.color.Color;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic networks of a given topology and size in order to test the algorithms with larger inputs
+ * than the bundled examples. The generated map only depends on the seed and the settings of the generator.
+ * <p>
+ * Each line of the topology is served by a random number of routes. A share of the stations is shifted by a
+ * fraction of the station spacing afterwards, making their adjacent edges non-octilinear.
+ */
+public class MetroMapGenerator {
+
+    private static final Color[] COLORS = {
+            Color.BLUE, Color.RED, Color.GREEN, Color.ORANGE, Color.MAGENTA, Color.BLACK, Color.YELLOW
+    };
+
+    private final long seed;
+
+    private NetworkTopology topology = NetworkTopology.GRID;
+    private int stationCount = 100;
+    private int minRoutesPerEdge = 1;
+    private int maxRoutesPerEdge = 3;
+    private double nonOctilinearShare = 0.1;
+    private double spacing = 100;
+    private double lineWidth = 10;
+    private double routeMargin = 2;
+    private double edgeMargin = 25;
+    private double nodeMargin = 25;
+
+    public MetroMapGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    @NotNull
+    public MetroMapGenerator setTopology(@NotNull NetworkTopology topology) {
+        this.topology = topology;
+        return this;
+    }
+
+    /**
+     * Sets the number of stations of the generated map. Default is 100.
+     */
+    @NotNull
+    public MetroMapGenerator setStationCount(int stationCount) {
+        if (stationCount < 1) {
+            throw new IllegalArgumentException("Station count must be positive.");
+        }
+        this.stationCount = stationCount;
+        return this;
+    }
+
+    /**
+     * Sets the range of the number of routes serving a line of the topology. Edges shared by several lines, e.g.
+     * on a corridor, are served by the routes of all these lines. Default is 1 to 3.
+     */
+    @NotNull
+    public MetroMapGenerator setRoutesPerEdge(int minRoutesPerEdge, int maxRoutesPerEdge) {
+        if (minRoutesPerEdge < 1 || maxRoutesPerEdge < minRoutesPerEdge) {
+            throw new IllegalArgumentException("Invalid range of routes per edge.");
+        }
+        this.minRoutesPerEdge = minRoutesPerEdge;
+        this.maxRoutesPerEdge = maxRoutesPerEdge;
+        return this;
+    }
+
+    /**
+     * Sets the share of non-octilinear edges between 0 and 1. Default is 0.1. The share is approximated by
+     * shifting stations, hence the effective share may be slightly higher.
+     */
+    @NotNull
+    public MetroMapGenerator setNonOctilinearShare(double nonOctilinearShare) {
+        if (nonOctilinearShare < 0 || nonOctilinearShare > 1) {
+            throw new IllegalArgumentException("Share of non-octilinear edges must be between 0 and 1.");
+        }
+        this.nonOctilinearShare = nonOctilinearShare;
+        return this;
+    }
+
+    /**
+     * Sets the distance between neighbouring stations. Default is 100.
+     */
+    @NotNull
+    public MetroMapGenerator setSpacing(double spacing) {
+        this.spacing = spacing;
+        return this;
+    }
+
+    @NotNull
+    public MetroMapGenerator setLineWidth(double lineWidth) {
+        this.lineWidth = lineWidth;
+        return this;
+    }
+
+    @NotNull
+    public MetroMapGenerator setMargins(double routeMargin, double edgeMargin, double nodeMargin) {
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+        return this;
+    }
+
+    @NotNull
+    public MetroMap generate() {
+
+        Random random = new Random(seed);
+        NetworkPlan plan = topology.plan(stationCount);
+
+        // collect the routes of each edge, edges are keyed by their station indices
+        Map<Long, List<Route>> edges = new LinkedHashMap<>();
+        List<int[]> lines = plan.getLines();
+        for (int line = 0; line < lines.size(); line++) {
+            List<Route> routes = createRoutes(line, random);
+            int[] stations = lines.get(line);
+            for (int i = 1; i < stations.length; i++) {
+                int a = Math.min(stations[i - 1], stations[i]);
+                int b = Math.max(stations[i - 1], stations[i]);
+                if (b < stationCount) {
+                    edges.computeIfAbsent((long) a << 32 | b, key -> new ArrayList<>()).addAll(routes);
+                }
+            }
+        }
+
+        double[] xs = new double[stationCount];
+        double[] ys = new double[stationCount];
+        for (int i = 0; i < stationCount; i++) {
+            xs[i] = plan.getX(i) * spacing;
+            ys[i] = plan.getY(i) * spacing;
+        }
+        shiftStations(xs, ys, edges, random);
+
+        MetroMap map = new MetroMap(routeMargin, edgeMargin, nodeMargin);
+        Node[] nodes = new Node[stationCount];
+        for (int i = 0; i < stationCount; i++) {
+            nodes[i] = map.createNode(xs[i], ys[i], "S" + i, RectangleStationSignature::new);
+        }
+        edges.forEach((key, routes) -> {
+            Node nodeA = nodes[(int) (key >>> 32)];
+            Node nodeB = nodes[(int) (long) key];
+            map.createEdge(nodeA, nodeB, routes.toArray(new Route[routes.size()]));
+        });
+        return map;
+
+    }
+
+    @NotNull
+    private List<Route> createRoutes(int line, @NotNull Random random) {
+        int count = minRoutesPerEdge + random.nextInt(maxRoutesPerEdge - minRoutesPerEdge + 1);
+        List<Route> routes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            routes.add(new Route("L" + line + "." + (i + 1), lineWidth, COLORS[(line + i) % COLORS.length]));
+        }
+        return routes;
+    }
+
+    /**
+     * Shifts randomly chosen stations horizontally or vertically until the requested share of non-octilinear
+     * edges is reached.
+     */
+    private void shiftStations(@NotNull double[] xs, @NotNull double[] ys, @NotNull Map<Long, List<Route>> edges, @NotNull Random random) {
+
+        int target = (int) Math.round(nonOctilinearShare * edges.size());
+        if (target == 0) {
+            return;
+        }
+
+        // adjacent stations of each station in compressed form
+        int[] offsets = new int[stationCount + 1];
+        for (long key : edges.keySet()) {
+            offsets[(int) (key >>> 32) + 1]++;
+            offsets[(int) key + 1]++;
+        }
+        for (int i = 0; i < stationCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] adjacent = new int[offsets[stationCount]];
+        int[] fill = offsets.clone();
+        for (long key : edges.keySet()) {
+            int a = (int) (key >>> 32);
+            int b = (int) key;
+            adjacent[fill[a]++] = b;
+            adjacent[fill[b]++] = a;
+        }
+
+        int[] stations = new int[stationCount];
+        for (int i = 0; i < stationCount; i++) {
+            stations[i] = i;
+        }
+        int nonOctilinear = 0;
+        for (int i = stationCount - 1; i >= 0 && nonOctilinear < target; i--) {
+            // Fisher-Yates shuffle, drawing the next station
+            int j = random.nextInt(i + 1);
+            int station = stations[j];
+            stations[j] = stations[i];
+            stations[i] = station;
+            if (offsets[station] == offsets[station + 1]) {
+                continue;
+            }
+            nonOctilinear -= countNonOctilinearEdges(station, xs, ys, offsets, adjacent);
+            double shift = Math.max(1, Math.round(spacing * (0.2 + 0.2 * random.nextDouble())));
+            if (random.nextBoolean()) {
+                shift = -shift;
+            }
+            if (random.nextBoolean()) {
+                xs[station] += shift;
+            }
+            else {
+                ys[station] += shift;
+            }
+            nonOctilinear += countNonOctilinearEdges(station, xs, ys, offsets, adjacent);
+        }
+
+    }
+
+    private static int countNonOctilinearEdges(int station, @NotNull double[] xs, @NotNull double[] ys, @NotNull int[] offsets, @NotNull int[] adjacent) {
+        int count = 0;
+        for (int i = offsets[station]; i < offsets[station + 1]; i++) {
+            double dx = Math.abs(xs[adjacent[i]] - xs[station]);
+            double dy = Math.abs(ys[adjacent[i]] - ys[station]);
+            if (dx != 0 && dy != 0 && dx != dy) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
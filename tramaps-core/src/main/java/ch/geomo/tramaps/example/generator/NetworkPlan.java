@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.example.generator;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The stations and lines of a generated network on an integer grid, before any {@link ch.geomo.tramaps.map.MetroMap}
+ * is created. Stations are kept in order of growth, so that the first stations of a plan always form a connected
+ * network and a plan can be truncated to the requested number of stations. All edges of a plan are octilinear.
+ */
+final class NetworkPlan {
+
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private int stationCount = 0;
+
+    private final Map<Long, Integer> stationIndex = new HashMap<>();
+    private final List<int[]> lines = new ArrayList<>();
+
+    private static long getKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /**
+     * @return the index of the station at given position, the station is added if not yet existing
+     */
+    int getStation(int x, int y) {
+        Integer station = stationIndex.get(getKey(x, y));
+        if (station != null) {
+            return station;
+        }
+        if (stationCount == xs.length) {
+            xs = Arrays.copyOf(xs, stationCount * 2);
+            ys = Arrays.copyOf(ys, stationCount * 2);
+        }
+        xs[stationCount] = x;
+        ys[stationCount] = y;
+        stationIndex.put(getKey(x, y), stationCount);
+        return stationCount++;
+    }
+
+    /**
+     * Adds a line passing the given stations in given order.
+     */
+    void addLine(@NotNull int[] stations) {
+        lines.add(stations);
+    }
+
+    int getStationCount() {
+        return stationCount;
+    }
+
+    int getX(int station) {
+        return xs[station];
+    }
+
+    int getY(int station) {
+        return ys[station];
+    }
+
+    @NotNull
+    List<int[]> getLines() {
+        return lines;
+    }
+
+    /**
+     * Re-orders the stations in breadth-first order starting at given station. Used by plans whose stations are
+     * not added in order of growth.
+     */
+    @NotNull
+    NetworkPlan sortByDistance(int root) {
+
+        List<List<Integer>> adjacency = new ArrayList<>(stationCount);
+        for (int i = 0; i < stationCount; i++) {
+            adjacency.add(new ArrayList<>(4));
+        }
+        for (int[] line : lines) {
+            for (int i = 1; i < line.length; i++) {
+                adjacency.get(line[i - 1]).add(line[i]);
+                adjacency.get(line[i]).add(line[i - 1]);
+            }
+        }
+
+        int[] order = new int[stationCount];
+        Arrays.fill(order, -1);
+        NetworkPlan sorted = new NetworkPlan();
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(root);
+        order[root] = sorted.getStation(xs[root], ys[root]);
+        while (!queue.isEmpty()) {
+            for (int next : adjacency.get(queue.poll())) {
+                if (order[next] < 0) {
+                    order[next] = sorted.getStation(xs[next], ys[next]);
+                    queue.add(next);
+                }
+            }
+        }
+
+        for (int[] line : lines) {
+            int[] stations = new int[line.length];
+            for (int i = 0; i < line.length; i++) {
+                stations[i] = order[line[i]];
+            }
+            sorted.addLine(stations);
+        }
+        return sorted;
+
+    }
+
+    /**
+     * Creates a grid with a horizontal line on each row and a vertical line on each column.
+     */
+    @NotNull
+    static NetworkPlan grid(int stationCount) {
+        int columns = (int) Math.ceil(Math.sqrt(stationCount));
+        int rows = (stationCount + columns - 1) / columns;
+        NetworkPlan plan = new NetworkPlan();
+        for (int y = 0; y < rows; y++) {
+            int[] row = new int[columns];
+            for (int x = 0; x < columns; x++) {
+                row[x] = plan.getStation(x, y);
+            }
+            plan.addLine(row);
+        }
+        for (int x = 0; x < columns; x++) {
+            int[] column = new int[rows];
+            for (int y = 0; y < rows; y++) {
+                column[y] = plan.getStation(x, y);
+            }
+            plan.addLine(column);
+        }
+        return plan;
+    }
+
+    /**
+     * Creates square rings around a central station, each served by a ring line, and four diametral lines
+     * crossing the center in the octilinear directions.
+     */
+    @NotNull
+    static NetworkPlan radial(int stationCount) {
+
+        int radius = 0;
+        while (1 + 4 * radius * (radius + 1) < stationCount) {
+            radius++;
+        }
+
+        NetworkPlan plan = new NetworkPlan();
+        plan.getStation(0, 0);
+        for (int r = 1; r <= radius; r++) {
+            // walk along the ring counterclockwise, starting and ending at (r/0)
+            int[] ring = new int[8 * r + 1];
+            int i = 0;
+            for (int y = 0; y < r; y++) {
+                ring[i++] = plan.getStation(r, y);
+            }
+            for (int x = r; x > -r; x--) {
+                ring[i++] = plan.getStation(x, r);
+            }
+            for (int y = r; y > -r; y--) {
+                ring[i++] = plan.getStation(-r, y);
+            }
+            for (int x = -r; x < r; x++) {
+                ring[i++] = plan.getStation(x, -r);
+            }
+            for (int y = -r; y < 0; y++) {
+                ring[i++] = plan.getStation(r, y);
+            }
+            ring[8 * r] = ring[0];
+            plan.addLine(ring);
+        }
+
+        int[][] directions = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}};
+        for (int[] direction : directions) {
+            int[] line = new int[2 * radius + 1];
+            for (int i = -radius; i <= radius; i++) {
+                line[i + radius] = plan.getStation(i * direction[0], i * direction[1]);
+            }
+            plan.addLine(line);
+        }
+        return plan;
+
+    }
+
+    /**
+     * Creates a long trunk with short branches on alternating sides. The lines of the branches continue along the
+     * trunk towards its start, so that the trunk carries many parallel lines.
+     */
+    @NotNull
+    static NetworkPlan corridor(int stationCount) {
+
+        final int branchInterval = 8;
+        final int branchLength = 4;
+        final int sharedBranches = 3;
+
+        int trunkLength = stationCount * branchInterval / (branchInterval + branchLength) + branchInterval;
+
+        NetworkPlan plan = new NetworkPlan();
+        int[] trunk = new int[trunkLength];
+        for (int x = 0; x < trunkLength; x++) {
+            trunk[x] = plan.getStation(x, 0);
+            if (x % branchInterval == branchInterval - 1) {
+                int side = (x / branchInterval) % 2 == 0 ? 1 : -1;
+                int shared = Math.min(x, sharedBranches * branchInterval);
+                int[] branch = new int[branchLength + shared + 1];
+                for (int i = branchLength - 1; i >= 0; i--) {
+                    // add the stations next to the trunk first
+                    branch[i] = plan.getStation(x + branchLength - i, side * (branchLength - i));
+                }
+                for (int i = 0; i <= shared; i++) {
+                    branch[branchLength + i] = plan.getStation(x - i, 0);
+                }
+                plan.addLine(branch);
+            }
+        }
+        plan.addLine(trunk);
+        return plan;
+
+    }
+
+    /**
+     * Creates bundles of parallel lines in all four octilinear axes crossing each other at the center.
+     */
+    @NotNull
+    static NetworkPlan junction(int stationCount) {
+
+        final int bundleWidth = 2;
+        int length = stationCount / (8 * (2 * bundleWidth + 1)) + 4 * bundleWidth + 2;
+
+        NetworkPlan plan = new NetworkPlan();
+        for (int offset = -bundleWidth; offset <= bundleWidth; offset++) {
+            int[] horizontal = new int[2 * length + 1];
+            int[] vertical = new int[2 * length + 1];
+            int[] diagonal = new int[2 * length + 1];
+            int[] antiDiagonal = new int[2 * length + 1];
+            for (int i = -length; i <= length; i++) {
+                horizontal[i + length] = plan.getStation(i, offset);
+                vertical[i + length] = plan.getStation(offset, i);
+                // even offsets only, so diagonals always cross each other at a station
+                diagonal[i + length] = plan.getStation(i + 2 * offset, i);
+                antiDiagonal[i + length] = plan.getStation(i + 2 * offset, -i);
+            }
+            plan.addLine(horizontal);
+            plan.addLine(vertical);
+            plan.addLine(diagonal);
+            plan.addLine(antiDiagonal);
+        }
+        return plan.sortByDistance(plan.getStation(0, 0));
+
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.example.generator;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntFunction;
+
+/**
+ * Enumerates the topologies of the networks created by the {@link MetroMapGenerator}.
+ */
+public enum NetworkTopology {
+
+    /**
+     * A grid with a line on each row and on each column.
+     */
+    GRID(NetworkPlan::grid),
+
+    /**
+     * Concentric ring lines around a center crossed by four diametral lines.
+     */
+    RADIAL(NetworkPlan::radial),
+
+    /**
+     * A long trunk with branches whose lines share the trunk, resulting in many parallel routes.
+     */
+    CORRIDOR(NetworkPlan::corridor),
+
+    /**
+     * Bundles of parallel lines crossing each other in a dense central junction.
+     */
+    JUNCTION(NetworkPlan::junction);
+
+    private final IntFunction<NetworkPlan> planner;
+
+    NetworkTopology(@NotNull IntFunction<NetworkPlan> planner) {
+        this.planner = planner;
+    }
+
+    /**
+     * @return a plan with at least given number of stations
+     */
+    @NotNull
+    NetworkPlan plan(int stationCount) {
+        return planner.apply(stationCount);
+    }
+
+}
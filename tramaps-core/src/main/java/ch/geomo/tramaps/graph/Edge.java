@@ -41,6 +41,22 @@ public class Edge extends Observable implements Observer, GraphElement {
     private boolean destroyed = false;
 
     public Edge(@NotNull Node nodeA, @NotNull Node nodeB, @NotNull Route... routes) {
+        this(nodeA, nodeB, (Direction) null, routes);
+    }
+
+    /**
+     * Creates an edge with given original direction (starting at node A), e.g. when restoring an intermediate
+     * state of a layout. If null, the original direction is derived from the current node positions.
+     */
+    public Edge(@NotNull Node nodeA, @NotNull Node nodeB, @Nullable Direction originalDirection, @NotNull Route... routes) {
+        this(nodeA, nodeB, originalDirection, true, routes);
+    }
+
+    /**
+     * Creates an edge, but does not notify the observers of the nodes if notifyNodes is false.
+     * @see Graph#createEdges(List, List)
+     */
+    /* package-private */ Edge(@NotNull Node nodeA, @NotNull Node nodeB, @Nullable Direction originalDirection, boolean notifyNodes, @NotNull Route... routes) {
 
         nodePair = Pair.of(nodeA, nodeB);
         this.routes = GCollection.set(routes);
@@ -48,10 +64,10 @@ public class Edge extends Observable implements Observer, GraphElement {
         updateEdge();
 
         // cache original direction set this edge
-        originalDirection = AnyDirection.fromAngle(calculateAngle());
+        this.originalDirection = originalDirection != null ? originalDirection : AnyDirection.fromAngle(calculateAngle());
 
-        nodeA.addAdjacentEdge(this);
-        nodeB.addAdjacentEdge(this);
+        nodeA.addAdjacentEdge(this, notifyNodes);
+        nodeB.addAdjacentEdge(this, notifyNodes);
 
     }
 
@@ -67,6 +83,31 @@ public class Edge extends Observable implements Observer, GraphElement {
         return width + routeMargin * (getRoutes().size() - 2);
     }
 
+    /**
+     * Calculates the offset of each route's center line from the center line set this edge when the routes are
+     * drawn side by side within the edge width.
+     * @return the offsets in iteration order set {@link #getRoutes()}
+     */
+    @NotNull
+    public double[] calculateRouteOffsets(double routeMargin) {
+        double[] offsets = new double[getRoutes().size()];
+        if (offsets.length < 2) {
+            return offsets;
+        }
+        double lineWidths = getRoutes().stream()
+                .mapToDouble(Route::getLineWidth)
+                .sum();
+        double edgeWidth = Math.max(calculateEdgeWidth(routeMargin), lineWidths);
+        double gap = (edgeWidth - lineWidths) / (offsets.length - 1);
+        double offset = -edgeWidth / 2;
+        int i = 0;
+        for (Route route : getRoutes()) {
+            offsets[i++] = offset + route.getLineWidth() / 2;
+            offset += route.getLineWidth() + gap;
+        }
+        return offsets;
+    }
+
     @NotNull
     public String getName() {
         return Optional.ofNullable(name)
@@ -272,7 +313,7 @@ public class Edge extends Observable implements Observer, GraphElement {
     @Override
     public void update(Observable o, Object arg) {
         updateEdge();
-        Loggers.debug(this, toString() + " updated. New direction is " + direction + ".");
+        Loggers.debug(this, () -> this + " updated. New direction is " + direction + ".");
     }
 
     @Override
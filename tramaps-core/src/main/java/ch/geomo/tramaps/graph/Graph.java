@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.graph;
+
+import ch.geomo.tramaps.graph.index.SpatialGraphIndex;
+import ch.geomo.tramaps.map.signature.NodeSignature;
+import ch.geomo.util.collection.pair.Pair;
+import ch.geomo.util.collection.set.EnhancedSet;
+import ch.geomo.util.collection.set.GSet;
+import ch.geomo.util.geom.GeomUtil;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+public class Graph {
+
+    private final EnhancedSet<Node> nodes;
+
+    private EnhancedSet<Edge> edgeCache;
+    private SpatialGraphIndex spatialIndex;
+
+    private long modificationCount = 0;
+
+    public Graph() {
+        nodes = GSet.emptySet();
+    }
+
+    private void clearCache() {
+        edgeCache = null;
+        modificationCount++;
+        if (spatialIndex != null) {
+            spatialIndex.dispose();
+            spatialIndex = null;
+        }
+    }
+
+    private void buildCache() {
+        if (edgeCache == null) {
+            edgeCache = nodes.flatMap(node -> node.getAdjacentEdges().stream());
+        }
+    }
+
+    public void addNodes(@NotNull Node... nodes) {
+        this.nodes.addElements(nodes);
+        clearCache();
+    }
+
+    /**
+     * Disposes the indexes of this graph, which unsubscribes them from the nodes and edges. The indexes are created
+     * again when accessing them next time. Must be called before the nodes or edges are modified concurrently, e.g.
+     * by laying out parts of this graph in parallel, since the indexes are not thread-safe.
+     */
+    public void disposeIndexes() {
+        clearCache();
+    }
+
+    /**
+     * Removes given nodes from this graph without destroying them. The adjacent edges of the nodes are not removed.
+     */
+    public void removeNodes(@NotNull Node... nodes) {
+        // by identity since bend nodes may have the same name
+        Set<Node> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(Arrays.asList(nodes));
+        this.nodes.removeIf(removed::contains);
+        clearCache();
+    }
+
+    @NotNull
+    private EnhancedSet<Edge> getEdgeCache() {
+        buildCache();
+        return edgeCache;
+    }
+
+    @NotNull
+    public EnhancedSet<Edge> getEdges() {
+        return GSet.createSet(getEdgeCache());
+    }
+
+    @NotNull
+    public EnhancedSet<Node> getNodes() {
+        return GSet.createSet(nodes);
+    }
+
+    /**
+     * Returns a read-only view of the edges without copying them, unlike {@link #getEdges()}. The view must not be
+     * used after a structural modification of this graph.
+     * @return a read-only view of the edges
+     */
+    @NotNull
+    public Set<Edge> getEdgeView() {
+        return Collections.unmodifiableSet(getEdgeCache());
+    }
+
+    /**
+     * Returns a read-only view of the nodes without copying them, unlike {@link #getNodes()}.
+     * @return a read-only view of the nodes
+     */
+    @NotNull
+    public Set<Node> getNodeView() {
+        return Collections.unmodifiableSet(nodes);
+    }
+
+    /**
+     * Returns the spatial index of the edges and nodes. The index is created lazily and will be kept up-to-date
+     * when nodes are moved. A new index will be created after a structural modification of this graph.
+     * @return the spatial index of this graph
+     * @see #getModificationCount()
+     */
+    @NotNull
+    public SpatialGraphIndex getSpatialIndex() {
+        if (spatialIndex == null) {
+            spatialIndex = new SpatialGraphIndex(getEdgeCache(), nodes);
+        }
+        return spatialIndex;
+    }
+
+    /**
+     * Returns the number of structural modifications (added or removed nodes and edges) of this graph. Moving a
+     * node is not a structural modification.
+     * @return the number of structural modifications
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Calculates the bounding box with a collection set all edge and node signature geometries.
+     * @return a bounding box set all edge and node signatures
+     * @see #getEdgeGeometries()
+     * @see #getNodeSignatureGeometries()
+     */
+    @NotNull
+    public Envelope getBoundingBox() {
+        return GeomUtil
+                .createCollection(getEdgeGeometries(), getNodeSignatureGeometries())
+                .getEnvelopeInternal();
+    }
+
+    @NotNull
+    private EnhancedSet<Geometry> getEdgeGeometries() {
+        return GSet.createSet(getEdgeCache().map(Edge::getLineString));
+    }
+
+    @NotNull
+    private EnhancedSet<Geometry> getNodeSignatureGeometries() {
+        return GSet.createSet(nodes.stream()
+                .map(Node::getNodeSignature)
+                .map(NodeSignature::getGeometry));
+    }
+
+    /**
+     * Reset and flags edge cache for a rebuild. Removes deleted nodes returning true when
+     * invoking {@link Node#destroyed()}.
+     */
+    public void updateGraph() {
+        // remove deleted nodes
+        nodes.removeIf(Node::destroyed);
+        // reset edge cache -> will be created again when accessing next time
+        clearCache();
+    }
+
+    /**
+     * Creates a new {@link Node} and adds the node to this instance.
+     * @return the created node
+     */
+    @NotNull
+    public Node createNode(double x, double y, @NotNull String name, @NotNull Function<Node, NodeSignature> nodeSignatureFactory) {
+        Node node = new Node(name, x, y, nodeSignatureFactory);
+        addNodes(node);
+        return node;
+    }
+
+    /**
+     * Creates a new {@link Edge}.
+     * @return the created edge
+     */
+    @NotNull
+    public Edge createEdge(@NotNull Node nodeA, @NotNull Node nodeB, @NotNull Route... routes) {
+        Edge edge = new Edge(nodeA, nodeB, routes);
+        clearCache();
+        return edge;
+    }
+
+    /**
+     * Creates the edges between the given pairs of nodes in bulk, e.g. when importing a map. Unlike
+     * {@link #createEdge(Node, Node, Route...)}, the observers of the nodes are not notified per added edge. The
+     * signature of each node is updated once after all edges are created. Other observers of the nodes, e.g. the
+     * buffers of a conflict evaluation, are not notified.
+     * @param nodePairs the nodes of each edge
+     * @param routes the routes of each edge, in the same order as the pairs of nodes
+     * @return the created edges
+     */
+    @NotNull
+    public List<Edge> createEdges(@NotNull List<Pair<Node>> nodePairs, @NotNull List<? extends Collection<Route>> routes) {
+        if (nodePairs.size() != routes.size()) {
+            throw new IllegalArgumentException("Number of node pairs and routes must be equal.");
+        }
+        List<Edge> edges = new ArrayList<>(nodePairs.size());
+        Set<Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < nodePairs.size(); i++) {
+            Pair<Node> pair = nodePairs.get(i);
+            edges.add(new Edge(pair.getFirst(), pair.getSecond(), null, false, routes.get(i).toArray(new Route[0])));
+            nodes.add(pair.getFirst());
+            nodes.add(pair.getSecond());
+        }
+        nodes.forEach(Node::adjacentEdgesAdded);
+        clearCache();
+        return edges;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "Graph[Edges[" + getEdges() + "],Nodes[" + getNodes() + " ]]";
+    }
+
+}
@@ -76,13 +76,31 @@ public class Node extends Observable implements GraphElement, NodePoint {
      * Subscribes the given edge as an {@link Observer} but does not notify the other observers!
      */
     /* package-private */ void addAdjacentEdge(@NotNull Edge edge) {
+        addAdjacentEdge(edge, true);
+    }
+
+    /**
+     * Adds a new adjacent edge like {@link #addAdjacentEdge(Edge)}. If notify is false, the observers are not
+     * notified and {@link #adjacentEdgesAdded()} must be called after adding the edges.
+     */
+    /* package-private */ void addAdjacentEdge(@NotNull Edge edge, boolean notify) {
         if (!equals(edge.getNodeA()) && !equals(edge.getNodeB())) {
             return;
         }
         adjacentEdges.add(edge);
         addObserver(edge);
-        setChanged();
-        notifyObservers();
+        if (notify) {
+            setChanged();
+            notifyObservers();
+        }
+    }
+
+    /**
+     * Updates the signature once after adding adjacent edges without notification. The other observers, e.g. the
+     * adjacent edges, are not notified since the position of this node did not change.
+     */
+    /* package-private */ void adjacentEdgesAdded() {
+        signature.updateSignature();
     }
 
     /**
@@ -254,8 +272,8 @@ public class Node extends Observable implements GraphElement, NodePoint {
 
     @Override
     public void destroy() {
-        // remove adjacent nodes
-        getAdjacentEdges().forEach(Edge::destroy);
+        // remove adjacent edges, iterating over a copy since destroying an edge removes it from this node
+        new ArrayList<>(getAdjacentEdges()).forEach(Edge::destroy);
         destroyed = true;
         // notify observers a last time
         setChanged();
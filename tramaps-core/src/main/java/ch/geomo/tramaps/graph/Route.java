@@ -4,7 +4,7 @@
 
 package ch.geomo.tramaps.graph;
 
-import javafx.scene.paint.Color;
+import ch.geomo.util.color.Color;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
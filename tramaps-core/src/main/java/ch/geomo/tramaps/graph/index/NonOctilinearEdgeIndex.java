@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.graph.index;
+
+import ch.geomo.tramaps.graph.Edge;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the non-octilinear edges of a graph. The index observes all indexed edges and will be updated
+ * when an edge changes its direction. The non-octilinear edges are kept in a heap ordered by their length and
+ * their number of routes.
+ * <p>
+ * Note: Like the {@link SpatialGraphIndex}, added or removed edges are not considered. A new index must be created
+ * after a structural modification of the graph.
+ */
+public class NonOctilinearEdgeIndex implements Observer {
+
+    /**
+     * An entry of the heap. Since the sort key of an edge changes when moving a node, the key is copied when
+     * creating an entry. Outdated entries will be skipped when polling the heap.
+     */
+    private static class Entry implements Comparable<Entry> {
+
+        private final Edge edge;
+        private final double length;
+        private final int routeCount;
+        private final long sequence;
+
+        private Entry(@NotNull Edge edge, long sequence) {
+            this.edge = edge;
+            this.sequence = sequence;
+            length = edge.getLength();
+            routeCount = edge.getRoutes().size();
+        }
+
+        @Override
+        public int compareTo(@NotNull Entry o) {
+            if (length != o.length) {
+                return Double.compare(length, o.length);
+            }
+            if (routeCount != o.routeCount) {
+                return Integer.compare(routeCount, o.routeCount);
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+
+    }
+
+    private final Set<Edge> edges;
+    private final Map<Edge, Entry> entries;
+    private final PriorityQueue<Entry> heap;
+
+    private long sequence = 0;
+
+    public NonOctilinearEdgeIndex(@NotNull Collection<Edge> edges) {
+        // identity maps since hash code of edges changes when destroyed
+        this.edges = Collections.newSetFromMap(new IdentityHashMap<>(edges.size()));
+        entries = new IdentityHashMap<>();
+        heap = new PriorityQueue<>();
+        for (Edge edge : edges) {
+            this.edges.add(edge);
+            edge.addObserver(this);
+            updateEntry(edge);
+        }
+    }
+
+    /**
+     * Adds, replaces or removes the entry of given edge.
+     */
+    private void updateEntry(@NotNull Edge edge) {
+        if (!edge.destroyed() && edge.isNotOctilinear()) {
+            Entry entry = new Entry(edge, sequence++);
+            entries.put(edge, entry);
+            heap.add(entry);
+        }
+        else {
+            entries.remove(edge);
+        }
+        // remove outdated entries when the heap has grown too much
+        if (heap.size() > 2 * entries.size() + 16) {
+            heap.clear();
+            heap.addAll(entries.values());
+        }
+    }
+
+    /**
+     * @return the number of non-octilinear edges
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return true if the given edge is indexed and currently non-octilinear
+     */
+    public boolean contains(@NotNull Edge edge) {
+        return entries.containsKey(edge);
+    }
+
+    /**
+     * @return the shortest non-octilinear edge or null if all edges are octilinear
+     */
+    @Nullable
+    public Edge getShortestEdge() {
+        // skip outdated entries
+        while (!heap.isEmpty() && entries.get(heap.peek().edge) != heap.peek()) {
+            heap.poll();
+        }
+        return heap.isEmpty() ? null : heap.peek().edge;
+    }
+
+    /**
+     * Passes the non-octilinear edges ordered by their length and their number of routes to given consumer. The
+     * edges are polled one by one from a heap of the current entries, so the order is given by the edges when
+     * starting and the consumer may move nodes meanwhile.
+     */
+    public void forEachEdge(@NotNull Consumer<Edge> consumer) {
+        // built in linear time and without the outdated entries of the heap
+        PriorityQueue<Entry> queue = new PriorityQueue<>(entries.values());
+        while (!queue.isEmpty()) {
+            consumer.accept(queue.poll().edge);
+        }
+    }
+
+    /**
+     * Unsubscribes this index from all indexed edges. This index must not be used anymore afterwards.
+     */
+    public void dispose() {
+        edges.forEach(edge -> edge.deleteObserver(this));
+        edges.clear();
+        entries.clear();
+        heap.clear();
+    }
+
+    @Override
+    public void update(Observable o, Object arg) {
+        if (o instanceof Edge && edges.contains(o)) {
+            Edge edge = (Edge) o;
+            updateEntry(edge);
+            if (edge.destroyed()) {
+                edge.deleteObserver(this);
+                edges.remove(edge);
+            }
+        }
+    }
+
+}
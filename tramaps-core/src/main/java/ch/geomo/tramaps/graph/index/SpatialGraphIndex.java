@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.graph.index;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Graph;
+import ch.geomo.tramaps.graph.Node;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * A spatial index of the edges and nodes of a {@link Graph}. Edges are indexed with a {@link Quadtree}, nodes with
+ * a hash map using their (precise) coordinate as key. The index observes the indexed elements and will be updated
+ * when a node is moved.
+ * <p>
+ * Note: The index does not observe the {@link Graph} itself. Added or removed nodes and edges are not
+ * considered. Use {@link Graph#getSpatialIndex()} in order to get an up-to-date index.
+ */
+public class SpatialGraphIndex implements Observer {
+
+    private final Quadtree edgeTree;
+    private final Map<Edge, Envelope> edgeEnvelopes;
+
+    private final Map<Coordinate, List<Node>> nodesByCoordinate;
+    private final Map<Node, Coordinate> nodeCoordinates;
+
+    public SpatialGraphIndex(@NotNull Collection<Edge> edges, @NotNull Collection<Node> nodes) {
+        edgeTree = new Quadtree();
+        // identity maps since hash code of nodes and edges changes when destroyed
+        edgeEnvelopes = new IdentityHashMap<>(edges.size());
+        nodesByCoordinate = new HashMap<>(nodes.size() * 2);
+        nodeCoordinates = new IdentityHashMap<>(nodes.size());
+        edges.forEach(this::addEdge);
+        nodes.forEach(this::addNode);
+    }
+
+    private void addEdge(@NotNull Edge edge) {
+        Envelope envelope = edge.getLineString().getEnvelopeInternal();
+        edgeTree.insert(envelope, edge);
+        if (edgeEnvelopes.put(edge, envelope) == null) {
+            edge.addObserver(this);
+        }
+    }
+
+    private void removeEdge(@NotNull Edge edge) {
+        Envelope envelope = edgeEnvelopes.remove(edge);
+        if (envelope != null) {
+            edgeTree.remove(envelope, edge);
+        }
+    }
+
+    private void addNode(@NotNull Node node) {
+        Coordinate coordinate = new Coordinate(node.getCoordinate());
+        nodesByCoordinate.computeIfAbsent(coordinate, c -> new ArrayList<>(1)).add(node);
+        if (nodeCoordinates.put(node, coordinate) == null) {
+            node.addObserver(this);
+        }
+    }
+
+    private void removeNode(@NotNull Node node) {
+        Coordinate coordinate = nodeCoordinates.remove(node);
+        if (coordinate != null) {
+            List<Node> nodes = nodesByCoordinate.get(coordinate);
+            nodes.removeIf(n -> n == node);
+            if (nodes.isEmpty()) {
+                nodesByCoordinate.remove(coordinate);
+            }
+        }
+    }
+
+    private void updateEdge(@NotNull Edge edge) {
+        removeEdge(edge);
+        if (edge.destroyed()) {
+            edge.deleteObserver(this);
+        }
+        else {
+            addEdge(edge);
+        }
+    }
+
+    private void updateNode(@NotNull Node node) {
+        Coordinate coordinate = nodeCoordinates.get(node);
+        if (!node.destroyed() && node.getCoordinate().equals2D(coordinate)) {
+            // position not changed (e.g. adjacent edges changed)
+            return;
+        }
+        removeNode(node);
+        if (node.destroyed()) {
+            node.deleteObserver(this);
+        }
+        else {
+            addNode(node);
+        }
+    }
+
+    /**
+     * @return all edges whose envelope intersects with given {@link Envelope}
+     */
+    @NotNull
+    public List<Edge> queryEdges(@NotNull Envelope envelope) {
+        List<Edge> edges = new ArrayList<>();
+        for (Object item : edgeTree.query(envelope)) {
+            Edge edge = (Edge) item;
+            // quadtree returns candidates only
+            if (envelope.intersects(edgeEnvelopes.get(edge))) {
+                edges.add(edge);
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * @return all nodes located at the given {@link Coordinate}
+     */
+    @NotNull
+    public List<Node> getNodes(@NotNull Coordinate coordinate) {
+        return nodesByCoordinate.getOrDefault(coordinate, Collections.emptyList());
+    }
+
+    /**
+     * Unsubscribes this index from all indexed elements. This index must not be used anymore afterwards.
+     */
+    public void dispose() {
+        edgeEnvelopes.keySet().forEach(edge -> edge.deleteObserver(this));
+        nodeCoordinates.keySet().forEach(node -> node.deleteObserver(this));
+        edgeEnvelopes.clear();
+        nodeCoordinates.clear();
+        nodesByCoordinate.clear();
+    }
+
+    @Override
+    public void update(Observable o, Object arg) {
+        if (o instanceof Edge) {
+            updateEdge((Edge) o);
+        }
+        else if (o instanceof Node) {
+            updateNode((Node) o);
+        }
+    }
+
+}
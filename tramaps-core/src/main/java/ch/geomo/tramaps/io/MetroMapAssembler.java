@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io;
+
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.collection.pair.Pair;
+import ch.geomo.util.color.Color;
+import com.vividsolutions.jts.geom.Coordinate;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Assembles a {@link MetroMap} from imported stations and line strings. Coordinates are snapped to a grid with
+ * the given tolerance and hashed in order to find shared stations and junctions. Line strings are kept as snapped
+ * coordinates (deferred segments) until {@link #build()} is called since a line may be imported before the stations
+ * it passes through. Then the whole graph is built in one pass without notifying the nodes per added edge:
+ * <ul>
+ * <li>a line string is split at each vertex which is a station, an end point or a branch (a vertex with more than
+ * two distinct neighbours)</li>
+ * <li>end points and branches without a station become junction nodes</li>
+ * <li>other vertices of a line string are dropped since edges are straight lines</li>
+ * <li>duplicate edges between the same nodes (e.g. one per route) are merged into one edge with all routes</li>
+ * </ul>
+ * Note: Coordinates are snapped to grid cells. Two coordinates within the tolerance but in adjacent cells will
+ * not be snapped to each other.
+ */
+public class MetroMapAssembler {
+
+    /**
+     * A snapped coordinate.
+     */
+    private static final class Cell {
+
+        private final long x;
+        private final long y;
+
+        private Cell(long x, long y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Cell && x == ((Cell) obj).x && y == ((Cell) obj).y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(x * 31 + y);
+        }
+
+    }
+
+    /**
+     * A station or junction whose node is created when building the map.
+     */
+    private static final class Vertex {
+
+        private final Coordinate coordinate;
+        private String name;
+        private NodeSignatureType signatureType;
+        private Node node;
+
+        private boolean endPoint = false;
+        private boolean branch = false;
+        private Vertex neighbour1;
+        private Vertex neighbour2;
+
+        private Vertex(@NotNull Coordinate coordinate) {
+            this.coordinate = coordinate;
+        }
+
+        /**
+         * Registers given vertex as a neighbour. Marks this vertex as a branch when having a third neighbour.
+         */
+        private void addNeighbour(@NotNull Vertex vertex) {
+            if (vertex == neighbour1 || vertex == neighbour2) {
+                return;
+            }
+            if (neighbour1 == null) {
+                neighbour1 = vertex;
+            }
+            else if (neighbour2 == null) {
+                neighbour2 = vertex;
+            }
+            else {
+                branch = true;
+            }
+        }
+
+    }
+
+    /**
+     * A line string with its snapped vertices.
+     */
+    private static final class Segment {
+
+        private final Vertex[] vertices;
+        private final Route[] routes;
+
+        private Segment(@NotNull Vertex[] vertices, @NotNull Route[] routes) {
+            this.vertices = vertices;
+            this.routes = routes;
+        }
+
+    }
+
+    private double routeMargin;
+    private double edgeMargin;
+    private double nodeMargin;
+    private final double tolerance;
+
+    private final Map<Cell, Vertex> vertices;
+    private final Map<String, Route> routes;
+    private final Set<String> stationNames;
+    private final List<Segment> segments;
+
+    public MetroMapAssembler(double routeMargin, double edgeMargin, double nodeMargin, double tolerance) {
+        if (tolerance <= 0) {
+            throw new IllegalArgumentException("Tolerance must be positive.");
+        }
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+        this.tolerance = tolerance;
+        vertices = new HashMap<>();
+        routes = new LinkedHashMap<>();
+        stationNames = new HashSet<>();
+        segments = new ArrayList<>();
+    }
+
+    /**
+     * Replaces the margins given to the constructor, e.g. when read after the features.
+     */
+    public void setMargins(double routeMargin, double edgeMargin, double nodeMargin) {
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+    }
+
+    @NotNull
+    private Vertex getVertex(@NotNull Coordinate coordinate) {
+        Cell cell = new Cell(Math.round(coordinate.x / tolerance), Math.round(coordinate.y / tolerance));
+        return vertices.computeIfAbsent(cell, c -> new Vertex(new Coordinate(coordinate.x, coordinate.y)));
+    }
+
+    /**
+     * @return a unique name since nodes are identified by their name
+     */
+    @NotNull
+    private String createUniqueName(@NotNull String name) {
+        String uniqueName = name;
+        for (int i = 2; !stationNames.add(uniqueName); i++) {
+            uniqueName = name + " (" + i + ")";
+        }
+        return uniqueName;
+    }
+
+    /**
+     * Adds a station at given coordinate. A station snapped to the same coordinate as an already added station
+     * will be ignored.
+     */
+    public void addStation(@NotNull Coordinate coordinate, @NotNull String name) {
+        addStation(coordinate, name, NodeSignatureType.RECTANGLE);
+    }
+
+    /**
+     * Adds a station with given signature type at given coordinate. A station snapped to the same coordinate as
+     * an already added station will be ignored.
+     */
+    public void addStation(@NotNull Coordinate coordinate, @NotNull String name, @NotNull NodeSignatureType signatureType) {
+        Vertex vertex = getVertex(coordinate);
+        if (vertex.name == null) {
+            vertex.name = createUniqueName(name);
+            vertex.signatureType = signatureType;
+        }
+    }
+
+    /**
+     * Returns the route with given name. The route will be created with given width and color when requested
+     * the first time.
+     * @return the route with given name
+     */
+    @NotNull
+    public Route getRoute(@NotNull String name, double lineWidth, @NotNull Color lineColor) {
+        return routes.computeIfAbsent(name, n -> new Route(n, lineWidth, lineColor));
+    }
+
+    /**
+     * Adds a line string served by given routes. Line strings with less than two distinct snapped coordinates
+     * will be ignored.
+     */
+    public void addLine(@NotNull Coordinate[] coordinates, @NotNull Route... routes) {
+
+        List<Vertex> lineVertices = new ArrayList<>(coordinates.length);
+        for (Coordinate coordinate : coordinates) {
+            Vertex vertex = getVertex(coordinate);
+            // skip repeated coordinates
+            if (lineVertices.isEmpty() || lineVertices.get(lineVertices.size() - 1) != vertex) {
+                lineVertices.add(vertex);
+            }
+        }
+
+        if (lineVertices.size() < 2) {
+            return;
+        }
+
+        // end points are always nodes
+        lineVertices.get(0).endPoint = true;
+        lineVertices.get(lineVertices.size() - 1).endPoint = true;
+        for (int i = 1; i < lineVertices.size(); i++) {
+            lineVertices.get(i - 1).addNeighbour(lineVertices.get(i));
+            lineVertices.get(i).addNeighbour(lineVertices.get(i - 1));
+        }
+
+        segments.add(new Segment(lineVertices.toArray(new Vertex[0]), routes));
+
+    }
+
+    /**
+     * @return number of stations added so far
+     */
+    public int getStationCount() {
+        return stationNames.size();
+    }
+
+    /**
+     * @return number of line strings added so far
+     */
+    public int getLineCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return true if given vertex must become a node
+     */
+    private static boolean isNode(@NotNull Vertex vertex) {
+        return vertex.name != null || vertex.endPoint || vertex.branch;
+    }
+
+    /**
+     * Builds the map with all added stations and lines. Stations not connected to any line are part of the map
+     * as well. Must be called once only.
+     * @return the assembled map
+     */
+    @NotNull
+    public MetroMap build() {
+
+        MetroMap map = new MetroMap(routeMargin, edgeMargin, nodeMargin);
+
+        // create nodes
+        List<Node> nodes = new ArrayList<>();
+        int junctionCount = 0;
+        for (Vertex vertex : vertices.values()) {
+            if (!isNode(vertex)) {
+                continue;
+            }
+            if (vertex.name == null) {
+                // junction without a station
+                vertex.name = createUniqueName("J" + (++junctionCount));
+                vertex.signatureType = NodeSignatureType.BEND;
+            }
+            vertex.node = new Node(vertex.name, vertex.coordinate.x, vertex.coordinate.y, vertex.signatureType.getFactory());
+            nodes.add(vertex.node);
+        }
+        map.addNodes(nodes.toArray(new Node[0]));
+
+        // collect edges, merge duplicate edges
+        Map<Node, Map<Node, Set<Route>>> edges = new IdentityHashMap<>();
+        List<Pair<Node>> nodePairs = new ArrayList<>();
+        List<Set<Route>> edgeRoutes = new ArrayList<>();
+        for (Segment segment : segments) {
+            Vertex start = segment.vertices[0];
+            for (int i = 1; i < segment.vertices.length; i++) {
+                Vertex vertex = segment.vertices[i];
+                if (!isNode(vertex)) {
+                    continue;
+                }
+                Node nodeA = start.node;
+                Node nodeB = vertex.node;
+                if (nodeA != nodeB) {
+                    Set<Route> routes = findRoutes(edges, nodeA, nodeB);
+                    if (routes == null) {
+                        routes = new LinkedHashSet<>();
+                        edges.computeIfAbsent(nodeA, n -> new IdentityHashMap<>()).put(nodeB, routes);
+                        nodePairs.add(Pair.of(nodeA, nodeB));
+                        edgeRoutes.add(routes);
+                    }
+                    routes.addAll(Arrays.asList(segment.routes));
+                }
+                start = vertex;
+            }
+        }
+
+        // create all edges at once, the signature of each node is updated once only
+        map.createEdges(nodePairs, edgeRoutes);
+
+        return map;
+
+    }
+
+    private static Set<Route> findRoutes(@NotNull Map<Node, Map<Node, Set<Route>>> edges, @NotNull Node nodeA, @NotNull Node nodeB) {
+        Set<Route> routes = edges.getOrDefault(nodeA, Collections.emptyMap()).get(nodeB);
+        if (routes == null) {
+            routes = edges.getOrDefault(nodeB, Collections.emptyMap()).get(nodeA);
+        }
+        return routes;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io;
+
+import ch.geomo.tramaps.io.geojson.GeoJsonMetroMapReader;
+import ch.geomo.tramaps.io.geojson.GeoJsonMetroMapWriter;
+import ch.geomo.tramaps.io.geopackage.GeoPackageMetroMapWriter;
+import ch.geomo.tramaps.io.gtfs.GtfsMetroMapReader;
+import ch.geomo.tramaps.io.shapefile.ShapefileMetroMapReader;
+import ch.geomo.tramaps.io.shapefile.ShapefileMetroMapWriter;
+import ch.geomo.tramaps.io.snapshot.SnapshotReader;
+import ch.geomo.tramaps.io.snapshot.SnapshotWriter;
+import ch.geomo.tramaps.io.svg.SvgMetroMapWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Enumerates the supported file formats, detected by the file extension.
+ */
+public enum MetroMapFormat {
+
+    TEXT(TextMetroMapReader::new, TextMetroMapWriter::new, ".tmap", ".txt"),
+    SHAPEFILE(ShapefileMetroMapReader::new, ShapefileMetroMapWriter::new, ".shp"),
+    GEOPACKAGE(null, GeoPackageMetroMapWriter::new, ".gpkg"),
+    GEOJSON(GeoJsonMetroMapReader::new, GeoJsonMetroMapWriter::new, ".geojson", ".json"),
+    SNAPSHOT(SnapshotReader::new, SnapshotWriter::new, ".tms"),
+    GTFS(GtfsMetroMapReader::new, null, ".zip"),
+    SVG(null, SvgMetroMapWriter::new, ".svg");
+
+    private final Supplier<MetroMapReader> readerFactory;
+    private final Supplier<MetroMapWriter> writerFactory;
+    private final String[] extensions;
+
+    MetroMapFormat(@Nullable Supplier<MetroMapReader> readerFactory, @Nullable Supplier<MetroMapWriter> writerFactory, @NotNull String... extensions) {
+        this.readerFactory = readerFactory;
+        this.writerFactory = writerFactory;
+        this.extensions = extensions;
+    }
+
+    /**
+     * @return a new reader of this format
+     * @throws UnsupportedOperationException if this format cannot be read
+     */
+    @NotNull
+    public MetroMapReader createReader() {
+        if (readerFactory == null) {
+            throw new UnsupportedOperationException("Reading " + this + " is not supported.");
+        }
+        return readerFactory.get();
+    }
+
+    /**
+     * @return a new reader of this format using the given margins instead of the margins stored in the file, except
+     * for {@link #SNAPSHOT} which always restores the stored margins
+     * @throws UnsupportedOperationException if this format cannot be read
+     */
+    @NotNull
+    public MetroMapReader createReader(double routeMargin, double edgeMargin, double nodeMargin) {
+        switch (this) {
+            case TEXT:
+                return new TextMetroMapReader(routeMargin, edgeMargin, nodeMargin);
+            case SHAPEFILE:
+                return new ShapefileMetroMapReader().setMargins(routeMargin, edgeMargin, nodeMargin);
+            case GEOJSON:
+                return new GeoJsonMetroMapReader().setMargins(routeMargin, edgeMargin, nodeMargin);
+            case GTFS:
+                return new GtfsMetroMapReader().setMargins(routeMargin, edgeMargin, nodeMargin);
+            default:
+                return createReader();
+        }
+    }
+
+    /**
+     * @return a new writer of this format
+     * @throws UnsupportedOperationException if this format cannot be written
+     */
+    @NotNull
+    public MetroMapWriter createWriter() {
+        if (writerFactory == null) {
+            throw new UnsupportedOperationException("Writing " + this + " is not supported.");
+        }
+        return writerFactory.get();
+    }
+
+    /**
+     * @return the format matching the extension of given path or {@link #TEXT} if the extension is unknown
+     */
+    @NotNull
+    public static MetroMapFormat of(@NotNull Path path) {
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (MetroMapFormat format : values()) {
+            for (String extension : format.extensions) {
+                if (fileName.endsWith(extension)) {
+                    return format;
+                }
+            }
+        }
+        return TEXT;
+    }
+
+}
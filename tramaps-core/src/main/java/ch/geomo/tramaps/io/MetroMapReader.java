@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io;
+
+import ch.geomo.tramaps.map.MetroMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reads a {@link MetroMap} from a file.
+ */
+public interface MetroMapReader {
+
+    /**
+     * @return the map read from given file
+     * @throws IOException if the file cannot be read or has an invalid format
+     */
+    @NotNull
+    MetroMap read(@NotNull Path path) throws IOException;
+
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io;
+
+import ch.geomo.tramaps.map.MetroMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes a {@link MetroMap} to a file.
+ */
+public interface MetroMapWriter {
+
+    /**
+     * Writes given map to given file. An existing file will be replaced.
+     * @throws IOException if the file cannot be written
+     */
+    void write(@NotNull MetroMap map, @NotNull Path path) throws IOException;
+
+}
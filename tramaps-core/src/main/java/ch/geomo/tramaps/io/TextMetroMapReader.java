@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io;
+
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.color.Color;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ch.geomo.tramaps.io.TextRecord.*;
+
+/**
+ * Reads a {@link MetroMap} from a file using the tab separated text format.
+ * @see TextRecord
+ */
+public class TextMetroMapReader implements MetroMapReader {
+
+    private final boolean overrideMargins;
+    private final double routeMargin;
+    private final double edgeMargin;
+    private final double nodeMargin;
+
+    public TextMetroMapReader() {
+        overrideMargins = false;
+        routeMargin = 0;
+        edgeMargin = 0;
+        nodeMargin = 0;
+    }
+
+    /**
+     * Creates a reader which ignores the margins of a file and uses the given margins instead.
+     */
+    public TextMetroMapReader(double routeMargin, double edgeMargin, double nodeMargin) {
+        overrideMargins = true;
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+    }
+
+    @NotNull
+    @Override
+    public MetroMap read(@NotNull Path path) throws IOException {
+
+        Map<String, Route> routes = new HashMap<>();
+        Map<String, Node> nodes = new HashMap<>();
+
+        MetroMap map = null;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+
+            String line;
+            int lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+
+                lineNumber++;
+
+                if (line.trim().isEmpty() || line.startsWith(COMMENT)) {
+                    continue;
+                }
+
+                String[] fields = line.split(SEPARATOR, -1);
+                TextRecord record = TextRecord.of(fields[0]);
+
+                if (record == null) {
+                    throw new IOException(createMessage(path, lineNumber, "Unknown record " + fields[0]));
+                }
+                if (fields.length < record.getMinFieldCount()) {
+                    throw new IOException(createMessage(path, lineNumber, "Missing fields"));
+                }
+                if (map == null && record != MARGINS) {
+                    throw new IOException(createMessage(path, lineNumber, "Margins must be defined first"));
+                }
+
+                try {
+                    switch (record) {
+                        case MARGINS: {
+                            if (overrideMargins) {
+                                map = new MetroMap(routeMargin, edgeMargin, nodeMargin);
+                            }
+                            else {
+                                map = new MetroMap(Double.parseDouble(fields[1]), Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+                            }
+                            break;
+                        }
+                        case ROUTE: {
+                            routes.put(fields[1], new Route(fields[4], Double.parseDouble(fields[2]), Color.fromHex(fields[3])));
+                            break;
+                        }
+                        case NODE: {
+                            NodeSignatureType signatureType = NodeSignatureType.valueOf(fields[4]);
+                            Node node = map.createNode(Double.parseDouble(fields[2]), Double.parseDouble(fields[3]), fields[5], signatureType.getFactory());
+                            nodes.put(fields[1], node);
+                            break;
+                        }
+                        case EDGE: {
+                            Route[] edgeRoutes = new Route[fields.length - 3];
+                            for (int i = 3; i < fields.length; i++) {
+                                edgeRoutes[i - 3] = getReference(routes, fields[i]);
+                            }
+                            map.createEdge(getReference(nodes, fields[1]), getReference(nodes, fields[2]), edgeRoutes);
+                            break;
+                        }
+                    }
+                }
+                catch (IllegalArgumentException e) {
+                    // includes NumberFormatException
+                    throw new IOException(createMessage(path, lineNumber, e.getMessage()), e);
+                }
+
+            }
+
+        }
+
+        if (map == null) {
+            throw new IOException("Empty metro map file: " + path);
+        }
+
+        return map;
+
+    }
+
+    @NotNull
+    private static <T> T getReference(@NotNull Map<String, T> elements, @NotNull String id) {
+        T element = elements.get(id);
+        if (element == null) {
+            throw new IllegalArgumentException("Unknown reference " + id);
+        }
+        return element;
+    }
+
+    @NotNull
+    private static String createMessage(@NotNull Path path, int lineNumber, @NotNull String message) {
+        return path + ":" + lineNumber + ": " + message;
+    }
+
+}
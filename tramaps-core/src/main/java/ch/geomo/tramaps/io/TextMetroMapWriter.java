@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static ch.geomo.tramaps.io.TextRecord.*;
+
+/**
+ * Writes a {@link MetroMap} using the tab separated text format. Nodes and routes are referenced by generated ids
+ * since their names are not necessarily unique (e.g. bend nodes).
+ * @see TextRecord
+ */
+public class TextMetroMapWriter implements MetroMapWriter {
+
+    @Override
+    public void write(@NotNull MetroMap map, @NotNull Path path) throws IOException {
+
+        // identity maps since hash code of nodes changes when destroyed
+        Map<Node, Integer> nodeIds = new IdentityHashMap<>();
+        Map<Route, Integer> routeIds = new LinkedHashMap<>();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+
+            writer.write(COMMENT + " tramaps metro map");
+            writer.newLine();
+            writeRecord(writer, MARGINS, map.getRouteMargin(), map.getEdgeMargin(), map.getNodeMargin());
+
+            for (Edge edge : map.getEdges()) {
+                for (Route route : edge.getRoutes()) {
+                    if (!routeIds.containsKey(route)) {
+                        routeIds.put(route, routeIds.size());
+                        writeRecord(writer, ROUTE, routeIds.get(route), route.getLineWidth(), route.getLineColor().toHex(), route.getName());
+                    }
+                }
+            }
+
+            for (Node node : map.getNodes()) {
+                nodeIds.put(node, nodeIds.size());
+                NodeSignatureType signatureType = NodeSignatureType.of(node.getNodeSignature());
+                writeRecord(writer, NODE, nodeIds.get(node), node.getX(), node.getY(), signatureType, node.getName());
+            }
+
+            for (Edge edge : map.getEdges()) {
+                StringBuilder builder = new StringBuilder(EDGE.getKeyword())
+                        .append(SEPARATOR).append(nodeIds.get(edge.getNodeA()))
+                        .append(SEPARATOR).append(nodeIds.get(edge.getNodeB()));
+                edge.getRoutes().forEach(route -> builder.append(SEPARATOR).append(routeIds.get(route)));
+                writer.write(builder.toString());
+                writer.newLine();
+            }
+
+        }
+
+    }
+
+    private static void writeRecord(@NotNull BufferedWriter writer, @NotNull TextRecord record, @NotNull Object... fields) throws IOException {
+        StringBuilder builder = new StringBuilder(record.getKeyword());
+        for (Object field : fields) {
+            builder.append(SEPARATOR).append(field);
+        }
+        writer.write(builder.toString());
+        writer.newLine();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The record types of the tab separated text format. Each line of a file starts with the keyword of its record
+ * type followed by the record's fields. Empty lines and lines starting with <tt>#</tt> are ignored.
+ * <pre>
+ * margins  &lt;route margin&gt;  &lt;edge margin&gt;  &lt;node margin&gt;
+ * route    &lt;id&gt;  &lt;line width&gt;  &lt;color&gt;  &lt;name&gt;
+ * node     &lt;id&gt;  &lt;x&gt;  &lt;y&gt;  &lt;signature type&gt;  &lt;name&gt;
+ * edge     &lt;node id&gt;  &lt;node id&gt;  &lt;route id&gt;...
+ * </pre>
+ * The margins must be the first record. Routes and nodes must be defined before being referenced by an edge.
+ * @see TextMetroMapReader
+ * @see TextMetroMapWriter
+ */
+enum TextRecord {
+
+    MARGINS("margins", 4),
+    ROUTE("route", 5),
+    NODE("node", 6),
+    EDGE("edge", 3);
+
+    static final String SEPARATOR = "\t";
+    static final String COMMENT = "#";
+
+    private final String keyword;
+    private final int minFieldCount;
+
+    TextRecord(@NotNull String keyword, int minFieldCount) {
+        this.keyword = keyword;
+        this.minFieldCount = minFieldCount;
+    }
+
+    @NotNull
+    String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * @return the minimal number of fields including the keyword
+     */
+    int getMinFieldCount() {
+        return minFieldCount;
+    }
+
+    @Nullable
+    static TextRecord of(@NotNull String keyword) {
+        for (TextRecord record : values()) {
+            if (record.keyword.equals(keyword)) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+}
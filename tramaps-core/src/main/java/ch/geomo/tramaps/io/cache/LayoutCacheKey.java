@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.cache;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandlerType;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.color.Color;
+import ch.geomo.util.geom.GeomUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A canonical SHA-256 hash of an input {@link MetroMap} and the {@link LineSpaceHandlerType} used to lay it out.
+ * The hash covers the node coordinates on the precision grid of {@link GeomUtil}, the node signatures, the
+ * adjacency with the original directions and routes of the edges, the margins and the handler type. Nodes are
+ * ordered by name and position and edges by their nodes, so the order in which a map was read does not matter.
+ */
+public final class LayoutCacheKey {
+
+    /**
+     * Must be increased whenever the layout algorithms change their results in order to invalidate cached layouts.
+     */
+    private static final int VERSION = 1;
+
+    private static final Comparator<Node> NODE_ORDER = Comparator.comparing(Node::getName)
+            .thenComparingDouble(node -> GeomUtil.makePrecise(node.getX()))
+            .thenComparingDouble(node -> GeomUtil.makePrecise(node.getY()));
+
+    private final String hash;
+
+    private LayoutCacheKey(@NotNull String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * @return the hash as hexadecimal string
+     */
+    @NotNull
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Computes the key of given map before laying it out with given handler type.
+     */
+    @NotNull
+    public static LayoutCacheKey of(@NotNull MetroMap map, @NotNull LineSpaceHandlerType handlerType) {
+
+        List<Node> nodes = new ArrayList<>(map.getNodes());
+        nodes.sort(NODE_ORDER);
+        Map<Node, Integer> nodeIds = new IdentityHashMap<>();
+        for (Node node : nodes) {
+            nodeIds.put(node, nodeIds.size());
+        }
+
+        // edges are ordered and digested from their first node, so the orientation of an edge does not matter
+        List<Edge> edges = new ArrayList<>(map.getEdges());
+        edges.sort(Comparator.comparing((Edge edge) -> nodeIds.get(getFirstNode(edge, nodeIds)))
+                .thenComparing(edge -> nodeIds.get(edge.getOtherNode(getFirstNode(edge, nodeIds)))));
+
+        Digest digest = new Digest();
+        digest.putInt(VERSION);
+        digest.putString(handlerType.name());
+        digest.putDouble(map.getRouteMargin());
+        digest.putDouble(map.getEdgeMargin());
+        digest.putDouble(map.getNodeMargin());
+
+        digest.putInt(nodes.size());
+        for (Node node : nodes) {
+            digest.putString(node.getName());
+            digest.putDouble(GeomUtil.makePrecise(node.getX()));
+            digest.putDouble(GeomUtil.makePrecise(node.getY()));
+            digest.putString(NodeSignatureType.of(node.getNodeSignature()).name());
+        }
+
+        digest.putInt(edges.size());
+        for (Edge edge : edges) {
+            Node first = getFirstNode(edge, nodeIds);
+            digest.putInt(nodeIds.get(first));
+            digest.putInt(nodeIds.get(edge.getOtherNode(first)));
+            digest.putDouble(edge.getOriginalDirection(first).getAngle());
+            digest.putInt(edge.getRoutes().size());
+            for (Route route : edge.getRoutes()) {
+                Color color = route.getLineColor();
+                digest.putString(route.getName());
+                digest.putDouble(route.getLineWidth());
+                digest.putInt(color.getRed() << 16 | color.getGreen() << 8 | color.getBlue());
+                digest.putDouble(color.getOpacity());
+            }
+        }
+
+        return new LayoutCacheKey(digest.toHexString());
+
+    }
+
+    /**
+     * @return the node of given edge which comes first in the order of the nodes
+     */
+    @NotNull
+    private static Node getFirstNode(@NotNull Edge edge, @NotNull Map<Node, Integer> nodeIds) {
+        return nodeIds.get(edge.getNodeA()) <= nodeIds.get(edge.getNodeB()) ? edge.getNodeA() : edge.getNodeB();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof LayoutCacheKey && hash.equals(((LayoutCacheKey) obj).hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return hash;
+    }
+
+    /**
+     * Feeds primitive values into a SHA-256 {@link MessageDigest}.
+     */
+    private static final class Digest {
+
+        private final MessageDigest messageDigest;
+        private final ByteBuffer buffer = ByteBuffer.allocate(8);
+
+        private Digest() {
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e) {
+                // every Java platform supports SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void putInt(int value) {
+            buffer.clear();
+            buffer.putInt(value);
+            messageDigest.update(buffer.array(), 0, 4);
+        }
+
+        /**
+         * Puts given value on the precision grid of {@link GeomUtil}.
+         */
+        private void putDouble(double value) {
+            buffer.clear();
+            // adding zero turns negative zero into positive zero
+            buffer.putDouble(GeomUtil.makePrecise(value) + 0.0);
+            messageDigest.update(buffer.array(), 0, 8);
+        }
+
+        private void putString(@NotNull String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            messageDigest.update(bytes);
+        }
+
+        @NotNull
+        private String toHexString() {
+            StringBuilder builder = new StringBuilder(64);
+            for (byte b : messageDigest.digest()) {
+                builder.append(Character.forDigit(b >> 4 & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return builder.toString();
+        }
+
+    }
+
+}
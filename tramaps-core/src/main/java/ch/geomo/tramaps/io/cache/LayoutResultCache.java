@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.cache;
+
+import ch.geomo.tramaps.io.snapshot.SnapshotReader;
+import ch.geomo.tramaps.io.snapshot.SnapshotWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.LayoutListener;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandlerType;
+import ch.geomo.util.logging.Loggers;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores laid-out maps in a local SQLite database, keyed by the {@link LayoutCacheKey} of the input map. The maps
+ * are stored as binary snapshots, so bend nodes introduced by the layout are restored as well. When the total size
+ * of the stored snapshots exceeds the given limit, the least recently used layouts are evicted.
+ * <p>
+ * A single instance may be shared by many threads, but not by many processes.
+ */
+public class LayoutResultCache implements Closeable {
+
+    private final Connection connection;
+    private final long maxBytes;
+
+    private long accessCount;
+
+    /**
+     * Opens or creates the cache database.
+     * @param maxBytes the maximum total size of the stored snapshots
+     * @throws IOException if the database cannot be opened
+     */
+    public LayoutResultCache(@NotNull Path file, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Maximum cache size must be positive.");
+        }
+        this.maxBytes = maxBytes;
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS layouts (cache_key TEXT PRIMARY KEY, snapshot BLOB NOT NULL, size INTEGER NOT NULL, last_access INTEGER NOT NULL)");
+                statement.execute("CREATE INDEX IF NOT EXISTS layouts_last_access ON layouts (last_access)");
+                try (ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(last_access), 0) FROM layouts")) {
+                    accessCount = result.next() ? result.getLong(1) : 0;
+                }
+            }
+        }
+        catch (SQLException e) {
+            closeQuietly(connection);
+            throw new IOException("Cannot open layout cache " + file + ".", e);
+        }
+        this.connection = connection;
+    }
+
+    private static void closeQuietly(@Nullable Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            }
+            catch (SQLException e) {
+                // nothing left to do
+            }
+        }
+    }
+
+    /**
+     * @return the cached layout or null if the cache does not contain a layout for given key
+     * @throws IOException if the cache cannot be read
+     */
+    @Nullable
+    public MetroMap get(@NotNull LayoutCacheKey key) throws IOException {
+
+        byte[] snapshot;
+        synchronized (this) {
+            try {
+                try (PreparedStatement select = connection.prepareStatement("SELECT snapshot FROM layouts WHERE cache_key = ?")) {
+                    select.setString(1, key.getHash());
+                    try (ResultSet result = select.executeQuery()) {
+                        if (!result.next()) {
+                            return null;
+                        }
+                        snapshot = result.getBytes(1);
+                    }
+                }
+                try (PreparedStatement update = connection.prepareStatement("UPDATE layouts SET last_access = ? WHERE cache_key = ?")) {
+                    update.setLong(1, ++accessCount);
+                    update.setString(2, key.getHash());
+                    update.executeUpdate();
+                }
+            }
+            catch (SQLException e) {
+                throw new IOException("Cannot read layout " + key + " from cache.", e);
+            }
+        }
+
+        return new SnapshotReader().read(snapshot);
+
+    }
+
+    /**
+     * Stores the layout of given map and evicts the least recently used layouts if the cache exceeds its size.
+     * Layouts larger than the cache itself are not stored.
+     * @throws IOException if the cache cannot be written
+     */
+    public void put(@NotNull LayoutCacheKey key, @NotNull MetroMap map) throws IOException {
+
+        byte[] snapshot = new SnapshotWriter().toByteArray(map);
+        if (snapshot.length > maxBytes) {
+            Loggers.info(this, "Layout {0} exceeds cache size, not cached.", key);
+            return;
+        }
+
+        synchronized (this) {
+            try {
+                connection.setAutoCommit(false);
+                try (PreparedStatement insert = connection.prepareStatement("INSERT OR REPLACE INTO layouts (cache_key, snapshot, size, last_access) VALUES (?, ?, ?, ?)")) {
+                    insert.setString(1, key.getHash());
+                    insert.setBytes(2, snapshot);
+                    insert.setLong(3, snapshot.length);
+                    insert.setLong(4, ++accessCount);
+                    insert.executeUpdate();
+                }
+                evict();
+                connection.commit();
+            }
+            catch (SQLException e) {
+                try {
+                    connection.rollback();
+                }
+                catch (SQLException rollbackException) {
+                    e.addSuppressed(rollbackException);
+                }
+                throw new IOException("Cannot write layout " + key + " to cache.", e);
+            }
+            finally {
+                try {
+                    connection.setAutoCommit(true);
+                }
+                catch (SQLException e) {
+                    // connection is broken, next access will fail
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Deletes the least recently used layouts until the total size does not exceed the maximum size anymore.
+     */
+    private void evict() throws SQLException {
+
+        List<String> evicted = new ArrayList<>();
+
+        try (Statement statement = connection.createStatement()) {
+            long size;
+            try (ResultSet result = statement.executeQuery("SELECT COALESCE(SUM(size), 0) FROM layouts")) {
+                size = result.next() ? result.getLong(1) : 0;
+            }
+            if (size <= maxBytes) {
+                return;
+            }
+            try (ResultSet result = statement.executeQuery("SELECT cache_key, size FROM layouts ORDER BY last_access")) {
+                while (size > maxBytes && result.next()) {
+                    evicted.add(result.getString(1));
+                    size -= result.getLong(2);
+                }
+            }
+        }
+
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM layouts WHERE cache_key = ?")) {
+            for (String key : evicted) {
+                delete.setString(1, key);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+
+        Loggers.info(this, "Evicted {0} layouts from cache.", evicted.size());
+
+    }
+
+    /**
+     * Makes space using a handler of given type unless the layout of given map is already cached. A new layout is
+     * stored in the cache. Errors of the cache are logged and the map is laid out as if no cache were used.
+     * @param listener receives the metrics of each iteration, if a new layout is made only
+     * @return the cached layout or the given map once laid out
+     */
+    @NotNull
+    public MetroMap makeSpace(@NotNull MetroMap map, @NotNull LineSpaceHandlerType handlerType, @Nullable LayoutListener listener) {
+
+        LayoutCacheKey key = LayoutCacheKey.of(map, handlerType);
+
+        try {
+            MetroMap cached = get(key);
+            if (cached != null) {
+                Loggers.info(this, "Layout {0} found in cache.", key);
+                return cached;
+            }
+        }
+        catch (IOException e) {
+            Loggers.warning(this, "Cannot use cached layout: {0}", e);
+        }
+
+        LineSpaceHandler handler = handlerType.create(map);
+        if (listener != null) {
+            handler.addLayoutListener(listener);
+        }
+        handler.makeSpace();
+
+        try {
+            put(key, map);
+        }
+        catch (IOException e) {
+            Loggers.warning(this, "Cannot cache layout: {0}", e);
+        }
+
+        return map;
+
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            connection.close();
+        }
+        catch (SQLException e) {
+            throw new IOException("Cannot close layout cache.", e);
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.feature;
+
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.GraphElement;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.io.MetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.geom.GeomUtil;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+import org.geotools.data.DataStore;
+import org.geotools.data.DefaultTransaction;
+import org.geotools.data.FeatureWriter;
+import org.geotools.data.Transaction;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes the nodes, edges and remaining conflicts of a {@link MetroMap} as three feature layers to a GeoTools
+ * {@link DataStore}. Features are written one by one through a {@link FeatureWriter}, so no feature collection
+ * is held in memory.
+ * <p>
+ * Attribute names are limited to ten characters in order to be compatible with the Shapefile format. Since node
+ * names are not unique, nodes get a generated id which is referenced by the edges.
+ */
+public abstract class FeatureMetroMapWriter implements MetroMapWriter {
+
+    protected static final String NODE_LAYER = "nodes";
+    protected static final String EDGE_LAYER = "edges";
+    protected static final String CONFLICT_LAYER = "conflicts";
+
+    private static final String GEOMETRY_ATTRIBUTE = "geom";
+    private static final String ROUTE_SEPARATOR = ",";
+
+    private CoordinateReferenceSystem crs;
+    private boolean conflictsIncluded = true;
+
+    /**
+     * Sets the coordinate reference system of the written layers. The layers have no reference system if not set.
+     */
+    @NotNull
+    public FeatureMetroMapWriter setCoordinateReferenceSystem(@Nullable CoordinateReferenceSystem crs) {
+        this.crs = crs;
+        return this;
+    }
+
+    /**
+     * Sets whether the remaining conflicts are evaluated and written to a separate layer. Default is true.
+     */
+    @NotNull
+    public FeatureMetroMapWriter setConflictsIncluded(boolean conflictsIncluded) {
+        this.conflictsIncluded = conflictsIncluded;
+        return this;
+    }
+
+    /**
+     * Removes existing output of a previous export to given path.
+     */
+    protected abstract void deleteExisting(@NotNull Path path) throws IOException;
+
+    /**
+     * Opens the {@link DataStore} for the given layer. The store will be disposed after the layer is written.
+     */
+    @NotNull
+    protected abstract DataStore openDataStore(@NotNull Path path, @NotNull String layerName) throws IOException;
+
+    /**
+     * @return the name of the layer as used by the {@link DataStore}
+     */
+    @NotNull
+    protected String getTypeName(@NotNull Path path, @NotNull String layerName) {
+        return layerName;
+    }
+
+    @Override
+    public void write(@NotNull MetroMap map, @NotNull Path path) throws IOException {
+
+        long start = System.currentTimeMillis();
+        deleteExisting(path);
+
+        Map<Node, Integer> nodeIds = new IdentityHashMap<>();
+        for (Node node : map.getNodes()) {
+            nodeIds.put(node, nodeIds.size());
+        }
+
+        SimpleFeatureTypeBuilder nodeType = createTypeBuilder(getTypeName(path, NODE_LAYER), Polygon.class);
+        nodeType.add("id", Integer.class);
+        nodeType.length(254).add("name", String.class);
+        nodeType.length(16).add("signature", String.class);
+        nodeType.add("x", Double.class);
+        nodeType.add("y", Double.class);
+        nodeType.add("degree", Integer.class);
+        writeLayer(path, NODE_LAYER, nodeType.buildFeatureType(), writer -> {
+            for (Node node : map.getNodes()) {
+                writeFeature(writer, node.getNodeSignature().getGeometry(), nodeIds.get(node), node.getName(),
+                        NodeSignatureType.of(node.getNodeSignature()).name(), node.getX(), node.getY(), node.getNodeDegree());
+            }
+        });
+
+        SimpleFeatureTypeBuilder edgeType = createTypeBuilder(getTypeName(path, EDGE_LAYER), LineString.class);
+        edgeType.add("node_a", Integer.class);
+        edgeType.add("node_b", Integer.class);
+        edgeType.length(254).add("routes", String.class);
+        edgeType.length(254).add("colors", String.class);
+        edgeType.add("route_cnt", Integer.class);
+        edgeType.add("width", Double.class);
+        edgeType.add("octilinear", Boolean.class);
+        writeLayer(path, EDGE_LAYER, edgeType.buildFeatureType(), writer -> {
+            for (Edge edge : map.getEdges()) {
+                List<Route> routes = edge.getRoutes().stream()
+                        .sorted(Comparator.comparing(Route::getName))
+                        .collect(Collectors.toList());
+                writeFeature(writer, edge.getLineString(), nodeIds.get(edge.getNodeA()), nodeIds.get(edge.getNodeB()),
+                        join(routes.stream().map(Route::getName)), join(routes.stream().map(route -> route.getLineColor().toHex())),
+                        routes.size(), edge.calculateEdgeWidth(map.getRouteMargin()), edge.isOctilinear());
+            }
+        });
+
+        if (conflictsIncluded) {
+            SimpleFeatureTypeBuilder conflictType = createTypeBuilder(getTypeName(path, CONFLICT_LAYER), Polygon.class);
+            conflictType.length(32).add("type", String.class);
+            conflictType.add("rank", Integer.class);
+            conflictType.length(254).add("element_a", String.class);
+            conflictType.length(254).add("element_b", String.class);
+            conflictType.length(16).add("direction", String.class);
+            conflictType.add("distance", Double.class);
+            writeLayer(path, CONFLICT_LAYER, conflictType.buildFeatureType(), writer -> {
+                for (Conflict conflict : map.evaluateConflicts(true)) {
+                    Polygon area = getConflictArea(conflict);
+                    if (area == null) {
+                        Loggers.warning(this, "Skip conflict {0} without area.", conflict);
+                        continue;
+                    }
+                    writeFeature(writer, area, conflict.getConflictType().name(), conflict.getConflictType().getConflictRank(),
+                            getElementName(conflict.getBufferA().getElement(), nodeIds), getElementName(conflict.getBufferB().getElement(), nodeIds),
+                            String.valueOf(conflict.getBestDisplaceDirection()), conflict.getBestDisplaceDistance());
+                }
+            });
+        }
+
+        Loggers.info(this, "Wrote map to {0} in {1} ms.", path, System.currentTimeMillis() - start);
+
+    }
+
+    @NotNull
+    private SimpleFeatureTypeBuilder createTypeBuilder(@NotNull String typeName, @NotNull Class<? extends Geometry> geometryType) {
+        SimpleFeatureTypeBuilder builder = new SimpleFeatureTypeBuilder();
+        builder.setName(typeName);
+        builder.setCRS(crs);
+        builder.add(GEOMETRY_ATTRIBUTE, geometryType);
+        builder.setDefaultGeometry(GEOMETRY_ATTRIBUTE);
+        return builder;
+    }
+
+    /**
+     * Creates the schema of given layer and writes its features within a single transaction.
+     */
+    private void writeLayer(@NotNull Path path, @NotNull String layerName, @NotNull SimpleFeatureType featureType, @NotNull LayerContent content) throws IOException {
+        DataStore store = openDataStore(path, layerName);
+        Transaction transaction = new DefaultTransaction(layerName);
+        try {
+            store.createSchema(featureType);
+            try (FeatureWriter<SimpleFeatureType, SimpleFeature> writer = store.getFeatureWriterAppend(featureType.getTypeName(), transaction)) {
+                content.write(writer);
+            }
+            transaction.commit();
+        }
+        catch (IOException | RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        }
+        finally {
+            transaction.close();
+            store.dispose();
+        }
+    }
+
+    private static void writeFeature(@NotNull FeatureWriter<SimpleFeatureType, SimpleFeature> writer, @NotNull Geometry geometry, @NotNull Object... attributes) throws IOException {
+        SimpleFeature feature = writer.next();
+        Object[] values = new Object[attributes.length + 1];
+        values[0] = geometry;
+        System.arraycopy(attributes, 0, values, 1, attributes.length);
+        feature.setAttributes(values);
+        writer.write();
+    }
+
+    @NotNull
+    private static String join(@NotNull Stream<String> values) {
+        return values.collect(Collectors.joining(ROUTE_SEPARATOR));
+    }
+
+    @NotNull
+    private static String getElementName(@NotNull GraphElement element, @NotNull Map<Node, Integer> nodeIds) {
+        if (element instanceof Node) {
+            return "node " + nodeIds.get(element);
+        }
+        Edge edge = (Edge) element;
+        return "edge " + nodeIds.get(edge.getNodeA()) + "-" + nodeIds.get(edge.getNodeB());
+    }
+
+    /**
+     * @return the overlapping area of both element buffers, its convex hull if not a single polygon or null if
+     * the buffers do not overlap
+     */
+    @Nullable
+    private static Polygon getConflictArea(@NotNull Conflict conflict) {
+        Geometry area = conflict.getBufferA().getBuffer().intersection(conflict.getBufferB().getBuffer());
+        if (area.isEmpty()) {
+            area = GeomUtil.getGeometryFactory().toGeometry(conflict.getElementBoundingBox());
+        }
+        else if (!(area instanceof Polygon)) {
+            area = area.convexHull();
+        }
+        return area instanceof Polygon ? (Polygon) area : null;
+    }
+
+    /**
+     * Writes the features of a layer.
+     */
+    @FunctionalInterface
+    private interface LayerContent {
+        void write(@NotNull FeatureWriter<SimpleFeatureType, SimpleFeature> writer) throws IOException;
+    }
+
+}
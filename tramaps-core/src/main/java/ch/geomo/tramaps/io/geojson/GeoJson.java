@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.geojson;
+
+/**
+ * Names of the GeoJSON members and feature properties used by {@link GeoJsonMetroMapReader} and
+ * {@link GeoJsonMetroMapWriter}. A station is a Point feature with the properties <tt>name</tt> and
+ * <tt>signature</tt>, a segment is a LineString feature with an array of <tt>routes</tt>, each having a
+ * <tt>name</tt>, a <tt>width</tt> and a hexadecimal <tt>color</tt>. The margins are stored in the foreign member
+ * <tt>margins</tt> of the feature collection.
+ */
+enum GeoJson {
+
+    /* util class */;
+
+    static final String TYPE = "type";
+    static final String FEATURE_COLLECTION = "FeatureCollection";
+    static final String FEATURE = "Feature";
+    static final String FEATURES = "features";
+    static final String ID = "id";
+    static final String GEOMETRY = "geometry";
+    static final String COORDINATES = "coordinates";
+    static final String PROPERTIES = "properties";
+
+    static final String POINT = "Point";
+    static final String MULTI_POINT = "MultiPoint";
+    static final String LINE_STRING = "LineString";
+    static final String MULTI_LINE_STRING = "MultiLineString";
+
+    static final String MARGINS = "margins";
+    static final String ROUTE_MARGIN = "route";
+    static final String EDGE_MARGIN = "edge";
+    static final String NODE_MARGIN = "node";
+
+    static final String NAME = "name";
+    static final String SIGNATURE = "signature";
+    static final String ROUTES = "routes";
+    static final String ROUTE = "route";
+    static final String WIDTH = "width";
+    static final String COLOR = "color";
+
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.geojson;
+
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.io.MetroMapAssembler;
+import ch.geomo.tramaps.io.MetroMapReader;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.color.Color;
+import ch.geomo.util.json.JsonReader;
+import ch.geomo.util.json.JsonToken;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Coordinate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ch.geomo.tramaps.io.geojson.GeoJson.*;
+
+/**
+ * Reads a {@link MetroMap} from a GeoJSON feature collection. The document is parsed token by token, only the
+ * feature being read is held in memory. Point features become stations, LineString features become segments
+ * served by their routes. The graph is built by a {@link MetroMapAssembler}.
+ * <p>
+ * Besides the <tt>routes</tt> array written by {@link GeoJsonMetroMapWriter}, line features with a single route
+ * may use the flat properties <tt>route</tt>, <tt>width</tt> and <tt>color</tt>.
+ * @see GeoJson
+ */
+public class GeoJsonMetroMapReader implements MetroMapReader {
+
+    private static final double DEFAULT_LINE_WIDTH = 5;
+
+    private double routeMargin = 2;
+    private double edgeMargin = 25;
+    private double nodeMargin = 25;
+    private boolean marginsOverridden = false;
+    private double tolerance = 0.01;
+
+    /**
+     * Sets the margins to be used instead of the margins stored in the file.
+     */
+    @NotNull
+    public GeoJsonMetroMapReader setMargins(double routeMargin, double edgeMargin, double nodeMargin) {
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+        marginsOverridden = true;
+        return this;
+    }
+
+    /**
+     * Sets the tolerance used to snap line end points to stations, in units of the coordinate system.
+     */
+    @NotNull
+    public GeoJsonMetroMapReader setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public MetroMap read(@NotNull Path path) throws IOException {
+
+        MetroMapAssembler assembler = new MetroMapAssembler(routeMargin, edgeMargin, nodeMargin, tolerance);
+
+        long start = System.currentTimeMillis();
+
+        try (JsonReader json = new JsonReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case FEATURES:
+                        json.beginArray();
+                        while (json.hasNext()) {
+                            readFeature(json, assembler);
+                        }
+                        json.endArray();
+                        break;
+                    case MARGINS:
+                        readMargins(json, assembler);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+
+        MetroMap map = assembler.build();
+
+        Loggers.info(this, "Read {0} stations and {1} lines in {2} ms.", assembler.getStationCount(), assembler.getLineCount(), System.currentTimeMillis() - start);
+
+        return map;
+
+    }
+
+    private void readMargins(@NotNull JsonReader json, @NotNull MetroMapAssembler assembler) throws IOException {
+        double route = routeMargin;
+        double edge = edgeMargin;
+        double node = nodeMargin;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ROUTE_MARGIN:
+                    route = json.nextDouble();
+                    break;
+                case EDGE_MARGIN:
+                    edge = json.nextDouble();
+                    break;
+                case NODE_MARGIN:
+                    node = json.nextDouble();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        if (!marginsOverridden) {
+            assembler.setMargins(route, edge, node);
+        }
+    }
+
+    private void readFeature(@NotNull JsonReader json, @NotNull MetroMapAssembler assembler) throws IOException {
+
+        // members may occur in any order, the feature is processed at its end
+        String id = null;
+        String geometryType = null;
+        List<Coordinate[]> parts = new ArrayList<>();
+        FeatureProperties properties = new FeatureProperties();
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case ID:
+                    id = json.nextString();
+                    break;
+                case GEOMETRY:
+                    if (json.peek() == JsonToken.NULL) {
+                        json.nextNull();
+                    }
+                    else {
+                        geometryType = readGeometry(json, parts);
+                    }
+                    break;
+                case PROPERTIES:
+                    if (json.peek() == JsonToken.NULL) {
+                        json.nextNull();
+                    }
+                    else {
+                        readProperties(json, properties, assembler);
+                    }
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (geometryType == null) {
+            return;
+        }
+
+        switch (geometryType) {
+            case POINT:
+            case MULTI_POINT:
+                String name = properties.name != null ? properties.name : (id != null ? id : "");
+                for (Coordinate[] part : parts) {
+                    for (Coordinate coordinate : part) {
+                        assembler.addStation(coordinate, name, properties.signatureType);
+                    }
+                }
+                break;
+            case LINE_STRING:
+            case MULTI_LINE_STRING:
+                if (properties.routeName != null) {
+                    properties.routes.add(assembler.getRoute(properties.routeName, properties.width, properties.color));
+                }
+                if (properties.routes.isEmpty()) {
+                    Loggers.warning(this, "Ignore line feature {0} without route.", id);
+                    return;
+                }
+                Route[] routes = properties.routes.toArray(new Route[0]);
+                for (Coordinate[] part : parts) {
+                    assembler.addLine(part, routes);
+                }
+                break;
+            default:
+                Loggers.warning(this, "Ignore feature {0} with unsupported geometry {1}.", id, geometryType);
+        }
+
+    }
+
+    /**
+     * Reads a geometry object and adds its coordinates to given list.
+     * @return the geometry type
+     */
+    @Nullable
+    private static String readGeometry(@NotNull JsonReader json, @NotNull List<Coordinate[]> parts) throws IOException {
+        String type = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case TYPE:
+                    type = json.nextString();
+                    break;
+                case COORDINATES:
+                    Coordinate position = readCoordinates(json, parts);
+                    if (position != null) {
+                        parts.add(new Coordinate[]{position});
+                    }
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return type;
+    }
+
+    /**
+     * Reads nested coordinate arrays. Each innermost array of positions is added as part to given list.
+     * @return the position if the array is a single position, otherwise null
+     */
+    @Nullable
+    private static Coordinate readCoordinates(@NotNull JsonReader json, @NotNull List<Coordinate[]> parts) throws IOException {
+        json.beginArray();
+        if (json.peek() == JsonToken.NUMBER) {
+            Coordinate position = new Coordinate(json.nextDouble(), json.nextDouble());
+            // ignore altitude and measure
+            while (json.hasNext()) {
+                json.skipValue();
+            }
+            json.endArray();
+            return position;
+        }
+        List<Coordinate> positions = new ArrayList<>();
+        while (json.hasNext()) {
+            Coordinate position = readCoordinates(json, parts);
+            if (position != null) {
+                positions.add(position);
+            }
+        }
+        json.endArray();
+        if (!positions.isEmpty()) {
+            parts.add(positions.toArray(new Coordinate[0]));
+        }
+        return null;
+    }
+
+    private void readProperties(@NotNull JsonReader json, @NotNull FeatureProperties properties, @NotNull MetroMapAssembler assembler) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+                continue;
+            }
+            switch (name) {
+                case NAME:
+                    properties.name = json.nextString();
+                    break;
+                case SIGNATURE:
+                    properties.signatureType = readSignatureType(json.nextString());
+                    break;
+                case ROUTE:
+                    properties.routeName = json.nextString();
+                    break;
+                case WIDTH:
+                    properties.width = json.nextDouble();
+                    break;
+                case COLOR:
+                    properties.color = readColor(json.nextString());
+                    break;
+                case ROUTES:
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        properties.routes.add(readRoute(json, assembler));
+                    }
+                    json.endArray();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    @NotNull
+    private Route readRoute(@NotNull JsonReader json, @NotNull MetroMapAssembler assembler) throws IOException {
+        String name = "";
+        double width = DEFAULT_LINE_WIDTH;
+        Color color = Color.BLACK;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case NAME:
+                    name = json.nextString();
+                    break;
+                case WIDTH:
+                    width = json.nextDouble();
+                    break;
+                case COLOR:
+                    color = readColor(json.nextString());
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return assembler.getRoute(name, width, color);
+    }
+
+    @NotNull
+    private NodeSignatureType readSignatureType(@NotNull String value) {
+        try {
+            return NodeSignatureType.valueOf(value);
+        }
+        catch (IllegalArgumentException e) {
+            Loggers.warning(this, "Invalid signature type {0}.", value);
+            return NodeSignatureType.RECTANGLE;
+        }
+    }
+
+    @NotNull
+    private Color readColor(@NotNull String value) {
+        try {
+            return Color.fromHex(value.trim());
+        }
+        catch (IllegalArgumentException e) {
+            Loggers.warning(this, "Invalid color {0}.", value);
+            return Color.BLACK;
+        }
+    }
+
+    /**
+     * Collects the properties of the feature being read.
+     */
+    private static final class FeatureProperties {
+
+        private String name;
+        private NodeSignatureType signatureType = NodeSignatureType.RECTANGLE;
+        private String routeName;
+        private double width = DEFAULT_LINE_WIDTH;
+        private Color color = Color.BLACK;
+        private final List<Route> routes = new ArrayList<>();
+
+    }
+
+}
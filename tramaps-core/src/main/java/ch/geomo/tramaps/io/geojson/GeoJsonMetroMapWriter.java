@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.geojson;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.io.MetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.json.JsonWriter;
+import ch.geomo.util.logging.Loggers;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ch.geomo.tramaps.io.geojson.GeoJson.*;
+
+/**
+ * Writes a {@link MetroMap} as GeoJSON feature collection. Each node is written as Point feature and each edge as
+ * LineString feature while iterating over the graph, so the memory overhead does not depend on the map size.
+ * @see GeoJson
+ */
+public class GeoJsonMetroMapWriter implements MetroMapWriter {
+
+    @Override
+    public void write(@NotNull MetroMap map, @NotNull Path path) throws IOException {
+
+        long start = System.currentTimeMillis();
+
+        try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+
+            json.beginObject();
+            json.name(TYPE).value(FEATURE_COLLECTION);
+
+            json.name(MARGINS).beginObject();
+            json.name(ROUTE_MARGIN).value(map.getRouteMargin());
+            json.name(EDGE_MARGIN).value(map.getEdgeMargin());
+            json.name(NODE_MARGIN).value(map.getNodeMargin());
+            json.endObject();
+
+            json.name(FEATURES).beginArray();
+            for (Node node : map.getNodeView()) {
+                writeNode(json, node);
+            }
+            for (Edge edge : map.getEdgeView()) {
+                writeEdge(json, edge);
+            }
+            json.endArray();
+
+            json.endObject();
+
+        }
+
+        Loggers.info(this, "Wrote GeoJSON {0} in {1} ms.", path, System.currentTimeMillis() - start);
+
+    }
+
+    private static void writeNode(@NotNull JsonWriter json, @NotNull Node node) throws IOException {
+        json.beginObject();
+        json.name(TYPE).value(FEATURE);
+        json.name(GEOMETRY).beginObject();
+        json.name(TYPE).value(POINT);
+        json.name(COORDINATES);
+        writePosition(json, node);
+        json.endObject();
+        json.name(PROPERTIES).beginObject();
+        json.name(NAME).value(node.getName());
+        json.name(SIGNATURE).value(NodeSignatureType.of(node.getNodeSignature()).name());
+        json.endObject();
+        json.endObject();
+    }
+
+    private static void writeEdge(@NotNull JsonWriter json, @NotNull Edge edge) throws IOException {
+        json.beginObject();
+        json.name(TYPE).value(FEATURE);
+        json.name(GEOMETRY).beginObject();
+        json.name(TYPE).value(LINE_STRING);
+        json.name(COORDINATES).beginArray();
+        writePosition(json, edge.getNodeA());
+        writePosition(json, edge.getNodeB());
+        json.endArray();
+        json.endObject();
+        json.name(PROPERTIES).beginObject();
+        json.name(ROUTES).beginArray();
+        for (Route route : edge.getRoutes()) {
+            json.beginObject();
+            json.name(NAME).value(route.getName());
+            json.name(WIDTH).value(route.getLineWidth());
+            json.name(COLOR).value(route.getLineColor().toHex());
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+        json.endObject();
+    }
+
+    private static void writePosition(@NotNull JsonWriter json, @NotNull Node node) throws IOException {
+        json.beginArray().value(node.getX()).value(node.getY()).endArray();
+    }
+
+}
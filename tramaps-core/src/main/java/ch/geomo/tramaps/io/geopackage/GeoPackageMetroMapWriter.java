@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.geopackage;
+
+import ch.geomo.tramaps.io.feature.FeatureMetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import org.geotools.data.DataStore;
+import org.geotools.data.DataStoreFinder;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a {@link MetroMap} to a GeoPackage with the tables <tt>nodes</tt>, <tt>edges</tt> and <tt>conflicts</tt>.
+ */
+public class GeoPackageMetroMapWriter extends FeatureMetroMapWriter {
+
+    @Override
+    protected void deleteExisting(@NotNull Path path) throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @NotNull
+    @Override
+    protected DataStore openDataStore(@NotNull Path path, @NotNull String layerName) throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("dbtype", "geopkg");
+        params.put("database", path.toAbsolutePath().toString());
+        DataStore store = DataStoreFinder.getDataStore(params);
+        if (store == null) {
+            throw new IOException("GeoPackage support is not available, cannot write " + path);
+        }
+        return store;
+    }
+
+}
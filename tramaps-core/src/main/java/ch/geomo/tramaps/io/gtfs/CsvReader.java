@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.gtfs;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads a comma separated file (RFC 4180) record by record. The fields of the current record are kept as ranges
+ * of a reused character buffer, so reading a record does not allocate any objects unless a field is requested
+ * as {@link String}. The first record is read as header.
+ */
+final class CsvReader implements Closeable {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Reader in;
+    private final char[] buffer = new char[1 << 16];
+    private int pos = 0;
+    private int limit = 0;
+
+    private char[] record = new char[256];
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+
+    private final String[] header;
+    private long lineNumber = 0;
+
+    CsvReader(@NotNull Reader in) throws IOException {
+        this.in = in;
+        if (fill() && buffer[0] == BYTE_ORDER_MARK) {
+            pos++;
+        }
+        if (!next()) {
+            throw new IOException("Missing header.");
+        }
+        header = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            header[i] = get(i).trim();
+        }
+    }
+
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = Math.max(0, in.read(buffer, 0, buffer.length));
+        return limit > 0;
+    }
+
+    /**
+     * @return the index of the column with given name or -1 if there is no such column
+     */
+    int getColumn(@NotNull String name) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the column with given name
+     * @throws IOException if there is no such column
+     */
+    int getRequiredColumn(@NotNull String name) throws IOException {
+        int column = getColumn(name);
+        if (column < 0) {
+            throw new IOException("Missing column " + name + ".");
+        }
+        return column;
+    }
+
+    private void append(char c) {
+        if (fieldEnds[fieldCount] == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[fieldEnds[fieldCount]++] = c;
+    }
+
+    private void startField(int start) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = start;
+    }
+
+    /**
+     * Reads the next record. Empty lines are skipped.
+     * @return false if the end of the file is reached
+     */
+    boolean next() throws IOException {
+
+        fieldCount = 0;
+        startField(0);
+
+        boolean quoted = false;
+        boolean empty = true;
+
+        while (pos < limit || fill()) {
+            char c = buffer[pos++];
+            if (quoted) {
+                if (c == '"') {
+                    if (pos == limit && !fill()) {
+                        // closing quote at the end of the file
+                        quoted = false;
+                        break;
+                    }
+                    if (buffer[pos] == '"') {
+                        // escaped quote
+                        append('"');
+                        pos++;
+                    }
+                    else {
+                        quoted = false;
+                    }
+                }
+                else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    append(c);
+                }
+                continue;
+            }
+            if (c == '\n') {
+                lineNumber++;
+                if (empty) {
+                    // skip empty line
+                    continue;
+                }
+                fieldCount++;
+                return true;
+            }
+            if (c == '\r') {
+                continue;
+            }
+            empty = false;
+            if (c == ',') {
+                int end = fieldEnds[fieldCount];
+                fieldCount++;
+                startField(end);
+            }
+            else if (c == '"' && fieldEnds[fieldCount] == fieldStarts[fieldCount]) {
+                quoted = true;
+            }
+            else {
+                append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IOException("Unterminated quote at line " + (lineNumber + 1) + ".");
+        }
+
+        // last record without line break
+        if (!empty) {
+            fieldCount++;
+            lineNumber++;
+            return true;
+        }
+        return false;
+
+    }
+
+    /**
+     * @return the line number of the current record, starting with 1
+     */
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return the characters of the current record, to be used with {@link #getStart(int)} and {@link #getEnd(int)}
+     */
+    @NotNull
+    char[] getChars() {
+        return record;
+    }
+
+    int getStart(int column) {
+        return column < fieldCount ? fieldStarts[column] : 0;
+    }
+
+    int getEnd(int column) {
+        return column < fieldCount ? fieldEnds[column] : 0;
+    }
+
+    boolean isEmpty(int column) {
+        return column < 0 || column >= fieldCount || fieldStarts[column] == fieldEnds[column];
+    }
+
+    /**
+     * @return the value of given column or an empty string if the column does not exist
+     */
+    @NotNull
+    String get(int column) {
+        if (column < 0 || column >= fieldCount) {
+            return "";
+        }
+        return new String(record, fieldStarts[column], fieldEnds[column] - fieldStarts[column]);
+    }
+
+    /**
+     * Parses the value of given column as integer without creating a {@link String}.
+     * @return the parsed value or the default value if empty
+     * @throws IOException if the value is not an integer
+     */
+    int getInt(int column, int defaultValue) throws IOException {
+        if (isEmpty(column)) {
+            return defaultValue;
+        }
+        int start = fieldStarts[column];
+        int end = fieldEnds[column];
+        while (start < end && record[start] == ' ') {
+            start++;
+        }
+        while (end > start && record[end - 1] == ' ') {
+            end--;
+        }
+        boolean negative = start < end && record[start] == '-';
+        if (negative) {
+            start++;
+        }
+        if (start == end) {
+            throw new IOException("Invalid integer '" + get(column) + "' at line " + lineNumber + ".");
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = record[i] - '0';
+            value = value * 10 + digit;
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new IOException("Invalid integer '" + get(column) + "' at line " + lineNumber + ".");
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * @return the parsed value or the default value if empty
+     * @throws IOException if the value is not a number
+     */
+    double getDouble(int column, double defaultValue) throws IOException {
+        if (isEmpty(column)) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(get(column).trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Invalid number '" + get(column) + "' at line " + lineNumber + ".");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
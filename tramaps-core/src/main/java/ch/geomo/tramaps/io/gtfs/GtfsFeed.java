@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.gtfs;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Gives access to the files of a GTFS feed, either stored in a directory or in a zip file. Files within a zip
+ * file are decompressed while reading.
+ */
+final class GtfsFeed implements Closeable {
+
+    private final Path directory;
+    private final ZipFile zipFile;
+
+    private GtfsFeed(Path directory, ZipFile zipFile) {
+        this.directory = directory;
+        this.zipFile = zipFile;
+    }
+
+    @NotNull
+    static GtfsFeed open(@NotNull Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            return new GtfsFeed(path, null);
+        }
+        return new GtfsFeed(null, new ZipFile(path.toFile(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a file of the feed. Files within a sub-directory of a zip file are found as well.
+     * @throws FileNotFoundException if the feed does not contain the file
+     */
+    @NotNull
+    CsvReader open(@NotNull String fileName) throws IOException {
+        BufferedReader reader;
+        if (directory != null) {
+            Path file = directory.resolve(fileName);
+            if (!Files.isRegularFile(file)) {
+                throw new FileNotFoundException("Missing " + fileName + " in " + directory);
+            }
+            reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+        else {
+            reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(findEntry(fileName)), StandardCharsets.UTF_8));
+        }
+        try {
+            return new CsvReader(reader);
+        }
+        catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    @NotNull
+    private ZipEntry findEntry(@NotNull String fileName) throws FileNotFoundException {
+        ZipEntry entry = zipFile.getEntry(fileName);
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entry == null && entries.hasMoreElements()) {
+            ZipEntry candidate = entries.nextElement();
+            if (candidate.getName().endsWith("/" + fileName)) {
+                entry = candidate;
+            }
+        }
+        if (entry == null) {
+            throw new FileNotFoundException("Missing " + fileName + " in " + zipFile.getName());
+        }
+        return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (zipFile != null) {
+            zipFile.close();
+        }
+    }
+
+}
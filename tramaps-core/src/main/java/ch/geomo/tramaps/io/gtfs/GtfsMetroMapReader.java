@@ -0,0 +1,528 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.gtfs;
+
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.io.MetroMapAssembler;
+import ch.geomo.tramaps.io.MetroMapReader;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.util.color.Color;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Coordinate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Creates a {@link MetroMap} from a GTFS feed stored in a directory or a zip file. The station graph is derived
+ * from the stop sequences of the trips: trips of the same route with an identical sequence of stations are
+ * collapsed into a single pattern and each pair of consecutive stations of a pattern becomes an edge served by
+ * the pattern's route. Stops are replaced by their parent station if available.
+ * <p>
+ * <tt>stop_times.txt</tt> is streamed row by row and ids are resolved using primitive index maps, so only the
+ * stop times of the current trip and the distinct patterns are held in memory. As most feeds, the stop times
+ * are expected to be grouped by trip. A trip split into several groups is imported as separate patterns.
+ */
+public class GtfsMetroMapReader implements MetroMapReader {
+
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private double routeMargin = 2;
+    private double edgeMargin = 25;
+    private double nodeMargin = 25;
+    private double lineWidth = 5;
+    private double tolerance = 0.01;
+    private double scale = 1;
+    private int[] routeTypes;
+    private UnaryOperator<Coordinate> projection;
+
+    @NotNull
+    public GtfsMetroMapReader setMargins(double routeMargin, double edgeMargin, double nodeMargin) {
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+        return this;
+    }
+
+    @NotNull
+    public GtfsMetroMapReader setLineWidth(double lineWidth) {
+        this.lineWidth = lineWidth;
+        return this;
+    }
+
+    /**
+     * Sets the tolerance used to merge stations, in units of the projected coordinates.
+     */
+    @NotNull
+    public GtfsMetroMapReader setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Sets the number of map units per meter used by the default projection. Default is 1.
+     */
+    @NotNull
+    public GtfsMetroMapReader setScale(double scale) {
+        this.scale = scale;
+        return this;
+    }
+
+    /**
+     * Imports only routes of given GTFS route types, e.g. 0 (tram), 1 (subway) and 2 (rail). All routes are
+     * imported if not set.
+     */
+    @NotNull
+    public GtfsMetroMapReader setRouteTypes(@Nullable int... routeTypes) {
+        this.routeTypes = routeTypes == null || routeTypes.length == 0 ? null : routeTypes.clone();
+        return this;
+    }
+
+    /**
+     * Sets the projection of the WGS84 coordinates (x = longitude, y = latitude). By default, an equirectangular
+     * projection around the center of the imported stations is used, which is sufficient for the extent of a
+     * metropolitan network.
+     */
+    @NotNull
+    public GtfsMetroMapReader setProjection(@Nullable UnaryOperator<Coordinate> projection) {
+        this.projection = projection;
+        return this;
+    }
+
+    private boolean isIncluded(int routeType) {
+        if (routeTypes == null) {
+            return true;
+        }
+        for (int type : routeTypes) {
+            if (type == routeType) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    @Override
+    public MetroMap read(@NotNull Path path) throws IOException {
+
+        long start = System.currentTimeMillis();
+
+        Routes routes;
+        Stops stops;
+        PatternCollector collector;
+
+        try (GtfsFeed feed = GtfsFeed.open(path)) {
+
+            routes = readRoutes(feed);
+            stops = readStops(feed);
+
+            StringIndex tripIds = new StringIndex();
+            int[] tripRoutes = readTrips(feed, tripIds, routes);
+
+            collector = new PatternCollector(tripRoutes, stops.stations);
+            try (CsvReader csv = feed.open("stop_times.txt")) {
+                int tripColumn = csv.getRequiredColumn("trip_id");
+                int stopColumn = csv.getRequiredColumn("stop_id");
+                int sequenceColumn = csv.getRequiredColumn("stop_sequence");
+                while (csv.next()) {
+                    char[] chars = csv.getChars();
+                    int trip = tripIds.get(chars, csv.getStart(tripColumn), csv.getEnd(tripColumn));
+                    int stop = stops.ids.get(chars, csv.getStart(stopColumn), csv.getEnd(stopColumn));
+                    collector.add(trip, csv.getInt(sequenceColumn, 0), stop);
+                }
+                collector.finishTrip();
+            }
+
+        }
+
+        Loggers.info(this, "Read {0} stop times of {1} trips with {2} distinct patterns.", collector.rowCount, collector.tripCount, collector.patterns.size());
+        if (collector.splitTripCount > 0) {
+            Loggers.warning(this, "{0} trips are not grouped in stop_times.txt and were split.", collector.splitTripCount);
+        }
+        if (collector.unknownRowCount > 0) {
+            Loggers.warning(this, "Ignored {0} stop times with unknown trip or stop.", collector.unknownRowCount);
+        }
+
+        MetroMap map = assemble(routes, stops, collector.patterns.keySet());
+
+        Loggers.info(this, "Imported GTFS feed {0} in {1} ms.", path, System.currentTimeMillis() - start);
+
+        return map;
+
+    }
+
+    @NotNull
+    private MetroMap assemble(@NotNull Routes routes, @NotNull Stops stops, @NotNull Iterable<TripPattern> patterns) throws IOException {
+
+        BitSet usedStations = new BitSet();
+        for (TripPattern pattern : patterns) {
+            for (int station : pattern.stations) {
+                usedStations.set(station);
+            }
+        }
+
+        for (int station = usedStations.nextSetBit(0); station >= 0; station = usedStations.nextSetBit(station + 1)) {
+            if (Double.isNaN(stops.latitudes[station]) || Double.isNaN(stops.longitudes[station])) {
+                throw new IOException("Missing stop_lat or stop_lon of stop " + stops.idList.get(station) + " ("
+                        + stops.names.get(station) + ") which is served by an imported trip.");
+            }
+        }
+
+        UnaryOperator<Coordinate> projection = this.projection != null ? this.projection : createLocalProjection(stops, usedStations);
+
+        Coordinate[] coordinates = new Coordinate[stops.names.size()];
+        MetroMapAssembler assembler = new MetroMapAssembler(routeMargin, edgeMargin, nodeMargin, tolerance);
+        for (int station = usedStations.nextSetBit(0); station >= 0; station = usedStations.nextSetBit(station + 1)) {
+            coordinates[station] = projection.apply(new Coordinate(stops.longitudes[station], stops.latitudes[station]));
+            assembler.addStation(coordinates[station], stops.names.get(station));
+        }
+
+        for (TripPattern pattern : patterns) {
+            Coordinate[] line = new Coordinate[pattern.stations.length];
+            for (int i = 0; i < line.length; i++) {
+                line[i] = coordinates[pattern.stations[i]];
+            }
+            Route route = assembler.getRoute(routes.names[pattern.route], lineWidth, routes.colors[pattern.route]);
+            assembler.addLine(line, route);
+        }
+
+        return assembler.build();
+
+    }
+
+    /**
+     * @return an equirectangular projection around the center of the given stations, in meters multiplied by the
+     * scale, stations without coordinates are ignored
+     */
+    @NotNull
+    private UnaryOperator<Coordinate> createLocalProjection(@NotNull Stops stops, @NotNull BitSet stations) {
+        double longitude = 0;
+        double latitude = 0;
+        int count = 0;
+        for (int station = stations.nextSetBit(0); station >= 0; station = stations.nextSetBit(station + 1)) {
+            if (!Double.isNaN(stops.longitudes[station]) && !Double.isNaN(stops.latitudes[station])) {
+                longitude += stops.longitudes[station];
+                latitude += stops.latitudes[station];
+                count++;
+            }
+        }
+        double centerLongitude = count == 0 ? 0 : longitude / count;
+        double centerLatitude = count == 0 ? 0 : latitude / count;
+        double factorX = Math.toRadians(EARTH_RADIUS) * Math.cos(Math.toRadians(centerLatitude)) * scale;
+        double factorY = Math.toRadians(EARTH_RADIUS) * scale;
+        return c -> new Coordinate((c.x - centerLongitude) * factorX, (c.y - centerLatitude) * factorY);
+    }
+
+    @NotNull
+    private Routes readRoutes(@NotNull GtfsFeed feed) throws IOException {
+
+        StringIndex ids = new StringIndex();
+        List<String> routeIds = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Color> colors = new ArrayList<>();
+        List<Boolean> included = new ArrayList<>();
+
+        try (CsvReader csv = feed.open("routes.txt")) {
+            int idColumn = csv.getRequiredColumn("route_id");
+            int shortNameColumn = csv.getColumn("route_short_name");
+            int longNameColumn = csv.getColumn("route_long_name");
+            int typeColumn = csv.getColumn("route_type");
+            int colorColumn = csv.getColumn("route_color");
+            while (csv.next()) {
+                String id = csv.get(idColumn);
+                if (ids.get(id) >= 0) {
+                    Loggers.warning(this, "Ignore duplicate route {0}.", id);
+                    continue;
+                }
+                ids.add(id);
+                routeIds.add(id);
+                String name = csv.get(shortNameColumn).trim();
+                if (name.isEmpty()) {
+                    name = csv.get(longNameColumn).trim();
+                }
+                names.add(name.isEmpty() ? id : name);
+                colors.add(parseColor(csv.get(colorColumn)));
+                included.add(isIncluded(csv.getInt(typeColumn, -1)));
+            }
+        }
+
+        // route names must be unique since routes are identified by their name
+        Map<String, Integer> nameCount = new HashMap<>();
+        names.forEach(name -> nameCount.merge(name, 1, Integer::sum));
+        String[] uniqueNames = new String[names.size()];
+        for (int i = 0; i < uniqueNames.length; i++) {
+            uniqueNames[i] = nameCount.get(names.get(i)) > 1 ? names.get(i) + " (" + routeIds.get(i) + ")" : names.get(i);
+        }
+
+        boolean[] includedRoutes = new boolean[included.size()];
+        for (int i = 0; i < includedRoutes.length; i++) {
+            includedRoutes[i] = included.get(i);
+        }
+
+        return new Routes(ids, uniqueNames, colors.toArray(new Color[0]), includedRoutes);
+
+    }
+
+    @NotNull
+    private Color parseColor(@NotNull String value) {
+        if (value.trim().isEmpty()) {
+            return Color.BLACK;
+        }
+        try {
+            return Color.fromHex(value.trim());
+        }
+        catch (IllegalArgumentException e) {
+            Loggers.warning(this, "Invalid route color {0}.", value);
+            return Color.BLACK;
+        }
+    }
+
+    @NotNull
+    private Stops readStops(@NotNull GtfsFeed feed) throws IOException {
+
+        Stops stops = new Stops();
+        List<String> parentIds = new ArrayList<>();
+        double[] latitudes = new double[1024];
+        double[] longitudes = new double[1024];
+
+        try (CsvReader csv = feed.open("stops.txt")) {
+            int idColumn = csv.getRequiredColumn("stop_id");
+            int nameColumn = csv.getColumn("stop_name");
+            int latitudeColumn = csv.getRequiredColumn("stop_lat");
+            int longitudeColumn = csv.getRequiredColumn("stop_lon");
+            int parentColumn = csv.getColumn("parent_station");
+            while (csv.next()) {
+                String id = csv.get(idColumn);
+                if (stops.ids.get(id) >= 0) {
+                    Loggers.warning(this, "Ignore duplicate stop {0}.", id);
+                    continue;
+                }
+                int stop = stops.ids.add(id);
+                stops.idList.add(id);
+                if (stop == latitudes.length) {
+                    latitudes = Arrays.copyOf(latitudes, stop * 2);
+                    longitudes = Arrays.copyOf(longitudes, stop * 2);
+                }
+                latitudes[stop] = csv.getDouble(latitudeColumn, Double.NaN);
+                longitudes[stop] = csv.getDouble(longitudeColumn, Double.NaN);
+                String name = csv.get(nameColumn).trim();
+                stops.names.add(name.isEmpty() ? id : name);
+                parentIds.add(csv.isEmpty(parentColumn) ? null : csv.get(parentColumn));
+            }
+        }
+
+        stops.latitudes = latitudes;
+        stops.longitudes = longitudes;
+
+        // replace stops (platforms) by their parent station
+        stops.stations = new int[parentIds.size()];
+        for (int stop = 0; stop < stops.stations.length; stop++) {
+            int parent = parentIds.get(stop) == null ? -1 : stops.ids.get(parentIds.get(stop));
+            stops.stations[stop] = parent >= 0 && !Double.isNaN(latitudes[parent]) ? parent : stop;
+        }
+
+        return stops;
+
+    }
+
+    /**
+     * @return the route index of each trip, -1 if the route is not imported
+     */
+    @NotNull
+    private int[] readTrips(@NotNull GtfsFeed feed, @NotNull StringIndex tripIds, @NotNull Routes routes) throws IOException {
+        int[] tripRoutes = new int[1024];
+        try (CsvReader csv = feed.open("trips.txt")) {
+            int tripColumn = csv.getRequiredColumn("trip_id");
+            int routeColumn = csv.getRequiredColumn("route_id");
+            while (csv.next()) {
+                char[] chars = csv.getChars();
+                if (tripIds.get(chars, csv.getStart(tripColumn), csv.getEnd(tripColumn)) >= 0) {
+                    continue;
+                }
+                int trip = tripIds.add(csv.get(tripColumn));
+                if (trip == tripRoutes.length) {
+                    tripRoutes = Arrays.copyOf(tripRoutes, trip * 2);
+                }
+                int route = routes.ids.get(chars, csv.getStart(routeColumn), csv.getEnd(routeColumn));
+                tripRoutes[trip] = route >= 0 && routes.included[route] ? route : -1;
+            }
+        }
+        return Arrays.copyOf(tripRoutes, tripIds.size());
+    }
+
+    /**
+     * The routes of the feed, indexed by their order in <tt>routes.txt</tt>.
+     */
+    private static final class Routes {
+
+        private final StringIndex ids;
+        private final String[] names;
+        private final Color[] colors;
+        private final boolean[] included;
+
+        private Routes(@NotNull StringIndex ids, @NotNull String[] names, @NotNull Color[] colors, @NotNull boolean[] included) {
+            this.ids = ids;
+            this.names = names;
+            this.colors = colors;
+            this.included = included;
+        }
+
+    }
+
+    /**
+     * The stops of the feed, indexed by their order in <tt>stops.txt</tt>.
+     */
+    private static final class Stops {
+
+        private final StringIndex ids = new StringIndex();
+        private final List<String> idList = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private double[] latitudes;
+        private double[] longitudes;
+
+        /**
+         * The station (parent stop or the stop itself) of each stop.
+         */
+        private int[] stations;
+
+    }
+
+    /**
+     * A distinct sequence of stations served by a route.
+     */
+    private static final class TripPattern {
+
+        private final int route;
+        private final int[] stations;
+        private final int hash;
+
+        private TripPattern(int route, @NotNull int[] stations) {
+            this.route = route;
+            this.stations = stations;
+            hash = 31 * route + Arrays.hashCode(stations);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof TripPattern
+                    && route == ((TripPattern) obj).route
+                    && Arrays.equals(stations, ((TripPattern) obj).stations);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /**
+     * Collects the stop times of the current trip and collapses finished trips into patterns.
+     */
+    private static final class PatternCollector {
+
+        private final int[] tripRoutes;
+        private final int[] stations;
+
+        private final Map<TripPattern, Integer> patterns = new LinkedHashMap<>();
+        private final BitSet finishedTrips = new BitSet();
+
+        private int trip = -1;
+        private int[] sequences = new int[64];
+        private int[] stops = new int[64];
+        private int size = 0;
+
+        private long rowCount = 0;
+        private long unknownRowCount = 0;
+        private int tripCount = 0;
+        private int splitTripCount = 0;
+
+        private PatternCollector(@NotNull int[] tripRoutes, @NotNull int[] stations) {
+            this.tripRoutes = tripRoutes;
+            this.stations = stations;
+        }
+
+        private void add(int trip, int sequence, int stop) {
+            rowCount++;
+            if (trip < 0 || stop < 0) {
+                unknownRowCount++;
+                return;
+            }
+            if (trip != this.trip) {
+                finishTrip();
+                this.trip = trip;
+                if (finishedTrips.get(trip)) {
+                    splitTripCount++;
+                }
+            }
+            if (tripRoutes[trip] < 0) {
+                return;
+            }
+            if (size == sequences.length) {
+                sequences = Arrays.copyOf(sequences, size * 2);
+                stops = Arrays.copyOf(stops, size * 2);
+            }
+            sequences[size] = sequence;
+            stops[size] = stop;
+            size++;
+        }
+
+        /**
+         * Sorts the stop times of the current trip by sequence (usually already sorted) and adds its pattern.
+         */
+        private void finishTrip() {
+
+            if (trip < 0) {
+                return;
+            }
+
+            for (int i = 1; i < size; i++) {
+                int sequence = sequences[i];
+                int stop = stops[i];
+                int j = i - 1;
+                for (; j >= 0 && sequences[j] > sequence; j--) {
+                    sequences[j + 1] = sequences[j];
+                    stops[j + 1] = stops[j];
+                }
+                sequences[j + 1] = sequence;
+                stops[j + 1] = stop;
+            }
+
+            // consecutive stops at the same station are collapsed
+            int[] pattern = new int[size];
+            int length = 0;
+            for (int i = 0; i < size; i++) {
+                int station = stations[stops[i]];
+                if (length == 0 || pattern[length - 1] != station) {
+                    pattern[length++] = station;
+                }
+            }
+
+            if (length > 1) {
+                patterns.merge(new TripPattern(tripRoutes[trip], Arrays.copyOf(pattern, length)), 1, Integer::sum);
+            }
+
+            if (!finishedTrips.get(trip)) {
+                finishedTrips.set(trip);
+                tripCount++;
+            }
+            trip = -1;
+            size = 0;
+
+        }
+
+    }
+
+}
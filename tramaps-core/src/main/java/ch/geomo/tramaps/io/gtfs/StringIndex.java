@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.gtfs;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Assigns consecutive indexes to strings using open addressing with primitive arrays. Lookups may be done with
+ * a character range, e.g. a field of a {@link CsvReader}, without creating a {@link String}.
+ */
+final class StringIndex {
+
+    private static final int NOT_FOUND = -1;
+
+    private String[] keys = new String[64];
+    private int[] values = new int[64];
+    private int size = 0;
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hash(@NotNull char[] chars, int start, int end) {
+        // same as String.hashCode()
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash;
+    }
+
+    private static boolean matches(@NotNull String key, @NotNull char[] chars, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (key.charAt(i - start) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the index of given key, a new index if the key was not added before
+     */
+    int add(@NotNull String key) {
+        int mask = keys.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = size;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * @return the index of given key or -1 if not found
+     */
+    int get(@NotNull String key) {
+        int mask = keys.length - 1;
+        for (int slot = spread(key.hashCode()) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equals(key)) {
+                return values[slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return the index of the key given as character range or -1 if not found
+     */
+    int get(@NotNull char[] chars, int start, int end) {
+        int mask = keys.length - 1;
+        for (int slot = spread(hash(chars, start, end)) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(keys[slot], chars, start, end)) {
+                return values[slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash() {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = spread(oldKeys[i].hashCode()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StringIndex: {" + size + " keys, capacity " + keys.length + "}";
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.shapefile;
+
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.io.MetroMapAssembler;
+import ch.geomo.tramaps.io.MetroMapReader;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.util.color.Color;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Point;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.opengis.feature.simple.SimpleFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Reads a {@link MetroMap} from a Shapefile with line features and an optional Shapefile with point features
+ * (stations). Features are streamed one by one using a feature iterator, so the feature collections are never
+ * loaded completely. The graph is built by a {@link MetroMapAssembler}.
+ * <p>
+ * Each line feature (LineString or MultiLineString) is served by the route named by the route attribute. Line
+ * width and color of a route are read from optional attributes, the color as hexadecimal string.
+ */
+public class ShapefileMetroMapReader implements MetroMapReader {
+
+    private static final double DEFAULT_LINE_WIDTH = 5;
+
+    private Path stationPath;
+    private String stationNameAttribute = "name";
+    private String routeNameAttribute = "route";
+    private String routeWidthAttribute = "width";
+    private String routeColorAttribute = "color";
+
+    private double routeMargin = 2;
+    private double edgeMargin = 25;
+    private double nodeMargin = 25;
+    private double tolerance = 0.01;
+
+    /**
+     * Sets the Shapefile with the stations (point features).
+     */
+    @NotNull
+    public ShapefileMetroMapReader setStationPath(@Nullable Path stationPath) {
+        this.stationPath = stationPath;
+        return this;
+    }
+
+    @NotNull
+    public ShapefileMetroMapReader setStationNameAttribute(@NotNull String stationNameAttribute) {
+        this.stationNameAttribute = stationNameAttribute;
+        return this;
+    }
+
+    @NotNull
+    public ShapefileMetroMapReader setRouteNameAttribute(@NotNull String routeNameAttribute) {
+        this.routeNameAttribute = routeNameAttribute;
+        return this;
+    }
+
+    @NotNull
+    public ShapefileMetroMapReader setRouteWidthAttribute(@NotNull String routeWidthAttribute) {
+        this.routeWidthAttribute = routeWidthAttribute;
+        return this;
+    }
+
+    @NotNull
+    public ShapefileMetroMapReader setRouteColorAttribute(@NotNull String routeColorAttribute) {
+        this.routeColorAttribute = routeColorAttribute;
+        return this;
+    }
+
+    @NotNull
+    public ShapefileMetroMapReader setMargins(double routeMargin, double edgeMargin, double nodeMargin) {
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+        return this;
+    }
+
+    /**
+     * Sets the tolerance used to snap line end points to stations, in units of the coordinate system.
+     */
+    @NotNull
+    public ShapefileMetroMapReader setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Streams all features of given Shapefile to given consumer.
+     */
+    private static void readFeatures(@NotNull Path path, @NotNull Consumer<SimpleFeature> consumer) throws IOException {
+        ShapefileDataStore store = new ShapefileDataStore(path.toUri().toURL());
+        store.setCharset(StandardCharsets.UTF_8);
+        try (SimpleFeatureIterator iterator = store.getFeatureSource().getFeatures().features()) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+            }
+        }
+        finally {
+            store.dispose();
+        }
+    }
+
+    private void readStation(@NotNull SimpleFeature feature, @NotNull MetroMapAssembler assembler) {
+        Geometry geometry = (Geometry) feature.getDefaultGeometry();
+        Object name = feature.getAttribute(stationNameAttribute);
+        for (int i = 0; geometry != null && i < geometry.getNumGeometries(); i++) {
+            Geometry part = geometry.getGeometryN(i);
+            if (part instanceof Point && !part.isEmpty()) {
+                assembler.addStation(part.getCoordinate(), name == null ? feature.getID() : name.toString());
+            }
+        }
+    }
+
+    private void readLine(@NotNull SimpleFeature feature, @NotNull MetroMapAssembler assembler) {
+
+        Object name = feature.getAttribute(routeNameAttribute);
+        if (name == null) {
+            Loggers.warning(this, "Ignore line feature {0} without route.", feature.getID());
+            return;
+        }
+
+        Route route = assembler.getRoute(name.toString(), getLineWidth(feature), getLineColor(feature));
+
+        Geometry geometry = (Geometry) feature.getDefaultGeometry();
+        for (int i = 0; geometry != null && i < geometry.getNumGeometries(); i++) {
+            Geometry part = geometry.getGeometryN(i);
+            if (part instanceof LineString) {
+                assembler.addLine(part.getCoordinates(), route);
+            }
+        }
+
+    }
+
+    private double getLineWidth(@NotNull SimpleFeature feature) {
+        Object width = feature.getAttribute(routeWidthAttribute);
+        if (width instanceof Number) {
+            return ((Number) width).doubleValue();
+        }
+        return DEFAULT_LINE_WIDTH;
+    }
+
+    @NotNull
+    private Color getLineColor(@NotNull SimpleFeature feature) {
+        Object color = feature.getAttribute(routeColorAttribute);
+        if (color != null) {
+            try {
+                return Color.fromHex(color.toString().trim());
+            }
+            catch (IllegalArgumentException e) {
+                Loggers.warning(this, "Invalid color {0} of feature {1}.", color, feature.getID());
+            }
+        }
+        return Color.BLACK;
+    }
+
+    /**
+     * Reads the map from given Shapefile with the line features.
+     */
+    @NotNull
+    @Override
+    public MetroMap read(@NotNull Path path) throws IOException {
+
+        MetroMapAssembler assembler = new MetroMapAssembler(routeMargin, edgeMargin, nodeMargin, tolerance);
+
+        long start = System.currentTimeMillis();
+
+        if (stationPath != null) {
+            readFeatures(stationPath, feature -> readStation(feature, assembler));
+        }
+        readFeatures(path, feature -> readLine(feature, assembler));
+
+        MetroMap map = assembler.build();
+
+        Loggers.info(this, "Read {0} stations and {1} lines in {2} ms.", assembler.getStationCount(), assembler.getLineCount(), System.currentTimeMillis() - start);
+
+        return map;
+
+    }
+
+}
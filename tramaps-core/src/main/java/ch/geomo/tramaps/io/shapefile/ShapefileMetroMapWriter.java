@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.shapefile;
+
+import ch.geomo.tramaps.io.feature.FeatureMetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import org.geotools.data.DataStore;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Writes a {@link MetroMap} to three Shapefiles next to the given path. Writing to <tt>zuerich.shp</tt> creates
+ * <tt>zuerich_nodes.shp</tt>, <tt>zuerich_edges.shp</tt> and <tt>zuerich_conflicts.shp</tt>.
+ */
+public class ShapefileMetroMapWriter extends FeatureMetroMapWriter {
+
+    private static final String EXTENSION = ".shp";
+    private static final String[] SIDECAR_EXTENSIONS = {".shp", ".shx", ".dbf", ".prj", ".cpg", ".qix", ".fix"};
+
+    @NotNull
+    @Override
+    protected String getTypeName(@NotNull Path path, @NotNull String layerName) {
+        String baseName = path.getFileName().toString();
+        if (baseName.toLowerCase(Locale.ROOT).endsWith(EXTENSION)) {
+            baseName = baseName.substring(0, baseName.length() - EXTENSION.length());
+        }
+        return baseName + "_" + layerName;
+    }
+
+    @NotNull
+    private Path resolve(@NotNull Path path, @NotNull String typeName, @NotNull String extension) {
+        return path.toAbsolutePath().resolveSibling(typeName + extension);
+    }
+
+    @Override
+    protected void deleteExisting(@NotNull Path path) throws IOException {
+        for (String layerName : new String[]{NODE_LAYER, EDGE_LAYER, CONFLICT_LAYER}) {
+            for (String extension : SIDECAR_EXTENSIONS) {
+                Files.deleteIfExists(resolve(path, getTypeName(path, layerName), extension));
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    protected DataStore openDataStore(@NotNull Path path, @NotNull String layerName) throws IOException {
+        Path file = resolve(path, getTypeName(path, layerName), EXTENSION);
+        ShapefileDataStore store = new ShapefileDataStore(file.toUri().toURL());
+        store.setCharset(StandardCharsets.UTF_8);
+        return store;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.snapshot;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes primitive values through a fixed-size direct buffer to a {@link WritableByteChannel}.
+ */
+final class ChannelOutput implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long position = 0;
+
+    ChannelOutput(@NotNull WritableByteChannel channel) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(SnapshotFormat.BYTE_ORDER);
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    void putInt(int value) throws IOException {
+        ensureRemaining(4);
+        buffer.putInt(value);
+        position += 4;
+    }
+
+    void putDouble(double value) throws IOException {
+        ensureRemaining(8);
+        buffer.putDouble(value);
+        position += 8;
+    }
+
+    void putByte(byte value) throws IOException {
+        ensureRemaining(1);
+        buffer.put(value);
+        position++;
+    }
+
+    void putBytes(@NotNull byte[] bytes) throws IOException {
+        for (int offset = 0; offset < bytes.length; ) {
+            ensureRemaining(1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+        position += bytes.length;
+    }
+
+    /**
+     * Pads with zeros up to the given block offset.
+     * @throws IllegalStateException if the given offset was already passed
+     */
+    void padTo(long offset) throws IOException {
+        if (offset < position) {
+            throw new IllegalStateException("Block offset " + offset + " already passed: " + position);
+        }
+        while (position < offset) {
+            putByte((byte) 0);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.snapshot;
+
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceProgress;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A map read from a snapshot with the progress of the displacement if the snapshot is a checkpoint.
+ */
+public final class Snapshot {
+
+    private final MetroMap map;
+    private final DisplaceProgress progress;
+
+    public Snapshot(@NotNull MetroMap map, @Nullable DisplaceProgress progress) {
+        this.map = map;
+        this.progress = progress;
+    }
+
+    @NotNull
+    public MetroMap getMap() {
+        return map;
+    }
+
+    /**
+     * @return the progress of the displacement or null if the snapshot is not a checkpoint
+     */
+    @Nullable
+    public DisplaceProgress getProgress() {
+        return progress;
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.snapshot;
+
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.alg.CheckpointListener;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceProgress;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Saves every n-th intermediate state of a displacement as snapshot. The snapshot is written to a temporary file
+ * first and then moved, so the previous snapshot remains valid if the process is killed while writing.
+ * <pre>
+ * new DisplaceLineSpaceHandler(map)
+ *         .setCheckpointListener(new SnapshotCheckpointListener(path, 10))
+ *         .makeSpace();
+ *
+ * Snapshot snapshot = new SnapshotReader().readSnapshot(path);
+ * new DisplaceLineSpaceHandler(snapshot.getMap())
+ *         .resume(snapshot.getProgress())
+ *         .makeSpace();
+ * </pre>
+ */
+public class SnapshotCheckpointListener implements CheckpointListener {
+
+    private final Path path;
+    private final int interval;
+    private final SnapshotWriter writer;
+
+    /**
+     * @param interval number of iterations between two snapshots
+     */
+    public SnapshotCheckpointListener(@NotNull Path path, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be positive.");
+        }
+        this.path = path;
+        this.interval = interval;
+        writer = new SnapshotWriter();
+    }
+
+    /**
+     * @throws UncheckedIOException if the snapshot cannot be written
+     */
+    @Override
+    public void checkpoint(@NotNull MetroMap map, @NotNull DisplaceProgress progress) {
+        if (progress.getCompletedIterations() % interval != 0) {
+            return;
+        }
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            writer.write(map, progress, temporaryPath);
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + path, e);
+        }
+    }
+
+}
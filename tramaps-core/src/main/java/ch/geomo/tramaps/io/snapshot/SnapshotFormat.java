@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.snapshot;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary snapshot format, version 1. All values are little-endian, each block starts at an offset
+ * aligned to eight bytes. Nodes, edges and routes are referenced by their index.
+ * <pre>
+ * header (64 bytes)
+ *   int    magic "TMSS", version, nodeCount, edgeCount, routeCount, routeRefCount
+ *   double routeMargin, edgeMargin, nodeMargin
+ *   int    phase (-1 if not a displacement checkpoint), completedIterations, stringBytes, reserved
+ * double[2 * nodeCount]    node coordinates (x, y)
+ * int[nodeCount + 1]       CSR offsets of the edges by node A
+ * int[edgeCount]           CSR targets, node B of each edge
+ * double[edgeCount]        original angle of each edge (starting at node A)
+ * int[edgeCount + 1]       CSR offsets of the routes by edge
+ * int[routeRefCount]       route index of each edge/route reference
+ * double[routeCount]       route line width
+ * double[routeCount]       route color opacity
+ * int[routeCount]          route color (0xrrggbb)
+ * byte[nodeCount]          node signature type (ordinal)
+ * int[nodeCount + routeCount + 1] offsets of the node names and route names within the string bytes
+ * byte[stringBytes]        UTF-8 encoded names
+ * </pre>
+ */
+enum SnapshotFormat {
+
+    /* util class */;
+
+    static final int MAGIC = 0x53534D54; // "TMSS" in little-endian order
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int NO_PHASE = -1;
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.snapshot;
+
+import static ch.geomo.tramaps.io.snapshot.SnapshotFormat.HEADER_SIZE;
+import static ch.geomo.tramaps.io.snapshot.SnapshotFormat.align;
+
+/**
+ * Offsets of the blocks of a snapshot, derived from the element counts of the header.
+ * @see SnapshotFormat
+ */
+final class SnapshotLayout {
+
+    final int nodeCount;
+    final int edgeCount;
+    final int routeCount;
+    final int routeRefCount;
+    final int stringBytes;
+
+    final long nodeCoordinates;
+    final long edgeOffsets;
+    final long edgeTargets;
+    final long edgeAngles;
+    final long routeRefOffsets;
+    final long routeRefs;
+    final long routeWidths;
+    final long routeOpacities;
+    final long routeColors;
+    final long signatureTypes;
+    final long stringOffsets;
+    final long strings;
+    final long size;
+
+    SnapshotLayout(int nodeCount, int edgeCount, int routeCount, int routeRefCount, int stringBytes) {
+
+        if (nodeCount < 0 || edgeCount < 0 || routeCount < 0 || routeRefCount < 0 || stringBytes < 0) {
+            throw new IllegalArgumentException("Negative element count.");
+        }
+
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.routeCount = routeCount;
+        this.routeRefCount = routeRefCount;
+        this.stringBytes = stringBytes;
+
+        nodeCoordinates = HEADER_SIZE;
+        edgeOffsets = align(nodeCoordinates + 16L * nodeCount);
+        edgeTargets = align(edgeOffsets + 4L * (nodeCount + 1));
+        edgeAngles = align(edgeTargets + 4L * edgeCount);
+        routeRefOffsets = align(edgeAngles + 8L * edgeCount);
+        routeRefs = align(routeRefOffsets + 4L * (edgeCount + 1));
+        routeWidths = align(routeRefs + 4L * routeRefCount);
+        routeOpacities = align(routeWidths + 8L * routeCount);
+        routeColors = align(routeOpacities + 8L * routeCount);
+        signatureTypes = align(routeColors + 4L * routeCount);
+        stringOffsets = align(signatureTypes + nodeCount);
+        strings = align(stringOffsets + 4L * (nodeCount + routeCount + 1));
+        size = strings + stringBytes;
+
+    }
+
+}
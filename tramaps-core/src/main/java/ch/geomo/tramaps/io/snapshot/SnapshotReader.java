@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.snapshot;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.graph.direction.AnyDirection;
+import ch.geomo.tramaps.io.MetroMapReader;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceProgress;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.color.Color;
+import ch.geomo.util.logging.Loggers;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static ch.geomo.tramaps.io.snapshot.SnapshotFormat.*;
+
+/**
+ * Reads a binary snapshot written by {@link SnapshotWriter}. The file is memory-mapped and the graph is created
+ * directly from the mapped blocks by absolute access. Snapshots stored as byte array are read the same way.
+ * @see SnapshotFormat
+ */
+public class SnapshotReader implements MetroMapReader {
+
+    @NotNull
+    @Override
+    public MetroMap read(@NotNull Path path) throws IOException {
+        return readSnapshot(path).getMap();
+    }
+
+    /**
+     * Reads the map and the progress of the displacement if the snapshot is a checkpoint.
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    @NotNull
+    public Snapshot readSnapshot(@NotNull Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a snapshot: " + path);
+            }
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds 2 GB: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return readSnapshot(buffer, path.toString());
+    }
+
+    /**
+     * Reads the map of a snapshot written by {@link SnapshotWriter#toByteArray(MetroMap)}.
+     * @throws IOException if given bytes are not a valid snapshot
+     */
+    @NotNull
+    public MetroMap read(@NotNull byte[] bytes) throws IOException {
+        if (bytes.length < HEADER_SIZE) {
+            throw new IOException("Not a snapshot: byte array");
+        }
+        return readSnapshot(ByteBuffer.wrap(bytes), "byte array").getMap();
+    }
+
+    /**
+     * Creates the graph from the blocks of given buffer by absolute access.
+     */
+    @NotNull
+    private Snapshot readSnapshot(@NotNull ByteBuffer buffer, @NotNull String source) throws IOException {
+
+        long start = System.currentTimeMillis();
+
+        buffer.order(BYTE_ORDER);
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot: " + source);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + ": " + source);
+        }
+
+        SnapshotLayout layout;
+        try {
+            layout = new SnapshotLayout(buffer.getInt(8), buffer.getInt(12), buffer.getInt(16), buffer.getInt(20), buffer.getInt(56));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt snapshot: " + source, e);
+        }
+        if (layout.size > buffer.capacity()) {
+            throw new IOException("Truncated snapshot: " + source);
+        }
+
+        MetroMap map = new MetroMap(buffer.getDouble(24), buffer.getDouble(32), buffer.getDouble(40));
+        DisplaceProgress progress = null;
+
+        try {
+
+            int phase = buffer.getInt(48);
+            if (phase != NO_PHASE) {
+                progress = new DisplaceProgress(DisplaceProgress.Phase.values()[phase], buffer.getInt(52));
+            }
+
+            byte[] strings = new byte[layout.stringBytes];
+            ((ByteBuffer) buffer.duplicate().position((int) layout.strings)).get(strings);
+
+            Route[] routes = new Route[layout.routeCount];
+            for (int i = 0; i < routes.length; i++) {
+                int rgb = getInt(buffer, layout.routeColors, i);
+                Color color = Color.rgb(rgb >> 16 & 0xff, rgb >> 8 & 0xff, rgb & 0xff, getDouble(buffer, layout.routeOpacities, i));
+                routes[i] = new Route(getString(buffer, layout, strings, layout.nodeCount + i), getDouble(buffer, layout.routeWidths, i), color);
+            }
+
+            NodeSignatureType[] signatureTypes = NodeSignatureType.values();
+            Node[] nodes = new Node[layout.nodeCount];
+            for (int i = 0; i < nodes.length; i++) {
+                NodeSignatureType signatureType = signatureTypes[buffer.get((int) layout.signatureTypes + i)];
+                nodes[i] = new Node(getString(buffer, layout, strings, i), getDouble(buffer, layout.nodeCoordinates, 2 * i), getDouble(buffer, layout.nodeCoordinates, 2 * i + 1), signatureType.getFactory());
+            }
+            map.addNodes(nodes);
+
+            for (int i = 0; i < nodes.length; i++) {
+                for (int edge = getInt(buffer, layout.edgeOffsets, i); edge < getInt(buffer, layout.edgeOffsets, i + 1); edge++) {
+                    int routeStart = getInt(buffer, layout.routeRefOffsets, edge);
+                    Route[] edgeRoutes = new Route[getInt(buffer, layout.routeRefOffsets, edge + 1) - routeStart];
+                    for (int k = 0; k < edgeRoutes.length; k++) {
+                        edgeRoutes[k] = routes[getInt(buffer, layout.routeRefs, routeStart + k)];
+                    }
+                    Node nodeB = nodes[getInt(buffer, layout.edgeTargets, edge)];
+                    new Edge(nodes[i], nodeB, AnyDirection.fromAngle(getDouble(buffer, layout.edgeAngles, edge)), edgeRoutes);
+                }
+            }
+
+        }
+        catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt snapshot: " + source, e);
+        }
+
+        // edges were added to the nodes directly
+        map.updateGraph();
+
+        Loggers.info(this, "Read snapshot with {0} nodes and {1} edges in {2} ms.", layout.nodeCount, layout.edgeCount, System.currentTimeMillis() - start);
+
+        return new Snapshot(map, progress);
+
+    }
+
+    private static int getInt(@NotNull ByteBuffer buffer, long block, int index) {
+        return buffer.getInt((int) (block + 4L * index));
+    }
+
+    private static double getDouble(@NotNull ByteBuffer buffer, long block, int index) {
+        return buffer.getDouble((int) (block + 8L * index));
+    }
+
+    @NotNull
+    private static String getString(@NotNull ByteBuffer buffer, @NotNull SnapshotLayout layout, @NotNull byte[] strings, int index) {
+        int offset = getInt(buffer, layout.stringOffsets, index);
+        return new String(strings, offset, getInt(buffer, layout.stringOffsets, index + 1) - offset, StandardCharsets.UTF_8);
+    }
+
+}
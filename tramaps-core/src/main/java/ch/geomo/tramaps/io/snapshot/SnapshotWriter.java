@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.snapshot;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.io.MetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceProgress;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.color.Color;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ch.geomo.tramaps.io.snapshot.SnapshotFormat.*;
+
+/**
+ * Writes a {@link MetroMap} as binary snapshot through a {@link FileChannel}. Unlike the other formats, the
+ * original direction of each edge is kept, so a snapshot may store an intermediate state of a layout.
+ * @see SnapshotFormat
+ * @see SnapshotReader
+ */
+public class SnapshotWriter implements MetroMapWriter {
+
+    @Override
+    public void write(@NotNull MetroMap map, @NotNull Path path) throws IOException {
+        write(map, null, path);
+    }
+
+    /**
+     * Writes given map with the progress of a running displacement.
+     */
+    public void write(@NotNull MetroMap map, @Nullable DisplaceProgress progress, @NotNull Path path) throws IOException {
+        write(map, progress, () -> FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Writes given map as snapshot into a byte array, e.g. in order to store it in a database.
+     * @see SnapshotReader#read(byte[])
+     */
+    @NotNull
+    public byte[] toByteArray(@NotNull MetroMap map) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(map, null, () -> Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes given map to the channel opened by given supplier. The channel is opened as soon as the map has been
+     * validated and closed when done.
+     */
+    private void write(@NotNull MetroMap map, @Nullable DisplaceProgress progress, @NotNull ChannelSupplier channelSupplier) throws IOException {
+
+        // identity maps since hash code of nodes changes when destroyed
+        List<Node> nodes = new ArrayList<>(map.getNodes());
+        Map<Node, Integer> nodeIds = new IdentityHashMap<>();
+        for (Node node : nodes) {
+            nodeIds.put(node, nodeIds.size());
+        }
+
+        // edges grouped by node A
+        List<Edge> edges = new ArrayList<>();
+        int[] edgeOffsets = new int[nodes.size() + 1];
+        Map<Route, Integer> routeIds = new LinkedHashMap<>();
+        int routeRefCount = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            edgeOffsets[i] = edges.size();
+            for (Edge edge : node.getAdjacentEdges()) {
+                if (edge.getNodeA() != node) {
+                    continue;
+                }
+                if (!nodeIds.containsKey(edge.getNodeB())) {
+                    throw new IOException("Edge " + edge + " refers to a node which is not part of the map.");
+                }
+                edges.add(edge);
+                for (Route route : edge.getRoutes()) {
+                    routeIds.putIfAbsent(route, routeIds.size());
+                }
+                routeRefCount += edge.getRoutes().size();
+            }
+        }
+        edgeOffsets[nodes.size()] = edges.size();
+
+        List<byte[]> names = new ArrayList<>(nodes.size() + routeIds.size());
+        int stringBytes = 0;
+        for (Node node : nodes) {
+            names.add(node.getName().getBytes(StandardCharsets.UTF_8));
+            stringBytes += names.get(names.size() - 1).length;
+        }
+        for (Route route : routeIds.keySet()) {
+            names.add(route.getName().getBytes(StandardCharsets.UTF_8));
+            stringBytes += names.get(names.size() - 1).length;
+        }
+
+        SnapshotLayout layout = new SnapshotLayout(nodes.size(), edges.size(), routeIds.size(), routeRefCount, stringBytes);
+
+        try (ChannelOutput out = new ChannelOutput(channelSupplier.open())) {
+
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(layout.nodeCount);
+            out.putInt(layout.edgeCount);
+            out.putInt(layout.routeCount);
+            out.putInt(layout.routeRefCount);
+            out.putDouble(map.getRouteMargin());
+            out.putDouble(map.getEdgeMargin());
+            out.putDouble(map.getNodeMargin());
+            out.putInt(progress == null ? NO_PHASE : progress.getPhase().ordinal());
+            out.putInt(progress == null ? 0 : progress.getCompletedIterations());
+            out.putInt(layout.stringBytes);
+            out.putInt(0);
+
+            out.padTo(layout.nodeCoordinates);
+            for (Node node : nodes) {
+                out.putDouble(node.getX());
+                out.putDouble(node.getY());
+            }
+
+            out.padTo(layout.edgeOffsets);
+            for (int offset : edgeOffsets) {
+                out.putInt(offset);
+            }
+            out.padTo(layout.edgeTargets);
+            for (Edge edge : edges) {
+                out.putInt(nodeIds.get(edge.getNodeB()));
+            }
+            out.padTo(layout.edgeAngles);
+            for (Edge edge : edges) {
+                out.putDouble(edge.getOriginalDirection(edge.getNodeA()).getAngle());
+            }
+
+            out.padTo(layout.routeRefOffsets);
+            int routeRefOffset = 0;
+            for (Edge edge : edges) {
+                out.putInt(routeRefOffset);
+                routeRefOffset += edge.getRoutes().size();
+            }
+            out.putInt(routeRefOffset);
+            out.padTo(layout.routeRefs);
+            for (Edge edge : edges) {
+                for (Route route : edge.getRoutes()) {
+                    out.putInt(routeIds.get(route));
+                }
+            }
+
+            out.padTo(layout.routeWidths);
+            for (Route route : routeIds.keySet()) {
+                out.putDouble(route.getLineWidth());
+            }
+            out.padTo(layout.routeOpacities);
+            for (Route route : routeIds.keySet()) {
+                out.putDouble(route.getLineColor().getOpacity());
+            }
+            out.padTo(layout.routeColors);
+            for (Route route : routeIds.keySet()) {
+                Color color = route.getLineColor();
+                out.putInt(color.getRed() << 16 | color.getGreen() << 8 | color.getBlue());
+            }
+
+            out.padTo(layout.signatureTypes);
+            for (Node node : nodes) {
+                out.putByte((byte) NodeSignatureType.of(node.getNodeSignature()).ordinal());
+            }
+
+            out.padTo(layout.stringOffsets);
+            int stringOffset = 0;
+            for (byte[] name : names) {
+                out.putInt(stringOffset);
+                stringOffset += name.length;
+            }
+            out.putInt(stringOffset);
+            out.padTo(layout.strings);
+            for (byte[] name : names) {
+                out.putBytes(name);
+            }
+
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface ChannelSupplier {
+
+        @NotNull
+        WritableByteChannel open() throws IOException;
+
+    }
+
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.svg;
+
+import ch.geomo.tramaps.conflict.BufferConflict;
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.io.MetroMapWriter;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.BendNodeSignature;
+import ch.geomo.util.color.Color;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Polygon;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Renders a {@link MetroMap} as SVG document without any display. Edges and nodes are written to the output
+ * stream while iterating the graph, so no intermediate scene is built. Each route of an edge is drawn as a
+ * parallel stroke in the route's color, spread over the width of the edge. Stations are drawn with their
+ * signature geometry, bend nodes are not drawn.
+ * <p>
+ * Non-octilinear edges and the polygons of buffer conflicts may be added as debug layers. Note that the
+ * conflicts are evaluated before writing the conflict layer.
+ */
+public class SvgMetroMapWriter implements MetroMapWriter {
+
+    private static final Color NON_OCTILINEAR_COLOR = Color.rgb(227, 74, 93, 0.5);
+    private static final Color CONFLICT_COLOR = Color.rgb(240, 88, 88, 0.4);
+
+    private double scaleFactor = 1;
+    private double margin = 50;
+    private boolean nodeNamesShown = true;
+    private boolean nonOctilinearEdgesShown = false;
+    private boolean conflictsShown = false;
+
+    /**
+     * Sets the number of SVG pixels per map unit. Default is 1.
+     */
+    @NotNull
+    public SvgMetroMapWriter setScaleFactor(double scaleFactor) {
+        this.scaleFactor = scaleFactor;
+        return this;
+    }
+
+    /**
+     * Sets the margin around the map in SVG pixels. Default is 50.
+     */
+    @NotNull
+    public SvgMetroMapWriter setMargin(double margin) {
+        this.margin = margin;
+        return this;
+    }
+
+    @NotNull
+    public SvgMetroMapWriter setNodeNamesShown(boolean nodeNamesShown) {
+        this.nodeNamesShown = nodeNamesShown;
+        return this;
+    }
+
+    /**
+     * Enables the debug layer highlighting non-octilinear edges.
+     */
+    @NotNull
+    public SvgMetroMapWriter setNonOctilinearEdgesShown(boolean nonOctilinearEdgesShown) {
+        this.nonOctilinearEdgesShown = nonOctilinearEdgesShown;
+        return this;
+    }
+
+    /**
+     * Enables the debug layer showing the polygons of all buffer conflicts.
+     */
+    @NotNull
+    public SvgMetroMapWriter setConflictsShown(boolean conflictsShown) {
+        this.conflictsShown = conflictsShown;
+        return this;
+    }
+
+    @Override
+    public void write(@NotNull MetroMap map, @NotNull Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(map, out);
+        }
+    }
+
+    /**
+     * Writes given map as SVG document to given stream. The stream is flushed but not closed.
+     */
+    public void write(@NotNull MetroMap map, @NotNull OutputStream out) throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        SvgOutput svg = new SvgOutput(writer, scaleFactor);
+
+        Envelope bbox = getBoundingBox(map);
+        double width = bbox.getWidth() * scaleFactor + 2 * margin;
+        double height = bbox.getHeight() * scaleFactor + 2 * margin;
+
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        svg.pixels(width);
+        writer.write("\" height=\"");
+        svg.pixels(height);
+        writer.write("\" viewBox=\"");
+        // the y-axis is flipped, so the viewbox starts at the top left of the map
+        svg.pixels(bbox.getMinX() * scaleFactor - margin);
+        writer.write(' ');
+        svg.pixels(-bbox.getMaxY() * scaleFactor - margin);
+        writer.write(' ');
+        svg.pixels(width);
+        writer.write(' ');
+        svg.pixels(height);
+        writer.write("\">\n");
+
+        writer.write("<g id=\"edges\" fill=\"none\" stroke-linecap=\"butt\">\n");
+        for (Edge edge : map.getEdges()) {
+            if (edge.hasRoutes()) {
+                writeEdge(edge, map.getRouteMargin(), svg);
+            }
+        }
+        writer.write("</g>\n");
+
+        if (nonOctilinearEdgesShown) {
+            writer.write("<g id=\"non-octilinear-edges\" fill=\"none\">\n");
+            for (Edge edge : map.getEdges()) {
+                if (edge.isNotOctilinear()) {
+                    svg.line(edge, Math.max(edge.calculateEdgeWidth(map.getRouteMargin()), 1), NON_OCTILINEAR_COLOR);
+                }
+            }
+            writer.write("</g>\n");
+        }
+
+        writer.write("<g id=\"stations\" fill=\"#ffffff\" stroke=\"#000000\" stroke-width=\"");
+        svg.pixels(5 * scaleFactor);
+        writer.write("\">\n");
+        for (Node node : map.getNodes()) {
+            if (!(node.getNodeSignature() instanceof BendNodeSignature)) {
+                svg.polygon(node.getNodeSignature().getGeometry(), null);
+            }
+        }
+        writer.write("</g>\n");
+
+        if (nodeNamesShown) {
+            writer.write("<g id=\"labels\" font-family=\"sans-serif\" font-size=\"");
+            svg.pixels(12 * scaleFactor);
+            writer.write("\">\n");
+            for (Node node : map.getNodes()) {
+                if (!(node.getNodeSignature() instanceof BendNodeSignature)) {
+                    Envelope station = node.getNodeSignature().getGeometry().getEnvelopeInternal();
+                    svg.text(station.getMinX(), station.getMaxY() + 10, node.getName());
+                }
+            }
+            writer.write("</g>\n");
+        }
+
+        if (conflictsShown) {
+            writer.write("<g id=\"conflicts\" stroke=\"none\">\n");
+            for (Conflict conflict : map.evaluateConflicts(true)) {
+                if (conflict instanceof BufferConflict) {
+                    svg.polygon(((BufferConflict) conflict).getConflictPolygon(), CONFLICT_COLOR);
+                }
+            }
+            writer.write("</g>\n");
+        }
+
+        writer.write("</svg>\n");
+        writer.flush();
+
+    }
+
+    /**
+     * Draws each route of given edge as parallel line, centered within the edge width.
+     */
+    private static void writeEdge(@NotNull Edge edge, double routeMargin, @NotNull SvgOutput svg) throws IOException {
+
+        if (edge.getRoutes().size() == 1) {
+            Route route = edge.getRoutes().iterator().next();
+            svg.line(edge, route.getLineWidth(), route.getLineColor());
+            return;
+        }
+
+        // unit normal of the edge
+        double dx = edge.getNodeB().getX() - edge.getNodeA().getX();
+        double dy = edge.getNodeB().getY() - edge.getNodeA().getY();
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) {
+            return;
+        }
+        double nx = -dy / length;
+        double ny = dx / length;
+
+        double[] offsets = edge.calculateRouteOffsets(routeMargin);
+        int i = 0;
+        for (Route route : edge.getRoutes()) {
+            double offset = offsets[i++];
+            svg.line(edge.getNodeA().getX() + nx * offset, edge.getNodeA().getY() + ny * offset,
+                    edge.getNodeB().getX() + nx * offset, edge.getNodeB().getY() + ny * offset,
+                    route.getLineWidth(), route.getLineColor());
+        }
+
+    }
+
+    /**
+     * @return the bounding box of all nodes and station signatures, calculated without creating geometries
+     */
+    @NotNull
+    private static Envelope getBoundingBox(@NotNull MetroMap map) {
+        Envelope bbox = new Envelope();
+        for (Node node : map.getNodes()) {
+            bbox.expandToInclude(node.getX(), node.getY());
+            bbox.expandToInclude(node.getNodeSignature().getGeometry().getEnvelopeInternal());
+        }
+        if (bbox.isNull()) {
+            bbox.expandToInclude(0, 0);
+        }
+        return bbox;
+    }
+
+    /**
+     * Writes SVG elements with coordinates rounded to two decimal places.
+     */
+    private static final class SvgOutput {
+
+        private final Writer writer;
+        private final double scaleFactor;
+        private final StringBuilder number = new StringBuilder(24);
+
+        private SvgOutput(@NotNull Writer writer, double scaleFactor) {
+            this.writer = writer;
+            this.scaleFactor = scaleFactor;
+        }
+
+        /**
+         * Writes given value without exponent and with at most two decimal places.
+         */
+        private void pixels(double value) throws IOException {
+            long hundredths = Math.round(value * 100);
+            number.setLength(0);
+            if (hundredths < 0) {
+                number.append('-');
+                hundredths = -hundredths;
+            }
+            number.append(hundredths / 100);
+            long fraction = hundredths % 100;
+            if (fraction != 0) {
+                number.append('.').append(fraction / 10);
+                if (fraction % 10 != 0) {
+                    number.append(fraction % 10);
+                }
+            }
+            writer.append(number);
+        }
+
+        private void x(double x) throws IOException {
+            pixels(x * scaleFactor);
+        }
+
+        private void y(double y) throws IOException {
+            pixels(-y * scaleFactor);
+        }
+
+        private void color(@NotNull String attribute, @NotNull Color color) throws IOException {
+            writer.write(' ');
+            writer.write(attribute);
+            writer.write("=\"");
+            // opacity is written as separate attribute
+            writer.write(color.toHex(), 0, 7);
+            writer.write('"');
+            if (color.getOpacity() < 1) {
+                writer.write(' ');
+                writer.write(attribute);
+                writer.write("-opacity=\"");
+                pixels(color.getOpacity());
+                writer.write('"');
+            }
+        }
+
+        private void line(@NotNull Edge edge, double width, @NotNull Color color) throws IOException {
+            line(edge.getNodeA().getX(), edge.getNodeA().getY(), edge.getNodeB().getX(), edge.getNodeB().getY(), width, color);
+        }
+
+        private void line(double x1, double y1, double x2, double y2, double width, @NotNull Color color) throws IOException {
+            writer.write("<line x1=\"");
+            x(x1);
+            writer.write("\" y1=\"");
+            y(y1);
+            writer.write("\" x2=\"");
+            x(x2);
+            writer.write("\" y2=\"");
+            y(y2);
+            writer.write("\" stroke-width=\"");
+            pixels(width * scaleFactor);
+            writer.write('"');
+            color("stroke", color);
+            writer.write("/>\n");
+        }
+
+        private void polygon(@NotNull Polygon polygon, @Nullable Color fill) throws IOException {
+            if (polygon.isEmpty()) {
+                return;
+            }
+            writer.write("<path d=\"");
+            ring(polygon.getExteriorRing().getCoordinates());
+            for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                ring(polygon.getInteriorRingN(i).getCoordinates());
+            }
+            writer.write('"');
+            if (fill != null) {
+                color("fill", fill);
+            }
+            writer.write("/>\n");
+        }
+
+        private void ring(@NotNull Coordinate[] coordinates) throws IOException {
+            // the last coordinate of a ring is equal to the first one
+            for (int i = 0; i < coordinates.length - 1; i++) {
+                writer.write(i == 0 ? 'M' : 'L');
+                x(coordinates[i].x);
+                writer.write(' ');
+                y(coordinates[i].y);
+            }
+            writer.write('Z');
+        }
+
+        private void text(double x, double y, @NotNull String text) throws IOException {
+            writer.write("<text x=\"");
+            x(x);
+            writer.write("\" y=\"");
+            y(y);
+            writer.write("\">");
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '<':
+                        writer.write("&lt;");
+                        break;
+                    case '>':
+                        writer.write("&gt;");
+                        break;
+                    case '&':
+                        writer.write("&amp;");
+                        break;
+                    default:
+                        writer.write(c);
+                }
+            }
+            writer.write("</text>\n");
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Stores each tile as file <tt>z/x/y.extension</tt> within a directory.
+ */
+final class DirectoryTileSink implements TileSink {
+
+    private final Path directory;
+    private final String extension;
+
+    DirectoryTileSink(@NotNull Path directory, @NotNull String extension) throws IOException {
+        this.directory = directory;
+        this.extension = extension;
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    public void write(@NotNull Tile tile, @NotNull byte[] data) throws IOException {
+        Path file = directory.resolve(tile.getKey() + extension);
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+
+    @Override
+    public void complete() {
+        // each tile is written immediately
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+
+}
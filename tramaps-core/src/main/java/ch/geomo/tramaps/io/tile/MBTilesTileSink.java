@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores the tiles in a single MBTiles file, a SQLite database with the tiles table and the metadata table of
+ * the MBTiles specification. Tiles are gzip-compressed as required for vector tiles and stored with the row
+ * numbering of the specification (origin at the bottom left). The tiles are inserted in batches within a single
+ * transaction, which is committed when completing the sink. Closing the sink without completing it rolls back the
+ * transaction and deletes the file.
+ */
+final class MBTilesTileSink implements TileSink {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Path file;
+    private final Connection connection;
+    private final PreparedStatement insert;
+    private int batchCount = 0;
+    private boolean completed = false;
+
+    MBTilesTileSink(@NotNull Path file, @NotNull Map<String, String> metadata) throws IOException {
+        Files.deleteIfExists(file);
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE metadata (name TEXT, value TEXT)");
+                statement.execute("CREATE TABLE tiles (zoom_level INTEGER, tile_column INTEGER, tile_row INTEGER, tile_data BLOB)");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO metadata (name, value) VALUES (?, ?)")) {
+                for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                    statement.setString(1, entry.getKey());
+                    statement.setString(2, entry.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            insert = connection.prepareStatement("INSERT INTO tiles (zoom_level, tile_column, tile_row, tile_data) VALUES (?, ?, ?, ?)");
+        }
+        catch (SQLException e) {
+            closeQuietly(connection);
+            throw new IOException("Cannot create MBTiles file " + file + ".", e);
+        }
+        this.file = file;
+        this.connection = connection;
+    }
+
+    private static void closeQuietly(@Nullable AutoCloseable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            }
+            catch (Exception e) {
+                // nothing left to do
+            }
+        }
+    }
+
+    @Override
+    public void write(@NotNull Tile tile, @NotNull byte[] data) throws IOException {
+        // compress outside of the lock
+        byte[] compressed = compress(data);
+        synchronized (this) {
+            try {
+                insert.setInt(1, tile.getZoom());
+                insert.setInt(2, tile.getX());
+                insert.setInt(3, (1 << tile.getZoom()) - 1 - tile.getY());
+                insert.setBytes(4, compressed);
+                insert.addBatch();
+                if (++batchCount == BATCH_SIZE) {
+                    insert.executeBatch();
+                    batchCount = 0;
+                }
+            }
+            catch (SQLException e) {
+                throw new IOException("Cannot insert tile " + tile.getKey() + ".", e);
+            }
+        }
+    }
+
+    @NotNull
+    private static byte[] compress(@NotNull byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public synchronized void complete() throws IOException {
+        try {
+            insert.executeBatch();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE UNIQUE INDEX tile_index ON tiles (zoom_level, tile_column, tile_row)");
+            }
+            connection.commit();
+            completed = true;
+        }
+        catch (SQLException e) {
+            throw new IOException("Cannot write MBTiles file.", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (!completed) {
+                connection.rollback();
+            }
+        }
+        catch (SQLException e) {
+            throw new IOException("Cannot roll back MBTiles file.", e);
+        }
+        finally {
+            closeQuietly(insert);
+            closeQuietly(connection);
+            if (!completed) {
+                // the tables are created before the transaction is started
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+}
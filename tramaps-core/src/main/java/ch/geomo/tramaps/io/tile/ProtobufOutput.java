@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes protocol buffer fields into a growing byte array. Supports the field types required for vector tiles
+ * only: varints, 64-bit doubles, strings, nested messages and packed varints.
+ */
+final class ProtobufOutput {
+
+    private static final int WIRE_TYPE_VARINT = 0;
+    private static final int WIRE_TYPE_64_BIT = 1;
+    private static final int WIRE_TYPE_LENGTH_DELIMITED = 2;
+
+    private byte[] buffer = new byte[256];
+    private int size = 0;
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+
+    private void writeRawVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7fL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeTag(int field, int wireType) {
+        writeRawVarint(field << 3 | wireType);
+    }
+
+    private void writeRawBytes(@NotNull byte[] bytes, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, 0, buffer, size, length);
+        size += length;
+    }
+
+    void writeVarint(int field, long value) {
+        writeTag(field, WIRE_TYPE_VARINT);
+        writeRawVarint(value);
+    }
+
+    void writeDouble(int field, double value) {
+        writeTag(field, WIRE_TYPE_64_BIT);
+        long bits = Double.doubleToLongBits(value);
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[size++] = (byte) (bits >>> (8 * i));
+        }
+    }
+
+    void writeString(int field, @NotNull String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeTag(field, WIRE_TYPE_LENGTH_DELIMITED);
+        writeRawVarint(bytes.length);
+        writeRawBytes(bytes, bytes.length);
+    }
+
+    void writeMessage(int field, @NotNull ProtobufOutput message) {
+        writeTag(field, WIRE_TYPE_LENGTH_DELIMITED);
+        writeRawVarint(message.size);
+        writeRawBytes(message.buffer, message.size);
+    }
+
+    /**
+     * Appends the fields written to given output.
+     */
+    void writeRaw(@NotNull ProtobufOutput fields) {
+        writeRawBytes(fields.buffer, fields.size);
+    }
+
+    /**
+     * Writes the first values of given array as packed repeated field of unsigned varints.
+     */
+    void writePacked(int field, @NotNull int[] values, int length) {
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            bytes += getVarintSize(values[i]);
+        }
+        writeTag(field, WIRE_TYPE_LENGTH_DELIMITED);
+        writeRawVarint(bytes);
+        for (int i = 0; i < length; i++) {
+            writeRawVarint(values[i] & 0xffffffffL);
+        }
+    }
+
+    private static int getVarintSize(int value) {
+        int size = 1;
+        long unsigned = value & 0xffffffffL;
+        while (unsigned >= 0x80) {
+            unsigned >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    @NotNull
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+}
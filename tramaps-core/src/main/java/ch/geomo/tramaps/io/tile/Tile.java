@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A tile of a pyramid, addressed by zoom level and column/row with the origin at the top left.
+ */
+final class Tile {
+
+    private final int zoom;
+    private final int x;
+    private final int y;
+
+    Tile(int zoom, int x, int y) {
+        this.zoom = zoom;
+        this.x = x;
+        this.y = y;
+    }
+
+    int getZoom() {
+        return zoom;
+    }
+
+    int getX() {
+        return x;
+    }
+
+    int getY() {
+        return y;
+    }
+
+    /**
+     * @return the path of this tile without file extension, <tt>z/x/y</tt>
+     */
+    @NotNull
+    String getKey() {
+        return zoom + "/" + x + "/" + y;
+    }
+
+    /**
+     * @return the extent of this tile within given square extent of zoom level 0
+     */
+    @NotNull
+    Envelope getEnvelope(@NotNull Envelope extent) {
+        double size = extent.getWidth() / (1L << zoom);
+        double minX = extent.getMinX() + x * size;
+        double maxY = extent.getMaxY() - y * size;
+        return new Envelope(minX, minX + size, maxY - size, maxY);
+    }
+
+    @NotNull
+    List<Tile> getChildren() {
+        List<Tile> children = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++) {
+            children.add(new Tile(zoom + 1, 2 * x + i % 2, 2 * y + i / 2));
+        }
+        return children;
+    }
+
+    @Override
+    public String toString() {
+        return "Tile: {" + getKey() + "}";
+    }
+
+}
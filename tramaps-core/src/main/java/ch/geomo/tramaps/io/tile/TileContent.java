@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.graph.index.SpatialGraphIndex;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.BendNodeSignature;
+import ch.geomo.util.geom.GeomUtil;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * The edges and stations of a map indexed for tile queries, and the square extent of zoom level 0. Edges are
+ * queried with the graph's {@link SpatialGraphIndex}, stations with a {@link STRtree} of their signature
+ * envelopes. The candidates are tested against the actual geometries, so a long diagonal edge is not returned for
+ * the tiles its envelope covers only. Read-only, so it may be queried concurrently as long as the map is not
+ * modified.
+ */
+final class TileContent {
+
+    private final SpatialGraphIndex edgeIndex;
+    private final STRtree stationIndex = new STRtree();
+    private final double routeMargin;
+    private final double stationPadding;
+    private final double maxHalfEdgeWidth;
+    private final Envelope extent;
+
+    /**
+     * @param stationPadding the distance the station signatures are expanded by, e.g. half of the stroke width
+     */
+    TileContent(@NotNull MetroMap map, double stationPadding) {
+
+        routeMargin = map.getRouteMargin();
+        this.stationPadding = stationPadding;
+        edgeIndex = map.getSpatialIndex();
+
+        double maxEdgeWidth = 0;
+        for (Edge edge : map.getEdges()) {
+            maxEdgeWidth = Math.max(maxEdgeWidth, getStrokeWidth(edge));
+        }
+        maxHalfEdgeWidth = maxEdgeWidth / 2;
+
+        Envelope bbox = new Envelope();
+        for (Node node : map.getNodes()) {
+            bbox.expandToInclude(node.getX(), node.getY());
+            if (!(node.getNodeSignature() instanceof BendNodeSignature)) {
+                Envelope envelope = new Envelope(node.getNodeSignature().getGeometry().getEnvelopeInternal());
+                envelope.expandBy(stationPadding);
+                stationIndex.insert(envelope, node);
+                bbox.expandToInclude(envelope);
+            }
+        }
+        bbox.expandBy(maxHalfEdgeWidth);
+        stationIndex.build();
+
+        // square extent, so tiles are square as well
+        double size = Math.max(Math.max(bbox.getWidth(), bbox.getHeight()), 1);
+        double centerX = bbox.isNull() ? 0 : bbox.centre().x;
+        double centerY = bbox.isNull() ? 0 : bbox.centre().y;
+        extent = new Envelope(centerX - size / 2, centerX + size / 2, centerY - size / 2, centerY + size / 2);
+
+    }
+
+    /**
+     * @return the width of the drawn routes of given edge
+     */
+    private double getStrokeWidth(@NotNull Edge edge) {
+        double lineWidths = edge.getRoutes().stream().mapToDouble(Route::getLineWidth).sum();
+        return Math.max(edge.calculateEdgeWidth(routeMargin), lineWidths);
+    }
+
+    double getRouteMargin() {
+        return routeMargin;
+    }
+
+    /**
+     * @return the extent of zoom level 0
+     */
+    @NotNull
+    Envelope getExtent() {
+        return extent;
+    }
+
+    /**
+     * @return the edges with routes whose strokes may intersect with given envelope
+     */
+    @NotNull
+    List<Edge> queryEdges(@NotNull Envelope envelope) {
+        Envelope query = new Envelope(envelope);
+        query.expandBy(maxHalfEdgeWidth);
+        List<Edge> edges = edgeIndex.queryEdges(query);
+        Geometry tile = GeomUtil.getGeometryFactory().toGeometry(envelope);
+        edges.removeIf(edge -> !edge.hasRoutes() || !edge.getLineString().isWithinDistance(tile, getStrokeWidth(edge) / 2));
+        return edges;
+    }
+
+    /**
+     * @return the stations whose signature intersects with given envelope
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    List<Node> queryStations(@NotNull Envelope envelope) {
+        List<Node> stations = (List<Node>) stationIndex.query(envelope);
+        Geometry tile = GeomUtil.getGeometryFactory().toGeometry(envelope);
+        stations.removeIf(station -> !station.getNodeSignature().getGeometry().isWithinDistance(tile, stationPadding));
+        return stations;
+    }
+
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Polygon;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Renders a {@link MetroMap} headless as pyramid of PNG tiles, stored as <tt>z/x/y.png</tt> with the origin at
+ * the top left. Zoom level 0 is a single tile covering the map's bounding box. Each tile is drawn with the edges
+ * and stations intersecting the tile's extent, found by querying a spatial index. Tiles without content are skipped,
+ * including all their child tiles. The tiles of a zoom level are rendered in parallel.
+ * <p>
+ * The content hash of each tile is stored in a manifest. Running the renderer again with the same output
+ * directory only writes the tiles whose content hash changed and removes tiles which became empty.
+ */
+public class TilePyramidRenderer {
+
+    public static final String MANIFEST_FILE_NAME = "tiles.manifest";
+
+    private static final String MANIFEST_SEPARATOR = ";";
+
+    private static final double STATION_STROKE_WIDTH = 5;
+
+    private final Path outputDirectory;
+    private final int threadCount;
+
+    private int tileSize = 256;
+    private int maxZoom = 4;
+
+    public TilePyramidRenderer(@NotNull Path outputDirectory, int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("At least one thread is required.");
+        }
+        this.outputDirectory = outputDirectory;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Sets the width and height of a tile in pixels. Default is 256.
+     */
+    @NotNull
+    public TilePyramidRenderer setTileSize(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be positive.");
+        }
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets the highest zoom level to be rendered. Default is 4.
+     */
+    @NotNull
+    public TilePyramidRenderer setMaxZoom(int maxZoom) {
+        if (maxZoom < 0 || maxZoom > 30) {
+            throw new IllegalArgumentException("Zoom level must be between 0 and 30.");
+        }
+        this.maxZoom = maxZoom;
+        return this;
+    }
+
+    /**
+     * Renders all tiles of given map. The map must not be modified while rendering.
+     * @throws IOException if a tile or the manifest cannot be written
+     */
+    @NotNull
+    public TileRenderResult render(@NotNull MetroMap map) throws IOException, InterruptedException {
+
+        long start = System.currentTimeMillis();
+
+        Files.createDirectories(outputDirectory);
+
+        TileContent content = new TileContent(map, STATION_STROKE_WIDTH / 2);
+        Map<String, String> previousHashes = readManifest();
+        Map<String, String> hashes = new HashMap<>();
+
+        int renderedCount = 0;
+        int unchangedCount = 0;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "tramaps-tiles-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Tile> tiles = new ArrayList<>();
+            tiles.add(new Tile(0, 0, 0));
+            for (int zoom = 0; zoom <= maxZoom && !tiles.isEmpty(); zoom++) {
+                List<Future<String>> futures = new ArrayList<>();
+                for (Tile tile : tiles) {
+                    futures.add(workers.submit(() -> renderTile(tile, content, previousHashes.get(tile.getKey()))));
+                }
+                List<Tile> children = new ArrayList<>();
+                for (int i = 0; i < tiles.size(); i++) {
+                    String hash = getResult(futures.get(i));
+                    if (hash == null) {
+                        continue;
+                    }
+                    Tile tile = tiles.get(i);
+                    if (hash.equals(previousHashes.get(tile.getKey()))) {
+                        unchangedCount++;
+                    }
+                    else {
+                        renderedCount++;
+                    }
+                    hashes.put(tile.getKey(), hash);
+                    children.addAll(tile.getChildren());
+                }
+                tiles = children;
+            }
+        }
+        finally {
+            workers.shutdownNow();
+        }
+
+        // remove tiles of the previous run which are empty now
+        int removedCount = 0;
+        for (String key : previousHashes.keySet()) {
+            if (!hashes.containsKey(key) && Files.deleteIfExists(outputDirectory.resolve(key + ".png"))) {
+                removedCount++;
+            }
+        }
+
+        writeManifest(hashes);
+
+        TileRenderResult result = new TileRenderResult(renderedCount, unchangedCount, removedCount, System.currentTimeMillis() - start);
+        Loggers.info(this, "Rendered tiles to {0}: {1}", outputDirectory, result);
+        return result;
+
+    }
+
+    @Nullable
+    private static String getResult(@NotNull Future<String> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Rendering a tile failed unexpectedly.", e.getCause());
+        }
+    }
+
+    /**
+     * Renders given tile unless it is empty or its content did not change.
+     * @return the content hash of the tile or null if the tile is empty
+     */
+    @Nullable
+    private String renderTile(@NotNull Tile tile, @NotNull TileContent content, @Nullable String previousHash) throws IOException {
+
+        Envelope envelope = tile.getEnvelope(content.getExtent());
+        List<Edge> edges = content.queryEdges(envelope);
+        List<Node> stations = content.queryStations(envelope);
+        if (edges.isEmpty() && stations.isEmpty()) {
+            return null;
+        }
+
+        String hash = Long.toHexString(hash(content, tileSize, envelope, edges, stations));
+        Path file = outputDirectory.resolve(tile.getKey() + ".png");
+        if (hash.equals(previousHash) && Files.exists(file)) {
+            return hash;
+        }
+
+        BufferedImage image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            // flip y-axis, origin at the top left of the tile
+            double scale = tileSize / envelope.getWidth();
+            graphics.scale(scale, -scale);
+            graphics.translate(-envelope.getMinX(), -envelope.getMaxY());
+            for (Edge edge : edges) {
+                drawEdge(edge, content.getRouteMargin(), graphics);
+            }
+            graphics.setStroke(new BasicStroke((float) STATION_STROKE_WIDTH));
+            for (Node station : stations) {
+                Path2D shape = toShape(station.getNodeSignature().getGeometry());
+                graphics.setColor(Color.WHITE);
+                graphics.fill(shape);
+                graphics.setColor(Color.BLACK);
+                graphics.draw(shape);
+            }
+        }
+        finally {
+            graphics.dispose();
+        }
+
+        Files.createDirectories(file.getParent());
+        if (!ImageIO.write(image, "png", file.toFile())) {
+            throw new IOException("No PNG writer available.");
+        }
+        return hash;
+
+    }
+
+    private static void drawEdge(@NotNull Edge edge, double routeMargin, @NotNull Graphics2D graphics) {
+
+        double dx = edge.getNodeB().getX() - edge.getNodeA().getX();
+        double dy = edge.getNodeB().getY() - edge.getNodeA().getY();
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) {
+            return;
+        }
+        double nx = -dy / length;
+        double ny = dx / length;
+
+        double[] offsets = edge.calculateRouteOffsets(routeMargin);
+        int i = 0;
+        for (Route route : edge.getRoutes()) {
+            double offset = offsets[i++];
+            ch.geomo.util.color.Color color = route.getLineColor();
+            graphics.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), (int) Math.round(color.getOpacity() * 255)));
+            graphics.setStroke(new BasicStroke((float) route.getLineWidth(), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
+            graphics.draw(new Line2D.Double(edge.getNodeA().getX() + nx * offset, edge.getNodeA().getY() + ny * offset,
+                    edge.getNodeB().getX() + nx * offset, edge.getNodeB().getY() + ny * offset));
+        }
+
+    }
+
+    @NotNull
+    private static Path2D toShape(@NotNull Polygon polygon) {
+        Path2D shape = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        addRing(shape, polygon.getExteriorRing().getCoordinates());
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+            addRing(shape, polygon.getInteriorRingN(i).getCoordinates());
+        }
+        return shape;
+    }
+
+    private static void addRing(@NotNull Path2D shape, @NotNull Coordinate[] coordinates) {
+        for (int i = 0; i < coordinates.length; i++) {
+            if (i == 0) {
+                shape.moveTo(coordinates[i].x, coordinates[i].y);
+            }
+            else {
+                shape.lineTo(coordinates[i].x, coordinates[i].y);
+            }
+        }
+        shape.closePath();
+    }
+
+    @NotNull
+    private Map<String, String> readManifest() throws IOException {
+        Map<String, String> hashes = new HashMap<>();
+        Path manifest = outputDirectory.resolve(MANIFEST_FILE_NAME);
+        if (Files.exists(manifest)) {
+            try (Stream<String> lines = Files.lines(manifest, StandardCharsets.UTF_8)) {
+                lines.map(line -> line.split(MANIFEST_SEPARATOR))
+                        .filter(values -> values.length == 2)
+                        .forEach(values -> hashes.put(values[0], values[1]));
+            }
+        }
+        return hashes;
+    }
+
+    private void writeManifest(@NotNull Map<String, String> hashes) throws IOException {
+        Path manifest = outputDirectory.resolve(MANIFEST_FILE_NAME);
+        Path temporary = outputDirectory.resolve(MANIFEST_FILE_NAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                writer.write(entry.getKey() + MANIFEST_SEPARATOR + entry.getValue());
+                writer.newLine();
+            }
+        }
+        Files.move(temporary, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return a hash of the drawn content and the tile's envelope, independent of the order of the elements
+     */
+    private static long hash(@NotNull TileContent content, int tileSize, @NotNull Envelope envelope, @NotNull List<Edge> edges, @NotNull List<Node> stations) {
+        // the envelope changes with the extent of zoom level 0, e.g. when a station is added outside the map
+        long hash = mix(tileSize, envelope.getMinX(), envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY());
+        for (Edge edge : edges) {
+            long edgeHash = mix(edge.getNodeA().getX(), edge.getNodeA().getY(), edge.getNodeB().getX(), edge.getNodeB().getY());
+            double[] offsets = edge.calculateRouteOffsets(content.getRouteMargin());
+            int i = 0;
+            for (Route route : edge.getRoutes()) {
+                ch.geomo.util.color.Color color = route.getLineColor();
+                edgeHash = 31 * edgeHash + mix(offsets[i++], route.getLineWidth(), color.getRed() << 16 | color.getGreen() << 8 | color.getBlue(), color.getOpacity());
+            }
+            hash += mix(edgeHash);
+        }
+        for (Node station : stations) {
+            long stationHash = 17;
+            for (Coordinate coordinate : station.getNodeSignature().getGeometry().getCoordinates()) {
+                stationHash = 31 * stationHash + mix(coordinate.x, coordinate.y);
+            }
+            hash += mix(~stationHash);
+        }
+        return hash;
+    }
+
+    private static long mix(double... values) {
+        long hash = 1;
+        for (double value : values) {
+            hash = 31 * hash + Double.doubleToLongBits(value);
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads the bits of given value.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+/**
+ * Counts the tiles of a rendered tile pyramid.
+ */
+public class TileRenderResult {
+
+    private final int renderedCount;
+    private final int unchangedCount;
+    private final int removedCount;
+    private final long millis;
+
+    public TileRenderResult(int renderedCount, int unchangedCount, int removedCount, long millis) {
+        this.renderedCount = renderedCount;
+        this.unchangedCount = unchangedCount;
+        this.removedCount = removedCount;
+        this.millis = millis;
+    }
+
+    /**
+     * @return the number of tiles written in this run
+     */
+    public int getRenderedCount() {
+        return renderedCount;
+    }
+
+    /**
+     * @return the number of tiles not written again since their content did not change
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * @return the number of tiles of the previous run removed since they became empty
+     */
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return "TileRenderResult: {rendered=" + renderedCount + ", unchanged=" + unchangedCount + ", removed=" + removedCount + ", " + millis + " ms}";
+    }
+
+}
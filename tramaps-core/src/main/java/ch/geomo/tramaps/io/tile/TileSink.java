@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Stores encoded tiles. Implementations must be thread-safe. Closing a sink without completing it discards the
+ * written tiles if the implementation supports it.
+ */
+interface TileSink extends Closeable {
+
+    void write(@NotNull Tile tile, @NotNull byte[] data) throws IOException;
+
+    /**
+     * Marks the export as completed. Must be invoked before closing the sink after all tiles are written.
+     */
+    void complete() throws IOException;
+
+}
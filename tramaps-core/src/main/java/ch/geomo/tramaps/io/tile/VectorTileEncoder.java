@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes the features of a single tile as Mapbox Vector Tile (version 2). Geometries are expected in tile
+ * coordinates (origin at the top left, y-axis pointing down) and are built with {@link Geometry}. Keys and
+ * values of the attributes are deduplicated per layer.
+ */
+final class VectorTileEncoder {
+
+    static final int POINT = 1;
+    static final int LINE_STRING = 2;
+    static final int POLYGON = 3;
+
+    private final int extent;
+    private final Map<String, Layer> layers = new LinkedHashMap<>();
+
+    VectorTileEncoder(int extent) {
+        this.extent = extent;
+    }
+
+    /**
+     * Adds a feature to given layer.
+     * @param attributes pairs of key and value, values must be either {@link String} or {@link Double}
+     */
+    void addFeature(@NotNull String layerName, int type, @NotNull Geometry geometry, @NotNull Object... attributes) {
+
+        Layer layer = layers.computeIfAbsent(layerName, Layer::new);
+
+        int[] tags = new int[attributes.length];
+        for (int i = 0; i < attributes.length; i += 2) {
+            tags[i] = layer.keys.computeIfAbsent((String) attributes[i], key -> layer.keys.size());
+            tags[i + 1] = layer.values.computeIfAbsent(attributes[i + 1], value -> layer.values.size());
+        }
+
+        ProtobufOutput feature = layer.feature;
+        feature.reset();
+        feature.writeVarint(1, ++layer.featureCount);
+        if (tags.length > 0) {
+            feature.writePacked(2, tags, tags.length);
+        }
+        feature.writeVarint(3, type);
+        feature.writePacked(4, geometry.commands, geometry.length);
+        layer.features.writeMessage(2, feature);
+
+    }
+
+    boolean isEmpty() {
+        return layers.isEmpty();
+    }
+
+    @NotNull
+    byte[] encode() {
+        ProtobufOutput tile = new ProtobufOutput();
+        ProtobufOutput message = new ProtobufOutput();
+        ProtobufOutput value = new ProtobufOutput();
+        for (Layer layer : layers.values()) {
+            message.reset();
+            message.writeVarint(15, 2);
+            message.writeString(1, layer.name);
+            message.writeRaw(layer.features);
+            for (String key : layer.keys.keySet()) {
+                message.writeString(3, key);
+            }
+            for (Object attribute : layer.values.keySet()) {
+                value.reset();
+                if (attribute instanceof String) {
+                    value.writeString(1, (String) attribute);
+                }
+                else {
+                    value.writeDouble(3, (Double) attribute);
+                }
+                message.writeMessage(4, value);
+            }
+            message.writeVarint(5, extent);
+            tile.writeMessage(3, message);
+        }
+        return tile.toByteArray();
+    }
+
+    /**
+     * The features, keys and values of a layer.
+     */
+    private static final class Layer {
+
+        private final String name;
+        private final ProtobufOutput features = new ProtobufOutput();
+        private final ProtobufOutput feature = new ProtobufOutput();
+        private final Map<String, Integer> keys = new LinkedHashMap<>();
+        private final Map<Object, Integer> values = new LinkedHashMap<>();
+        private int featureCount = 0;
+
+        private Layer(@NotNull String name) {
+            this.name = name;
+        }
+
+    }
+
+    /**
+     * Builds the command sequence of a geometry. Coordinates are written relative to the previous position,
+     * consecutive line-to commands are merged.
+     */
+    static final class Geometry {
+
+        private static final int MOVE_TO = 1;
+        private static final int LINE_TO = 2;
+        private static final int CLOSE_PATH = 7;
+
+        private int[] commands = new int[32];
+        private int length = 0;
+        private int commandIndex = -1;
+        private int x = 0;
+        private int y = 0;
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > commands.length) {
+                commands = Arrays.copyOf(commands, Math.max(commands.length * 2, length + additional));
+            }
+        }
+
+        private void command(int id) {
+            ensureCapacity(1);
+            commandIndex = length;
+            commands[length++] = id | 1 << 3;
+        }
+
+        private void position(int x, int y) {
+            ensureCapacity(2);
+            commands[length++] = zigZag(x - this.x);
+            commands[length++] = zigZag(y - this.y);
+            this.x = x;
+            this.y = y;
+        }
+
+        private static int zigZag(int value) {
+            return (value << 1) ^ (value >> 31);
+        }
+
+        void moveTo(int x, int y) {
+            command(MOVE_TO);
+            position(x, y);
+        }
+
+        /**
+         * Adds a line to given position. Repeated positions are dropped since a line of zero length is invalid.
+         */
+        void lineTo(int x, int y) {
+            if (x == this.x && y == this.y) {
+                return;
+            }
+            if (commandIndex >= 0 && (commands[commandIndex] & 7) == LINE_TO) {
+                // increase count of the current command
+                commands[commandIndex] += 1 << 3;
+            }
+            else {
+                command(LINE_TO);
+            }
+            position(x, y);
+        }
+
+        void closePath() {
+            command(CLOSE_PATH);
+        }
+
+        boolean isEmpty() {
+            return length == 0;
+        }
+
+        /**
+         * Clears this geometry in order to build the geometry of the next feature.
+         */
+        void reset() {
+            length = 0;
+            commandIndex = -1;
+            x = 0;
+            y = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.util.json.JsonWriter;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports a {@link MetroMap} as Mapbox Vector Tiles, either as <tt>z/x/y.pbf</tt> files within a directory or as
+ * a single MBTiles file if the output path ends with <tt>.mbtiles</tt>. The tiles are laid out like the raster
+ * tiles of {@link TilePyramidRenderer}.
+ * <p>
+ * The layer <tt>routes</tt> contains a line feature for each route of an edge, offset like in the rendered map.
+ * The layer <tt>stations</tt> contains the station signatures as polygons. The geometries are clipped to the
+ * tile extent plus a buffer and quantized to tile coordinates. On dense low zoom levels, vertices closer than the
+ * simplification tolerance are dropped, too short lines are skipped, the routes of a narrow edge are merged into
+ * a single line and small stations become points.
+ * <p>
+ * Each tile is a task of a fork/join pool which forks its child tiles, so all zoom levels are generated in
+ * parallel. Tiles without content are skipped including their child tiles.
+ */
+public class VectorTileExporter {
+
+    public static final String ROUTES_LAYER = "routes";
+    public static final String STATIONS_LAYER = "stations";
+
+    private static final String MBTILES_EXTENSION = ".mbtiles";
+
+    private final int threadCount;
+
+    private int maxZoom = 6;
+    private int extent = 4096;
+    private int buffer = 64;
+    private double simplificationTolerance = 2;
+
+    public VectorTileExporter(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("At least one thread is required.");
+        }
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Sets the highest zoom level to be exported. Default is 6.
+     */
+    @NotNull
+    public VectorTileExporter setMaxZoom(int maxZoom) {
+        if (maxZoom < 0 || maxZoom > 30) {
+            throw new IllegalArgumentException("Zoom level must be between 0 and 30.");
+        }
+        this.maxZoom = maxZoom;
+        return this;
+    }
+
+    /**
+     * Sets the size of a tile in tile coordinates. Default is 4096.
+     */
+    @NotNull
+    public VectorTileExporter setExtent(int extent) {
+        if (extent < 1) {
+            throw new IllegalArgumentException("Extent must be positive.");
+        }
+        this.extent = extent;
+        return this;
+    }
+
+    /**
+     * Sets the buffer around a tile in tile coordinates. Geometries are clipped to the tile extent plus the
+     * buffer. Default is 64.
+     */
+    @NotNull
+    public VectorTileExporter setBuffer(int buffer) {
+        this.buffer = Math.max(buffer, 0);
+        return this;
+    }
+
+    /**
+     * Sets the tolerance of the simplification in tile coordinates. Default is 2.
+     */
+    @NotNull
+    public VectorTileExporter setSimplificationTolerance(double simplificationTolerance) {
+        this.simplificationTolerance = Math.max(simplificationTolerance, 0);
+        return this;
+    }
+
+    /**
+     * Exports all tiles of given map. The map must not be modified while exporting.
+     * @return the number of exported tiles
+     * @throws IOException if the tiles cannot be written
+     */
+    public int export(@NotNull MetroMap map, @NotNull Path output) throws IOException, InterruptedException {
+
+        long start = System.currentTimeMillis();
+
+        TileContent content = new TileContent(map, 0);
+        AtomicInteger tileCount = new AtomicInteger();
+
+        ForkJoinPool pool = new ForkJoinPool(threadCount);
+        try (TileSink sink = createSink(output)) {
+            pool.submit(new TileTask(new Tile(0, 0, 0), content, sink, tileCount)).get();
+            sink.complete();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Exporting a tile failed unexpectedly.", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        Loggers.info(this, "Exported {0} vector tiles to {1} in {2} ms.", tileCount.get(), output, System.currentTimeMillis() - start);
+
+        return tileCount.get();
+
+    }
+
+    @NotNull
+    private TileSink createSink(@NotNull Path output) throws IOException {
+        String fileName = output.getFileName().toString();
+        if (!fileName.toLowerCase(Locale.ROOT).endsWith(MBTILES_EXTENSION)) {
+            return new DirectoryTileSink(output, ".pbf");
+        }
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("name", fileName.substring(0, fileName.length() - MBTILES_EXTENSION.length()));
+        metadata.put("format", "pbf");
+        metadata.put("type", "overlay");
+        metadata.put("version", "1");
+        metadata.put("minzoom", "0");
+        metadata.put("maxzoom", Integer.toString(maxZoom));
+        metadata.put("json", createLayerDescription());
+        return new MBTilesTileSink(output, metadata);
+    }
+
+    /**
+     * @return the description of the vector layers as required by the metadata of an MBTiles file
+     */
+    @NotNull
+    private String createLayerDescription() throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject().name("vector_layers").beginArray();
+            json.beginObject().name("id").value(ROUTES_LAYER).name("minzoom").value(0).name("maxzoom").value(maxZoom);
+            json.name("fields").beginObject().name("name").value("String").name("color").value("String").name("width").value("Number").endObject();
+            json.endObject();
+            json.beginObject().name("id").value(STATIONS_LAYER).name("minzoom").value(0).name("maxzoom").value(maxZoom);
+            json.name("fields").beginObject().name("name").value("String").endObject();
+            json.endObject();
+            json.endArray().endObject();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Encodes given tile.
+     * @return the encoded tile, an empty array if all elements were dropped by the simplification or null if
+     * there are no elements within the tile
+     */
+    @Nullable
+    private byte[] encodeTile(@NotNull Tile tile, @NotNull TileContent content) {
+
+        Envelope envelope = tile.getEnvelope(content.getExtent());
+        TileTransform transform = new TileTransform(envelope, extent, buffer);
+
+        Envelope query = new Envelope(envelope);
+        query.expandBy(buffer / transform.scale);
+        List<Edge> edges = content.queryEdges(query);
+        List<Node> stations = content.queryStations(query);
+        if (edges.isEmpty() && stations.isEmpty()) {
+            return null;
+        }
+
+        VectorTileEncoder encoder = new VectorTileEncoder(extent);
+        VectorTileEncoder.Geometry geometry = new VectorTileEncoder.Geometry();
+
+        for (Edge edge : edges) {
+            addEdge(edge, content.getRouteMargin(), transform, encoder, geometry);
+        }
+        for (Node station : stations) {
+            addStation(station, transform, encoder, geometry);
+        }
+
+        return encoder.isEmpty() ? new byte[0] : encoder.encode();
+
+    }
+
+    private void addEdge(@NotNull Edge edge, double routeMargin, @NotNull TileTransform transform, @NotNull VectorTileEncoder encoder, @NotNull VectorTileEncoder.Geometry geometry) {
+
+        double x1 = transform.x(edge.getNodeA().getX());
+        double y1 = transform.y(edge.getNodeA().getY());
+        double x2 = transform.x(edge.getNodeB().getX());
+        double y2 = transform.y(edge.getNodeB().getY());
+        double length = Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+        if (length < Math.max(simplificationTolerance, 1)) {
+            return;
+        }
+
+        // unit normal in tile coordinates, the y-axis is flipped
+        double nx = (y2 - y1) / length;
+        double ny = -(x2 - x1) / length;
+
+        double[] offsets = edge.calculateRouteOffsets(routeMargin);
+        boolean merged = (offsets[offsets.length - 1] - offsets[0]) * transform.scale < simplificationTolerance;
+
+        int i = 0;
+        for (Route route : edge.getRoutes()) {
+            double offset = merged ? 0 : offsets[i++] * transform.scale;
+            double[] line = transform.clip(x1 + nx * offset, y1 + ny * offset, x2 + nx * offset, y2 + ny * offset);
+            if (line != null) {
+                int ax = (int) Math.round(line[0]);
+                int ay = (int) Math.round(line[1]);
+                int bx = (int) Math.round(line[2]);
+                int by = (int) Math.round(line[3]);
+                if (ax == bx && ay == by) {
+                    // a clipped line may shrink to a single point
+                    continue;
+                }
+                geometry.reset();
+                geometry.moveTo(ax, ay);
+                geometry.lineTo(bx, by);
+                encoder.addFeature(ROUTES_LAYER, VectorTileEncoder.LINE_STRING, geometry,
+                        "name", route.getName(), "color", route.getLineColor().toHex(), "width", route.getLineWidth());
+            }
+            if (merged) {
+                // routes are drawn as a single line of the first route
+                break;
+            }
+        }
+
+    }
+
+    private void addStation(@NotNull Node station, @NotNull TileTransform transform, @NotNull VectorTileEncoder encoder, @NotNull VectorTileEncoder.Geometry geometry) {
+
+        Coordinate[] coordinates = station.getNodeSignature().getGeometry().getExteriorRing().getCoordinates();
+        double[] ring = new double[2 * (coordinates.length - 1)];
+        for (int i = 0; i < coordinates.length - 1; i++) {
+            ring[2 * i] = transform.x(coordinates[i].x);
+            ring[2 * i + 1] = transform.y(coordinates[i].y);
+        }
+        ring = transform.clip(ring);
+
+        // quantize and drop vertices closer than the tolerance
+        int[] vertices = new int[ring.length];
+        int size = 0;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < ring.length; i += 2) {
+            int x = (int) Math.round(ring[i]);
+            int y = (int) Math.round(ring[i + 1]);
+            if (size > 0 && Math.abs(x - vertices[size - 2]) + Math.abs(y - vertices[size - 1]) <= simplificationTolerance) {
+                continue;
+            }
+            vertices[size++] = x;
+            vertices[size++] = y;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        if (size == 0) {
+            return;
+        }
+        // the ring is closed implicitly, drop the last vertex if it is a repetition of the first one
+        if (size > 2 && Math.abs(vertices[0] - vertices[size - 2]) + Math.abs(vertices[1] - vertices[size - 1]) <= simplificationTolerance) {
+            size -= 2;
+        }
+
+        // exterior rings must have a positive area in tile coordinates
+        long area = 0;
+        for (int i = 0; i < size; i += 2) {
+            int j = (i + 2) % size;
+            area += (long) vertices[i] * vertices[j + 1] - (long) vertices[j] * vertices[i + 1];
+        }
+
+        geometry.reset();
+        if (size < 6 || area == 0 || maxX - minX <= simplificationTolerance && maxY - minY <= simplificationTolerance) {
+            geometry.moveTo((int) Math.round((minX + maxX) / 2), (int) Math.round((minY + maxY) / 2));
+            encoder.addFeature(STATIONS_LAYER, VectorTileEncoder.POINT, geometry, "name", station.getName());
+            return;
+        }
+
+        if (area < 0) {
+            for (int i = 0, j = size - 2; i < j; i += 2, j -= 2) {
+                swap(vertices, i, j);
+                swap(vertices, i + 1, j + 1);
+            }
+        }
+
+        geometry.moveTo(vertices[0], vertices[1]);
+        for (int i = 2; i < size; i += 2) {
+            geometry.lineTo(vertices[i], vertices[i + 1]);
+        }
+        geometry.closePath();
+        encoder.addFeature(STATIONS_LAYER, VectorTileEncoder.POLYGON, geometry, "name", station.getName());
+
+    }
+
+    private static void swap(@NotNull int[] values, int i, int j) {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    /**
+     * Transforms map coordinates to tile coordinates and clips geometries to the tile extent plus buffer.
+     */
+    private static final class TileTransform {
+
+        private final Envelope envelope;
+        private final double scale;
+        private final double min;
+        private final double max;
+
+        private TileTransform(@NotNull Envelope envelope, int extent, int buffer) {
+            this.envelope = envelope;
+            scale = extent / envelope.getWidth();
+            min = -buffer;
+            max = extent + buffer;
+        }
+
+        private double x(double x) {
+            return (x - envelope.getMinX()) * scale;
+        }
+
+        private double y(double y) {
+            return (envelope.getMaxY() - y) * scale;
+        }
+
+        /**
+         * Clips a segment with the Liang-Barsky algorithm.
+         * @return the clipped segment or null if the segment is outside
+         */
+        @Nullable
+        private double[] clip(double x1, double y1, double x2, double y2) {
+            double dx = x2 - x1;
+            double dy = y2 - y1;
+            double[] p = {-dx, dx, -dy, dy};
+            double[] q = {x1 - min, max - x1, y1 - min, max - y1};
+            double t1 = 0;
+            double t2 = 1;
+            for (int i = 0; i < 4; i++) {
+                if (p[i] == 0) {
+                    if (q[i] < 0) {
+                        return null;
+                    }
+                }
+                else {
+                    double t = q[i] / p[i];
+                    if (p[i] < 0) {
+                        t1 = Math.max(t1, t);
+                    }
+                    else {
+                        t2 = Math.min(t2, t);
+                    }
+                }
+            }
+            if (t1 > t2) {
+                return null;
+            }
+            return new double[]{x1 + t1 * dx, y1 + t1 * dy, x1 + t2 * dx, y1 + t2 * dy};
+        }
+
+        /**
+         * Clips a ring with the Sutherland-Hodgman algorithm.
+         * @param ring the x- and y-values of the vertices, without repeating the first vertex
+         */
+        @NotNull
+        private double[] clip(@NotNull double[] ring) {
+            for (int edge = 0; edge < 4 && ring.length > 0; edge++) {
+                double[] clipped = new double[ring.length * 2];
+                int size = 0;
+                for (int i = 0; i < ring.length; i += 2) {
+                    int j = (i + ring.length - 2) % ring.length;
+                    boolean inside = isInside(ring[i], ring[i + 1], edge);
+                    boolean previousInside = isInside(ring[j], ring[j + 1], edge);
+                    if (inside != previousInside) {
+                        double bound = edge % 2 == 0 ? min : max;
+                        double t = edge < 2 ? (bound - ring[j]) / (ring[i] - ring[j]) : (bound - ring[j + 1]) / (ring[i + 1] - ring[j + 1]);
+                        clipped[size++] = ring[j] + t * (ring[i] - ring[j]);
+                        clipped[size++] = ring[j + 1] + t * (ring[i + 1] - ring[j + 1]);
+                    }
+                    if (inside) {
+                        clipped[size++] = ring[i];
+                        clipped[size++] = ring[i + 1];
+                    }
+                }
+                ring = Arrays.copyOf(clipped, size);
+            }
+            return ring;
+        }
+
+        /**
+         * @param edge 0 = left, 1 = right, 2 = top, 3 = bottom
+         */
+        private boolean isInside(double x, double y, int edge) {
+            switch (edge) {
+                case 0:
+                    return x >= min;
+                case 1:
+                    return x <= max;
+                case 2:
+                    return y >= min;
+                default:
+                    return y <= max;
+            }
+        }
+
+    }
+
+    /**
+     * Encodes and stores a tile, then forks the tasks of its child tiles.
+     */
+    private final class TileTask extends RecursiveAction {
+
+        private final Tile tile;
+        private final TileContent content;
+        private final TileSink sink;
+        private final AtomicInteger tileCount;
+
+        private TileTask(@NotNull Tile tile, @NotNull TileContent content, @NotNull TileSink sink, @NotNull AtomicInteger tileCount) {
+            this.tile = tile;
+            this.content = content;
+            this.sink = sink;
+            this.tileCount = tileCount;
+        }
+
+        @Override
+        protected void compute() {
+            byte[] data = encodeTile(tile, content);
+            if (data == null) {
+                return;
+            }
+            if (data.length > 0) {
+                try {
+                    sink.write(tile, data);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                tileCount.incrementAndGet();
+            }
+            if (tile.getZoom() < maxZoom) {
+                List<TileTask> children = new ArrayList<>(4);
+                for (Tile child : tile.getChildren()) {
+                    children.add(new TileTask(child, content, sink, tileCount));
+                }
+                invokeAll(children);
+            }
+        }
+
+    }
+
+}
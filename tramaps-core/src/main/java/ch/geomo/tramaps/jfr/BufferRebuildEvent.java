@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Covers the (re-)creation of the buffer of a node or an edge.
+ */
+@Name("ch.geomo.tramaps.BufferRebuild")
+@Label("Buffer Rebuild")
+@Description("(Re-)creation of the buffer of a node or an edge")
+@Category({"Tramaps", "Conflict"})
+@Enabled(false)
+@StackTrace(false)
+public class BufferRebuildEvent extends Event implements LayoutEvents.BufferRebuild {
+
+    @Label("Element Type")
+    public String elementType;
+
+    @Label("Element")
+    public String element;
+
+    @Override
+    public void commit(@NotNull String elementType, @NotNull String element) {
+        this.elementType = elementType;
+        this.element = element;
+        commit();
+    }
+
+}
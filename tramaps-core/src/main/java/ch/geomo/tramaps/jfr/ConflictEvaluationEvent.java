@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Covers the search for buffer and octilinear conflicts.
+ */
+@Name("ch.geomo.tramaps.ConflictEvaluation")
+@Label("Conflict Evaluation")
+@Description("Search for buffer and octilinear conflicts")
+@Category({"Tramaps", "Conflict"})
+@Enabled(false)
+@StackTrace(false)
+public class ConflictEvaluationEvent extends Event implements LayoutEvents.ConflictEvaluation {
+
+    @Label("Elements")
+    @Description("Number of node and edge buffers")
+    public int elementCount;
+
+    @Label("Candidate Pairs")
+    @Description("Number of buffer pairs evaluated")
+    public int candidatePairCount;
+
+    @Label("Buffer Conflicts")
+    public int bufferConflictCount;
+
+    @Label("Octilinear Conflicts")
+    public int octilinearConflictCount;
+
+    @Override
+    public void commit(int elementCount, int candidatePairCount, int bufferConflictCount, int octilinearConflictCount) {
+        this.elementCount = elementCount;
+        this.candidatePairCount = candidatePairCount;
+        this.bufferConflictCount = bufferConflictCount;
+        this.octilinearConflictCount = octilinearConflictCount;
+        commit();
+    }
+
+}
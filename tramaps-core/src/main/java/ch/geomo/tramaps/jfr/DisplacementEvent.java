@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Covers the displacement of nodes in order to solve a single conflict.
+ */
+@Name("ch.geomo.tramaps.Displacement")
+@Label("Displacement")
+@Description("Displacement of nodes in order to solve a single conflict")
+@Category({"Tramaps", "Displacement"})
+@Enabled(false)
+@StackTrace(false)
+public class DisplacementEvent extends Event implements LayoutEvents.Displacement {
+
+    @Label("Conflict Type")
+    public String conflictType;
+
+    @Label("Axis")
+    public String axis;
+
+    @Label("Distance")
+    public double distance;
+
+    @Label("Moved Nodes")
+    public int movedNodeCount;
+
+    @Override
+    public void commit(@NotNull String conflictType, @NotNull String axis, double distance, int movedNodeCount) {
+        this.conflictType = conflictType;
+        this.axis = axis;
+        this.distance = distance;
+        this.movedNodeCount = movedNodeCount;
+        commit();
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Covers the correction of a single non-octilinear edge.
+ */
+@Name("ch.geomo.tramaps.EdgeCorrection")
+@Label("Edge Correction")
+@Description("Correction of a single non-octilinear edge")
+@Category({"Tramaps", "Displacement"})
+@Enabled(false)
+@StackTrace(false)
+public class EdgeCorrectionEvent extends Event implements LayoutEvents.EdgeCorrection {
+
+    @Label("Edge")
+    public String edge;
+
+    @Label("Costs Node A")
+    public double scoreA;
+
+    @Label("Costs Node B")
+    public double scoreB;
+
+    @Label("Bend Nodes")
+    @Description("Number of bend nodes introduced, zero if an adjacent node has been moved")
+    public int bendNodeCount;
+
+    @Override
+    public void commit(@NotNull String edge, double scoreA, double scoreB, int bendNodeCount) {
+        this.edge = edge;
+        this.scoreA = scoreA;
+        this.scoreB = scoreB;
+        this.bendNodeCount = bendNodeCount;
+        commit();
+    }
+
+}
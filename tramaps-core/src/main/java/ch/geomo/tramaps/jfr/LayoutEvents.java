@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.jfr;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates the events of the layout phases. If the Java Flight Recorder API is not available, e.g. on a JDK 8 prior
+ * to update 262, a disabled event without any effect is returned instead. The availability is checked once, so the
+ * instrumented code never loads a class extending <code>jdk.jfr.Event</code> on such a JDK.
+ */
+public final class LayoutEvents {
+
+    private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+    private static final DisabledEvent DISABLED = new DisabledEvent();
+
+    private LayoutEvents() {
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, LayoutEvents.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the Java Flight Recorder API is available
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    @NotNull
+    public static BufferRebuild bufferRebuild() {
+        return AVAILABLE ? FlightRecorderEvents.bufferRebuild() : DISABLED;
+    }
+
+    @NotNull
+    public static ConflictEvaluation conflictEvaluation() {
+        return AVAILABLE ? FlightRecorderEvents.conflictEvaluation() : DISABLED;
+    }
+
+    @NotNull
+    public static Displacement displacement() {
+        return AVAILABLE ? FlightRecorderEvents.displacement() : DISABLED;
+    }
+
+    @NotNull
+    public static EdgeCorrection edgeCorrection() {
+        return AVAILABLE ? FlightRecorderEvents.edgeCorrection() : DISABLED;
+    }
+
+    @NotNull
+    public static LayoutIteration layoutIteration() {
+        return AVAILABLE ? FlightRecorderEvents.layoutIteration() : DISABLED;
+    }
+
+    /**
+     * @see BufferRebuildEvent
+     */
+    public interface BufferRebuild extends PhaseEvent {
+
+        void commit(@NotNull String elementType, @NotNull String element);
+
+    }
+
+    /**
+     * @see ConflictEvaluationEvent
+     */
+    public interface ConflictEvaluation extends PhaseEvent {
+
+        void commit(int elementCount, int candidatePairCount, int bufferConflictCount, int octilinearConflictCount);
+
+    }
+
+    /**
+     * @see DisplacementEvent
+     */
+    public interface Displacement extends PhaseEvent {
+
+        void commit(@NotNull String conflictType, @NotNull String axis, double distance, int movedNodeCount);
+
+    }
+
+    /**
+     * @see EdgeCorrectionEvent
+     */
+    public interface EdgeCorrection extends PhaseEvent {
+
+        void commit(@NotNull String edge, double scoreA, double scoreB, int bendNodeCount);
+
+    }
+
+    /**
+     * @see LayoutIterationEvent
+     */
+    public interface LayoutIteration extends PhaseEvent {
+
+        void setIteration(@NotNull String handler, @NotNull String phase, int iteration);
+
+        void setConflictCount(int conflictCount);
+
+    }
+
+    /**
+     * Creates the events extending <code>jdk.jfr.Event</code>. Loaded only if the Java Flight Recorder API is
+     * available.
+     */
+    private static final class FlightRecorderEvents {
+
+        private static BufferRebuild bufferRebuild() {
+            return new BufferRebuildEvent();
+        }
+
+        private static ConflictEvaluation conflictEvaluation() {
+            return new ConflictEvaluationEvent();
+        }
+
+        private static Displacement displacement() {
+            return new DisplacementEvent();
+        }
+
+        private static EdgeCorrection edgeCorrection() {
+            return new EdgeCorrectionEvent();
+        }
+
+        private static LayoutIteration layoutIteration() {
+            return new LayoutIterationEvent();
+        }
+
+    }
+
+    /**
+     * An event which is never enabled and therefore never committed.
+     */
+    private static final class DisabledEvent implements BufferRebuild, ConflictEvaluation, Displacement, EdgeCorrection, LayoutIteration {
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public boolean shouldCommit() {
+            return false;
+        }
+
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public void commit(@NotNull String elementType, @NotNull String element) {
+        }
+
+        @Override
+        public void commit(int elementCount, int candidatePairCount, int bufferConflictCount, int octilinearConflictCount) {
+        }
+
+        @Override
+        public void commit(@NotNull String conflictType, @NotNull String axis, double distance, int movedNodeCount) {
+        }
+
+        @Override
+        public void commit(@NotNull String edge, double scoreA, double scoreB, int bendNodeCount) {
+        }
+
+        @Override
+        public void setIteration(@NotNull String handler, @NotNull String phase, int iteration) {
+        }
+
+        @Override
+        public void setConflictCount(int conflictCount) {
+        }
+
+    }
+
+}
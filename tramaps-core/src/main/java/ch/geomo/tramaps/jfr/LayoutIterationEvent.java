@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Covers a single iteration of a line space handler.
+ */
+@Name("ch.geomo.tramaps.LayoutIteration")
+@Label("Layout Iteration")
+@Description("A single iteration of a line space handler")
+@Category({"Tramaps", "Layout"})
+@Enabled(false)
+@StackTrace(false)
+public class LayoutIterationEvent extends Event implements LayoutEvents.LayoutIteration {
+
+    @Label("Handler")
+    public String handler;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Iteration")
+    public int iteration;
+
+    @Label("Conflicts")
+    @Description("Number of conflicts found at the start of the iteration")
+    public int conflictCount;
+
+    @Override
+    public void setIteration(@NotNull String handler, @NotNull String phase, int iteration) {
+        this.handler = handler;
+        this.phase = phase;
+        this.iteration = iteration;
+    }
+
+    @Override
+    public void setConflictCount(int conflictCount) {
+        this.conflictCount = conflictCount;
+    }
+
+}
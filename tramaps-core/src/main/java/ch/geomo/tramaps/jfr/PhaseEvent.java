@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.jfr;
+
+/**
+ * The part of a Java Flight Recorder event used by the instrumented code. The methods are implemented by
+ * <code>jdk.jfr.Event</code>, so the instrumented code does not depend on <code>jdk.jfr</code>.
+ * @see LayoutEvents
+ */
+public interface PhaseEvent {
+
+    boolean isEnabled();
+
+    void begin();
+
+    boolean shouldCommit();
+
+    void commit();
+
+}
@@ -0,0 +1,14 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+/**
+ * Java Flight Recorder events of the layout phases. All events are disabled by default and must be enabled
+ * explicitly, either in a custom settings file (<code>.jfc</code>) or with
+ * <code>Recording#enable("ch.geomo.tramaps.LayoutIteration")</code>. As long as an event is disabled, the
+ * instrumented code does not evaluate any of its values.
+ * <p>
+ * The instrumented code creates the events through {@link ch.geomo.tramaps.jfr.LayoutEvents} only, which falls back
+ * to events without any effect if <code>jdk.jfr</code> is not available (JDK 8 prior to update 262).
+ */
+package ch.geomo.tramaps.jfr;
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map;
+
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.conflict.ConflictFinder;
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Graph;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.index.NonOctilinearEdgeIndex;
+import ch.geomo.tramaps.map.signature.BendNodeSignature;
+import ch.geomo.util.collection.list.EnhancedList;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Consumer;
+
+public class MetroMap extends Graph {
+
+    private final ConflictFinder conflictFinder;
+
+    private final double routeMargin;
+    private final double edgeMargin;
+    private final double nodeMargin;
+
+    private NonOctilinearEdgeIndex nonOctilinearEdgeIndex;
+    private long nonOctilinearEdgeIndexVersion;
+
+    private int bendCount = 0;
+    private int crossingCount = 0;
+    private int junctionCount = 0;
+
+    public MetroMap(double routeMargin, double edgeMargin, double nodeMargin) {
+        super();
+        this.routeMargin = routeMargin;
+        this.edgeMargin = edgeMargin;
+        this.nodeMargin = nodeMargin;
+        conflictFinder = new ConflictFinder(this, routeMargin, edgeMargin, nodeMargin);
+    }
+
+    public double getRouteMargin() {
+        return routeMargin;
+    }
+
+    public double getEdgeMargin() {
+        return edgeMargin;
+    }
+
+    public double getNodeMargin() {
+        return nodeMargin;
+    }
+
+    /**
+     * @return a sorted {@link EnhancedList} of conflicts
+     */
+    @NotNull
+    public EnhancedList<Conflict> evaluateConflicts(boolean biggestConflictFirst) {
+        return conflictFinder.getConflicts(0.25, true)
+                .reverseIf(() -> biggestConflictFirst);
+    }
+
+    /**
+     * @return a sorted {@link EnhancedList} of conflicts
+     */
+    @NotNull
+    public EnhancedList<Conflict> evaluateConflicts(boolean biggestConflictFirst, double correctionFactor, boolean majorMisalignmentOnly) {
+        return evaluateConflicts(biggestConflictFirst, correctionFactor, majorMisalignmentOnly, null);
+    }
+
+    /**
+     * @param scope the region to evaluate or null to evaluate the whole map
+     * @return a sorted {@link EnhancedList} of the conflicts within given scope
+     */
+    @NotNull
+    public EnhancedList<Conflict> evaluateConflicts(boolean biggestConflictFirst, double correctionFactor, boolean majorMisalignmentOnly, @Nullable Envelope scope) {
+        return conflictFinder.getConflicts(correctionFactor, majorMisalignmentOnly, scope)
+                .reverseIf(() -> biggestConflictFirst);
+    }
+
+    /**
+     * Returns the index of the non-octilinear edges. The index will be created again after a structural
+     * modification of this map.
+     * @see #getModificationCount()
+     */
+    @NotNull
+    private NonOctilinearEdgeIndex getNonOctilinearEdgeIndex() {
+        if (nonOctilinearEdgeIndex == null || nonOctilinearEdgeIndexVersion != getModificationCount()) {
+            if (nonOctilinearEdgeIndex != null) {
+                nonOctilinearEdgeIndex.dispose();
+            }
+            nonOctilinearEdgeIndex = new NonOctilinearEdgeIndex(getEdges());
+            nonOctilinearEdgeIndexVersion = getModificationCount();
+        }
+        return nonOctilinearEdgeIndex;
+    }
+
+    @Override
+    public void disposeIndexes() {
+        super.disposeIndexes();
+        if (nonOctilinearEdgeIndex != null) {
+            nonOctilinearEdgeIndex.dispose();
+            nonOctilinearEdgeIndex = null;
+        }
+    }
+
+    public long countNonOctilinearEdges() {
+        return getNonOctilinearEdgeIndex().size();
+    }
+
+    /**
+     * @return the shortest non-octilinear edge or null if all edges are octilinear
+     */
+    @Nullable
+    public Edge getShortestNonOctilinearEdge() {
+        return getNonOctilinearEdgeIndex().getShortestEdge();
+    }
+
+    /**
+     * Passes all non-octilinear edges ordered by their length and their number of routes to given consumer, which
+     * may move nodes meanwhile. Edges which have become octilinear meanwhile are skipped.
+     * @see NonOctilinearEdgeIndex#forEachEdge(Consumer)
+     */
+    public void forEachNonOctilinearEdge(@NotNull Consumer<Edge> consumer) {
+        getNonOctilinearEdgeIndex().forEachEdge(edge -> {
+            // the index is replaced when the consumer modifies this map structurally
+            if (isNonOctilinearEdge(edge)) {
+                consumer.accept(edge);
+            }
+        });
+    }
+
+    /**
+     * @return true if given edge is part of this map and currently non-octilinear
+     */
+    public boolean isNonOctilinearEdge(@NotNull Edge edge) {
+        return getNonOctilinearEdgeIndex().contains(edge);
+    }
+
+    @NotNull
+    public Node createCrossingNode(double x, double y) {
+        Node node = new Node("C" + (++crossingCount), x, y, BendNodeSignature::new);
+        addNodes(node);
+        return node;
+    }
+
+    @NotNull
+    public Node createJunctionNode(double x, double y) {
+        Node node = new Node("J" + (++junctionCount), x, y, BendNodeSignature::new);
+        addNodes(node);
+        return node;
+    }
+
+    @NotNull
+    public Node createBendNode(double x, double y) {
+        Node node = new Node("B" + (++bendCount), x, y, BendNodeSignature::new);
+        addNodes(node);
+        return node;
+    }
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.component;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.LayoutListener;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandler;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Splits a map into its connected components, makes space within each component independently and in parallel and
+ * packs the laid-out components without overlaps, see {@link ComponentPacking}. A displacement within a component
+ * therefore neither moves the nodes of other components nor causes the conflicts of other components to be
+ * evaluated again.
+ * <p>
+ * The components share the nodes and edges of the given map, which is updated with the nodes created by the
+ * layout of the components. The indexes of the given map are disposed before laying out the components. A map
+ * consisting of a single component is laid out directly. The listeners are notified on the threads of the
+ * components, but never concurrently.
+ */
+public class ComponentLineSpaceHandler implements LineSpaceHandler {
+
+    private final MetroMap map;
+    private final Function<MetroMap, LineSpaceHandler> handlerFactory;
+    private final List<LayoutListener> listeners = new CopyOnWriteArrayList<>();
+
+    private ComponentPacking packing = ComponentPacking.SHELF;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private double spacing = 0;
+
+    /**
+     * @param handlerFactory creates the {@link LineSpaceHandler} of each component
+     */
+    public ComponentLineSpaceHandler(@NotNull MetroMap map, @NotNull Function<MetroMap, LineSpaceHandler> handlerFactory) {
+        this.map = map;
+        this.handlerFactory = handlerFactory;
+    }
+
+    /**
+     * Sets how the laid-out components are arranged. Default is {@link ComponentPacking#SHELF}.
+     */
+    @NotNull
+    public ComponentLineSpaceHandler setPacking(@NotNull ComponentPacking packing) {
+        this.packing = packing;
+        return this;
+    }
+
+    /**
+     * Sets the maximal number of components laid out at the same time. Default is the number of processors.
+     */
+    @NotNull
+    public ComponentLineSpaceHandler setThreadCount(int threadCount) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive.");
+        }
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    /**
+     * Sets the minimal distance between the bounding boxes of two components. By default, the distance is chosen
+     * so that the buffers of the widest edge do not overlap.
+     */
+    @NotNull
+    public ComponentLineSpaceHandler setSpacing(double spacing) {
+        if (spacing <= 0) {
+            throw new IllegalArgumentException("Spacing must be positive.");
+        }
+        this.spacing = spacing;
+        return this;
+    }
+
+    @Override
+    public void addLayoutListener(@NotNull LayoutListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeLayoutListener(@NotNull LayoutListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void makeSpace() {
+
+        List<Component> components = findComponents();
+        if (components.size() < 2) {
+            LineSpaceHandler handler = handlerFactory.apply(map);
+            listeners.forEach(handler::addLayoutListener);
+            handler.makeSpace();
+            return;
+        }
+
+        Loggers.info(this, "Make space within {0} components.", components.size());
+        // the indexes of the map observe the nodes and edges modified by the components concurrently
+        map.disposeIndexes();
+        try {
+            layOut(components);
+        }
+        finally {
+            components.forEach(component -> component.map.disposeIndexes());
+        }
+
+        for (Component component : components) {
+            // nodes created by the layout of the component
+            map.addNodes(component.map.getNodes().toArray(new Node[0]));
+        }
+        // remove nodes deleted by the layout of the components
+        map.updateGraph();
+
+        List<Envelope> boxes = new ArrayList<>();
+        List<Envelope> inputBoxes = new ArrayList<>();
+        double maxEdgeWidth = 0;
+        for (Component component : components) {
+            // collect the nodes again since the map may not contain all of the created nodes
+            component.nodes = collectNodes(component.start);
+            Envelope box = new Envelope();
+            for (Node node : component.nodes) {
+                box.expandToInclude(node.getNodeSignature().getGeometry().getEnvelopeInternal());
+                for (Edge edge : node.getAdjacentEdges()) {
+                    maxEdgeWidth = Math.max(maxEdgeWidth, edge.calculateEdgeWidth(map.getRouteMargin()));
+                }
+            }
+            boxes.add(box);
+            inputBoxes.add(component.inputBox);
+        }
+
+        double minSpacing = spacing > 0 ? spacing : maxEdgeWidth + 2 * Math.max(map.getEdgeMargin(), map.getNodeMargin());
+        List<Coordinate> offsets = packing.pack(boxes, inputBoxes, minSpacing);
+        for (int i = 0; i < components.size(); i++) {
+            Coordinate offset = offsets.get(i);
+            for (Node node : components.get(i).nodes) {
+                node.updatePosition(node.getX() + offset.x, node.getY() + offset.y);
+            }
+        }
+
+    }
+
+    /**
+     * @return the connected components of the map, each with its own {@link MetroMap}
+     */
+    @NotNull
+    private List<Component> findComponents() {
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Component> components = new ArrayList<>();
+        for (Node node : map.getNodes()) {
+            if (!visited.contains(node)) {
+                Component component = new Component(node, collectNodes(node));
+                visited.addAll(component.nodes);
+                components.add(component);
+            }
+        }
+        return components;
+    }
+
+    /**
+     * @return all nodes connected with given node
+     */
+    @NotNull
+    private static Set<Node> collectNodes(@NotNull Node start) {
+        // by identity since bend nodes may have the same name
+        Set<Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node> queue = new ArrayDeque<>();
+        nodes.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Edge edge : node.getAdjacentEdges()) {
+                Node other = edge.getOtherNode(node);
+                if (nodes.add(other)) {
+                    queue.add(other);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Makes space within each component using a thread pool.
+     * @throws CancellationException if the current thread was interrupted while waiting for the components
+     */
+    private void layOut(@NotNull List<Component> components) {
+
+        String context = Loggers.getContext();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(threadCount, components.size()), runnable -> {
+            Thread thread = new Thread(runnable, "tramaps-component-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Object lock = new Object();
+        LayoutListener listener = metrics -> {
+            synchronized (lock) {
+                listeners.forEach(l -> l.iterationCompleted(metrics));
+            }
+        };
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < components.size(); i++) {
+                Component component = components.get(i);
+                String name = (context == null ? "" : context + ", ") + "component " + (i + 1);
+                futures.add(workers.submit(() -> {
+                    Loggers.setContext(name);
+                    try {
+                        LineSpaceHandler handler = handlerFactory.apply(component.map);
+                        if (!listeners.isEmpty()) {
+                            handler.addLayoutListener(listener);
+                        }
+                        handler.makeSpace();
+                    }
+                    finally {
+                        Loggers.clearContext();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            throw new CancellationException(getClass().getSimpleName() + " was interrupted.");
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Cannot make space within component.", e.getCause());
+        }
+        finally {
+            // interrupts the components still running
+            workers.shutdownNow();
+        }
+
+    }
+
+    /**
+     * A connected component of the map.
+     */
+    private final class Component {
+
+        private final Node start;
+        private final MetroMap map;
+        private final Envelope inputBox = new Envelope();
+        private Set<Node> nodes;
+
+        private Component(@NotNull Node start, @NotNull Set<Node> nodes) {
+            this.start = start;
+            this.nodes = nodes;
+            MetroMap parent = ComponentLineSpaceHandler.this.map;
+            map = new MetroMap(parent.getRouteMargin(), parent.getEdgeMargin(), parent.getNodeMargin());
+            map.addNodes(nodes.toArray(new Node[0]));
+            nodes.forEach(node -> inputBox.expandToInclude(node.getNodeSignature().getGeometry().getEnvelopeInternal()));
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.component;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Defines how the {@link ComponentLineSpaceHandler} arranges the laid-out components without overlaps.
+ */
+public enum ComponentPacking {
+
+    /**
+     * Packs the bounding boxes into rows ordered by decreasing height (next-fit decreasing height), starting at the
+     * top left of the input map. The width of the rows is chosen to get a roughly square map.
+     */
+    SHELF {
+        @NotNull
+        @Override
+        List<Coordinate> pack(@NotNull List<Envelope> boxes, @NotNull List<Envelope> inputBoxes, double spacing) {
+
+            Envelope inputBox = new Envelope();
+            inputBoxes.forEach(inputBox::expandToInclude);
+
+            double area = 0;
+            double maxWidth = 0;
+            for (Envelope box : boxes) {
+                area += (box.getWidth() + spacing) * (box.getHeight() + spacing);
+                maxWidth = Math.max(maxWidth, box.getWidth());
+            }
+            double rowWidth = Math.max(maxWidth, Math.sqrt(area));
+
+            List<Integer> order = IntStream.range(0, boxes.size()).boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> boxes.get(i).getHeight()).reversed())
+                    .collect(Collectors.toList());
+
+            Coordinate[] offsets = new Coordinate[boxes.size()];
+            double x = inputBox.getMinX();
+            double top = inputBox.getMaxY();
+            double rowHeight = 0;
+            for (int i : order) {
+                Envelope box = boxes.get(i);
+                if (x > inputBox.getMinX() && x + box.getWidth() > inputBox.getMinX() + rowWidth) {
+                    // next row
+                    x = inputBox.getMinX();
+                    top -= rowHeight + spacing;
+                    rowHeight = 0;
+                }
+                offsets[i] = new Coordinate(x - box.getMinX(), top - box.getMaxY());
+                x += box.getWidth() + spacing;
+                rowHeight = Math.max(rowHeight, box.getHeight());
+            }
+            return Arrays.asList(offsets);
+
+        }
+    },
+
+    /**
+     * Centers each bounding box at the center of the component in the input map and moves the boxes to the east
+     * until they do not overlap anymore. Preserves the order of the components from west to east and does not
+     * change their vertical position.
+     */
+    GEOGRAPHIC {
+        @NotNull
+        @Override
+        List<Coordinate> pack(@NotNull List<Envelope> boxes, @NotNull List<Envelope> inputBoxes, double spacing) {
+
+            List<Integer> order = IntStream.range(0, boxes.size()).boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> inputBoxes.get(i).centre().x)
+                            .thenComparingDouble(i -> inputBoxes.get(i).centre().y))
+                    .collect(Collectors.toList());
+
+            Coordinate[] offsets = new Coordinate[boxes.size()];
+            List<Envelope> placed = new ArrayList<>();
+            double minCenterX = Double.NEGATIVE_INFINITY;
+            for (int i : order) {
+                Envelope box = boxes.get(i);
+                Coordinate center = inputBoxes.get(i).centre();
+                double halfWidth = box.getWidth() / 2;
+                double halfHeight = box.getHeight() / 2;
+                double minX = Math.max(center.x, minCenterX) - halfWidth;
+                double minY = center.y - halfHeight;
+                double maxY = center.y + halfHeight;
+                for (Envelope other : placed) {
+                    if (minY < other.getMaxY() + spacing && maxY + spacing > other.getMinY()) {
+                        minX = Math.max(minX, other.getMaxX() + spacing);
+                    }
+                }
+                placed.add(new Envelope(minX, minX + box.getWidth(), minY, maxY));
+                minCenterX = minX + halfWidth;
+                offsets[i] = new Coordinate(minX - box.getMinX(), minY - box.getMinY());
+            }
+            return Arrays.asList(offsets);
+
+        }
+    };
+
+    /**
+     * @param boxes the bounding boxes of the laid-out components
+     * @param inputBoxes the bounding boxes of the components in the input map
+     * @param spacing the minimal distance between two boxes
+     * @return the translation of each component in the order of the given boxes
+     */
+    @NotNull
+    abstract List<Coordinate> pack(@NotNull List<Envelope> boxes, @NotNull List<Envelope> inputBoxes, double spacing);
+
+}
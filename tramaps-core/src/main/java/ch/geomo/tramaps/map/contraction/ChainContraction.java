@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.contraction;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Contracts the maximal chains of nodes with degree two and identical routes on both adjacent edges into a single
+ * node between the end nodes of the chain, e.g. to lay out a coarse map with much fewer nodes and edges. The
+ * signature of this node extends by the length required by the signatures of the contracted nodes and the margins
+ * between them (see {@link ChainSignature}), so the layout of the coarse map already makes space for them.
+ * <p>
+ * The contraction is reversible and preserves the {@link Node} instances: contracted nodes are removed from the
+ * map but not destroyed. When expanding, the contracted nodes are distributed evenly along the current path of the
+ * chain, including the bend nodes introduced by the layout. A chain whose nodes are unchanged is restored exactly.
+ * Chains forming a cycle and chains with a single node are not contracted.
+ */
+public class ChainContraction {
+
+    private static final double EPSILON = 1e-6;
+
+    private final MetroMap map;
+    private final List<Chain> chains = new ArrayList<>();
+    private final Set<Node> coarseNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private boolean contracted = false;
+    private boolean expanded = false;
+    private int shortChainCount = 0;
+
+    public ChainContraction(@NotNull MetroMap map) {
+        this.map = map;
+    }
+
+    /**
+     * @return the number of contracted chains
+     */
+    public int getChainCount() {
+        return chains.size();
+    }
+
+    /**
+     * @return the number of nodes contracted, each chain is represented by a single node
+     */
+    public int getContractedNodeCount() {
+        return chains.stream()
+                .mapToInt(chain -> chain.nodes.size())
+                .sum();
+    }
+
+    /**
+     * Replaces each chain by a single node.
+     * @throws IllegalStateException if the chains have already been contracted
+     */
+    public void contract() {
+
+        if (contracted) {
+            throw new IllegalStateException("Chains have already been contracted.");
+        }
+        contracted = true;
+
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Node node : map.getNodes()) {
+            if (visited.contains(node) || !isChainNode(node)) {
+                continue;
+            }
+            Chain chain = findChain(node);
+            visited.addAll(chain.nodes);
+            if (chain.nodeA != null && chain.nodeB != null && chain.nodeA != chain.nodeB && chain.nodes.size() > 1) {
+                chain.contract();
+                chains.add(chain);
+            }
+        }
+
+        map.updateGraph();
+        coarseNodes.addAll(map.getNodes());
+        chains.forEach(chain -> coarseNodes.remove(chain.representative));
+
+        Loggers.info(this, "Contracted {0} chains with {1} nodes.", getChainCount(), getContractedNodeCount());
+
+    }
+
+    /**
+     * @return the number of expanded chains whose path is shorter than required by their nodes
+     */
+    public int getShortChainCount() {
+        return shortChainCount;
+    }
+
+    /**
+     * Restores the contracted chains.
+     * @throws IllegalStateException if the chains have not been contracted or have already been expanded
+     */
+    public void expand() {
+
+        if (!contracted || expanded) {
+            throw new IllegalStateException("Chains must be contracted before expanding them once.");
+        }
+        expanded = true;
+
+        for (Chain chain : chains) {
+            if (!chain.expand()) {
+                shortChainCount++;
+            }
+        }
+
+        map.updateGraph();
+
+        Loggers.info(this, "Expanded {0} chains, {1} of them are shorter than required by their nodes.", getChainCount(), shortChainCount);
+
+    }
+
+    /**
+     * @return true if given node has degree two and both adjacent edges have the same routes
+     */
+    private static boolean isChainNode(@NotNull Node node) {
+        if (node.getNodeDegree() != 2) {
+            return false;
+        }
+        List<Edge> edges = new ArrayList<>(node.getAdjacentEdges());
+        return edges.get(0).getRoutes().equals(edges.get(1).getRoutes());
+    }
+
+    /**
+     * @return the maximal chain containing given chain node
+     */
+    @NotNull
+    private Chain findChain(@NotNull Node node) {
+
+        List<Edge> adjacentEdges = new ArrayList<>(node.getAdjacentEdges());
+        Walk backward = new Walk(node, adjacentEdges.get(0));
+        Walk forward = new Walk(node, adjacentEdges.get(1));
+
+        Chain chain = new Chain(backward.end, forward.end);
+        for (int i = backward.nodes.size() - 1; i >= 0; i--) {
+            chain.nodes.add(backward.nodes.get(i));
+        }
+        chain.nodes.add(node);
+        chain.nodes.addAll(forward.nodes);
+        for (int i = backward.edges.size() - 1; i >= 0; i--) {
+            chain.edges.add(backward.edges.get(i));
+        }
+        chain.edges.addAll(forward.edges);
+        return chain;
+
+    }
+
+    /**
+     * Follows the chain nodes starting at given node and edge.
+     */
+    private static final class Walk {
+
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<Edge> edges = new ArrayList<>();
+
+        /**
+         * The first node which is not a chain node or null if the chain is a cycle.
+         */
+        private Node end;
+
+        private Walk(@NotNull Node start, @NotNull Edge first) {
+            Node node = start;
+            Edge edge = first;
+            while (true) {
+                edges.add(edge);
+                Node next = edge.getOtherNode(node);
+                if (next == start) {
+                    end = null;
+                    return;
+                }
+                if (!isChainNode(next)) {
+                    end = next;
+                    return;
+                }
+                nodes.add(next);
+                edge = next.getAdjacentEdges(edge).first().orElse(null);
+                if (edge == null) {
+                    end = null;
+                    return;
+                }
+                node = next;
+            }
+        }
+
+    }
+
+    /**
+     * A chain between two end nodes.
+     */
+    private final class Chain {
+
+        private final Node nodeA;
+        private final Node nodeB;
+        private final List<Node> nodes = new ArrayList<>();
+        private final List<Edge> edges = new ArrayList<>();
+
+        private Coordinate positionA;
+        private Coordinate positionB;
+        private Coordinate position;
+        private Route[] routes;
+        private Node representative;
+        private double requiredLength;
+
+        private Chain(@Nullable Node nodeA, @Nullable Node nodeB) {
+            this.nodeA = nodeA;
+            this.nodeB = nodeB;
+        }
+
+        private void contract() {
+
+            positionA = new Coordinate(nodeA.getCoordinate());
+            positionB = new Coordinate(nodeB.getCoordinate());
+            routes = edges.get(0).getRoutes().toArray(new Route[0]);
+
+            // the signatures and the gaps between them
+            requiredLength = (nodes.size() + 1) * 2 * map.getNodeMargin();
+            for (Node node : nodes) {
+                Envelope envelope = node.getNodeSignature().getGeometry().getEnvelopeInternal();
+                requiredLength += Math.max(envelope.getWidth(), envelope.getHeight());
+            }
+
+            edges.forEach(Edge::destroy);
+            map.removeNodes(nodes.toArray(new Node[0]));
+
+            // placed at the middle node, so the edges follow the original course of the chain
+            Node middle = nodes.get(nodes.size() / 2);
+            position = new Coordinate(middle.getCoordinate());
+            // the margins to the end nodes are added by the node buffers
+            double signatureLength = requiredLength - 4 * map.getNodeMargin();
+            String name = nodes.get(0).getName() + " .. " + nodes.get(nodes.size() - 1).getName();
+            representative = new Node(name, position.x, position.y, node -> new ChainSignature(node, signatureLength));
+            map.addNodes(representative);
+            new Edge(nodeA, representative, routes);
+            new Edge(representative, nodeB, routes);
+
+        }
+
+        /**
+         * @return false if the path of this chain is shorter than required by its nodes
+         */
+        private boolean expand() {
+
+            map.addNodes(nodes.toArray(new Node[0]));
+
+            if (isUnchanged()) {
+                restore();
+                return true;
+            }
+
+            List<Node> path = findPath();
+            if (path == null) {
+                Loggers.warning(this, "Cannot find the path between {0} and {1}, chain will be straightened.", nodeA.getName(), nodeB.getName());
+                path = new ArrayList<>();
+                path.add(nodeA);
+                path.add(nodeB);
+            }
+
+            double[] distances = new double[path.size()];
+            for (int i = 1; i < path.size(); i++) {
+                distances[i] = distances[i - 1] + path.get(i - 1).getCoordinate().distance(path.get(i).getCoordinate());
+            }
+            double length = distances[path.size() - 1];
+
+            List<Node> sequence = new ArrayList<>();
+            Set<Node> replacedBendNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            sequence.add(nodeA);
+            int next = 0;
+            for (int i = 1; i < path.size(); i++) {
+                Coordinate from = path.get(i - 1).getCoordinate();
+                Coordinate to = path.get(i).getCoordinate();
+                while (next < nodes.size() && length * (next + 1) / (nodes.size() + 1) <= distances[i] + EPSILON) {
+                    double distance = length * (next + 1) / (nodes.size() + 1);
+                    Node node = nodes.get(next++);
+                    if (i < path.size() - 1 && Math.abs(distance - distances[i]) <= EPSILON) {
+                        // takes the place of the bend node
+                        node.updatePosition(to);
+                        replacedBendNodes.add(path.get(i));
+                    }
+                    else {
+                        double fraction = (distance - distances[i - 1]) / (distances[i] - distances[i - 1]);
+                        node.updatePosition(from.x + fraction * (to.x - from.x), from.y + fraction * (to.y - from.y));
+                    }
+                    sequence.add(node);
+                }
+                if (i < path.size() - 1 && !replacedBendNodes.contains(path.get(i)) && path.get(i) != representative) {
+                    sequence.add(path.get(i));
+                }
+            }
+            sequence.add(nodeB);
+
+            // remove the representative and the edges created by the layout
+            if (!representative.destroyed()) {
+                representative.destroy();
+            }
+            for (Node node : path.subList(1, path.size() - 1)) {
+                if (node == representative) {
+                    continue;
+                }
+                if (replacedBendNodes.contains(node)) {
+                    node.destroy();
+                }
+                else {
+                    new ArrayList<>(node.getAdjacentEdges()).forEach(Edge::destroy);
+                }
+            }
+
+            for (int i = 1; i < sequence.size(); i++) {
+                new Edge(sequence.get(i - 1), sequence.get(i), routes);
+            }
+
+            return length >= requiredLength;
+
+        }
+
+        /**
+         * @return true if the end nodes and the representative have neither been moved nor been reconnected
+         */
+        private boolean isUnchanged() {
+            return !representative.destroyed()
+                    && representative.getNodeDegree() == 2
+                    && representative.isAdjacent(nodeA)
+                    && representative.isAdjacent(nodeB)
+                    && representative.getCoordinate().equals2D(position)
+                    && nodeA.getCoordinate().equals2D(positionA)
+                    && nodeB.getCoordinate().equals2D(positionB);
+        }
+
+        /**
+         * Restores the original edges of this chain.
+         */
+        private void restore() {
+            representative.destroy();
+            for (Edge original : edges) {
+                new Edge(original.getNodeA(), original.getNodeB(), original.getOriginalDirection(original.getNodeA()), routes);
+            }
+        }
+
+        /**
+         * Finds the path between the end nodes via the representative of this chain and the bend nodes introduced
+         * by the layout when correcting its edges.
+         * @return the nodes of the path including both end nodes or null if there is no such path
+         */
+        @Nullable
+        private List<Node> findPath() {
+
+            List<Node> path = new ArrayList<>();
+            path.add(nodeA);
+
+            Set<Route> routeSet = edges.get(0).getRoutes();
+            for (Edge first : nodeA.getAdjacentEdges()) {
+                if (!first.getRoutes().equals(routeSet)) {
+                    continue;
+                }
+                path.subList(1, path.size()).clear();
+                Edge last = first;
+                Node node = first.getOtherNode(nodeA);
+                // follow the representative and the nodes created by the layout
+                while (node != nodeB && !coarseNodes.contains(node) && node.getNodeDegree() == 2) {
+                    path.add(node);
+                    last = node.getAdjacentEdges(last).first().orElse(null);
+                    if (last == null || !last.getRoutes().equals(routeSet)) {
+                        break;
+                    }
+                    node = last.getOtherNode(node);
+                }
+                // by identity since a parallel chain may connect the same end nodes
+                if (node == nodeB && path.stream().anyMatch(n -> n == representative)) {
+                    path.add(nodeB);
+                    return path;
+                }
+            }
+
+            return null;
+
+        }
+
+    }
+
+}
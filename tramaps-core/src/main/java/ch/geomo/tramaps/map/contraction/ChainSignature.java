@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.contraction;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.direction.Direction;
+import ch.geomo.tramaps.map.signature.AbstractNodeSignature;
+import ch.geomo.util.geom.GeomUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The signature of the node representing a contracted chain. The rectangle extends along the original direction
+ * of the chain by the length required by the stations of the chain, so the layout of the coarse map makes space
+ * for them.
+ */
+class ChainSignature extends AbstractNodeSignature {
+
+    private static final double MIN_SIDE_LENGTH = 20d;
+    private static final double STATION_MARGIN = 5d;
+
+    private final double length;
+
+    /**
+     * @param length the length required by the stations of the chain
+     */
+    ChainSignature(@NotNull Node node, double length) {
+        // the super constructor updates the signature before the length is set, the node has no edges yet though
+        super(node);
+        this.length = length;
+        updateSignature();
+    }
+
+    @Override
+    public void updateSignature() {
+
+        Edge edge = node.getAdjacentEdges().first().orElse(null);
+        double across = node.getAdjacentEdges().stream()
+                .mapToDouble(e -> e.calculateEdgeWidth(STATION_MARGIN))
+                .max()
+                .orElse(MIN_SIDE_LENGTH);
+
+        double width = across;
+        double height = across;
+        if (edge != null) {
+            Direction direction = edge.getOriginalDirection(node);
+            if (direction.isHorizontal()) {
+                width = Math.max(length, across);
+            }
+            else if (direction.isVertical()) {
+                height = Math.max(length, across);
+            }
+            else {
+                // bounding box of a diagonal line of the given length
+                width = Math.max(length / Math.sqrt(2), across);
+                height = width;
+            }
+        }
+
+        signature = GeomUtil.createPolygon(node.getPoint(), Math.max(width, MIN_SIDE_LENGTH), Math.max(height, MIN_SIDE_LENGTH));
+
+        setChanged();
+        notifyObservers();
+
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.contraction;
+
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.LayoutListener;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandler;
+import ch.geomo.util.logging.Loggers;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Makes space on the coarse map first, where the chains of nodes with degree two are contracted into single nodes
+ * whose signatures require the space of the contracted nodes (see {@link ChainContraction}). Afterwards, the chains
+ * are expanded along the resulting edges. A second {@link LineSpaceHandler} makes space on the complete map only if
+ * a chain is shorter than required by its nodes or if the expanded map still has conflicts.
+ */
+public class MultilevelLineSpaceHandler implements LineSpaceHandler {
+
+    private final MetroMap map;
+    private final Function<MetroMap, LineSpaceHandler> handlerFactory;
+    private final List<LayoutListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param handlerFactory creates the {@link LineSpaceHandler} of the coarse and of the complete map
+     */
+    public MultilevelLineSpaceHandler(@NotNull MetroMap map, @NotNull Function<MetroMap, LineSpaceHandler> handlerFactory) {
+        this.map = map;
+        this.handlerFactory = handlerFactory;
+    }
+
+    @Override
+    public void addLayoutListener(@NotNull LayoutListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeLayoutListener(@NotNull LayoutListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void makeSpace() {
+
+        ChainContraction contraction = new ChainContraction(map);
+        contraction.contract();
+
+        if (contraction.getChainCount() == 0) {
+            createHandler().makeSpace();
+            return;
+        }
+
+        try {
+            createHandler().makeSpace();
+        }
+        finally {
+            // keeps the map complete when the layout was interrupted
+            contraction.expand();
+        }
+
+        if (contraction.getShortChainCount() == 0 && map.countNonOctilinearEdges() == 0 && map.evaluateConflicts(true).isEmpty()) {
+            Loggers.info(this, "All chains are long enough, skip making space on the complete map.");
+            return;
+        }
+
+        createHandler().makeSpace();
+
+    }
+
+    @NotNull
+    private LineSpaceHandler createHandler() {
+        LineSpaceHandler handler = handlerFactory.apply(map);
+        listeners.forEach(handler::addLayoutListener);
+        return handler;
+    }
+
+}
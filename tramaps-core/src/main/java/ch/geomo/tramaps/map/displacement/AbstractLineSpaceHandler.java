@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement;
+
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.jfr.LayoutEvents;
+import ch.geomo.tramaps.map.MetroMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Provides the registration of {@link LayoutListener}s and the measurement of the iterations. Implementations
+ * call {@link #startIteration(String, int)}, wrap the steps of the iteration with
+ * {@link #measure(LayoutStep, Supplier)} and call {@link #completeIteration()} at the end of each iteration.
+ * Nothing is measured as long as no listener is registered. Each iteration is also reported as
+ * {@link ch.geomo.tramaps.jfr.LayoutIterationEvent} to the Java Flight Recorder if available, see
+ * {@link LayoutEvents}.
+ */
+public abstract class AbstractLineSpaceHandler implements LineSpaceHandler {
+
+    protected final MetroMap map;
+
+    private final List<LayoutListener> listeners = new CopyOnWriteArrayList<>();
+    private IterationTracker tracker;
+    private LayoutEvents.LayoutIteration event;
+
+    protected AbstractLineSpaceHandler(@NotNull MetroMap map) {
+        this.map = map;
+    }
+
+    @Override
+    public void addLayoutListener(@NotNull LayoutListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeLayoutListener(@NotNull LayoutListener listener) {
+        listeners.remove(listener);
+    }
+
+    protected void startIteration(@NotNull String phase, int iteration) {
+        tracker = listeners.isEmpty() ? null : new IterationTracker(map, getClass().getSimpleName(), phase, iteration);
+        event = LayoutEvents.layoutIteration();
+        if (event.isEnabled()) {
+            event.setIteration(getClass().getSimpleName(), phase, iteration);
+            event.begin();
+        }
+    }
+
+    /**
+     * Runs given step of the current iteration and measures its time and allocated bytes.
+     */
+    protected <T> T measure(@NotNull LayoutStep step, @NotNull Supplier<T> supplier) {
+        if (tracker == null) {
+            return supplier.get();
+        }
+        return tracker.measure(step, supplier);
+    }
+
+    protected void measure(@NotNull LayoutStep step, @NotNull Runnable runnable) {
+        measure(step, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records the conflicts found at the start of the current iteration.
+     */
+    protected void recordConflicts(@NotNull List<Conflict> conflicts) {
+        if (event != null) {
+            event.setConflictCount(conflicts.size());
+        }
+        if (tracker != null) {
+            tracker.recordConflicts(conflicts);
+        }
+    }
+
+    /**
+     * Notifies the listeners with the metrics of the current iteration.
+     */
+    protected void completeIteration() {
+        if (event != null) {
+            event.commit();
+            event = null;
+        }
+        if (tracker != null) {
+            IterationMetrics metrics = tracker.complete();
+            tracker = null;
+            listeners.forEach(listener -> listener.iterationCompleted(metrics));
+        }
+    }
+
+}
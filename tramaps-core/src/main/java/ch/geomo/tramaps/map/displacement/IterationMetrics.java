@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement;
+
+import ch.geomo.tramaps.conflict.ConflictType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The metrics of a single iteration of a {@link LineSpaceHandler}.
+ */
+public class IterationMetrics {
+
+    private final String handler;
+    private final String phase;
+    private final int iteration;
+    private final Map<ConflictType, Integer> conflictCounts;
+    private final long[] nanos;
+    private final long[] allocatedBytes;
+    private final int movedNodeCount;
+    private final long nonOctilinearEdgesBefore;
+    private final long nonOctilinearEdgesAfter;
+    private final double width;
+    private final double height;
+
+    IterationMetrics(@NotNull String handler, @NotNull String phase, int iteration, @NotNull Map<ConflictType, Integer> conflictCounts,
+                     @NotNull long[] nanos, @NotNull long[] allocatedBytes, int movedNodeCount,
+                     long nonOctilinearEdgesBefore, long nonOctilinearEdgesAfter, double width, double height) {
+        this.handler = handler;
+        this.phase = phase;
+        this.iteration = iteration;
+        this.conflictCounts = new EnumMap<>(conflictCounts);
+        this.nanos = nanos.clone();
+        this.allocatedBytes = allocatedBytes.clone();
+        this.movedNodeCount = movedNodeCount;
+        this.nonOctilinearEdgesBefore = nonOctilinearEdgesBefore;
+        this.nonOctilinearEdgesAfter = nonOctilinearEdgesAfter;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @return the simple class name of the {@link LineSpaceHandler}
+     */
+    @NotNull
+    public String getHandler() {
+        return handler;
+    }
+
+    /**
+     * @return the phase of the algorithm, e.g. <tt>MAKE_SPACE</tt> or <tt>SCALE</tt>
+     */
+    @NotNull
+    public String getPhase() {
+        return phase;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * @return the number of conflicts of given type found at the start of the iteration
+     */
+    public int getConflictCount(@NotNull ConflictType type) {
+        return conflictCounts.getOrDefault(type, 0);
+    }
+
+    /**
+     * @return the number of conflicts found at the start of the iteration
+     */
+    public int getConflictCount() {
+        return conflictCounts.values().stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * @return the time spent in given step in nanoseconds
+     */
+    public long getNanos(@NotNull LayoutStep step) {
+        return nanos[step.ordinal()];
+    }
+
+    /**
+     * @return the bytes allocated by the layout thread in given step or -1 if not supported by the JVM
+     */
+    public long getAllocatedBytes(@NotNull LayoutStep step) {
+        return allocatedBytes[step.ordinal()];
+    }
+
+    /**
+     * @return the number of nodes whose position has changed within the iteration
+     */
+    public int getMovedNodeCount() {
+        return movedNodeCount;
+    }
+
+    public long getNonOctilinearEdgesBefore() {
+        return nonOctilinearEdgesBefore;
+    }
+
+    public long getNonOctilinearEdgesAfter() {
+        return nonOctilinearEdgesAfter;
+    }
+
+    /**
+     * @return the width of the map's bounding box after the iteration
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of the map's bounding box after the iteration
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "IterationMetrics: {" + handler + " " + phase + " " + iteration + ", conflicts: " + getConflictCount() + "}";
+    }
+
+}
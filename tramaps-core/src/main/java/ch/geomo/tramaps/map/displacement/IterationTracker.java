@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement;
+
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.conflict.ConflictType;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.map.MetroMap;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Collects the metrics of a single iteration. The node positions are copied when starting the iteration in order
+ * to count the moved nodes, hence a tracker is only created if a {@link LayoutListener} is registered.
+ */
+final class IterationTracker {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+    private final MetroMap map;
+    private final String handler;
+    private final String phase;
+    private final int iteration;
+
+    private final Map<ConflictType, Integer> conflictCounts = new EnumMap<>(ConflictType.class);
+    private final long[] nanos = new long[LayoutStep.values().length];
+    private final long[] allocatedBytes = new long[LayoutStep.values().length];
+
+    private final List<Node> nodes;
+    private final double[] xs;
+    private final double[] ys;
+    private final long nonOctilinearEdgesBefore;
+
+    IterationTracker(@NotNull MetroMap map, @NotNull String handler, @NotNull String phase, int iteration) {
+        this.map = map;
+        this.handler = handler;
+        this.phase = phase;
+        this.iteration = iteration;
+        if (THREAD_MX_BEAN == null) {
+            Arrays.fill(allocatedBytes, -1);
+        }
+        nodes = map.getNodes().toList();
+        xs = new double[nodes.size()];
+        ys = new double[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            xs[i] = nodes.get(i).getX();
+            ys[i] = nodes.get(i).getY();
+        }
+        nonOctilinearEdgesBefore = map.countNonOctilinearEdges();
+    }
+
+    /**
+     * @return the bean measuring the allocated bytes per thread or null if not supported by the JVM
+     */
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+                if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    return allocationBean;
+                }
+            }
+        }
+        catch (LinkageError e) {
+            // com.sun.management is not available
+        }
+        return null;
+    }
+
+    private static long getAllocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    <T> T measure(@NotNull LayoutStep step, @NotNull Supplier<T> supplier) {
+        long allocated = THREAD_MX_BEAN != null ? getAllocatedBytes() : 0;
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        }
+        finally {
+            nanos[step.ordinal()] += System.nanoTime() - start;
+            if (THREAD_MX_BEAN != null) {
+                allocatedBytes[step.ordinal()] += getAllocatedBytes() - allocated;
+            }
+        }
+    }
+
+    void recordConflicts(@NotNull List<Conflict> conflicts) {
+        for (Conflict conflict : conflicts) {
+            conflictCounts.merge(conflict.getConflictType(), 1, Integer::sum);
+        }
+    }
+
+    @NotNull
+    IterationMetrics complete() {
+        int movedNodeCount = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i).getX() != xs[i] || nodes.get(i).getY() != ys[i]) {
+                movedNodeCount++;
+            }
+        }
+        Envelope boundingBox = map.getBoundingBox();
+        return new IterationMetrics(handler, phase, iteration, conflictCounts, nanos, allocatedBytes, movedNodeCount,
+                nonOctilinearEdgesBefore, map.countNonOctilinearEdges(), boundingBox.getWidth(), boundingBox.getHeight());
+    }
+
+}
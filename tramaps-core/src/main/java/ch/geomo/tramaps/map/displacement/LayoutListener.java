@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives the metrics of each iteration of a {@link LineSpaceHandler}, e.g. to tune margins and strategies.
+ * @see LayoutTraceRecorder
+ */
+@FunctionalInterface
+public interface LayoutListener {
+
+    /**
+     * Invoked on the thread of the layout after each iteration, including the last iteration finding no more
+     * conflicts.
+     */
+    void iterationCompleted(@NotNull IterationMetrics metrics);
+
+}
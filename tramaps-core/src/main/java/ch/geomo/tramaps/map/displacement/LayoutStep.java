@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement;
+
+/**
+ * The steps of an iteration of a {@link LineSpaceHandler} measured by the {@link IterationMetrics}.
+ */
+public enum LayoutStep {
+
+    /**
+     * Finding the conflicts of the map.
+     */
+    CONFLICT_DETECTION,
+
+    /**
+     * Solving a conflict by displacing or scaling nodes.
+     */
+    DISPLACEMENT,
+
+    /**
+     * Correcting non-octilinear edges by moving nodes.
+     */
+    EDGE_CORRECTION
+
+}
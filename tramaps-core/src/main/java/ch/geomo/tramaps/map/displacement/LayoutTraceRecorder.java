@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement;
+
+import ch.geomo.tramaps.conflict.ConflictType;
+import ch.geomo.util.json.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the metrics of each iteration as a trace, either as CSV file with a row per iteration or as JSON array
+ * with an object per iteration. The trace is written while the layout runs and completed when closing the
+ * recorder. A recorder may be registered on several consecutive runs.
+ * <pre>
+ * try (LayoutTraceRecorder recorder = LayoutTraceRecorder.create(Paths.get("trace.csv"))) {
+ *     LineSpaceHandler handler = new DisplaceLineSpaceHandler(map);
+ *     handler.addLayoutListener(recorder);
+ *     handler.makeSpace();
+ * }
+ * </pre>
+ */
+public class LayoutTraceRecorder implements LayoutListener, Closeable {
+
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    private static final String SEPARATOR = ";";
+
+    private final Writer out;
+    private final Format format;
+    private final JsonWriter json;
+
+    public LayoutTraceRecorder(@NotNull Writer out, @NotNull Format format) throws IOException {
+        this.out = out;
+        this.format = format;
+        if (format == Format.JSON) {
+            json = new JsonWriter(out);
+            json.beginArray();
+        }
+        else {
+            json = null;
+            out.write(String.join(SEPARATOR, getColumns()));
+            out.write(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Creates a recorder writing to given file. The format is JSON if the file name ends with <tt>.json</tt>,
+     * otherwise CSV.
+     */
+    @NotNull
+    public static LayoutTraceRecorder create(@NotNull Path file) throws IOException {
+        boolean isJson = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+        BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        try {
+            return new LayoutTraceRecorder(writer, isJson ? Format.JSON : Format.CSV);
+        }
+        catch (IOException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    @NotNull
+    private static List<String> getColumns() {
+        List<String> columns = new ArrayList<>();
+        columns.add("handler");
+        columns.add("phase");
+        columns.add("iteration");
+        columns.add("conflicts");
+        for (ConflictType type : ConflictType.values()) {
+            columns.add(type.name().toLowerCase(Locale.ROOT) + "_conflicts");
+        }
+        for (LayoutStep step : LayoutStep.values()) {
+            columns.add(step.name().toLowerCase(Locale.ROOT) + "_ns");
+        }
+        for (LayoutStep step : LayoutStep.values()) {
+            columns.add(step.name().toLowerCase(Locale.ROOT) + "_bytes");
+        }
+        columns.add("moved_nodes");
+        columns.add("non_octilinear_before");
+        columns.add("non_octilinear_after");
+        columns.add("width");
+        columns.add("height");
+        return columns;
+    }
+
+    @Override
+    public void iterationCompleted(@NotNull IterationMetrics metrics) {
+        try {
+            if (format == Format.JSON) {
+                writeJson(metrics);
+            }
+            else {
+                writeCsv(metrics);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot write layout trace.", e);
+        }
+    }
+
+    private void writeCsv(@NotNull IterationMetrics metrics) throws IOException {
+        List<String> values = new ArrayList<>();
+        values.add(metrics.getHandler());
+        values.add(metrics.getPhase());
+        values.add(String.valueOf(metrics.getIteration()));
+        values.add(String.valueOf(metrics.getConflictCount()));
+        for (ConflictType type : ConflictType.values()) {
+            values.add(String.valueOf(metrics.getConflictCount(type)));
+        }
+        for (LayoutStep step : LayoutStep.values()) {
+            values.add(String.valueOf(metrics.getNanos(step)));
+        }
+        for (LayoutStep step : LayoutStep.values()) {
+            values.add(String.valueOf(metrics.getAllocatedBytes(step)));
+        }
+        values.add(String.valueOf(metrics.getMovedNodeCount()));
+        values.add(String.valueOf(metrics.getNonOctilinearEdgesBefore()));
+        values.add(String.valueOf(metrics.getNonOctilinearEdgesAfter()));
+        values.add(String.valueOf(metrics.getWidth()));
+        values.add(String.valueOf(metrics.getHeight()));
+        out.write(String.join(SEPARATOR, values));
+        out.write(System.lineSeparator());
+    }
+
+    private void writeJson(@NotNull IterationMetrics metrics) throws IOException {
+        json.beginObject();
+        json.name("handler").value(metrics.getHandler());
+        json.name("phase").value(metrics.getPhase());
+        json.name("iteration").value(metrics.getIteration());
+        json.name("conflicts").beginObject();
+        for (ConflictType type : ConflictType.values()) {
+            json.name(type.name()).value(metrics.getConflictCount(type));
+        }
+        json.endObject();
+        json.name("nanos").beginObject();
+        for (LayoutStep step : LayoutStep.values()) {
+            json.name(step.name()).value(metrics.getNanos(step));
+        }
+        json.endObject();
+        json.name("allocatedBytes").beginObject();
+        for (LayoutStep step : LayoutStep.values()) {
+            json.name(step.name()).value(metrics.getAllocatedBytes(step));
+        }
+        json.endObject();
+        json.name("movedNodes").value(metrics.getMovedNodeCount());
+        json.name("nonOctilinearEdgesBefore").value(metrics.getNonOctilinearEdgesBefore());
+        json.name("nonOctilinearEdgesAfter").value(metrics.getNonOctilinearEdgesAfter());
+        json.name("width").value(metrics.getWidth());
+        json.name("height").value(metrics.getHeight());
+        json.endObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.endArray();
+            json.close();
+        }
+        else {
+            out.close();
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Convenience interface in order to easily replace algorithms/approaches.
+ * @see LineSpaceHandlerType
+ */
+public interface LineSpaceHandler {
+
+    /**
+     * Starts algorithm and makes space for line and station signatures.
+     */
+    void makeSpace();
+
+    /**
+     * Registers a listener receiving the metrics of each iteration.
+     */
+    void addLayoutListener(@NotNull LayoutListener listener);
+
+    void removeLayoutListener(@NotNull LayoutListener listener);
+
+    /**
+     * Stops the algorithm if the current thread was interrupted, e.g. when exceeding a time limit. Implementations
+     * should call this method once per iteration.
+     * @throws CancellationException if the current thread was interrupted
+     */
+    default void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException(getClass().getSimpleName() + " was interrupted.");
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement;
+
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.component.ComponentLineSpaceHandler;
+import ch.geomo.tramaps.map.contraction.MultilevelLineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceLineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.scale.ScaleHandler;
+import ch.geomo.tramaps.map.displacement.scale.ScaleMode;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Function;
+
+/**
+ * Enumerates the available {@link LineSpaceHandler} implementations in order to choose one by name.
+ */
+public enum LineSpaceHandlerType {
+
+    DISPLACE(DisplaceLineSpaceHandler::new),
+    DISPLACE_COMPONENTS(map -> new ComponentLineSpaceHandler(map, DisplaceLineSpaceHandler::new)),
+    DISPLACE_MULTILEVEL(map -> new MultilevelLineSpaceHandler(map, DisplaceLineSpaceHandler::new)),
+    SCALE(map -> new ScaleHandler(map, ScaleMode.ITERATIVE)),
+    SCALE_BISECTION(map -> new ScaleHandler(map, ScaleMode.BISECTION));
+
+    private final Function<MetroMap, LineSpaceHandler> factory;
+
+    LineSpaceHandlerType(@NotNull Function<MetroMap, LineSpaceHandler> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return a new {@link LineSpaceHandler} of this type for given {@link MetroMap}
+     */
+    @NotNull
+    public LineSpaceHandler create(@NotNull MetroMap map) {
+        return factory.apply(map);
+    }
+
+}
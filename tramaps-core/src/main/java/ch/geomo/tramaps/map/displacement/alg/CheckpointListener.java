@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement.alg;
+
+import ch.geomo.tramaps.map.MetroMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives the intermediate states of a {@link DisplaceLineSpaceHandler} in order to persist them. A run can be
+ * resumed from a persisted state using {@link DisplaceLineSpaceHandler#resume(DisplaceProgress)}.
+ */
+@FunctionalInterface
+public interface CheckpointListener {
+
+    /**
+     * Invoked after each completed iteration. The map must not be modified.
+     */
+    void checkpoint(@NotNull MetroMap map, @NotNull DisplaceProgress progress);
+
+}
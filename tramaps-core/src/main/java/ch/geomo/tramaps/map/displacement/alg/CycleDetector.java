@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement.alg;
+
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.util.geom.GeomUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Detects oscillating states (e.g. A->B->A->B) of the displacement loop. Each iteration is reduced to a fingerprint
+ * which is a hash over the node positions quantised on the precision grid of {@link GeomUtil}, the set of
+ * conflicts and the last handled conflict. A bounded history of fingerprints is kept in order to detect a state
+ * which has already been reached before.
+ */
+public class CycleDetector {
+
+    private static final int DEFAULT_HISTORY_SIZE = 32;
+
+    private final int historySize;
+
+    private final Deque<Long> history;
+    private final Map<Long, Integer> iterations;
+
+    private int cycleCount = 0;
+    private int phaseCycleCount = 0;
+    private int lastCycleLength = 0;
+    private int savedIterations = 0;
+
+    public CycleDetector() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    public CycleDetector(int historySize) {
+        this.historySize = historySize;
+        history = new ArrayDeque<>(historySize);
+        iterations = new HashMap<>(historySize * 2);
+    }
+
+    /**
+     * Mixes the bits of given value (finalizer of the SplitMix64 generator).
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * @return the given value quantised on the precision grid of {@link GeomUtil}
+     */
+    private static long quantise(double value) {
+        return Math.round(value * GeomUtil.getPrecisionModel().getScale());
+    }
+
+    /**
+     * Calculates the fingerprint of the current state. The hashes of the nodes and the conflicts are summed up,
+     * so the fingerprint does not depend on the iteration order of the given collections.
+     * @return the fingerprint of the given state
+     */
+    public static long fingerprint(@NotNull Collection<Node> nodes, @NotNull Collection<Conflict> conflicts, @Nullable Conflict lastConflict) {
+        long nodeHash = 0;
+        for (Node node : nodes) {
+            long hash = mix(node.getName().hashCode());
+            hash = mix(hash ^ quantise(node.getX()));
+            hash = mix(hash ^ quantise(node.getY()));
+            nodeHash += hash;
+        }
+        long conflictHash = 0;
+        for (Conflict conflict : conflicts) {
+            conflictHash += mix(conflict.hashCode());
+        }
+        long lastConflictHash = lastConflict == null ? 0 : lastConflict.hashCode();
+        return mix(mix(nodeHash) ^ conflictHash) ^ mix(lastConflictHash);
+    }
+
+    /**
+     * Records the state of the given iteration.
+     * @return true if the same state was already recorded in the bounded history of this instance
+     */
+    public boolean record(int iteration, @NotNull Collection<Node> nodes, @NotNull Collection<Conflict> conflicts, @Nullable Conflict lastConflict) {
+
+        long fingerprint = fingerprint(nodes, conflicts, lastConflict);
+
+        Integer lastIteration = iterations.get(fingerprint);
+        if (lastIteration != null) {
+            lastCycleLength = iteration - lastIteration;
+            cycleCount++;
+            phaseCycleCount++;
+        }
+
+        if (history.size() == historySize) {
+            long oldest = history.removeFirst();
+            // remove only if not overwritten by a newer occurrence
+            if (!history.contains(oldest)) {
+                iterations.remove(oldest);
+            }
+        }
+        history.addLast(fingerprint);
+        iterations.put(fingerprint, iteration);
+
+        return lastIteration != null;
+
+    }
+
+    /**
+     * Clears the history in order to start a new phase of the algorithm. The metrics will be kept.
+     */
+    public void startPhase() {
+        history.clear();
+        iterations.clear();
+        phaseCycleCount = 0;
+        lastCycleLength = 0;
+    }
+
+    /**
+     * Clears the history and the metrics in order to start a new run of the algorithm.
+     */
+    public void reset() {
+        startPhase();
+        cycleCount = 0;
+        savedIterations = 0;
+    }
+
+    /**
+     * Adds the number of remaining iterations when stopping a phase earlier.
+     */
+    public void stoppedEarly(int remainingIterations) {
+        savedIterations += remainingIterations;
+    }
+
+    /**
+     * @return the number of detected cycles since the creation or the last reset of this instance
+     */
+    public int getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * @return the number of detected cycles in the current phase
+     */
+    public int getPhaseCycleCount() {
+        return phaseCycleCount;
+    }
+
+    /**
+     * @return the length (number of iterations) of the last detected cycle
+     */
+    public int getLastCycleLength() {
+        return lastCycleLength;
+    }
+
+    /**
+     * @return the number of iterations which were saved by stopping a phase earlier since the creation or the last
+     * reset of this instance
+     */
+    public int getSavedIterations() {
+        return savedIterations;
+    }
+
+}
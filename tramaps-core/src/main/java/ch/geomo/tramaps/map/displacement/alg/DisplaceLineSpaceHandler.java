@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement.alg;
+
+import ch.geomo.tramaps.conflict.BufferConflict;
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.conflict.ConflictType;
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.AbstractLineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.LayoutStep;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceProgress.Phase;
+import ch.geomo.tramaps.map.displacement.alg.adjustment.CostCalculator;
+import ch.geomo.tramaps.map.displacement.alg.adjustment.EdgeAdjuster;
+import ch.geomo.util.collection.list.EnhancedList;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * This {@link LineSpaceHandler} implementation makes space by displacing and moving nodes of the underlying graph.
+ */
+public class DisplaceLineSpaceHandler extends AbstractLineSpaceHandler {
+
+    /**
+     * Max iteration until algorithm will be terminated when not found a non-conflict solution.
+     */
+    private static final int MAX_ITERATIONS = 200;
+
+    /**
+     * Max number of detected cycles within a phase until the phase will be terminated.
+     */
+    private static final int MAX_CYCLES = 3;
+
+    private final CycleDetector cycleDetector;
+    private final CostCalculator costCalculator;
+
+    private CheckpointListener checkpointListener;
+    private DisplaceProgress resumeProgress;
+    private Supplier<Envelope> conflictScope;
+
+    public DisplaceLineSpaceHandler(@NotNull MetroMap map) {
+        super(map);
+        cycleDetector = new CycleDetector();
+        costCalculator = new CostCalculator(map);
+    }
+
+    /**
+     * Sets a listener receiving the intermediate states, e.g. to persist them for resuming a long run.
+     */
+    @NotNull
+    public DisplaceLineSpaceHandler setCheckpointListener(@Nullable CheckpointListener checkpointListener) {
+        this.checkpointListener = checkpointListener;
+        return this;
+    }
+
+    /**
+     * Continues a previous run with the given progress when invoking {@link #makeSpace()} next time. The map must be
+     * in the state of the given progress. The history of the cycle detection is not restored.
+     */
+    @NotNull
+    public DisplaceLineSpaceHandler resume(@Nullable DisplaceProgress progress) {
+        this.resumeProgress = progress;
+        return this;
+    }
+
+    /**
+     * Limits the conflict evaluation to the region returned by given supplier, which is invoked once per
+     * iteration since the region may move with the displaced nodes. Nodes are still displaced on the whole map.
+     * @param conflictScope the supplier of the region or null to evaluate the whole map
+     */
+    @NotNull
+    public DisplaceLineSpaceHandler setConflictScope(@Nullable Supplier<Envelope> conflictScope) {
+        this.conflictScope = conflictScope;
+        return this;
+    }
+
+    @Nullable
+    private Envelope getConflictScope() {
+        return conflictScope != null ? conflictScope.get() : null;
+    }
+
+    private void checkpoint(@NotNull Phase phase, int completedIterations) {
+        if (checkpointListener != null) {
+            checkpointListener.checkpoint(map, new DisplaceProgress(phase, completedIterations));
+        }
+    }
+
+    /**
+     * Iterates over all non-octilinear edges and corrects them. Edges which were corrected meanwhile (when correcting
+     * a previous edge) will be skipped.
+     */
+    private void correctNonOctilinearEdges() {
+        Loggers.info(this, () -> "Non-Octilinear edges: " + map.countNonOctilinearEdges());
+        map.forEachNonOctilinearEdge(edge -> EdgeAdjuster.correctEdge(map, edge, costCalculator));
+    }
+
+//    private boolean hasOnlyEdgeAdjacentNodeConflicts(@NotNull EnhancedList<Conflict> conflicts) {
+//        return conflicts.allMatch(conflict -> {
+//            if (conflict.getConflictType() == ConflictType.NODE_EDGE) {
+//                Node node = ((BufferConflict) conflict).getNodes().get(0);
+//                Edge edge = ((BufferConflict) conflict).getEdges().get(0);
+//                return node.getAdjacentEdges().stream()
+//                        .map(e -> e.getOtherNode(node))
+//                        .anyMatch(n -> n.equals(edge.getNodeA()) || n.equals(edge.getNodeB()));
+//            }
+//            return false;
+//        });
+//    }
+
+    /**
+     * Selects the conflict to handle in the current iteration.
+     */
+    @NotNull
+    private Conflict selectConflict(int currentIteration, @NotNull EnhancedList<Conflict> conflicts, @Nullable Conflict lastConflict) {
+
+        Conflict conflict = conflicts.get(0);
+        if (lastConflict != null
+                && conflicts.size() > 1
+                && Objects.equals(conflict.getBufferA().getElement(), lastConflict.getBufferA().getElement())
+                && Objects.equals(conflict.getBufferB().getElement(), lastConflict.getBufferB().getElement())) {
+
+            // skip conflict to give another conflict a chance to be solved
+            Loggers.warning(this, "Skip conflict for one iteration... Take next one.");
+            conflict = conflicts.get(1);
+
+        }
+
+        if (cycleDetector.record(currentIteration, map.getNodes(), conflicts, lastConflict) && conflicts.size() > 1) {
+            // switch strategy: take another conflict than the one which has led into the cycle
+            int index = cycleDetector.getPhaseCycleCount() % conflicts.size();
+            if (conflicts.get(index).equals(conflict)) {
+                index = (index + 1) % conflicts.size();
+            }
+            Loggers.warning(this, "Cycle with a length of {0} iterations detected. Take conflict {1} instead.", cycleDetector.getLastCycleLength(), index);
+            conflict = conflicts.get(index);
+        }
+
+        return conflict;
+
+    }
+
+    /**
+     * @return true if the current phase should be stopped since it is oscillating between the same states
+     */
+    private boolean isOscillating(@NotNull EnhancedList<Conflict> conflicts) {
+        if (cycleDetector.getPhaseCycleCount() == 0) {
+            return false;
+        }
+        // with only one conflict there is no other strategy and the cycle will be repeated
+        return conflicts.size() == 1 || cycleDetector.getPhaseCycleCount() > MAX_CYCLES;
+    }
+
+    /**
+     * Makes space for line and station signatures by displacing and moving nodes iteratively.
+     */
+    private void makeSpace(@NotNull Phase phase, int completedIterations) {
+
+        cycleDetector.startPhase();
+
+        Conflict lastConflict = null;
+
+        for (int currentIteration = completedIterations + 1; currentIteration <= MAX_ITERATIONS; currentIteration++) {
+
+            checkInterrupted();
+            startIteration(phase.name(), currentIteration);
+
+            EnhancedList<Conflict> conflicts = measure(LayoutStep.CONFLICT_DETECTION,
+                    () -> map.evaluateConflicts(true, phase.getCorrectionFactor(), phase.isMajorMisalignmentOnly(), getConflictScope()));
+            recordConflicts(conflicts);
+
+            Loggers.separator(this);
+            Loggers.info(this, "Start iteration: {0}", currentIteration);
+
+            if (conflicts.isEmpty()) {
+                completeIteration();
+                Loggers.separator(this);
+                Loggers.info(this, "No (more) conflicts found.");
+                return;
+            }
+
+            Loggers.warning(this, "Conflicts found: {0}", conflicts.size());
+
+            Conflict conflict = selectConflict(currentIteration, conflicts, lastConflict);
+
+            if (isOscillating(conflicts)) {
+                completeIteration();
+                Loggers.separator(this);
+                Loggers.warning(this, "Algorithm is oscillating. Stop algorithm after {0} iterations.", currentIteration);
+                cycleDetector.stoppedEarly(MAX_ITERATIONS - currentIteration + 1);
+                return;
+            }
+
+            Loggers.flag(this, "Handle conflict: {0}", conflict);
+            measure(LayoutStep.DISPLACEMENT, () -> NodeDisplacer.displace(map, conflict));
+
+            // try to move nodes to correct non-octilinear edges
+            measure(LayoutStep.EDGE_CORRECTION, this::correctNonOctilinearEdges);
+
+            Loggers.warning(this, () -> "Uncorrected non-octilinear edges found: " + map.countNonOctilinearEdges());
+
+            lastConflict = conflict;
+            completeIteration();
+            checkpoint(phase, currentIteration);
+
+        }
+
+        Loggers.separator(this);
+        Loggers.warning(this, "Max number set iteration reached. Stop algorithm.");
+
+    }
+
+    /**
+     * @return the bounding box size as a {@link String}
+     */
+    @NotNull
+    private String getBoundingBoxString() {
+        Envelope mapBoundingBox = map.getBoundingBox();
+        return "Size: " + (int) Math.ceil(mapBoundingBox.getWidth()) + "x" + (int) Math.ceil(mapBoundingBox.getHeight());
+    }
+
+    /**
+     * @return the number of detected cycles (oscillations) of the last run
+     */
+    public int getCycleCount() {
+        return cycleDetector.getCycleCount();
+    }
+
+    /**
+     * @return the number of iterations saved by stopping oscillating phases earlier in the last run
+     */
+    public int getSavedIterations() {
+        return cycleDetector.getSavedIterations();
+    }
+
+    /**
+     * Starts algorithm and makes space for line and station signatures by displacing and moving nodes.
+     */
+    @Override
+    public void makeSpace() {
+
+        Loggers.separator(this);
+        Loggers.info(this, "Start TRAMAPS algorithm");
+
+        // the metrics apply to a single run
+        cycleDetector.reset();
+
+        DisplaceProgress progress = resumeProgress != null ? resumeProgress : new DisplaceProgress(Phase.MAKE_SPACE, 0);
+        if (resumeProgress != null) {
+            Loggers.info(this, "Resume from {0}", resumeProgress);
+            // the progress applies to this run only, a further run starts from the beginning
+            resumeProgress = null;
+        }
+
+        if (progress.getPhase() == Phase.MAKE_SPACE) {
+            Loggers.separator(this);
+            Loggers.info(this, "Make space for edge and node signatures...");
+            makeSpace(Phase.MAKE_SPACE, progress.getCompletedIterations());
+        }
+
+        Loggers.separator(this);
+        Loggers.info(this, "Restore octilinearity...");
+        makeSpace(Phase.RESTORE_OCTILINEARITY, progress.getPhase() == Phase.RESTORE_OCTILINEARITY ? progress.getCompletedIterations() : 0);
+
+        Loggers.separator(this);
+        Loggers.info(this, this::getBoundingBoxString);
+        Loggers.info(this, "Cycles detected: {0}, iterations saved: {1}", cycleDetector.getCycleCount(), cycleDetector.getSavedIterations());
+        map.evaluateConflicts(true, Phase.MAKE_SPACE.getCorrectionFactor(), Phase.MAKE_SPACE.isMajorMisalignmentOnly(), getConflictScope())
+                .doIfNotEmpty(list -> Loggers.warning(this, "Remaining conflicts found! :-("))
+                .forEach(conflict -> Loggers.warning(this, "-> {0}", conflict));
+        Loggers.separator(this);
+
+    }
+
+}
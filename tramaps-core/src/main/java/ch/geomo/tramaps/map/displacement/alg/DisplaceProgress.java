@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement.alg;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Immutable progress of a {@link DisplaceLineSpaceHandler}: the current phase and the number of completed
+ * iterations within this phase.
+ */
+public final class DisplaceProgress {
+
+    /**
+     * The phases of the {@link DisplaceLineSpaceHandler}.
+     */
+    public enum Phase {
+
+        /**
+         * Makes space for edge and node signatures, corrects major misalignments only.
+         */
+        MAKE_SPACE(0.25, true),
+        /**
+         * Restores octilinearity.
+         */
+        RESTORE_OCTILINEARITY(1, false);
+
+        private final double correctionFactor;
+        private final boolean majorMisalignmentOnly;
+
+        Phase(double correctionFactor, boolean majorMisalignmentOnly) {
+            this.correctionFactor = correctionFactor;
+            this.majorMisalignmentOnly = majorMisalignmentOnly;
+        }
+
+        public double getCorrectionFactor() {
+            return correctionFactor;
+        }
+
+        public boolean isMajorMisalignmentOnly() {
+            return majorMisalignmentOnly;
+        }
+
+    }
+
+    private final Phase phase;
+    private final int completedIterations;
+
+    public DisplaceProgress(@NotNull Phase phase, int completedIterations) {
+        if (completedIterations < 0) {
+            throw new IllegalArgumentException("Number of completed iterations must not be negative.");
+        }
+        this.phase = phase;
+        this.completedIterations = completedIterations;
+    }
+
+    @NotNull
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public int getCompletedIterations() {
+        return completedIterations;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DisplaceProgress
+                && phase == ((DisplaceProgress) obj).phase
+                && completedIterations == ((DisplaceProgress) obj).completedIterations;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(phase, completedIterations);
+    }
+
+    @Override
+    public String toString() {
+        return "DisplaceProgress: {" + phase + ", " + completedIterations + " iterations}";
+    }
+
+}
@@ -9,6 +9,7 @@ import ch.geomo.tramaps.conflict.Conflict;
 import ch.geomo.tramaps.graph.Edge;
 import ch.geomo.tramaps.graph.Node;
 import ch.geomo.tramaps.graph.direction.OctilinearDirection;
+import ch.geomo.tramaps.jfr.LayoutEvents;
 import ch.geomo.tramaps.map.MetroMap;
 import ch.geomo.util.collection.GCollection;
 import ch.geomo.util.collection.list.EnhancedList;
@@ -108,6 +109,9 @@ public class NodeDisplacer {
      */
     public void displace() {
 
+        LayoutEvents.Displacement event = LayoutEvents.displacement();
+        event.begin();
+
         EnhancedList<Node> displacedNodes = GCollection.list();
 
         if (isDisplaceDirection(EAST)) {
@@ -127,6 +131,12 @@ public class NodeDisplacer {
                     });
         }
 
+        if (event.shouldCommit()) {
+            boolean east = isDisplaceDirection(EAST);
+            double distance = east ? conflict.getDisplaceDistanceAlongX() : conflict.getDisplaceDistanceAlongY();
+            event.commit(conflict.getConflictType().name(), east ? "X" : "Y", distance, displacedNodes.size());
+        }
+
     }
 
     /**
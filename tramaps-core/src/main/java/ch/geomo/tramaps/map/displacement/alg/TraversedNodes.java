@@ -5,19 +5,22 @@
 package ch.geomo.tramaps.map.displacement.alg;
 
 import ch.geomo.tramaps.graph.Node;
-import ch.geomo.util.collection.GCollection;
-import ch.geomo.util.collection.list.EnhancedList;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 /**
  * A transfer object which works as a guard to keep track set already visited nodes.
  */
 public class TraversedNodes {
 
-    private final EnhancedList<Node> traversedNodes;
+    private final Set<Node> traversedNodes;
 
     public TraversedNodes() {
-        traversedNodes = GCollection.list();
+        // identity set since hash code of a node changes when destroyed
+        traversedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
     }
 
     /**
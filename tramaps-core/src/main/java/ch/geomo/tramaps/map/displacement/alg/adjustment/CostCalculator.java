@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement.alg.adjustment;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Graph;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.direction.Direction;
+import ch.geomo.util.collection.list.EnhancedList;
+import ch.geomo.util.collection.set.EnhancedSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Calculates the costs to adjust an {@link Edge} by moving one of its nodes. The graph is traversed iteratively
+ * using integer node ids and a reusable {@link BitSet} as guard against correction circles.
+ * <p>
+ * The costs only depend on the topology of the graph and the original directions of the edges but not on the
+ * positions of the nodes. Therefore calculated costs are cached per edge and node until the graph is modified
+ * structurally.
+ * @see Graph#getModificationCount()
+ */
+public class CostCalculator {
+
+    private static final double CORRECT_CIRCLE_PENALTY = 1000;
+
+    private final Graph graph;
+
+    private final Map<Node, Integer> nodeIds;
+    private final Map<Edge, double[]> costCache;
+
+    private final BitSet guard;
+    private final Deque<Edge> edgeStack;
+    private final Deque<Node> nodeStack;
+
+    private long graphVersion = -1;
+
+    public CostCalculator(@NotNull Graph graph) {
+        this.graph = graph;
+        // identity maps since hash code of nodes and edges changes when destroyed
+        nodeIds = new IdentityHashMap<>();
+        costCache = new IdentityHashMap<>();
+        guard = new BitSet();
+        edgeStack = new ArrayDeque<>();
+        nodeStack = new ArrayDeque<>();
+    }
+
+    public static boolean isSimpleNode(@NotNull Edge connectionEdge, @NotNull Node node) {
+
+        EnhancedSet<Edge> adjacentEdges = node.getAdjacentEdges(connectionEdge);
+
+        if (adjacentEdges.size() == 0 || adjacentEdges.size() == 1) {
+            return true;
+        }
+        else if (adjacentEdges.size() > 2) {
+            return false;
+        }
+
+        EnhancedList<Direction> directions = adjacentEdges
+                .map(edge -> edge.getOriginalDirection(node))
+                .toList();
+        return directions.get(0).isOpposite(directions.get(1));
+
+    }
+
+    /**
+     * Resets node ids and cached costs if the graph was modified structurally.
+     */
+    private void validate() {
+        if (graphVersion != graph.getModificationCount()) {
+            nodeIds.clear();
+            costCache.clear();
+            graph.getNodes().forEach(node -> nodeIds.put(node, nodeIds.size()));
+            graphVersion = graph.getModificationCount();
+        }
+    }
+
+    private int getNodeId(@NotNull Node node) {
+        // nodes which are not (yet) part of the graph gets an id on demand
+        return nodeIds.computeIfAbsent(node, n -> nodeIds.size());
+    }
+
+    /**
+     * Calculates the costs to adjust given {@link Edge} by moving given {@link Node}. Already traversed nodes are
+     * penalized in order to avoid correction circles.
+     */
+    public double calculate(@NotNull Edge connectionEdge, @NotNull Node node) {
+        validate();
+        double[] costs = costCache.computeIfAbsent(connectionEdge, edge -> new double[]{Double.NaN, Double.NaN});
+        int index = connectionEdge.getNodeA().equals(node) ? 0 : 1;
+        if (Double.isNaN(costs[index])) {
+            costs[index] = traverse(connectionEdge, node);
+        }
+        return costs[index];
+    }
+
+    /**
+     * Traverses the graph in the same (depth-first) order as a recursive implementation would do.
+     */
+    private double traverse(@NotNull Edge connectionEdge, @NotNull Node startNode) {
+
+        guard.clear();
+
+        edgeStack.push(connectionEdge);
+        nodeStack.push(startNode);
+
+        double costs = 0;
+
+        while (!nodeStack.isEmpty()) {
+
+            Edge edge = edgeStack.pop();
+            Node node = nodeStack.pop();
+
+            int nodeId = getNodeId(node);
+            if (guard.get(nodeId)) {
+                costs = costs + CORRECT_CIRCLE_PENALTY;
+                continue;
+            }
+
+            guard.set(nodeId);
+
+            if (node.getNodeDegree() == 1) {
+                continue;
+            }
+
+            if (isSimpleNode(edge, node)) {
+                costs = costs + (node.getNodeDegree() == 2 ? 1 : 2);
+                continue;
+            }
+
+            List<Edge> adjacentEdges = new ArrayList<>(node.getAdjacentEdges(edge));
+
+            costs = costs + 2 + adjacentEdges.size();
+
+            // push in reversed order in order to visit the adjacent edges in their original order
+            for (int i = adjacentEdges.size() - 1; i >= 0; i--) {
+                Edge adjacentEdge = adjacentEdges.get(i);
+                edgeStack.push(adjacentEdge);
+                nodeStack.push(adjacentEdge.getOtherNode(node));
+            }
+
+        }
+
+        return costs;
+
+    }
+
+}
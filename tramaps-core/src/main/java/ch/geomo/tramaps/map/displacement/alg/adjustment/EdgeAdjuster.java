@@ -8,8 +8,10 @@ import ch.geomo.tramaps.conflict.ConflictFinder;
 import ch.geomo.tramaps.graph.Edge;
 import ch.geomo.tramaps.graph.Graph;
 import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.index.SpatialGraphIndex;
 import ch.geomo.tramaps.graph.layout.OctilinearEdge;
 import ch.geomo.tramaps.graph.layout.OctilinearEdgeBuilder;
+import ch.geomo.tramaps.jfr.LayoutEvents;
 import ch.geomo.tramaps.map.MetroMap;
 import ch.geomo.tramaps.map.displacement.alg.TraversedNodes;
 import ch.geomo.util.collection.pair.Pair;
@@ -32,12 +34,18 @@ public class EdgeAdjuster {
     private final MetroMap map;
     private final Edge edge;
     private final double maxAdjustmentCosts;
+    private final CostCalculator costCalculator;
 
     // future improvement: introduce factory class in order to reuse instances
     public EdgeAdjuster(@NotNull MetroMap map, @NotNull Edge edge, double maxAdjustmentCosts) {
+        this(map, edge, maxAdjustmentCosts, new CostCalculator(map));
+    }
+
+    public EdgeAdjuster(@NotNull MetroMap map, @NotNull Edge edge, double maxAdjustmentCosts, @NotNull CostCalculator costCalculator) {
         this.map = map;
         this.edge = edge;
         this.maxAdjustmentCosts = maxAdjustmentCosts;
+        this.costCalculator = costCalculator;
     }
 
     @NotNull
@@ -60,10 +68,13 @@ public class EdgeAdjuster {
 
     public void correctEdge() {
 
-        Loggers.info(this, "Correct edge {0}...", edge.getName());
+        LayoutEvents.EdgeCorrection event = LayoutEvents.edgeCorrection();
+        event.begin();
 
-        double scoreA = CostCalculator.calculate(edge, getNodeA(), new TraversedNodes());
-        double scoreB = CostCalculator.calculate(edge, getNodeB(), new TraversedNodes());
+        Loggers.info(this, () -> "Correct edge " + edge.getName() + "...");
+
+        double scoreA = costCalculator.calculate(edge, getNodeA());
+        double scoreB = costCalculator.calculate(edge, getNodeB());
 
         if (scoreA == scoreB) {
             // use node with a bigger length of his adjacent edge (more space for movements)
@@ -77,8 +88,9 @@ public class EdgeAdjuster {
 
         Loggers.info(this, "Adjustment costs for adjacent nodes: {0}/{1}", scoreA, scoreB);
 
+        int bendNodeCount = 0;
         if (scoreA > maxAdjustmentCosts && scoreB > maxAdjustmentCosts) {
-            correctEdgeByIntroducingBendNodes();
+            bendNodeCount = correctEdgeByIntroducingBendNodes();
         }
         else if (scoreA < scoreB) {
             correctEdgeByMovingNode(edge, getNodeA(), new TraversedNodes());
@@ -89,12 +101,17 @@ public class EdgeAdjuster {
 
         Loggers.info(this, "Correction is done.");
 
+        if (event.shouldCommit()) {
+            event.commit(edge.getName(), scoreA, scoreB, bendNodeCount);
+        }
+
     }
 
     /**
      * Introduces a bend node for given {@link Edge}. The given {@link Edge} instance will be destroyed.
+     * @return the number of bend nodes introduced
      */
-    private void correctEdgeByIntroducingBendNodes() {
+    private int correctEdgeByIntroducingBendNodes() {
 
         // create octilinear edge
         OctilinearEdge octilinearEdge = new OctilinearEdgeBuilder()
@@ -103,7 +120,7 @@ public class EdgeAdjuster {
 
         Pair<Node> vertices = octilinearEdge.getVertices();
 
-        Loggers.info(this, "Introduce bends {0} to edge {1}...", vertices, edge.getName());
+        Loggers.info(this, () -> "Introduce bends " + vertices + " to edge " + edge.getName() + "...");
 
         if (vertices.hasNonNullValues()) {
 
@@ -130,10 +147,12 @@ public class EdgeAdjuster {
             // numbers set nodes has changed, edge cache must be flagged for rebuild
             map.updateGraph();
 
+            return vertices.second() == null ? 1 : 2;
+
         }
-        else {
-            Loggers.warning(this, "No octilinear edge created: {0}", edge);
-        }
+
+        Loggers.warning(this, "No octilinear edge created: {0}", edge);
+        return 0;
 
     }
 
@@ -205,10 +224,8 @@ public class EdgeAdjuster {
      * @return true if new position is equals to a position of another node
      */
     private boolean overlapsWithOtherNodes(@NotNull Node moveableNode, @NotNull Point movePoint) {
-        return map.getNodes().stream()
-                .filter(moveableNode::isNotEquals)
-                .map(Node::getCoordinate)
-                .anyMatch(coordinate -> movePoint.getCoordinate().equals(coordinate));
+        return map.getSpatialIndex().getNodes(movePoint.getCoordinate()).stream()
+                .anyMatch(moveableNode::isNotEquals);
     }
 
     /**
@@ -224,15 +241,17 @@ public class EdgeAdjuster {
      * @return true if new position would intersect with any other edge when moving
      */
     private boolean overlapsWithOtherEdges(@NotNull Node moveableNode, @NotNull Point movePoint, @NotNull Edge connectionEdge, @NotNull Graph graph) {
+        SpatialGraphIndex index = graph.getSpatialIndex();
         return moveableNode.getAdjacentEdges().stream()
                 .map(edge -> edge.getOtherNode(moveableNode))
                 .map(node -> GeomUtil.createLineString(movePoint, node.getPoint()))
-                .anyMatch(lineString -> graph.getEdges().stream()
+                // only edges nearby may intersect
+                .anyMatch(lineString -> index.queryEdges(lineString.getEnvelopeInternal()).stream()
                         // ignore adjacent edges
                         .filter(edge -> !moveableNode.getAdjacentEdges().contains(edge))
                         // test intersection
                         .filter(edge -> edge.getLineString().relate(lineString, "T********"))
-                        .peek(edge -> Loggers.warning(this, "Edge {0} would intersect with {1}!", edge.getName(), connectionEdge.getName()))
+                        .peek(edge -> Loggers.warning(this, () -> "Edge " + edge.getName() + " would intersect with " + connectionEdge.getName() + "!"))
                         .findAny()
                         .isPresent());
     }
@@ -268,4 +287,11 @@ public class EdgeAdjuster {
         new EdgeAdjuster(map, edge, MAX_ADJUSTMENT_COSTS).correctEdge();
     }
 
+    /**
+     * Corrects given {@link Edge} using given {@link CostCalculator} in order to reuse already calculated costs.
+     */
+    public static void correctEdge(@NotNull MetroMap map, @NotNull Edge edge, @NotNull CostCalculator costCalculator) {
+        new EdgeAdjuster(map, edge, MAX_ADJUSTMENT_COSTS, costCalculator).correctEdge();
+    }
+
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement.scale;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.GraphElement;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.util.geom.GeomUtil;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.util.AffineTransformation;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates whether a map scaled uniformly with a given scale factor would still have buffer conflicts. Scaling
+ * only changes the distances between the elements, the buffer widths remain. So two elements are in conflict if
+ * the distance between their geometries is smaller than the sum of their buffer distances. A node's geometry is its
+ * signature, an edge's geometry its line string.
+ * <p>
+ * Pairs of elements whose skeleton (node point or edge line string) already touches in the unscaled map cannot be
+ * solved by scaling and will be ignored. Neither are octilinear conflicts considered since scaling does not change
+ * the directions of the edges.
+ * <p>
+ * Note: The oracle is conservative. Unlike {@link ch.geomo.tramaps.conflict.BufferConflict}, it does not consider
+ * whether the overlapping area of two edge buffers lies between both edges. Therefore the resulting scale factor
+ * may be slightly bigger than the scale factor found iteratively.
+ */
+public class ScaleConflictOracle {
+
+    /**
+     * Tolerance to avoid reporting conflicts caused by the limited precision of the buffer polygons.
+     */
+    private static final double TOLERANCE = 1 / GeomUtil.getPrecisionModel().getScale();
+
+    /**
+     * An element of the map with its unscaled geometry and its buffer distance.
+     */
+    private static class Element {
+
+        private final GraphElement graphElement;
+        private final Geometry skeleton;
+        private final Geometry geometry;
+        private final double bufferDistance;
+
+        private Element(@NotNull GraphElement graphElement, @NotNull Geometry skeleton, @NotNull Geometry geometry, double bufferDistance) {
+            this.graphElement = graphElement;
+            this.skeleton = skeleton;
+            this.geometry = geometry;
+            this.bufferDistance = bufferDistance;
+        }
+
+        /**
+         * @return the geometry of this element when scaling the map with given scale factor
+         */
+        @NotNull
+        private Geometry getGeometry(double scaleFactor) {
+            if (graphElement instanceof Node) {
+                // signature does not change its size, it's moved with the node only
+                Node node = (Node) graphElement;
+                double dx = node.getX() * (scaleFactor - 1);
+                double dy = node.getY() * (scaleFactor - 1);
+                return AffineTransformation.translationInstance(dx, dy).transform(geometry);
+            }
+            return AffineTransformation.scaleInstance(scaleFactor, scaleFactor).transform(geometry);
+        }
+
+    }
+
+    private final List<Element> elements;
+
+    private int evaluationCount = 0;
+
+    public ScaleConflictOracle(@NotNull MetroMap map) {
+        elements = new ArrayList<>();
+        for (Node node : map.getNodes()) {
+            Geometry signature = node.getNodeSignature().getGeometry();
+            elements.add(new Element(node, node.getPoint(), signature, map.getNodeMargin()));
+        }
+        for (Edge edge : map.getEdges()) {
+            double width = edge.calculateEdgeWidth(map.getRouteMargin()) + map.getEdgeMargin() * 2;
+            elements.add(new Element(edge, edge.getLineString(), edge.getLineString(), width / 2));
+        }
+    }
+
+    /**
+     * @return true if both elements are compared by the {@link ch.geomo.tramaps.conflict.ConflictFinder}
+     */
+    private static boolean isConflictPair(@NotNull Element a, @NotNull Element b) {
+        if (a == b) {
+            return false;
+        }
+        if (!a.graphElement.isAdjacent(b.graphElement)) {
+            return true;
+        }
+        return a.graphElement instanceof Node && b.graphElement instanceof Node;
+    }
+
+    /**
+     * @return true if a map scaled with given scale factor has at least one conflict which can be solved by scaling
+     */
+    public boolean hasConflicts(double scaleFactor) {
+
+        evaluationCount++;
+
+        int size = elements.size();
+        Geometry[] geometries = new Geometry[size];
+        STRtree tree = new STRtree();
+
+        for (int i = 0; i < size; i++) {
+            Element element = elements.get(i);
+            geometries[i] = element.getGeometry(scaleFactor);
+            Envelope envelope = new Envelope(geometries[i].getEnvelopeInternal());
+            envelope.expandBy(element.bufferDistance);
+            tree.insert(envelope, i);
+        }
+
+        for (int i = 0; i < size; i++) {
+            Element element = elements.get(i);
+            Envelope envelope = new Envelope(geometries[i].getEnvelopeInternal());
+            envelope.expandBy(element.bufferDistance);
+            for (Object item : tree.query(envelope)) {
+                int j = (Integer) item;
+                // each pair is tested once only
+                if (j <= i) {
+                    continue;
+                }
+                Element other = elements.get(j);
+                if (!isConflictPair(element, other)) {
+                    continue;
+                }
+                double minDistance = element.bufferDistance + other.bufferDistance - TOLERANCE;
+                if (geometries[i].isWithinDistance(geometries[j], minDistance) && isSolvableByScaling(element, other)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+
+    }
+
+    /**
+     * @return true if the skeletons of both elements does not touch in the unscaled map
+     */
+    private static boolean isSolvableByScaling(@NotNull Element a, @NotNull Element b) {
+        return a.skeleton.distance(b.skeleton) > 0;
+    }
+
+    /**
+     * @return the number of evaluated scale factors
+     */
+    public int getEvaluationCount() {
+        return evaluationCount;
+    }
+
+}
@@ -7,6 +7,8 @@ package ch.geomo.tramaps.map.displacement.scale;
 import ch.geomo.tramaps.conflict.Conflict;
 import ch.geomo.tramaps.graph.direction.OctilinearDirection;
 import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.AbstractLineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.LayoutStep;
 import ch.geomo.tramaps.map.displacement.LineSpaceHandler;
 import ch.geomo.util.collection.list.EnhancedList;
 import ch.geomo.util.geom.GeomUtil;
@@ -22,18 +24,34 @@ import java.util.Arrays;
 
 /**
  * This {@link LineSpaceHandler} implementation makes space by scaling the underlying graph.
+ * @see ScaleMode
  */
-public class ScaleHandler implements LineSpaceHandler {
+public class ScaleHandler extends AbstractLineSpaceHandler {
 
     /**
      * Max iteration until algorithm will be terminated when not found a non-conflict solution.
      */
     private static final int MAX_ITERATIONS = 100;
 
-    private final MetroMap map;
+    /**
+     * Max scale factor when bracketing the conflict-free scale factor.
+     */
+    private static final double MAX_SCALE_FACTOR = 1 << 16;
+
+    /**
+     * Relative precision of the bisected scale factor.
+     */
+    private static final double SCALE_FACTOR_EPSILON = 1e-4;
+
+    private final ScaleMode mode;
 
     public ScaleHandler(@NotNull MetroMap map) {
-        this.map = map;
+        this(map, ScaleMode.ITERATIVE);
+    }
+
+    public ScaleHandler(@NotNull MetroMap map, @NotNull ScaleMode mode) {
+        super(map);
+        this.mode = mode;
     }
 
     /**
@@ -75,11 +93,77 @@ public class ScaleHandler implements LineSpaceHandler {
         map.getNodes().forEach(node -> node.updatePosition(node.getX()*scaleFactor, node.getY()*scaleFactor));
     }
 
+    /**
+     * Evaluates the minimal conflict-free scale factor by doubling the scale factor until no conflicts are left
+     * and bisecting the interval afterwards. The returned scale factor is precise, see {@link GeomUtil#makePrecise(double)}.
+     * @return the minimal conflict-free scale factor or 1 if the map has no conflicts which can be solved by scaling
+     */
+    private double bisectScaleFactor(@NotNull ScaleConflictOracle oracle) {
+
+        if (!oracle.hasConflicts(1)) {
+            return 1;
+        }
+
+        double lower = 1;
+        double upper = 2;
+        while (oracle.hasConflicts(upper)) {
+            lower = upper;
+            upper = upper * 2;
+            if (upper > MAX_SCALE_FACTOR) {
+                Loggers.warning(this, "No conflict-free scale factor found up to {0}.", MAX_SCALE_FACTOR);
+                return lower;
+            }
+        }
+
+        while ((upper - lower) / lower > SCALE_FACTOR_EPSILON) {
+            checkInterrupted();
+            // only precise scale factors are evaluated, like the scale factors of the iterative mode
+            double middle = GeomUtil.makePrecise((lower + upper) / 2);
+            if (middle <= lower || middle >= upper) {
+                break;
+            }
+            if (oracle.hasConflicts(middle)) {
+                lower = middle;
+            }
+            else {
+                upper = middle;
+            }
+        }
+
+        return upper;
+
+    }
+
+    /**
+     * Makes space by scaling the map once with the minimal conflict-free scale factor. The scale factor is applied
+     * to the original node positions.
+     */
+    private void makeSpaceByBisection() {
+
+        Loggers.separator(this);
+        Loggers.info(this, "Evaluate scale factor by bisection...");
+
+        startIteration(ScaleMode.BISECTION.name(), 1);
+        ScaleConflictOracle oracle = new ScaleConflictOracle(map);
+        double scaleFactor = measure(LayoutStep.CONFLICT_DETECTION, () -> bisectScaleFactor(oracle));
+
+        Loggers.info(this, "Use scale factor: {0} ({1} evaluations)", scaleFactor, oracle.getEvaluationCount());
+        if (scaleFactor > 1) {
+            measure(LayoutStep.DISPLACEMENT, () -> scale(scaleFactor));
+        }
+        completeIteration();
+
+    }
+
     private void makeSpace(int lastIteration) {
 
         int currentIteration = lastIteration + 1;
 
-        EnhancedList<Conflict> conflicts = map.evaluateConflicts(true);
+        checkInterrupted();
+        startIteration(ScaleMode.ITERATIVE.name(), currentIteration);
+
+        EnhancedList<Conflict> conflicts = measure(LayoutStep.CONFLICT_DETECTION, () -> map.evaluateConflicts(true));
+        recordConflicts(conflicts);
 
         Loggers.separator(this);
         Loggers.info(this, "Iteration: {0}", currentIteration);
@@ -88,9 +172,12 @@ public class ScaleHandler implements LineSpaceHandler {
 
             Loggers.warning(this, "Conflicts found: {0}", conflicts.size());
 
-            double scaleFactor = evaluateScaleFactor(conflicts);
-            Loggers.info(this, "Use scale factor: " + scaleFactor);
-            scale(scaleFactor);
+            measure(LayoutStep.DISPLACEMENT, () -> {
+                double scaleFactor = evaluateScaleFactor(conflicts);
+                Loggers.info(this, () -> "Use scale factor: " + scaleFactor);
+                scale(scaleFactor);
+            });
+            completeIteration();
 
             if (currentIteration < MAX_ITERATIONS) {
                 makeSpace(currentIteration);
@@ -98,15 +185,16 @@ public class ScaleHandler implements LineSpaceHandler {
             else {
                 Loggers.separator(this);
                 Loggers.warning(this, "Max number set iteration reached. Stop algorithm.");
-                Loggers.info(this, getBoundingBoxString());
+                Loggers.info(this, this::getBoundingBoxString);
                 Loggers.separator(this);
             }
 
         }
         else {
+            completeIteration();
             Loggers.separator(this);
             Loggers.info(this, "No (more) conflicts found.");
-            Loggers.info(this, getBoundingBoxString());
+            Loggers.info(this, this::getBoundingBoxString);
             Loggers.separator(this);
         }
 
@@ -126,6 +214,10 @@ public class ScaleHandler implements LineSpaceHandler {
      */
     @Override
     public void makeSpace() {
+        if (mode == ScaleMode.BISECTION) {
+            makeSpaceByBisection();
+        }
+        // solves remaining conflicts when using bisection
         makeSpace(0);
     }
 
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement.scale;
+
+/**
+ * Defines how the {@link ScaleHandler} evaluates the scale factor.
+ */
+public enum ScaleMode {
+
+    /**
+     * Scales the map iteratively with the maximal scale factor of all current conflicts until no conflicts are left.
+     */
+    ITERATIVE,
+
+    /**
+     * Searches the minimal conflict-free scale factor by bracketing and bisection. Remaining conflicts which cannot
+     * be solved by scaling will be handled iteratively afterwards.
+     * @see ScaleConflictOracle
+     */
+    BISECTION
+
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.incremental;
+
+import ch.geomo.tramaps.conflict.Conflict;
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.LayoutListener;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceLineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceProgress.Phase;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import ch.geomo.util.collection.list.EnhancedList;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lays out an edited map starting from the layout of its previous version instead of starting from scratch.
+ * <p>
+ * Unchanged nodes are placed at their previous output positions and unchanged edges keep the bend nodes of the
+ * previous layout. Added and moved nodes are placed by interpolating the displacement of the nearest unchanged
+ * nodes. Afterwards, the {@link DisplaceLineSpaceHandler} evaluates conflicts around the edited elements only. If
+ * conflicts remain next to this region, the radius is doubled and the region is laid out again, until no conflicts
+ * remain, the region covers the whole map or the maximum number of rounds is reached. Conflicts the previous layout
+ * could not solve either would otherwise enlarge the region up to a full layout.
+ */
+public class IncrementalLayout {
+
+    /**
+     * Number of unchanged nodes used to interpolate the position of an added or moved node.
+     */
+    private static final int ANCHOR_COUNT = 4;
+
+    private static final double RADIUS_GROWTH = 2;
+
+    private final MetroMap previousLayout;
+    private final MetroMapDiff diff;
+    private final List<LayoutListener> listeners = new ArrayList<>();
+
+    private double initialRadius = 0;
+    private int maxRounds = 3;
+
+    /**
+     * @param previousLayout the laid-out map of the previous version of the input map
+     * @param diff the differences between the previous and the current version of the input map
+     */
+    public IncrementalLayout(@NotNull MetroMap previousLayout, @NotNull MetroMapDiff diff) {
+        this.previousLayout = previousLayout;
+        this.diff = diff;
+    }
+
+    /**
+     * Sets the distance around the edited elements in which conflicts are evaluated in the first round. By default,
+     * twice the average edge length is used.
+     */
+    @NotNull
+    public IncrementalLayout setInitialRadius(double initialRadius) {
+        if (initialRadius <= 0) {
+            throw new IllegalArgumentException("Initial radius must be positive.");
+        }
+        this.initialRadius = initialRadius;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rounds, each doubling the radius of the previous round. Default is 3.
+     */
+    @NotNull
+    public IncrementalLayout setMaxRounds(int maxRounds) {
+        if (maxRounds <= 0) {
+            throw new IllegalArgumentException("Maximum number of rounds must be positive.");
+        }
+        this.maxRounds = maxRounds;
+        return this;
+    }
+
+    /**
+     * Registers a listener receiving the metrics of each iteration of each round.
+     */
+    @NotNull
+    public IncrementalLayout addLayoutListener(@NotNull LayoutListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Creates the map of the current version of the input map and makes space around the edited elements. Neither
+     * the previous layout nor the input maps are modified.
+     * @return the laid-out map
+     */
+    @NotNull
+    public MetroMap makeSpace() {
+
+        MetroMap input = diff.getCurrent();
+        MetroMap map = new MetroMap(input.getRouteMargin(), input.getEdgeMargin(), input.getNodeMargin());
+
+        Set<String> changedNodeNames = new HashSet<>();
+        diff.getAddedNodes().forEach(node -> changedNodeNames.add(node.getName()));
+        diff.getMovedNodes().forEach(node -> changedNodeNames.add(node.getName()));
+
+        Map<String, Node> layoutNodes = MetroMapDiff.getNodesByName(previousLayout);
+        Set<String> previousNodeNames = MetroMapDiff.getNodesByName(diff.getPrevious()).keySet();
+
+        // unchanged nodes first, since they are the anchors of the other nodes
+        Map<Node, Node> nodes = new IdentityHashMap<>();
+        Map<Node, Node> layoutCopies = new IdentityHashMap<>();
+        List<Anchor> anchors = new ArrayList<>();
+        for (Node node : input.getNodes()) {
+            Node layoutNode = layoutNodes.get(node.getName());
+            if (layoutNode != null && !changedNodeNames.contains(node.getName())) {
+                Node copy = copyNode(node, layoutNode.getX(), layoutNode.getY());
+                nodes.put(node, copy);
+                layoutCopies.put(layoutNode, copy);
+                anchors.add(new Anchor(node, layoutNode));
+            }
+        }
+
+        Set<Node> seeds = new LinkedHashSet<>();
+        for (Node node : input.getNodes()) {
+            if (!nodes.containsKey(node)) {
+                Coordinate position = interpolatePosition(node, anchors);
+                Node copy = copyNode(node, position.x, position.y);
+                nodes.put(node, copy);
+                seeds.add(copy);
+            }
+        }
+
+        Set<Edge> changedEdges = new HashSet<>(diff.getAddedEdges());
+        changedEdges.addAll(diff.getReroutedEdges());
+
+        List<Node> bendNodes = new ArrayList<>();
+        int restoredEdgeCount = 0;
+        for (Edge edge : input.getEdges()) {
+            Node nodeA = nodes.get(edge.getNodeA());
+            Node nodeB = nodes.get(edge.getNodeB());
+            Route[] routes = edge.getRoutes().toArray(new Route[0]);
+            List<Edge> path = null;
+            if (!changedEdges.contains(edge) && !seeds.contains(nodeA) && !seeds.contains(nodeB)) {
+                path = findLayoutPath(layoutNodes.get(edge.getNodeA().getName()), layoutNodes.get(edge.getNodeB().getName()), MetroMapDiff.getRouteNames(edge), previousNodeNames);
+            }
+            if (path != null) {
+                copyLayoutPath(path, layoutCopies, routes, bendNodes);
+                restoredEdgeCount++;
+            }
+            else {
+                // changed edge or the previous layout of the edge is unknown
+                new Edge(nodeA, nodeB, edge.getOriginalDirection(edge.getNodeA()), routes);
+                seeds.add(nodeA);
+                seeds.add(nodeB);
+            }
+        }
+
+        // the neighbours of removed elements
+        Map<String, Node> inputNodes = MetroMapDiff.getNodesByName(input);
+        for (Edge edge : diff.getRemovedEdges()) {
+            for (Node node : Arrays.asList(edge.getNodeA(), edge.getNodeB())) {
+                Node inputNode = inputNodes.get(node.getName());
+                if (inputNode != null) {
+                    seeds.add(nodes.get(inputNode));
+                }
+            }
+        }
+
+        map.addNodes(nodes.values().toArray(new Node[0]));
+        map.addNodes(bendNodes.toArray(new Node[0]));
+        // edges were added to the nodes directly
+        map.updateGraph();
+
+        Loggers.info(this, "Restored {0} of {1} edges from previous layout, {2} edited nodes: {3}", restoredEdgeCount, input.getEdges().size(), seeds.size(), diff);
+
+        if (!seeds.isEmpty()) {
+            makeSpace(map, seeds);
+        }
+
+        return map;
+
+    }
+
+    /**
+     * Lays out the region around given edited nodes and enlarges the region as long as conflicts remain next to it.
+     */
+    private void makeSpace(@NotNull MetroMap map, @NotNull Collection<Node> seeds) {
+
+        double radius = initialRadius > 0 ? initialRadius : getDefaultRadius(map);
+
+        for (int round = 1; ; round++) {
+
+            double roundRadius = radius;
+            Loggers.info(this, "Round {0}: make space within a radius of {1}.", round, roundRadius);
+
+            DisplaceLineSpaceHandler handler = new DisplaceLineSpaceHandler(map)
+                    .setConflictScope(() -> getScope(seeds, roundRadius));
+            listeners.forEach(handler::addLayoutListener);
+            handler.makeSpace();
+
+            if (getScope(seeds, roundRadius).contains(map.getBoundingBox())) {
+                // whole map has been laid out
+                return;
+            }
+
+            if (round == maxRounds) {
+                return;
+            }
+
+            radius = roundRadius * RADIUS_GROWTH;
+            Phase phase = Phase.RESTORE_OCTILINEARITY;
+            EnhancedList<Conflict> conflicts = map.evaluateConflicts(true, phase.getCorrectionFactor(), phase.isMajorMisalignmentOnly(), getScope(seeds, radius));
+            if (conflicts.isEmpty()) {
+                return;
+            }
+
+            Loggers.warning(this, "{0} conflicts found next to the edited region.", conflicts.size());
+
+        }
+
+    }
+
+    /**
+     * @return twice the average edge length
+     */
+    private static double getDefaultRadius(@NotNull MetroMap map) {
+        double averageLength = map.getEdges().stream()
+                .mapToDouble(Edge::getLength)
+                .average()
+                .orElse(0);
+        return averageLength > 0 ? 2 * averageLength : 4 * Math.max(map.getNodeMargin(), map.getEdgeMargin());
+    }
+
+    /**
+     * @return the envelope of the current positions of given nodes expanded by given radius
+     */
+    @NotNull
+    private static Envelope getScope(@NotNull Collection<Node> seeds, double radius) {
+        Envelope envelope = new Envelope();
+        seeds.forEach(node -> envelope.expandToInclude(node.getCoordinate()));
+        envelope.expandBy(radius);
+        return envelope;
+    }
+
+    @NotNull
+    private static Node copyNode(@NotNull Node node, double x, double y) {
+        NodeSignatureType signatureType = NodeSignatureType.of(node.getNodeSignature());
+        return new Node(node.getName(), x, y, signatureType.getFactory());
+    }
+
+    /**
+     * Interpolates the output position of given input node by the inverse distance weighted displacement of the
+     * nearest unchanged nodes.
+     */
+    @NotNull
+    private static Coordinate interpolatePosition(@NotNull Node node, @NotNull List<Anchor> anchors) {
+
+        Coordinate position = node.getCoordinate();
+
+        List<Anchor> nearest = new ArrayList<>(anchors);
+        nearest.sort(Comparator.comparingDouble(anchor -> anchor.input.distance(position)));
+
+        double weightSum = 0;
+        double dx = 0;
+        double dy = 0;
+        for (Anchor anchor : nearest.subList(0, Math.min(ANCHOR_COUNT, nearest.size()))) {
+            double distance = anchor.input.distance(position);
+            if (distance == 0) {
+                return new Coordinate(position.x + anchor.dx, position.y + anchor.dy);
+            }
+            double weight = 1 / (distance * distance);
+            weightSum += weight;
+            dx += weight * anchor.dx;
+            dy += weight * anchor.dy;
+        }
+
+        if (weightSum == 0) {
+            return new Coordinate(position);
+        }
+        return new Coordinate(position.x + dx / weightSum, position.y + dy / weightSum);
+
+    }
+
+    /**
+     * Finds the edges of the previous layout connecting the given nodes with the given routes. The edges may pass
+     * bend nodes introduced by the previous layout.
+     * @return the edges starting at node A or null if there is no such path
+     */
+    @Nullable
+    private static List<Edge> findLayoutPath(@Nullable Node layoutNodeA, @Nullable Node layoutNodeB, @NotNull Set<String> routeNames, @NotNull Set<String> inputNodeNames) {
+
+        if (layoutNodeA == null || layoutNodeB == null) {
+            return null;
+        }
+
+        for (Edge first : layoutNodeA.getAdjacentEdges()) {
+            if (!MetroMapDiff.getRouteNames(first).equals(routeNames)) {
+                continue;
+            }
+            List<Edge> path = new ArrayList<>();
+            path.add(first);
+            Edge last = first;
+            Node node = first.getOtherNode(layoutNodeA);
+            // follow the nodes created by the previous layout
+            while (node != layoutNodeB && !inputNodeNames.contains(node.getName()) && node.getNodeDegree() == 2) {
+                Edge next = node.getAdjacentEdges(last).first().orElse(null);
+                if (next == null || !MetroMapDiff.getRouteNames(next).equals(routeNames)) {
+                    break;
+                }
+                path.add(next);
+                node = next.getOtherNode(node);
+                last = next;
+            }
+            if (node == layoutNodeB) {
+                return path;
+            }
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Copies the given edges of the previous layout and the bend nodes between them.
+     */
+    private static void copyLayoutPath(@NotNull List<Edge> path, @NotNull Map<Node, Node> layoutCopies, @NotNull Route[] routes, @NotNull List<Node> bendNodes) {
+        for (Edge edge : path) {
+            Node nodeA = copyLayoutNode(edge.getNodeA(), layoutCopies, bendNodes);
+            Node nodeB = copyLayoutNode(edge.getNodeB(), layoutCopies, bendNodes);
+            new Edge(nodeA, nodeB, edge.getOriginalDirection(edge.getNodeA()), routes);
+        }
+    }
+
+    @NotNull
+    private static Node copyLayoutNode(@NotNull Node layoutNode, @NotNull Map<Node, Node> layoutCopies, @NotNull List<Node> bendNodes) {
+        return layoutCopies.computeIfAbsent(layoutNode, node -> {
+            Node copy = copyNode(node, node.getX(), node.getY());
+            bendNodes.add(copy);
+            return copy;
+        });
+    }
+
+    /**
+     * An unchanged node with its displacement between input and previous layout.
+     */
+    private static final class Anchor {
+
+        private final Coordinate input;
+        private final double dx;
+        private final double dy;
+
+        private Anchor(@NotNull Node inputNode, @NotNull Node layoutNode) {
+            input = inputNode.getCoordinate();
+            dx = layoutNode.getX() - inputNode.getX();
+            dy = layoutNode.getY() - inputNode.getY();
+        }
+
+    }
+
+}
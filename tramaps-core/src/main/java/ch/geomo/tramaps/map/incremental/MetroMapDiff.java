@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.incremental;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.util.geom.GeomUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The differences between two versions of an input map. Nodes are matched by name and edges by the names of
+ * their nodes. A node is moved if its position differs on the precision grid of {@link GeomUtil}, an edge is
+ * rerouted if its set of routes differs.
+ */
+public final class MetroMapDiff {
+
+    private final MetroMap previous;
+    private final MetroMap current;
+
+    private final List<Node> addedNodes = new ArrayList<>();
+    private final List<Node> removedNodes = new ArrayList<>();
+    private final List<Node> movedNodes = new ArrayList<>();
+    private final List<Edge> addedEdges = new ArrayList<>();
+    private final List<Edge> removedEdges = new ArrayList<>();
+    private final List<Edge> reroutedEdges = new ArrayList<>();
+    private final Set<String> addedRoutes = new LinkedHashSet<>();
+    private final Set<String> removedRoutes = new LinkedHashSet<>();
+
+    private MetroMapDiff(@NotNull MetroMap previous, @NotNull MetroMap current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * Compares the given versions of an input map.
+     */
+    @NotNull
+    public static MetroMapDiff between(@NotNull MetroMap previous, @NotNull MetroMap current) {
+
+        MetroMapDiff diff = new MetroMapDiff(previous, current);
+
+        Map<String, Node> previousNodes = getNodesByName(previous);
+        Map<String, Node> currentNodes = getNodesByName(current);
+        for (Node node : currentNodes.values()) {
+            Node previousNode = previousNodes.get(node.getName());
+            if (previousNode == null) {
+                diff.addedNodes.add(node);
+            }
+            else if (!hasSamePosition(node, previousNode)) {
+                diff.movedNodes.add(node);
+            }
+        }
+        for (Node node : previousNodes.values()) {
+            if (!currentNodes.containsKey(node.getName())) {
+                diff.removedNodes.add(node);
+            }
+        }
+
+        Map<String, Edge> previousEdges = getEdgesByKey(previous);
+        Map<String, Edge> currentEdges = getEdgesByKey(current);
+        for (Map.Entry<String, Edge> entry : currentEdges.entrySet()) {
+            Edge previousEdge = previousEdges.get(entry.getKey());
+            if (previousEdge == null) {
+                diff.addedEdges.add(entry.getValue());
+            }
+            else if (!getRouteNames(entry.getValue()).equals(getRouteNames(previousEdge))) {
+                diff.reroutedEdges.add(entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Edge> entry : previousEdges.entrySet()) {
+            if (!currentEdges.containsKey(entry.getKey())) {
+                diff.removedEdges.add(entry.getValue());
+            }
+        }
+
+        Set<String> previousRoutes = getRouteNames(previous);
+        Set<String> currentRoutes = getRouteNames(current);
+        for (String route : currentRoutes) {
+            if (!previousRoutes.contains(route)) {
+                diff.addedRoutes.add(route);
+            }
+        }
+        for (String route : previousRoutes) {
+            if (!currentRoutes.contains(route)) {
+                diff.removedRoutes.add(route);
+            }
+        }
+
+        return diff;
+
+    }
+
+    @NotNull
+    static Map<String, Node> getNodesByName(@NotNull MetroMap map) {
+        Map<String, Node> nodes = new LinkedHashMap<>();
+        for (Node node : map.getNodes()) {
+            nodes.put(node.getName(), node);
+        }
+        return nodes;
+    }
+
+    @NotNull
+    static Map<String, Edge> getEdgesByKey(@NotNull MetroMap map) {
+        Map<String, Edge> edges = new LinkedHashMap<>();
+        for (Edge edge : map.getEdges()) {
+            edges.put(getEdgeKey(edge), edge);
+        }
+        return edges;
+    }
+
+    /**
+     * @return a key of given edge independent of the order of its nodes
+     */
+    @NotNull
+    static String getEdgeKey(@NotNull Edge edge) {
+        String a = edge.getNodeA().getName();
+        String b = edge.getNodeB().getName();
+        return a.compareTo(b) < 0 ? a + '\u0000' + b : b + '\u0000' + a;
+    }
+
+    @NotNull
+    static Set<String> getRouteNames(@NotNull Edge edge) {
+        Set<String> names = new HashSet<>();
+        for (Route route : edge.getRoutes()) {
+            names.add(route.getName());
+        }
+        return names;
+    }
+
+    @NotNull
+    private static Set<String> getRouteNames(@NotNull MetroMap map) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Edge edge : map.getEdges()) {
+            for (Route route : edge.getRoutes()) {
+                names.add(route.getName());
+            }
+        }
+        return names;
+    }
+
+    static boolean hasSamePosition(@NotNull Node node, @Nullable Node other) {
+        return other != null
+                && GeomUtil.makePrecise(node.getX()) == GeomUtil.makePrecise(other.getX())
+                && GeomUtil.makePrecise(node.getY()) == GeomUtil.makePrecise(other.getY());
+    }
+
+    /**
+     * @return the previous version of the input map
+     */
+    @NotNull
+    public MetroMap getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return the current version of the input map
+     */
+    @NotNull
+    public MetroMap getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return the nodes of the current map which are not part of the previous map
+     */
+    @NotNull
+    public List<Node> getAddedNodes() {
+        return Collections.unmodifiableList(addedNodes);
+    }
+
+    /**
+     * @return the nodes of the previous map which are not part of the current map
+     */
+    @NotNull
+    public List<Node> getRemovedNodes() {
+        return Collections.unmodifiableList(removedNodes);
+    }
+
+    /**
+     * @return the nodes of the current map whose position has changed
+     */
+    @NotNull
+    public List<Node> getMovedNodes() {
+        return Collections.unmodifiableList(movedNodes);
+    }
+
+    /**
+     * @return the edges of the current map which are not part of the previous map
+     */
+    @NotNull
+    public List<Edge> getAddedEdges() {
+        return Collections.unmodifiableList(addedEdges);
+    }
+
+    /**
+     * @return the edges of the previous map which are not part of the current map
+     */
+    @NotNull
+    public List<Edge> getRemovedEdges() {
+        return Collections.unmodifiableList(removedEdges);
+    }
+
+    /**
+     * @return the edges of the current map whose routes have changed
+     */
+    @NotNull
+    public List<Edge> getReroutedEdges() {
+        return Collections.unmodifiableList(reroutedEdges);
+    }
+
+    @NotNull
+    public Set<String> getAddedRoutes() {
+        return Collections.unmodifiableSet(addedRoutes);
+    }
+
+    @NotNull
+    public Set<String> getRemovedRoutes() {
+        return Collections.unmodifiableSet(removedRoutes);
+    }
+
+    /**
+     * @return true if both versions are equal
+     */
+    public boolean isEmpty() {
+        return addedNodes.isEmpty() && removedNodes.isEmpty() && movedNodes.isEmpty()
+                && addedEdges.isEmpty() && removedEdges.isEmpty() && reroutedEdges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "MetroMapDiff: {nodes=+" + addedNodes.size() + "/-" + removedNodes.size() + "/~" + movedNodes.size()
+                + ", edges=+" + addedEdges.size() + "/-" + removedEdges.size() + "/~" + reroutedEdges.size()
+                + ", routes=+" + addedRoutes.size() + "/-" + removedRoutes.size() + "}";
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.signature;
+
+import ch.geomo.tramaps.graph.Node;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Function;
+
+/**
+ * Enumerates the available {@link NodeSignature} implementations in order to reference them in persisted maps.
+ */
+public enum NodeSignatureType {
+
+    RECTANGLE(RectangleStationSignature.class, RectangleStationSignature::new),
+    SQUARE(SquareStationSignature.class, SquareStationSignature::new),
+    BEND(BendNodeSignature.class, BendNodeSignature::new);
+
+    private final Class<? extends NodeSignature> signatureClass;
+    private final Function<Node, NodeSignature> factory;
+
+    NodeSignatureType(@NotNull Class<? extends NodeSignature> signatureClass, @NotNull Function<Node, NodeSignature> factory) {
+        this.signatureClass = signatureClass;
+        this.factory = factory;
+    }
+
+    /**
+     * @return a factory creating signatures of this type
+     */
+    @NotNull
+    public Function<Node, NodeSignature> getFactory() {
+        return factory;
+    }
+
+    /**
+     * @return the type of the given {@link NodeSignature}
+     * @throws IllegalArgumentException if the signature's class is unknown
+     */
+    @NotNull
+    public static NodeSignatureType of(@NotNull NodeSignature signature) {
+        for (NodeSignatureType type : values()) {
+            if (type.signatureClass == signature.getClass()) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown node signature: " + signature.getClass().getName());
+    }
+
+}
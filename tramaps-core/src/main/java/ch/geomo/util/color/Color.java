@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.util.color;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * An immutable RGB color with opacity. Unlike the JavaFX or AWT colors, this class does not depend on any UI
+ * toolkit and can be used headless. The named colors correspond to the CSS color keywords.
+ */
+public final class Color {
+
+    public static final Color BLACK = rgb(0, 0, 0);
+    public static final Color WHITE = rgb(255, 255, 255);
+    public static final Color LIGHTGRAY = rgb(211, 211, 211);
+    public static final Color RED = rgb(255, 0, 0);
+    public static final Color GREEN = rgb(0, 128, 0);
+    public static final Color BLUE = rgb(0, 0, 255);
+    public static final Color YELLOW = rgb(255, 255, 0);
+    public static final Color ORANGE = rgb(255, 165, 0);
+    public static final Color MAGENTA = rgb(255, 0, 255);
+
+    private final int red;
+    private final int green;
+    private final int blue;
+    private final double opacity;
+
+    private String hex;
+
+    private Color(int red, int green, int blue, double opacity) {
+        this.red = checkComponent(red);
+        this.green = checkComponent(green);
+        this.blue = checkComponent(blue);
+        if (opacity < 0 || opacity > 1) {
+            throw new IllegalArgumentException("Opacity must be within 0 and 1: " + opacity);
+        }
+        this.opacity = opacity;
+    }
+
+    private static int checkComponent(int value) {
+        if (value < 0 || value > 255) {
+            throw new IllegalArgumentException("Color component must be within 0 and 255: " + value);
+        }
+        return value;
+    }
+
+    @NotNull
+    public static Color rgb(int red, int green, int blue) {
+        return new Color(red, green, blue, 1);
+    }
+
+    @NotNull
+    public static Color rgb(int red, int green, int blue, double opacity) {
+        return new Color(red, green, blue, opacity);
+    }
+
+    /**
+     * Creates a color from a hexadecimal string like <tt>#rrggbb</tt> or <tt>#rrggbbaa</tt>. The leading hash
+     * is optional.
+     * @throws IllegalArgumentException if the given string is not a valid color
+     */
+    @NotNull
+    public static Color fromHex(@NotNull String hex) {
+        String value = hex.startsWith("#") ? hex.substring(1) : hex;
+        if (value.length() != 6 && value.length() != 8) {
+            throw new IllegalArgumentException("Invalid color: " + hex);
+        }
+        try {
+            int red = Integer.parseInt(value.substring(0, 2), 16);
+            int green = Integer.parseInt(value.substring(2, 4), 16);
+            int blue = Integer.parseInt(value.substring(4, 6), 16);
+            int alpha = value.length() == 8 ? Integer.parseInt(value.substring(6, 8), 16) : 255;
+            return new Color(red, green, blue, alpha / 255d);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid color: " + hex, e);
+        }
+    }
+
+    public int getRed() {
+        return red;
+    }
+
+    public int getGreen() {
+        return green;
+    }
+
+    public int getBlue() {
+        return blue;
+    }
+
+    public double getOpacity() {
+        return opacity;
+    }
+
+    /**
+     * @return this color as a hexadecimal string, <tt>#rrggbb</tt> if opaque, otherwise <tt>#rrggbbaa</tt>
+     */
+    @NotNull
+    public String toHex() {
+        // cached since colors are written for each edge when exporting
+        if (hex == null) {
+            if (opacity == 1) {
+                hex = String.format(Locale.ROOT, "#%02x%02x%02x", red, green, blue);
+            }
+            else {
+                hex = String.format(Locale.ROOT, "#%02x%02x%02x%02x", red, green, blue, (int) Math.round(opacity * 255));
+            }
+        }
+        return hex;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Color
+                && red == ((Color) obj).red
+                && green == ((Color) obj).green
+                && blue == ((Color) obj).blue
+                && opacity == ((Color) obj).opacity;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(red, green, blue, opacity);
+    }
+
+    @Override
+    public String toString() {
+        return "Color: {" + toHex() + "}";
+    }
+
+}
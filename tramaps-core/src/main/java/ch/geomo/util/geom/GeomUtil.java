@@ -19,7 +19,8 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
- * Provides helper methods for creating and manipulating geometries.
+ * Provides helper methods for creating and manipulating geometries. The shared {@link PrecisionModel} and
+ * {@link GeometryFactory} are not modified after creation and may be used by concurrent layout jobs.
  */
 public enum GeomUtil {
 
@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.util.json;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A pull parser reading a JSON document token by token from a {@link Reader}. Only the current token is held in
+ * memory, the document is never loaded completely. Syntax errors are reported as {@link IOException} with line
+ * and column.
+ */
+public class JsonReader implements Closeable {
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    private int line = 1;
+    private int lineStart = 0;
+
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+
+    private final StringBuilder builder = new StringBuilder();
+
+    /**
+     * The peeked token or null if the next token was not peeked yet. The position is located at the first
+     * character of the token's value (after the opening quote for strings and names).
+     */
+    private JsonToken peeked;
+
+    public JsonReader(@NotNull Reader in) {
+        this.in = in;
+        push(EMPTY_DOCUMENT);
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * Reads more characters into the buffer.
+     * @return false if the end of the input is reached
+     */
+    private boolean fill() throws IOException {
+        lineStart -= limit;
+        pos = 0;
+        limit = 0;
+        int count = in.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        limit = count;
+        return true;
+    }
+
+    /**
+     * @return the next non-whitespace character or -1 at the end of the input
+     */
+    private int nextNonWhitespace() throws IOException {
+        while (pos < limit || fill()) {
+            char c = buffer[pos++];
+            if (c == '\n') {
+                line++;
+                lineStart = pos;
+            }
+            else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    @NotNull
+    private IOException syntaxError(@NotNull String message) {
+        return new IOException(message + " at line " + line + ", column " + (pos - lineStart) + ".");
+    }
+
+    /**
+     * @return the type of the next token without consuming it
+     * @throws IOException if the document is malformed
+     */
+    @NotNull
+    public JsonToken peek() throws IOException {
+
+        if (peeked != null) {
+            return peeked;
+        }
+
+        int scope = stack[stackSize - 1];
+        int c;
+
+        switch (scope) {
+            case EMPTY_ARRAY:
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = JsonToken.END_ARRAY;
+                }
+                if (scope == NONEMPTY_ARRAY) {
+                    if (c != ',') {
+                        throw syntaxError("Expected ',' or ']'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                return peeked = peekValue(c);
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = JsonToken.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("Expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("Expected name");
+                }
+                stack[stackSize - 1] = DANGLING_NAME;
+                return peeked = JsonToken.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                return peeked = peekValue(nextNonWhitespace());
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return peeked = peekValue(nextNonWhitespace());
+            default:
+                if (nextNonWhitespace() != -1) {
+                    throw syntaxError("Expected end of document");
+                }
+                return peeked = JsonToken.END_DOCUMENT;
+        }
+
+    }
+
+    @NotNull
+    private JsonToken peekValue(int c) throws IOException {
+        switch (c) {
+            case '{':
+                return JsonToken.BEGIN_OBJECT;
+            case '[':
+                return JsonToken.BEGIN_ARRAY;
+            case '"':
+                return JsonToken.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return JsonToken.BOOLEAN;
+            case 'n':
+                pos--;
+                return JsonToken.NULL;
+            case -1:
+                throw syntaxError("Unexpected end of document");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return JsonToken.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void expect(@NotNull JsonToken token) throws IOException {
+        if (peek() != token) {
+            throw syntaxError("Expected " + token + " but was " + peeked);
+        }
+        peeked = null;
+    }
+
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        stackSize--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        stackSize--;
+    }
+
+    /**
+     * @return true if the current object or array has another element
+     */
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    @NotNull
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        return readString();
+    }
+
+    /**
+     * @return the next string value, numbers and booleans are returned as their literal
+     */
+    @NotNull
+    public String nextString() throws IOException {
+        JsonToken token = peek();
+        peeked = null;
+        switch (token) {
+            case STRING:
+                return readString();
+            case NUMBER:
+            case BOOLEAN:
+                return readLiteral();
+            default:
+                throw syntaxError("Expected STRING but was " + token);
+        }
+    }
+
+    /**
+     * @return the next number value, strings are parsed as number
+     */
+    public double nextDouble() throws IOException {
+        JsonToken token = peek();
+        peeked = null;
+        String value;
+        if (token == JsonToken.NUMBER) {
+            value = readLiteral();
+        }
+        else if (token == JsonToken.STRING) {
+            value = readString();
+        }
+        else {
+            throw syntaxError("Expected NUMBER but was " + token);
+        }
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            throw syntaxError("Invalid number " + value);
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        String value = readLiteral();
+        if ("true".equals(value)) {
+            return true;
+        }
+        if ("false".equals(value)) {
+            return false;
+        }
+        throw syntaxError("Invalid literal " + value);
+    }
+
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        String value = readLiteral();
+        if (!"null".equals(value)) {
+            throw syntaxError("Invalid literal " + value);
+        }
+    }
+
+    /**
+     * Skips the next value including nested objects and arrays.
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of document");
+                default:
+                    nextString();
+            }
+        }
+        while (depth > 0);
+    }
+
+    /**
+     * Reads a number or literal until the next delimiter.
+     */
+    @NotNull
+    private String readLiteral() throws IOException {
+        builder.setLength(0);
+        while (pos < limit || fill()) {
+            char c = buffer[pos];
+            if (c == ',' || c == ']' || c == '}' || c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                break;
+            }
+            builder.append(c);
+            pos++;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Reads a string after its opening quote including the closing quote.
+     */
+    @NotNull
+    private String readString() throws IOException {
+        builder.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == '"') {
+                    if (builder.length() == 0) {
+                        // fast path without escapes within the buffer
+                        return new String(buffer, start, pos - start - 1);
+                    }
+                    builder.append(buffer, start, pos - start - 1);
+                    return builder.toString();
+                }
+                if (c == '\\') {
+                    builder.append(buffer, start, pos - start - 1);
+                    builder.append(readEscape());
+                    start = pos;
+                }
+                else if (c < 0x20) {
+                    throw syntaxError("Unescaped control character in string");
+                }
+            }
+            builder.append(buffer, start, pos - start);
+            if (!fill()) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private char nextChar() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Unterminated string");
+        }
+        return buffer[pos++];
+    }
+
+    private char readEscape() throws IOException {
+        char c = nextChar();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(nextChar(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+                    value = (value << 4) + digit;
+                }
+                return (char) value;
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw syntaxError("Invalid escape '\\" + c + "'");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.util.json;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes a JSON document token by token to a {@link Writer}. Separators are inserted automatically, nothing but
+ * the nesting state is held in memory.
+ */
+public class JsonWriter implements Closeable, Flushable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    /**
+     * True for each open object or array which has at least one element.
+     */
+    private boolean[] nonEmpty = new boolean[32];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    public JsonWriter(@NotNull Writer out) {
+        this.out = out;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (nonEmpty[depth - 1]) {
+                out.write(',');
+            }
+            nonEmpty[depth - 1] = true;
+        }
+    }
+
+    @NotNull
+    private JsonWriter open(char bracket) throws IOException {
+        beforeValue();
+        if (depth == nonEmpty.length) {
+            nonEmpty = Arrays.copyOf(nonEmpty, depth * 2);
+        }
+        nonEmpty[depth++] = false;
+        out.write(bracket);
+        return this;
+    }
+
+    @NotNull
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Nothing to close.");
+        }
+        depth--;
+        out.write(bracket);
+        return this;
+    }
+
+    @NotNull
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    @NotNull
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    @NotNull
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    @NotNull
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    @NotNull
+    public JsonWriter name(@NotNull String name) throws IOException {
+        if (afterName) {
+            throw new IllegalStateException("Value expected after name.");
+        }
+        beforeValue();
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    @NotNull
+    public JsonWriter value(@Nullable String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    /**
+     * Writes given number. Integral values are written without fraction.
+     * @throws IllegalArgumentException if the value is NaN or infinite
+     */
+    @NotNull
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON does not support " + value + ".");
+        }
+        beforeValue();
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.write(Long.toString((long) value));
+        }
+        else {
+            out.write(Double.toString(value));
+        }
+        return this;
+    }
+
+    @NotNull
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    @NotNull
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    @NotNull
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+
+    private void writeString(@NotNull String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xf]);
+            }
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
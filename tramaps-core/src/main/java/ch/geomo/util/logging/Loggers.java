@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.util.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Provides helper methods for logging. Loggers are cached per class and may be used concurrently. A context (e.g.
+ * the name of a batch job) can be set per thread and will be added to each message logged by that thread.
+ * <p>
+ * Messages are only formatted if their level is enabled. Messages built by concatenation should be passed as
+ * {@link Supplier}, e.g. <code>Loggers.debug(this, () -&gt; "Moved " + node.getName())</code>, in order to cost
+ * nothing when the level is disabled.
+ */
+public enum Loggers {
+
+    /* util class */;
+
+    private static final ClassValue<Logger> cache = new ClassValue<Logger>() {
+        @Override
+        protected Logger computeValue(Class<?> type) {
+            return Logger.getLogger(type.getSimpleName());
+        }
+    };
+    private static final ThreadLocal<String> context = new ThreadLocal<>();
+
+    static {
+        // read from classpath in order to work standalone as well
+        try (InputStream in = Loggers.class.getResourceAsStream("/logging.properties")) {
+            if (in != null) {
+                LogManager.getLogManager().readConfiguration(in);
+            }
+        }
+        catch (IOException e) {
+            Logger.getGlobal().severe("Cannot read Logger configuration!");
+        }
+    }
+
+    /**
+     * Sets the context of the current thread. The context will be added to each message logged by the current thread
+     * until {@link #clearContext()} is called.
+     */
+    public static void setContext(@NotNull String name) {
+        context.set(name);
+    }
+
+    /**
+     * @return the context of the current thread or null if not set
+     */
+    @Nullable
+    public static String getContext() {
+        return context.get();
+    }
+
+    /**
+     * Removes the context of the current thread.
+     */
+    public static void clearContext() {
+        context.remove();
+    }
+
+    /**
+     * @return given message with the mark character and the context of the current thread as prefix
+     */
+    @NotNull
+    private static String format(char markCharacter, @NotNull String message) {
+        String name = context.get();
+        if (name == null) {
+            return " " + markCharacter + "  " + message;
+        }
+        return " " + markCharacter + "  [" + name + "] " + message;
+    }
+
+    @NotNull
+    public static Logger get(@NotNull Object obj) {
+        return getLogger(obj);
+    }
+
+    /**
+     * @return true if the logger of given object logs messages of given level
+     */
+    public static boolean isLoggable(@NotNull Object obj, @NotNull Level level) {
+        return get(obj).isLoggable(level);
+    }
+
+    public static boolean isDebugEnabled(@NotNull Object obj) {
+        return isLoggable(obj, Level.FINEST);
+    }
+
+    /**
+     * Logs given message if the level is enabled. The message is formatted with given parameters only if it is
+     * logged, hence the parameters should be passed as they are instead of passing their string representation.
+     */
+    private static void log(@NotNull Object obj, @NotNull Level level, char markCharacter, @NotNull String message, @Nullable Object[] params) {
+        Logger logger = get(obj);
+        if (logger.isLoggable(level)) {
+            logger.log(level, format(markCharacter, params == null ? message : MessageFormat.format(message, params)));
+        }
+    }
+
+    /**
+     * Logs the message provided by given supplier if the level is enabled. The supplier is not invoked otherwise.
+     */
+    private static void log(@NotNull Object obj, @NotNull Level level, char markCharacter, @NotNull Supplier<String> message) {
+        Logger logger = get(obj);
+        if (logger.isLoggable(level)) {
+            logger.log(level, format(markCharacter, message.get()));
+        }
+    }
+
+    public static void flag(@NotNull Object obj, @NotNull String message) {
+        log(obj, Level.INFO, '*', message, null);
+    }
+
+    public static void flag(@NotNull Object obj, @NotNull String message, @NotNull Object... params) {
+        log(obj, Level.INFO, '*', message, params);
+    }
+
+    public static void separator(@NotNull Object obj) {
+        info(obj, "==================================================================================================");
+    }
+
+    public static void debug(@NotNull Object obj, @NotNull String message) {
+        log(obj, Level.FINEST, ' ', message, null);
+    }
+
+    public static void debug(@NotNull Object obj, @NotNull Supplier<String> message) {
+        log(obj, Level.FINEST, ' ', message);
+    }
+
+    public static void info(@NotNull Object obj, @NotNull String message, char markCharacter) {
+        log(obj, Level.INFO, markCharacter, message, null);
+    }
+
+    public static void info(@NotNull Object obj, @NotNull String message) {
+        info(obj, message, 'i');
+    }
+
+    public static void info(@NotNull Object obj, @NotNull String message, @NotNull Object... params) {
+        log(obj, Level.INFO, 'i', message, params);
+    }
+
+    public static void info(@NotNull Object obj, @NotNull Supplier<String> message) {
+        log(obj, Level.INFO, 'i', message);
+    }
+
+    public static void warning(@NotNull Object obj, @NotNull String message) {
+//        get(obj).warning(format('!', message));
+    }
+
+    public static void warning(@NotNull Object obj, @NotNull String message, @NotNull Object... params) {
+        log(obj, Level.WARNING, '!', message, params);
+    }
+
+    public static void warning(@NotNull Object obj, @NotNull Supplier<String> message) {
+        log(obj, Level.WARNING, '!', message);
+    }
+
+    public static void error(@NotNull Object obj, @NotNull String message) {
+        log(obj, Level.SEVERE, 'E', message, null);
+    }
+
+    public static void error(@NotNull Object obj, @NotNull String message, @NotNull Object... params) {
+        log(obj, Level.SEVERE, 'E', message, params);
+    }
+
+    @NotNull
+    public static Logger get(@NotNull Class objClass) {
+        return getLogger(objClass);
+    }
+
+    @NotNull
+    public static Logger getLogger(@NotNull Object obj) {
+        if (obj instanceof Class) {
+            return getLogger((Class) obj);
+        }
+        return getLogger(obj.getClass());
+    }
+
+    @NotNull
+    public static Logger getLogger(@NotNull Class objClass) {
+        return cache.get(objClass);
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.cache;
+
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandlerType;
+import ch.geomo.tramaps.map.signature.RectangleStationSignature;
+import ch.geomo.util.color.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class LayoutCacheKeyTest {
+
+    private static final Route RED = new Route("S1", 10, Color.RED);
+    private static final Route BLUE = new Route("S2", 5, Color.BLUE);
+
+    private static MetroMap createMap() {
+        MetroMap map = new MetroMap(2, 25, 25);
+        Node a = map.createNode(0, 0, "A", RectangleStationSignature::new);
+        Node b = map.createNode(100, 0, "B", RectangleStationSignature::new);
+        Node c = map.createNode(100, 100, "C", RectangleStationSignature::new);
+        map.createEdge(a, b, RED, BLUE);
+        map.createEdge(b, c, RED);
+        return map;
+    }
+
+    @Test
+    void testReordering() {
+
+        // nodes and edges created in reverse order, edge B-C reversed and coordinates off the precision grid
+        MetroMap map = new MetroMap(2, 25, 25);
+        Node c = map.createNode(100, 100.000001, "C", RectangleStationSignature::new);
+        Node b = map.createNode(100, 0, "B", RectangleStationSignature::new);
+        Node a = map.createNode(0.000001, 0, "A", RectangleStationSignature::new);
+        map.createEdge(c, b, RED);
+        map.createEdge(a, b, RED, BLUE);
+
+        LayoutCacheKey key = LayoutCacheKey.of(createMap(), LineSpaceHandlerType.DISPLACE);
+        assertEquals(key, LayoutCacheKey.of(map, LineSpaceHandlerType.DISPLACE));
+        assertEquals(key, LayoutCacheKey.of(createMap(), LineSpaceHandlerType.DISPLACE));
+
+    }
+
+    @Test
+    void testChanges() {
+
+        LayoutCacheKey key = LayoutCacheKey.of(createMap(), LineSpaceHandlerType.DISPLACE);
+        assertNotEquals(key, LayoutCacheKey.of(createMap(), LineSpaceHandlerType.SCALE));
+
+        MetroMap moved = createMap();
+        moved.getNodes().first().ifPresent(node -> node.updatePosition(node.getX() + 1, node.getY()));
+        assertNotEquals(key, LayoutCacheKey.of(moved, LineSpaceHandlerType.DISPLACE));
+
+        MetroMap extended = createMap();
+        Node d = extended.createNode(0, 100, "D", RectangleStationSignature::new);
+        extended.getNodes().stream()
+                .filter(node -> node.getName().equals("C"))
+                .forEach(node -> extended.createEdge(node, d, BLUE));
+        assertNotEquals(key, LayoutCacheKey.of(extended, LineSpaceHandlerType.DISPLACE));
+
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.geojson;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.RectangleStationSignature;
+import ch.geomo.util.color.Color;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GeoJsonMetroMapWriterTest {
+
+    private static Set<String> describeNodes(MetroMap map) {
+        Set<String> nodes = new HashSet<>();
+        // the signature depends on the adjacent edges
+        map.getNodes().forEach(node -> nodes.add(node.getName() + " " + node.getX() + " " + node.getY() + " "
+                + node.getNodeSignature().getGeometry().getEnvelopeInternal()));
+        return nodes;
+    }
+
+    private static Map<String, Set<Route>> describeEdges(MetroMap map) {
+        Map<String, Set<Route>> edges = new HashMap<>();
+        for (Edge edge : map.getEdges()) {
+            String a = edge.getNodeA().getName();
+            String b = edge.getNodeB().getName();
+            edges.put(a.compareTo(b) < 0 ? a + "-" + b : b + "-" + a, new HashSet<>(edge.getRoutes()));
+        }
+        return edges;
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+
+        MetroMap map = new MetroMap(3, 20, 30);
+        Route red = new Route("S1", 20, Color.RED);
+        Route blue = new Route("S2", 10, Color.BLUE);
+        Node a = map.createNode(0, 0, "A", RectangleStationSignature::new);
+        Node b = map.createNode(100, 0, "B", RectangleStationSignature::new);
+        Node c = map.createNode(100, 100, "C", RectangleStationSignature::new);
+        Node d = map.createNode(200.5, 50.25, "D", RectangleStationSignature::new);
+        map.createEdge(a, b, red, blue);
+        map.createEdge(b, c, red);
+        map.createEdge(b, d, blue);
+
+        Path file = Files.createTempFile("tramaps", ".geojson");
+        try {
+            new GeoJsonMetroMapWriter().write(map, file);
+            MetroMap result = new GeoJsonMetroMapReader().read(file);
+
+            assertEquals(3, result.getRouteMargin(), 0);
+            assertEquals(20, result.getEdgeMargin(), 0);
+            assertEquals(30, result.getNodeMargin(), 0);
+            assertEquals(describeNodes(map), describeNodes(result));
+            assertEquals(describeEdges(map), describeEdges(result));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.gtfs;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsvReaderTest {
+
+    @Test
+    void testQuotedFields() throws IOException {
+
+        CsvReader csv = new CsvReader(new StringReader("\uFEFFstop_id,stop_name,stop_lat\n"
+                + "1,\"Bahnhof, Nord\",47.5\n"
+                + "2,\"Say \"\"Hello\"\"\",\n"
+                + "3,\"Two\nLines\",\"47.25\""));
+
+        int name = csv.getColumn("stop_name");
+        int latitude = csv.getRequiredColumn("stop_lat");
+        assertEquals(0, csv.getColumn("stop_id"));
+
+        assertTrue(csv.next());
+        assertEquals("Bahnhof, Nord", csv.get(name));
+        assertEquals(47.5, csv.getDouble(latitude, 0), 0);
+
+        assertTrue(csv.next());
+        assertEquals("Say \"Hello\"", csv.get(name));
+        assertTrue(csv.isEmpty(latitude));
+
+        assertTrue(csv.next());
+        assertEquals("Two\nLines", csv.get(name));
+        assertEquals(47.25, csv.getDouble(latitude, 0), 0);
+        assertEquals(5, csv.getLineNumber());
+
+        assertFalse(csv.next());
+
+    }
+
+    @Test
+    void testLineBreaks() throws IOException {
+
+        CsvReader csv = new CsvReader(new StringReader("trip_id,stop_sequence\r\n\r\nA,1\r\nB,2\r\n"));
+
+        assertTrue(csv.next());
+        assertEquals("A", csv.get(0));
+        assertEquals(1, csv.getInt(1, 0));
+        assertEquals(3, csv.getLineNumber());
+
+        assertTrue(csv.next());
+        assertEquals("B", csv.get(0));
+        assertEquals(2, csv.getInt(1, 0));
+
+        assertFalse(csv.next());
+
+    }
+
+    @Test
+    void testUnterminatedQuote() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("stop_id,stop_name\n1,\"Bahnhof\n"));
+        assertThrows(IOException.class, csv::next);
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.gtfs;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.map.MetroMap;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GtfsMetroMapReaderTest {
+
+    private static void write(Path directory, String fileName, String content) throws IOException {
+        Files.write(directory.resolve(fileName), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void delete(Path directory) throws IOException {
+        for (String fileName : new String[]{"routes.txt", "stops.txt", "trips.txt", "stop_times.txt"}) {
+            Files.deleteIfExists(directory.resolve(fileName));
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void testCollapseIdenticalTrips() throws IOException {
+
+        Path directory = Files.createTempDirectory("tramaps-gtfs");
+        try {
+            write(directory, "routes.txt", "route_id,route_short_name,route_type,route_color\r\n"
+                    + "r1,S1,2,FF0000\r\n"
+                    + "r2,S2,2,0000FF\r\n");
+            write(directory, "stops.txt", "stop_id,stop_name,stop_lat,stop_lon,parent_station\r\n"
+                    + "a,A,47.00,8.00,\r\n"
+                    + "b,B,47.00,8.01,\r\n"
+                    + "b1,\"B, Platform 1\",47.00,8.01,b\r\n"
+                    + "c,C,47.01,8.01,\r\n");
+            write(directory, "trips.txt", "route_id,trip_id\r\n"
+                    + "r1,t1\r\n"
+                    + "r1,t2\r\n"
+                    + "r1,t3\r\n"
+                    + "r2,t4\r\n");
+            // t2 serves the same stations as t1 (platform instead of station, unordered rows), t3 in reverse
+            write(directory, "stop_times.txt", "trip_id,stop_id,stop_sequence\r\n"
+                    + "t1,a,1\r\n"
+                    + "t1,b,2\r\n"
+                    + "t1,c,3\r\n"
+                    + "t2,b1,20\r\n"
+                    + "t2,a,10\r\n"
+                    + "t2,c,30\r\n"
+                    + "t3,c,1\r\n"
+                    + "t3,b,2\r\n"
+                    + "t4,a,1\r\n"
+                    + "t4,b,2\r\n");
+
+            MetroMap map = new GtfsMetroMapReader().read(directory);
+
+            assertEquals(3, map.getNodes().size());
+            assertEquals(2, map.getEdges().size());
+            Node a = map.getNodes().stream()
+                    .filter(node -> node.getName().equals("A"))
+                    .findFirst()
+                    .orElseThrow(IllegalStateException::new);
+            for (Edge edge : map.getEdges()) {
+                Set<String> routes = new HashSet<>();
+                edge.getRoutes().forEach(route -> routes.add(route.getName()));
+                assertEquals(new HashSet<>(edge.isAdjacent(a) ? Arrays.asList("S1", "S2") : Arrays.asList("S1")), routes);
+            }
+        }
+        finally {
+            delete(directory);
+        }
+
+    }
+
+    @Test
+    void testMissingCoordinates() throws IOException {
+
+        Path directory = Files.createTempDirectory("tramaps-gtfs");
+        try {
+            write(directory, "routes.txt", "route_id,route_short_name,route_type\n"
+                    + "r1,S1,2\n");
+            // stop c is not served and may be incomplete
+            write(directory, "stops.txt", "stop_id,stop_name,stop_lat,stop_lon\n"
+                    + "a,A,47.00,8.00\n"
+                    + "b,B,,8.01\n"
+                    + "c,C,,\n");
+            write(directory, "trips.txt", "route_id,trip_id\n"
+                    + "r1,t1\n");
+            write(directory, "stop_times.txt", "trip_id,stop_id,stop_sequence\n"
+                    + "t1,a,1\n"
+                    + "t1,b,2\n");
+
+            IOException e = assertThrows(IOException.class, () -> new GtfsMetroMapReader().read(directory));
+            assertTrue(e.getMessage().contains("stop b (B)"), e.getMessage());
+
+            write(directory, "stops.txt", "stop_id,stop_name,stop_lat,stop_lon\n"
+                    + "a,A,47.00,8.00\n"
+                    + "b,B,47.00,8.01\n"
+                    + "c,C,,\n");
+            MetroMap map = new GtfsMetroMapReader().read(directory);
+            assertEquals(2, map.getNodes().size());
+            map.getNodes().forEach(node -> assertFalse(Double.isNaN(node.getX()) || Double.isNaN(node.getY())));
+        }
+        finally {
+            delete(directory);
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.snapshot;
+
+import ch.geomo.tramaps.example.MetroMapChapterFive;
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceProgress;
+import ch.geomo.tramaps.map.signature.NodeSignatureType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SnapshotReaderTest {
+
+    private static Set<String> describe(MetroMap map) {
+        Set<String> elements = new HashSet<>();
+        map.getNodes().forEach(node -> elements.add(node.getName() + " " + node.getX() + " " + node.getY() + " " + NodeSignatureType.of(node.getNodeSignature())));
+        for (Edge edge : map.getEdges()) {
+            elements.add(edge.getNodeA().getName() + "-" + edge.getNodeB().getName() + " " + edge.getOriginalDirection(edge.getNodeA()) + " " + new HashSet<>(edge.getRoutes()));
+        }
+        return elements;
+    }
+
+    @Test
+    void testWriteAndMap() throws IOException {
+
+        MetroMap map = new MetroMapChapterFive();
+        DisplaceProgress progress = new DisplaceProgress(DisplaceProgress.Phase.RESTORE_OCTILINEARITY, 7);
+
+        Path file = Files.createTempFile("tramaps", ".tms");
+        try {
+            new SnapshotWriter().write(map, progress, file);
+            Snapshot snapshot = new SnapshotReader().readSnapshot(file);
+
+            assertEquals(progress, snapshot.getProgress());
+            assertEquals(map.getRouteMargin(), snapshot.getMap().getRouteMargin(), 0);
+            assertEquals(map.getEdgeMargin(), snapshot.getMap().getEdgeMargin(), 0);
+            assertEquals(map.getNodeMargin(), snapshot.getMap().getNodeMargin(), 0);
+            assertEquals(describe(map), describe(snapshot.getMap()));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+
+    }
+
+    @Test
+    void testUnsupportedVersion() throws IOException {
+
+        byte[] bytes = new SnapshotWriter().toByteArray(new MetroMapChapterFive());
+        ByteBuffer.wrap(bytes).order(SnapshotFormat.BYTE_ORDER).putInt(4, SnapshotFormat.VERSION + 1);
+
+        Path file = Files.createTempFile("tramaps", ".tms");
+        try {
+            Files.write(file, bytes);
+            IOException e = assertThrows(IOException.class, () -> new SnapshotReader().readSnapshot(file));
+            assertTrue(e.getMessage().startsWith("Unsupported snapshot version"));
+            assertThrows(IOException.class, () -> new SnapshotReader().read(bytes));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+
+    }
+
+}
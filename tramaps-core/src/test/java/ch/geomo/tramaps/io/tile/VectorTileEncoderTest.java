@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.io.tile;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * The command sequences are the examples of the Mapbox Vector Tile specification (version 2).
+ */
+public class VectorTileEncoderTest {
+
+    /**
+     * @return the expected tile with a single feature in layer "l", all values must be smaller than 128
+     */
+    private static byte[] createTile(int type, int... commands) {
+        byte[] feature = new byte[6 + commands.length];
+        feature[0] = 1 << 3;
+        feature[1] = 1;
+        feature[2] = 3 << 3;
+        feature[3] = (byte) type;
+        feature[4] = 4 << 3 | 2;
+        feature[5] = (byte) commands.length;
+        for (int i = 0; i < commands.length; i++) {
+            feature[6 + i] = (byte) commands[i];
+        }
+        byte[] layer = new byte[10 + feature.length];
+        int i = 0;
+        layer[i++] = 15 << 3;
+        layer[i++] = 2;
+        layer[i++] = 1 << 3 | 2;
+        layer[i++] = 1;
+        layer[i++] = 'l';
+        layer[i++] = 2 << 3 | 2;
+        layer[i++] = (byte) feature.length;
+        System.arraycopy(feature, 0, layer, i, feature.length);
+        i += feature.length;
+        layer[i++] = 5 << 3;
+        // 4096 as varint
+        layer[i++] = (byte) 0x80;
+        layer[i] = 0x20;
+        byte[] tile = new byte[2 + layer.length];
+        tile[0] = 3 << 3 | 2;
+        tile[1] = (byte) layer.length;
+        System.arraycopy(layer, 0, tile, 2, layer.length);
+        return tile;
+    }
+
+    private static byte[] encode(int type, VectorTileEncoder.Geometry geometry) {
+        VectorTileEncoder encoder = new VectorTileEncoder(4096);
+        encoder.addFeature("l", type, geometry);
+        return encoder.encode();
+    }
+
+    @Test
+    void testPoint() {
+        VectorTileEncoder.Geometry geometry = new VectorTileEncoder.Geometry();
+        geometry.moveTo(25, 17);
+        assertArrayEquals(createTile(VectorTileEncoder.POINT, 9, 50, 34), encode(VectorTileEncoder.POINT, geometry));
+    }
+
+    @Test
+    void testLineString() {
+        VectorTileEncoder.Geometry geometry = new VectorTileEncoder.Geometry();
+        geometry.moveTo(2, 2);
+        geometry.lineTo(2, 10);
+        geometry.lineTo(10, 10);
+        assertArrayEquals(createTile(VectorTileEncoder.LINE_STRING, 9, 4, 4, 18, 0, 16, 16, 0), encode(VectorTileEncoder.LINE_STRING, geometry));
+    }
+
+    @Test
+    void testLineStringWithRepeatedPoints() {
+        VectorTileEncoder.Geometry geometry = new VectorTileEncoder.Geometry();
+        geometry.moveTo(2, 2);
+        geometry.lineTo(2, 2);
+        geometry.lineTo(2, 10);
+        geometry.lineTo(2, 10);
+        geometry.lineTo(10, 10);
+        assertArrayEquals(createTile(VectorTileEncoder.LINE_STRING, 9, 4, 4, 18, 0, 16, 16, 0), encode(VectorTileEncoder.LINE_STRING, geometry));
+    }
+
+    @Test
+    void testPolygon() {
+        VectorTileEncoder.Geometry geometry = new VectorTileEncoder.Geometry();
+        geometry.moveTo(3, 6);
+        geometry.lineTo(8, 12);
+        geometry.lineTo(20, 34);
+        geometry.closePath();
+        assertArrayEquals(createTile(VectorTileEncoder.POLYGON, 9, 6, 12, 18, 10, 12, 24, 44, 15), encode(VectorTileEncoder.POLYGON, geometry));
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.component;
+
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.graph.index.SpatialGraphIndex;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceLineSpaceHandler;
+import ch.geomo.tramaps.map.signature.RectangleStationSignature;
+import ch.geomo.util.color.Color;
+import com.vividsolutions.jts.geom.Coordinate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ComponentLineSpaceHandlerTest {
+
+    private static MetroMap createMap(int componentCount) {
+        MetroMap map = new MetroMap(5, 25, 25);
+        Route route = new Route("U1", 20, Color.BLUE);
+        for (int i = 0; i < componentCount; i++) {
+            double x = i * 1000;
+            Node a = map.createNode(x, 0, "A" + i, RectangleStationSignature::new);
+            Node b = map.createNode(x + 20, 10, "B" + i, RectangleStationSignature::new);
+            Node c = map.createNode(x + 40, 0, "C" + i, RectangleStationSignature::new);
+            map.createEdge(a, b, route);
+            map.createEdge(b, c, route);
+        }
+        return map;
+    }
+
+    @Test
+    void testDisposeIndexesBeforeParallelLayout() {
+
+        MetroMap map = createMap(3);
+        SpatialGraphIndex index = map.getSpatialIndex();
+        assertTrue(map.countNonOctilinearEdges() > 0);
+
+        List<Coordinate> coordinates = new ArrayList<>();
+        map.getNodes().forEach(node -> coordinates.add(new Coordinate(node.getCoordinate())));
+
+        AtomicBoolean observed = new AtomicBoolean(false);
+        new ComponentLineSpaceHandler(map, component -> {
+            // invoked on the threads of the components, the index of the map must not observe the nodes anymore
+            if (coordinates.stream().anyMatch(coordinate -> !index.getNodes(coordinate).isEmpty())) {
+                observed.set(true);
+            }
+            return new DisplaceLineSpaceHandler(component);
+        }).setThreadCount(3).makeSpace();
+
+        assertFalse(observed.get());
+
+        // the indexes are created again for the laid out map
+        assertEquals(0, map.countNonOctilinearEdges());
+        map.getNodes().forEach(node -> assertTrue(map.getSpatialIndex().getNodes(node.getCoordinate()).contains(node)));
+
+    }
+
+}
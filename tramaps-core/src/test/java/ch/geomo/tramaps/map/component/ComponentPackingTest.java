@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.component;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ComponentPackingTest {
+
+    private static final double SPACING = 50;
+    private static final double EPSILON = 1e-9;
+
+    private static List<Envelope> createBoxes(Random random, int count, double extent) {
+        List<Envelope> boxes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * extent;
+            double y = random.nextDouble() * extent;
+            boxes.add(new Envelope(x, x + 10 + random.nextDouble() * 400, y, y + 10 + random.nextDouble() * 400));
+        }
+        return boxes;
+    }
+
+    private static List<Envelope> translate(List<Envelope> boxes, List<Coordinate> offsets) {
+        List<Envelope> result = new ArrayList<>();
+        for (int i = 0; i < boxes.size(); i++) {
+            Envelope box = new Envelope(boxes.get(i));
+            box.translate(offsets.get(i).x, offsets.get(i).y);
+            result.add(box);
+        }
+        return result;
+    }
+
+    private static void assertNoOverlap(List<Envelope> boxes) {
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int j = i + 1; j < boxes.size(); j++) {
+                Envelope a = boxes.get(i);
+                Envelope b = boxes.get(j);
+                double gapX = Math.max(a.getMinX() - b.getMaxX(), b.getMinX() - a.getMaxX());
+                double gapY = Math.max(a.getMinY() - b.getMaxY(), b.getMinY() - a.getMaxY());
+                assertTrue(Math.max(gapX, gapY) >= SPACING - EPSILON, "Boxes " + a + " and " + b + " overlap.");
+            }
+        }
+    }
+
+    @Test
+    void testPackWithoutOverlap() {
+        Random random = new Random(42);
+        for (ComponentPacking packing : ComponentPacking.values()) {
+            for (int round = 0; round < 20; round++) {
+                // laid-out components are larger than in the input map and overlap
+                List<Envelope> inputBoxes = createBoxes(random, 1 + random.nextInt(30), 1000);
+                List<Envelope> boxes = new ArrayList<>();
+                inputBoxes.forEach(box -> {
+                    Envelope laidOut = new Envelope(box);
+                    laidOut.expandBy(random.nextDouble() * 200);
+                    boxes.add(laidOut);
+                });
+                List<Coordinate> offsets = packing.pack(boxes, inputBoxes, SPACING);
+                assertEquals(boxes.size(), offsets.size());
+                assertNoOverlap(translate(boxes, offsets));
+            }
+        }
+    }
+
+    @Test
+    void testGeographicOrder() {
+        List<Envelope> inputBoxes = createBoxes(new Random(7), 25, 2000);
+        List<Envelope> boxes = translate(inputBoxes, ComponentPacking.GEOGRAPHIC.pack(inputBoxes, inputBoxes, SPACING));
+        for (int i = 0; i < boxes.size(); i++) {
+            for (int j = 0; j < boxes.size(); j++) {
+                if (inputBoxes.get(i).centre().x < inputBoxes.get(j).centre().x) {
+                    assertTrue(boxes.get(i).centre().x <= boxes.get(j).centre().x + EPSILON);
+                }
+            }
+            // vertical position is kept
+            assertEquals(inputBoxes.get(i).centre().y, boxes.get(i).centre().y, EPSILON);
+        }
+    }
+
+}
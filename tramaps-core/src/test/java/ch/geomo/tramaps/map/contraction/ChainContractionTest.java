@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.contraction;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.RectangleStationSignature;
+import ch.geomo.util.color.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChainContractionTest {
+
+    private static MetroMap createMap() {
+        MetroMap map = new MetroMap(5, 25, 25);
+        Route red = new Route("S1", 10, Color.RED);
+        Route blue = new Route("S2", 10, Color.BLUE);
+        Node west = map.createNode(0, 0, "West", RectangleStationSignature::new);
+        Node east = map.createNode(1000, 0, "East", RectangleStationSignature::new);
+        // chain of four stations between the junctions
+        Node previous = west;
+        for (int i = 1; i <= 4; i++) {
+            Node node = map.createNode(i * 200, 0, "A" + i, RectangleStationSignature::new);
+            map.createEdge(previous, node, red, blue);
+            previous = node;
+        }
+        map.createEdge(previous, east, red, blue);
+        // the routes split at the junctions
+        Node north = map.createNode(0, 200, "North", RectangleStationSignature::new);
+        Node south = map.createNode(1000, -200, "South", RectangleStationSignature::new);
+        map.createEdge(west, north, red);
+        map.createEdge(west, map.createNode(-200, 0, "Terminus", RectangleStationSignature::new), blue);
+        map.createEdge(east, south, red);
+        map.createEdge(east, map.createNode(1200, 0, "Terminus East", RectangleStationSignature::new), blue);
+        return map;
+    }
+
+    private static Map<String, Set<Route>> describeEdges(MetroMap map) {
+        Map<String, Set<Route>> edges = new HashMap<>();
+        for (Edge edge : map.getEdges()) {
+            String a = edge.getNodeA().getName();
+            String b = edge.getNodeB().getName();
+            edges.put(a.compareTo(b) < 0 ? a + "-" + b : b + "-" + a, new HashSet<>(edge.getRoutes()));
+        }
+        return edges;
+    }
+
+    @Test
+    void testContractAndExpand() {
+
+        MetroMap map = createMap();
+        Set<Node> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        nodes.addAll(map.getNodes());
+        Map<Node, String> positions = new IdentityHashMap<>();
+        nodes.forEach(node -> positions.put(node, node.getX() + " " + node.getY()));
+        Map<String, Set<Route>> edges = describeEdges(map);
+
+        ChainContraction contraction = new ChainContraction(map);
+        contraction.contract();
+
+        assertEquals(1, contraction.getChainCount());
+        assertEquals(4, contraction.getContractedNodeCount());
+        // four stations replaced by a single node
+        assertEquals(nodes.size() - 3, map.getNodes().size());
+
+        contraction.expand();
+
+        Set<Node> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        expanded.addAll(map.getNodes());
+        assertEquals(nodes, expanded);
+        nodes.forEach(node -> assertEquals(positions.get(node), node.getX() + " " + node.getY()));
+        assertEquals(edges, describeEdges(map));
+        map.getEdges().forEach(edge -> assertTrue(nodes.contains(edge.getNodeA()) && nodes.contains(edge.getNodeB())));
+
+    }
+
+    @Test
+    void testExpandAfterMovingNodes() {
+
+        MetroMap map = createMap();
+        Map<String, Set<Route>> edges = describeEdges(map);
+        int nodeCount = map.getNodes().size();
+
+        ChainContraction contraction = new ChainContraction(map);
+        contraction.contract();
+        // stands for the layout of the coarse map
+        map.getNodes().forEach(node -> node.updatePosition(node.getX() * 2, node.getY() * 2));
+        contraction.expand();
+
+        assertEquals(nodeCount, map.getNodes().size());
+        assertEquals(edges, describeEdges(map));
+        // the stations of the chain are distributed along the stretched chain
+        map.getNodes().stream()
+                .filter(node -> node.getName().startsWith("A"))
+                .forEach(node -> assertTrue(node.getX() > 0 && node.getX() < 2000 && node.getY() == 0));
+
+    }
+
+}
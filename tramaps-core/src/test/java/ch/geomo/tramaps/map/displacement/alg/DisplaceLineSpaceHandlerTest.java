@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.displacement.alg;
+
+import ch.geomo.tramaps.example.MetroMapLine;
+import ch.geomo.tramaps.map.MetroMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DisplaceLineSpaceHandlerTest {
+
+    @Test
+    void testCheckpointAfterCompletedIterationsOnly() {
+
+        MetroMap map = new MetroMapLine();
+        List<DisplaceProgress> checkpoints = new ArrayList<>();
+        new DisplaceLineSpaceHandler(map)
+                .setCheckpointListener((m, progress) -> checkpoints.add(progress))
+                .makeSpace();
+
+        assertFalse(checkpoints.isEmpty());
+        assertEquals(DisplaceProgress.Phase.MAKE_SPACE, checkpoints.get(0).getPhase());
+        checkpoints.forEach(progress -> assertTrue(progress.getCompletedIterations() > 0));
+
+    }
+
+    @Test
+    void testResumeOnce() {
+
+        MetroMap map = new MetroMapLine();
+        List<DisplaceProgress> checkpoints = new ArrayList<>();
+        DisplaceLineSpaceHandler handler = new DisplaceLineSpaceHandler(map)
+                .setCheckpointListener((m, progress) -> checkpoints.add(progress))
+                // all iterations completed, nothing left to do
+                .resume(new DisplaceProgress(DisplaceProgress.Phase.RESTORE_OCTILINEARITY, 200));
+
+        handler.makeSpace();
+        assertTrue(checkpoints.isEmpty());
+
+        // the second run starts from the beginning
+        handler.makeSpace();
+        assertFalse(checkpoints.isEmpty());
+        assertEquals(DisplaceProgress.Phase.MAKE_SPACE, checkpoints.get(0).getPhase());
+
+    }
+
+}
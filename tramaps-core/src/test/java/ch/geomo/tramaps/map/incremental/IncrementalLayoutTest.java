@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map.incremental;
+
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.graph.Route;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.signature.RectangleStationSignature;
+import ch.geomo.util.color.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IncrementalLayoutTest {
+
+    private static final int STATION_COUNT = 10;
+
+    /**
+     * @return a straight line of stations with given spacing
+     */
+    private static MetroMap createLine(double spacing) {
+        MetroMap map = new MetroMap(5, 25, 25);
+        Route route = new Route("U1", 10, Color.BLUE);
+        Node previous = null;
+        for (int i = 0; i < STATION_COUNT; i++) {
+            Node node = map.createNode(i * spacing, 0, "S" + i, RectangleStationSignature::new);
+            if (previous != null) {
+                map.createEdge(previous, node, route);
+            }
+            previous = node;
+        }
+        return map;
+    }
+
+    @Test
+    void testMoveEditedNodesOnly() {
+
+        MetroMap previous = createLine(200);
+        // stands for the layout of the previous map, which differs from its input
+        MetroMap previousLayout = createLine(300);
+        assertTrue(previousLayout.evaluateConflicts(true).isEmpty());
+
+        // a new station overlapping the first one
+        MetroMap current = createLine(200);
+        Node first = MetroMapDiff.getNodesByName(current).get("S0");
+        Node added = current.createNode(0, 10, "X", RectangleStationSignature::new);
+        current.createEdge(first, added, new Route("U2", 10, Color.RED));
+
+        MetroMap result = new IncrementalLayout(previousLayout, MetroMapDiff.between(previous, current)).makeSpace();
+
+        assertTrue(result.evaluateConflicts(true).isEmpty());
+        Map<String, Node> nodes = MetroMapDiff.getNodesByName(result);
+        assertEquals(STATION_COUNT + 1, nodes.size());
+        for (int i = 0; i < STATION_COUNT; i++) {
+            Node node = nodes.get("S" + i);
+            assertEquals(i * 300, node.getX(), 0);
+            assertEquals(0, node.getY(), 0);
+        }
+
+    }
+
+}
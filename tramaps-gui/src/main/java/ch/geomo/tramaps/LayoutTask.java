@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps;
+
+import ch.geomo.tramaps.map.MapSnapshot;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.displacement.IterationMetrics;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandler;
+import javafx.concurrent.Task;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Makes space for line and station signatures on a worker thread. The intermediate states are published as
+ * {@link MapSnapshot} values of this task, at most one per given interval, so the map itself must not be accessed
+ * by the JavaFX application thread while the task is running.
+ * <p>
+ * Cancelling the task interrupts the worker thread, which stops the {@link LineSpaceHandler} at the start of the
+ * next iteration (see {@link LineSpaceHandler#checkInterrupted()}). Handlers notifying their listeners on several
+ * threads, e.g. when laying out components in parallel, are not supported.
+ */
+public class LayoutTask extends Task<MapSnapshot> {
+
+    private final MetroMap map;
+    private final LineSpaceHandler handler;
+    private final long interval;
+
+    private long lastPublished;
+
+    /**
+     * @param interval minimal number of milliseconds between two published snapshots
+     */
+    public LayoutTask(@NotNull MetroMap map, @NotNull Function<MetroMap, LineSpaceHandler> handlerFactory, long interval) {
+        this.map = map;
+        this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+        handler = handlerFactory.apply(map);
+        handler.addLayoutListener(this::iterationCompleted);
+    }
+
+    /**
+     * Invoked on the worker thread after each iteration.
+     */
+    private void iterationCompleted(@NotNull IterationMetrics metrics) {
+        updateMessage(metrics.getPhase() + " " + metrics.getIteration() + ": " + metrics.getConflictCount() + " conflicts");
+        long now = System.nanoTime();
+        if (now - lastPublished >= interval) {
+            lastPublished = now;
+            updateValue(MapSnapshot.of(map));
+        }
+    }
+
+    @Override
+    protected MapSnapshot call() {
+        lastPublished = System.nanoTime();
+        handler.makeSpace();
+        MapSnapshot snapshot = MapSnapshot.of(map);
+        updateValue(snapshot);
+        return snapshot;
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps;
+
+import ch.geomo.tramaps.example.*;
+import ch.geomo.tramaps.map.MapSnapshot;
+import ch.geomo.tramaps.map.MetroMap;
+import ch.geomo.tramaps.map.MetroMapDrawer;
+import ch.geomo.tramaps.map.SimpleGraphDrawer;
+import ch.geomo.tramaps.map.displacement.LineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.alg.DisplaceLineSpaceHandler;
+import ch.geomo.tramaps.map.displacement.scale.ScaleHandler;
+import ch.geomo.util.logging.Loggers;
+import com.vividsolutions.jts.geom.Envelope;
+import javafx.application.Application;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.Stage;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+public class MainApp extends Application {
+
+    private static final int DRAWING_MARGIN = 50;
+
+    private static final double MAX_HEIGHT = 600;
+    private static final double MAX_WIDTH = 1400;
+
+    /**
+     * Minimal number of milliseconds between two repaints while the layout is running.
+     */
+    private static final long REPAINT_INTERVAL = 250;
+
+    private MetroMap map;
+    private Stage stage;
+
+    private final Canvas canvas = new Canvas();
+    private final Label statusLabel = new Label();
+    private final Button cancelButton = new Button("Cancel");
+
+    /**
+     * Makes space on a worker thread and repaints the intermediate states.
+     */
+    private void makeSpace(@NotNull Function<MetroMap, LineSpaceHandler> handlerFactory) {
+
+        LayoutTask task = new LayoutTask(map, handlerFactory, REPAINT_INTERVAL);
+        task.valueProperty().addListener((observable, oldSnapshot, snapshot) -> {
+            if (snapshot != null) {
+                drawMetroMap(snapshot);
+            }
+        });
+
+        statusLabel.textProperty().bind(task.messageProperty());
+        cancelButton.setOnAction(event -> task.cancel());
+        task.setOnSucceeded(event -> finish("Done"));
+        task.setOnCancelled(event -> finish("Cancelled"));
+        task.setOnFailed(event -> {
+            Loggers.error(this, "Cannot make space: {0}", task.getException());
+            finish("Failed: " + task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "tramaps-layout");
+        thread.setDaemon(true);
+        thread.start();
+
+    }
+
+    private void finish(@NotNull String status) {
+        statusLabel.textProperty().unbind();
+        statusLabel.setText(status);
+        cancelButton.setDisable(true);
+    }
+
+    @Override
+    public void start(@NotNull Stage primaryStage) throws Exception {
+
+        stage = primaryStage;
+        stage.setTitle("Tramaps GUI");
+
+        //map = new MetroMapChapterFive();
+        //map = new MetroMapExampleGraph();
+        map = new MetroMapZuerich();
+
+        // the worker thread has not been started yet
+        drawMetroMap(MapSnapshot.of(map));
+        showMetroMap();
+
+        //makeSpace(ScaleHandler::new);
+        makeSpace(DisplaceLineSpaceHandler::new);
+
+    }
+
+    /**
+     * Draws given snapshot, never the map itself since the map is modified by the layout.
+     */
+    private void drawMetroMap(@NotNull MapSnapshot snapshot) {
+
+        Envelope bbox = snapshot.getBoundingBox();
+
+        double scaleFactor = MAX_HEIGHT / bbox.getHeight();
+
+        double scaledHeight = bbox.getHeight() * scaleFactor + DRAWING_MARGIN * 2;
+        double scaledWidth = bbox.getWidth() * scaleFactor + DRAWING_MARGIN * 2;
+
+        canvas.setWidth(scaledWidth);
+        canvas.setHeight(scaledHeight);
+
+        GraphicsContext context = canvas.getGraphicsContext2D();
+        context.clearRect(0, 0, scaledWidth, scaledHeight);
+        context.save();
+
+        MetroMapDrawer drawer = new MetroMapDrawer(snapshot, DRAWING_MARGIN, scaleFactor, false, false);
+        drawer.draw(context, bbox);
+
+        // workaround: scaling is done when drawing otherwise an exception may happen:
+        // -> Requested texture dimension exceeds maximum texture size
+        // canvas.setScaleX(scaleFactor);
+        // canvas.setScaleY(scaleFactor);
+
+        context.restore();
+
+    }
+
+    private void showMetroMap() {
+
+        Group group = new Group();
+        group.getChildren().add(canvas);
+
+        ScrollPane scrollPane = new ScrollPane(group);
+        scrollPane.setStyle("-fx-focus-color: transparent;");
+
+        HBox statusBar = new HBox(10, cancelButton, statusLabel);
+        statusBar.setAlignment(Pos.CENTER_LEFT);
+        statusBar.setPadding(new Insets(5));
+
+        BorderPane pane = new BorderPane(scrollPane);
+        pane.setBottom(statusBar);
+
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        Scene scene = new Scene(pane, width + 5, height + 40);
+
+        stage.setScene(scene);
+        stage.setWidth(Math.min(MAX_WIDTH, width) + 5);
+        stage.setResizable(false);
+        stage.show();
+
+    }
+
+    public static void main(String... args) throws IOException {
+        MainApp.launch(args);
+    }
+
+}
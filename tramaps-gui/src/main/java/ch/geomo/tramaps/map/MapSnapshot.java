@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2016-2018 Thomas Zuberbuehler. All rights reserved.
+ */
+
+package ch.geomo.tramaps.map;
+
+import ch.geomo.tramaps.graph.Edge;
+import ch.geomo.tramaps.graph.Node;
+import ch.geomo.tramaps.map.signature.BendNodeSignature;
+import com.vividsolutions.jts.geom.Envelope;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable copy of the coordinates of a {@link MetroMap} which can be drawn while the map is still being
+ * modified by the layout on another thread.
+ */
+public final class MapSnapshot {
+
+    private final List<EdgeSnapshot> edges;
+    private final List<NodeSnapshot> nodes;
+    private final Envelope boundingBox;
+
+    private MapSnapshot(@NotNull List<EdgeSnapshot> edges, @NotNull List<NodeSnapshot> nodes, @NotNull Envelope boundingBox) {
+        this.edges = Collections.unmodifiableList(edges);
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.boundingBox = boundingBox;
+    }
+
+    /**
+     * Copies the current state of given map. Must be invoked on the thread modifying the map.
+     */
+    @NotNull
+    public static MapSnapshot of(@NotNull MetroMap map) {
+
+        List<EdgeSnapshot> edges = new ArrayList<>();
+        List<NodeSnapshot> nodes = new ArrayList<>();
+        Envelope boundingBox = new Envelope();
+
+        for (Edge edge : map.getEdges()) {
+            EdgeSnapshot snapshot = new EdgeSnapshot(edge, map.getRouteMargin());
+            edges.add(snapshot);
+            boundingBox.expandToInclude(snapshot.xA, snapshot.yA);
+            boundingBox.expandToInclude(snapshot.xB, snapshot.yB);
+        }
+        for (Node node : map.getNodes()) {
+            NodeSnapshot snapshot = new NodeSnapshot(node);
+            nodes.add(snapshot);
+            boundingBox.expandToInclude(snapshot.signature);
+        }
+
+        return new MapSnapshot(edges, nodes, boundingBox);
+
+    }
+
+    @NotNull
+    public List<EdgeSnapshot> getEdges() {
+        return edges;
+    }
+
+    @NotNull
+    public List<NodeSnapshot> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return a copy of the bounding box of all edges and node signatures
+     */
+    @NotNull
+    public Envelope getBoundingBox() {
+        return new Envelope(boundingBox);
+    }
+
+    /**
+     * The position and appearance of an {@link Edge}.
+     */
+    public static final class EdgeSnapshot {
+
+        private final double xA;
+        private final double yA;
+        private final double xB;
+        private final double yB;
+        private final double width;
+        private final boolean routes;
+        private final boolean octilinear;
+
+        private EdgeSnapshot(@NotNull Edge edge, double routeMargin) {
+            xA = edge.getNodeA().getX();
+            yA = edge.getNodeA().getY();
+            xB = edge.getNodeB().getX();
+            yB = edge.getNodeB().getY();
+            width = edge.calculateEdgeWidth(routeMargin);
+            routes = edge.hasRoutes();
+            octilinear = edge.isOctilinear();
+        }
+
+        public double getXA() {
+            return xA;
+        }
+
+        public double getYA() {
+            return yA;
+        }
+
+        public double getXB() {
+            return xB;
+        }
+
+        public double getYB() {
+            return yB;
+        }
+
+        /**
+         * @return the width of the edge including the margins between the routes
+         */
+        public double getWidth() {
+            return width;
+        }
+
+        public boolean hasRoutes() {
+            return routes;
+        }
+
+        public boolean isOctilinear() {
+            return octilinear;
+        }
+
+        public boolean isNotOctilinear() {
+            return !octilinear;
+        }
+
+    }
+
+    /**
+     * The position and signature of a {@link Node}.
+     */
+    public static final class NodeSnapshot {
+
+        private final String name;
+        private final double x;
+        private final double y;
+        private final Envelope signature;
+        private final boolean bendNode;
+
+        private NodeSnapshot(@NotNull Node node) {
+            name = node.getName();
+            x = node.getX();
+            y = node.getY();
+            signature = new Envelope(node.getNodeSignature().getGeometry().getEnvelopeInternal());
+            bendNode = node.getNodeSignature() instanceof BendNodeSignature;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        /**
+         * @return a copy of the envelope of the node signature
+         */
+        @NotNull
+        public Envelope getSignature() {
+            return new Envelope(signature);
+        }
+
+        public boolean isBendNode() {
+            return bendNode;
+        }
+
+    }
+
+}
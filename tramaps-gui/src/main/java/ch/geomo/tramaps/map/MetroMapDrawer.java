@@ -5,8 +5,7 @@
 package ch.geomo.tramaps.map;
 
 import ch.geomo.tramaps.conflict.BufferConflict;
-import ch.geomo.tramaps.graph.Edge;
-import ch.geomo.tramaps.map.signature.BendNodeSignature;
+import ch.geomo.tramaps.map.MapSnapshot.EdgeSnapshot;
 import com.vividsolutions.jts.geom.Envelope;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
@@ -14,25 +13,28 @@ import javafx.scene.shape.StrokeLineCap;
 import javafx.scene.text.Font;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Draws a {@link MapSnapshot}, so the map may be modified by the layout while drawing.
+ */
 public class MetroMapDrawer {
 
-    private final MetroMap map;
+    private final MapSnapshot snapshot;
     private final double margin;
     private final double scaleFactor;
 
     private final boolean showNodeName;
     private final boolean showNodePosition;
 
-    public MetroMapDrawer(@NotNull MetroMap map, double margin, double scaleFactor, boolean showNodeName, boolean showNodePosition) {
-        this.map = map;
+    public MetroMapDrawer(@NotNull MapSnapshot snapshot, double margin, double scaleFactor, boolean showNodeName, boolean showNodePosition) {
+        this.snapshot = snapshot;
         this.margin = margin;
         this.scaleFactor = scaleFactor;
         this.showNodeName = showNodeName;
         this.showNodePosition = showNodePosition;
     }
 
-    private void drawEdge(@NotNull Edge edge, @NotNull GraphicsContext context) {
-        context.strokeLine(edge.getNodeA().getX() * scaleFactor, -edge.getNodeA().getY() * scaleFactor, edge.getNodeB().getX() * scaleFactor, -edge.getNodeB().getY() * scaleFactor);
+    private void drawEdge(@NotNull EdgeSnapshot edge, @NotNull GraphicsContext context) {
+        context.strokeLine(edge.getXA() * scaleFactor, -edge.getYA() * scaleFactor, edge.getXB() * scaleFactor, -edge.getYB() * scaleFactor);
     }
 
     public void draw(@NotNull GraphicsContext context, @NotNull Envelope bbox) {
@@ -48,10 +50,10 @@ public class MetroMapDrawer {
             context.strokeLine(-max * scaleFactor, -i * scaleFactor, max * 2 * scaleFactor, -i * scaleFactor);
         }
 
-        map.getEdges().stream()
-                .filter(Edge::hasRoutes)
+        snapshot.getEdges().stream()
+                .filter(EdgeSnapshot::hasRoutes)
                 .forEach(edge -> {
-                    double width = edge.calculateEdgeWidth(map.getRouteMargin()) * scaleFactor;
+                    double width = edge.getWidth() * scaleFactor;
                     context.setLineWidth(width);
                     context.setStroke(Color.rgb(139, 187, 206, 0.5d));
                     if (edge.isNotOctilinear()) {
@@ -60,22 +62,22 @@ public class MetroMapDrawer {
                     context.setLineCap(StrokeLineCap.BUTT);
                     drawEdge(edge, context);
                 });
-        map.getNodes().stream()
-                .filter(node -> !(node.getNodeSignature() instanceof BendNodeSignature))
+        snapshot.getNodes().stream()
+                .filter(node -> !node.isBendNode())
                 .forEach(node -> {
-                    Envelope station = node.getNodeSignature().getGeometry().getEnvelopeInternal();
+                    Envelope station = node.getSignature();
                     context.setFill(Color.BLACK);
                     context.fillRoundRect((station.getMinX() - 5) * scaleFactor, (-station.getMaxY() - 5) * scaleFactor, (station.getWidth() + 10) * scaleFactor, (station.getHeight() + 10) * scaleFactor, 25 * scaleFactor, 25 * scaleFactor);
                     context.setFill(Color.WHITE);
                     context.fillRoundRect(station.getMinX() * scaleFactor, -station.getMaxY() * scaleFactor, station.getWidth() * scaleFactor, station.getHeight() * scaleFactor, 25 * scaleFactor, 25 * scaleFactor);
                 });
-        map.getEdges().forEach(edge -> {
+        snapshot.getEdges().forEach(edge -> {
             context.setLineWidth(2 * scaleFactor);
             context.setStroke(Color.BLACK);
             drawEdge(edge, context);
         });
         context.translate(-5 * scaleFactor, -5 * scaleFactor);
-        map.getNodes().forEach(node -> {
+        snapshot.getNodes().forEach(node -> {
             context.setFill(Color.rgb(0, 145, 255));
             context.fillOval(node.getX() * scaleFactor, -node.getY() * scaleFactor, 10 * scaleFactor, 10 * scaleFactor);
         });
@@ -91,8 +93,8 @@ public class MetroMapDrawer {
 
         if (showNodeName) {
             Font font = Font.font(7);
-            map.getNodes().forEach(node -> {
-                Envelope station = node.getNodeSignature().getGeometry().getEnvelopeInternal();
+            snapshot.getNodes().forEach(node -> {
+                Envelope station = node.getSignature();
                 context.setStroke(Color.BLACK);
                 context.setFont(font);
                 context.setLineWidth(0.5);
@@ -100,8 +102,8 @@ public class MetroMapDrawer {
                     context.strokeText(node.getName() + "(" + Math.round(node.getX()) + "/" + Math.round(node.getY()) + ")", station.getMinX() * scaleFactor - 50 * scaleFactor, -station.getMaxY() * scaleFactor - 20 * scaleFactor);
                 }
                 else {
-                    if (node.getNodeSignature() instanceof BendNodeSignature) {
-                        // context.strokeText(node.getName(), node.getPoint().getX() * scaleFactor - 50 * scaleFactor, -node.getPoint().getY() * scaleFactor - 20 * scaleFactor);
+                    if (node.isBendNode()) {
+                        // context.strokeText(node.getName(), node.getX() * scaleFactor - 50 * scaleFactor, -node.getY() * scaleFactor - 20 * scaleFactor);
                     }
                     else {
                         context.strokeText(node.getName(), station.getMinX() * scaleFactor - 20 * scaleFactor, -station.getMaxY() * scaleFactor - 20 * scaleFactor);